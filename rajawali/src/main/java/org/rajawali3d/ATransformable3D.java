@@ -21,6 +21,7 @@ import org.rajawali3d.math.Quaternion;
 import org.rajawali3d.math.vector.Vector3;
 import org.rajawali3d.scenegraph.IGraphNode;
 import org.rajawali3d.scenegraph.IGraphNodeMember;
+import org.rajawali3d.util.RenderStats;
 
 public abstract class ATransformable3D implements IGraphNodeMember {
     protected final Matrix4 mMMatrix = new Matrix4(); //The model matrix
@@ -36,8 +37,12 @@ public abstract class ATransformable3D implements IGraphNodeMember {
     protected boolean mLookAtEnabled; //Should we auto enforce look at target?
     protected boolean mIsCamera; //is this a camera object?
     protected boolean mIsModelMatrixDirty = true; // If true, the model matrix needs to be recalculated.
+    protected boolean mIsModelMatrixUniformScale = true; // If true, the model matrix scales all axes equally.
     protected boolean mInsideGraph = false; //Default to being outside the graph
     protected IGraphNode mGraphNode; //Which graph node are we in?
+    protected volatile TransformStore mTransformStore; //The store calculating the model matrix, if any
+    protected int mTransformNode = TransformStore.NO_PARENT; //The id of this object's node in the store
+    private int mTransformVersion; //The version of the store node last copied into the model matrix
 
     /**
      * Default constructor for {@link ATransformable3D}.
@@ -57,6 +62,52 @@ public abstract class ATransformable3D implements IGraphNodeMember {
      */
     protected void markModelMatrixDirty() {
         mIsModelMatrixDirty = true;
+        final TransformStore store = mTransformStore;
+        if (store != null) {
+            store.markOwnerDirty();
+        }
+    }
+
+    /**
+     * Keeps the transform of this object in a {@link TransformStore}, which calculates the model matrices of a whole
+     * hierarchy in one linear pass. The position, scale and orientation are copied into the store when they change,
+     * and {@link #calculateModelMatrix(Matrix4)} copies the world matrix back out instead of calculating it, ignoring
+     * its parent matrix. Objects whose model matrix isn't built from their position, scale and orientation alone
+     * shouldn't be kept in a store, see {@link Object3D#canUseTransformStore()}. This may be called on any thread, the
+     * store is locked while this object's node is added or removed.
+     *
+     * @param store      {@link TransformStore} The store, or null to calculate the model matrix without one.
+     * @param parentNode {@code int} The id of the parent's node in the store, or {@link TransformStore#NO_PARENT}.
+     */
+    public void setTransformStore(TransformStore store, int parentNode) {
+        final TransformStore previous = mTransformStore;
+        if (previous != null) {
+            synchronized (previous) {
+                previous.remove(mTransformNode);
+                mTransformStore = null;
+                mTransformNode = TransformStore.NO_PARENT;
+            }
+        }
+        if (store != null) {
+            synchronized (store) {
+                mTransformNode = store.add(parentNode, this);
+                mTransformVersion = -1;
+                mTransformStore = store;
+            }
+        }
+        markModelMatrixDirty();
+    }
+
+    public TransformStore getTransformStore() {
+        return mTransformStore;
+    }
+
+    /**
+     * @return {@code int} The id of this object's node in its {@link TransformStore}, which changes when the store
+     * compacts itself.
+     */
+    public int getTransformNode() {
+        return mTransformNode;
     }
 
     /**
@@ -66,10 +117,28 @@ public abstract class ATransformable3D implements IGraphNodeMember {
      * @return A flag indicating whether the model matrix was recalculated or not.
      */
     public boolean onRecalculateModelMatrix(Matrix4 parentMatrix) {
+        final TransformStore store = mTransformStore;
+        if (store != null) {
+            synchronized (store) {
+                // Checked again under the lock, as the object may have left the store in the meantime
+                if (mTransformStore == store) {
+                    // The store usually updated the whole hierarchy at the start of the frame, so this only copies
+                    // the result
+                    store.update(mTransformNode);
+                    if (store.getVersion(mTransformNode) == mTransformVersion) {
+                        return false;
+                    }
+                    calculateModelMatrix(parentMatrix);
+                    if (mGraphNode != null) mGraphNode.updateObject(this);
+                    return true;
+                }
+            }
+        }
         if (mIsModelMatrixDirty) {
             calculateModelMatrix(parentMatrix);
-            if (mGraphNode != null) mGraphNode.updateObject(this);
+            // Cleared before the graph is told, as it reads the transformed bounds back
             mIsModelMatrixDirty = false;
+            if (mGraphNode != null) mGraphNode.updateObject(this);
             return true;
         }
         return false;
@@ -90,10 +159,48 @@ public abstract class ATransformable3D implements IGraphNodeMember {
      * @param parentMatrix {@link Matrix4} The parent matrix, if any, to apply to this object.
      */
     public void calculateModelMatrix(final Matrix4 parentMatrix) {
+        final TransformStore store = mTransformStore;
+        if (store != null) {
+            synchronized (store) {
+                if (mTransformStore == store) {
+                    store.update(mTransformNode);
+                    store.getWorldMatrix(mTransformNode, mMMatrix);
+                    mIsModelMatrixUniformScale = store.isUniformScale(mTransformNode);
+                    mTransformVersion = store.getVersion(mTransformNode);
+                    RenderStats.countModelMatrix();
+                    return;
+                }
+            }
+        }
         mMMatrix.setAll(mPosition, mScale, mOrientation);
+        mIsModelMatrixUniformScale = mScale.x == mScale.y && mScale.y == mScale.z;
         if (parentMatrix != null) {
             mMMatrix.leftMultiply(parentMatrix);
+            mIsModelMatrixUniformScale &= isUniformScale(parentMatrix);
         }
+        RenderStats.countModelMatrix();
+    }
+
+    /**
+     * Whether the model matrix, as of its last calculation, scales all axes by the same amount. Such a matrix is a
+     * rotation, uniform scale and translation, whose normal matrix needs no inverse.
+     *
+     * @return {@code boolean} True if the model matrix has a uniform scale.
+     */
+    public boolean isModelMatrixUniformScale() {
+        return mIsModelMatrixUniformScale;
+    }
+
+    /**
+     * Whether a parent matrix passed to {@link #calculateModelMatrix(Matrix4)} scales all axes by the same amount.
+     * Nothing is known about an arbitrary matrix, so this returns false unless overridden by objects which know their
+     * parent.
+     *
+     * @param parentMatrix {@link Matrix4} The parent matrix.
+     * @return {@code boolean} True if the parent matrix is known to have a uniform scale.
+     */
+    protected boolean isUniformScale(Matrix4 parentMatrix) {
+        return false;
     }
 
     /**
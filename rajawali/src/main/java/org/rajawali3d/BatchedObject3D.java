@@ -0,0 +1,131 @@
+/**
+ * Copyright 2013 Dennis Ippel
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except in compliance with
+ * the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License is distributed on
+ * an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations under the License.
+ */
+package org.rajawali3d;
+
+import android.opengl.GLES20;
+
+import org.rajawali3d.Geometry3D.BufferType;
+import org.rajawali3d.materials.Material;
+
+/**
+ * The merged geometry of several objects sharing a material, as built by {@link org.rajawali3d.util.StaticBatcher}.
+ * The vertices of each member are already transformed into this object's space, and each member owns a contiguous
+ * range of the index buffer, so members can be hidden individually. Runs of adjacent visible members are drawn with a
+ * single draw call.
+ */
+public class BatchedObject3D extends Object3D {
+
+    protected final Object3D[] mMembers;
+    protected final int[]      mIndexOffsets;
+    protected final int[]      mIndexCounts;
+    protected final boolean[]  mMemberVisible;
+    protected       int        mHiddenMembers;
+
+    /**
+     * @param members      {@link Object3D} array of the merged objects, in index buffer order.
+     * @param indexOffsets {@code int} array of the first index of each member.
+     * @param indexCounts  {@code int} array of the number of indices of each member.
+     */
+    public BatchedObject3D(Object3D[] members, int[] indexOffsets, int[] indexCounts) {
+        super();
+        mMembers = members;
+        mIndexOffsets = indexOffsets;
+        mIndexCounts = indexCounts;
+        mMemberVisible = new boolean[members.length];
+        for (int i = 0; i < members.length; ++i) {
+            mMemberVisible[i] = true;
+        }
+    }
+
+    public int getMemberCount() {
+        return mMembers.length;
+    }
+
+    public Object3D getMember(int index) {
+        return mMembers[index];
+    }
+
+    /**
+     * @param member {@link Object3D} One of the merged objects.
+     * @return {@code int} The index of the member, or -1 if it isn't part of this batch.
+     */
+    public int indexOfMember(Object3D member) {
+        for (int i = 0; i < mMembers.length; ++i) {
+            if (mMembers[i] == member) {
+                return i;
+            }
+        }
+        return -1;
+    }
+
+    public int getMemberIndexOffset(int index) {
+        return mIndexOffsets[index];
+    }
+
+    public int getMemberIndexCount(int index) {
+        return mIndexCounts[index];
+    }
+
+    public void setMemberVisible(int index, boolean visible) {
+        if (mMemberVisible[index] != visible) {
+            mMemberVisible[index] = visible;
+            mHiddenMembers += visible ? -1 : 1;
+        }
+    }
+
+    public void setMemberVisible(Object3D member, boolean visible) {
+        final int index = indexOfMember(member);
+        if (index >= 0) {
+            setMemberVisible(index, visible);
+        }
+    }
+
+    public boolean isMemberVisible(int index) {
+        return mMemberVisible[index];
+    }
+
+    /*
+     * (non-Javadoc)
+     * @see org.rajawali3d.Object3D#drawElements(org.rajawali3d.materials.Material)
+     */
+    @Override
+    protected void drawElements(Material material) {
+        if (mHiddenMembers == 0) {
+            super.drawElements(material);
+            return;
+        }
+        if (mHiddenMembers == mMembers.length) {
+            return;
+        }
+        final BufferInfo indexInfo = mGeometry.getIndexBufferInfo();
+        final boolean shortIndices = indexInfo.bufferType == BufferType.SHORT_BUFFER;
+        final int bufferType = shortIndices ? GLES20.GL_UNSIGNED_SHORT : GLES20.GL_UNSIGNED_INT;
+        final int indexSize = shortIndices ? Geometry3D.SHORT_SIZE_BYTES : Geometry3D.INT_SIZE_BYTES;
+        GLES20.glBindBuffer(GLES20.GL_ELEMENT_ARRAY_BUFFER, indexInfo.bufferHandle);
+        int i = 0;
+        while (i < mMembers.length) {
+            if (!mMemberVisible[i]) {
+                ++i;
+                continue;
+            }
+            final int start = mIndexOffsets[i];
+            int count = 0;
+            while (i < mMembers.length && mMemberVisible[i]) {
+                count += mIndexCounts[i];
+                ++i;
+            }
+            GLES20.glDrawElements(mDrawingMode, count, bufferType, start * indexSize);
+        }
+        GLES20.glBindBuffer(GLES20.GL_ELEMENT_ARRAY_BUFFER, 0);
+    }
+}
@@ -28,6 +28,15 @@ public class BufferInfo {
     public int stride = 0;
     public int offset = 0;
     public int type = GLES20.GL_FLOAT;
+    /**
+     * Whether integer data is mapped to [0, 1], or [-1, 1] if signed, when read by a shader.
+     */
+    public boolean normalized = false;
+    /**
+     * The buffer this attribute is interleaved into, if any. The attribute is then read from that buffer's GL handle
+     * using {@link #stride} and {@link #offset}, and {@link #buffer} is only a client side copy.
+     */
+    public BufferInfo interleavedBuffer;
 
 	public BufferInfo() {
 		this.usage = GLES20.GL_STATIC_DRAW;
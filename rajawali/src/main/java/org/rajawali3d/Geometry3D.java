@@ -48,8 +48,8 @@ import java.util.Arrays;
  * FloatBuffer texCoords = geom.getTextureCoords();
  * // Get colors (r, g, b, a)
  * FloatBuffer colors = geom.getColors();
- * // Get indices.
- * IntBuffer indices = geom.getIndices();
+ * // Get indices, either a ShortBuffer or an IntBuffer
+ * Buffer indices = geom.getIndexBuffer();
  * </pre></code>
  *
  * @author dennis.ippel
@@ -61,6 +61,11 @@ public class Geometry3D {
     public static final int SHORT_SIZE_BYTES = 2;
     public static final int BYTE_SIZE_BYTES  = 1;
 
+    /**
+     * The largest index which can be stored in an unsigned short index buffer.
+     */
+    public static final int MAX_SHORT_INDEX = 0xFFFF;
+
     public static final int VERTEX_BUFFER_KEY  = 0;
     public static final int NORMAL_BUFFER_KEY  = 1;
     public static final int TEXTURE_BUFFER_KEY = 2;
@@ -105,6 +110,10 @@ public class Geometry3D {
      * Indicates whether this geometry contains texture coordinates or not.
      */
     protected boolean        mHasTextureCoordinates;
+    /**
+     * The buffer holding all vertex attributes, one vertex after another, or null if each attribute has its own buffer.
+     */
+    protected BufferInfo     mInterleavedBufferInfo;
 
     public enum BufferType {
         FLOAT_BUFFER,
@@ -218,7 +227,7 @@ public class Geometry3D {
                 } else if (buffer instanceof ShortBuffer) {
                     int count = 0;
                     while (buffer.hasRemaining()) {
-                        array[count] = (int) (((ShortBuffer) buffer).get());
+                        array[count] = ((ShortBuffer) buffer).get() & 0xFFFF;
                         ++count;
                     }
                 }
@@ -304,7 +313,7 @@ public class Geometry3D {
         float[] addNormals = getFloatArrayFromBuffer(geometry.getNormals());
         float[] addColors = getFloatArrayFromBuffer(geometry.getColors());
         float[] addTextureCoords = getFloatArrayFromBuffer(geometry.getTextureCoords());
-        int[] addIndices = getIntArrayFromBuffer(geometry.getIndices());
+        int[] addIndices = getIntArrayFromBuffer(geometry.getIndexBuffer());
         int index_offset = 0;
         if (mVerticesArray != null) {
             index_offset = (mVerticesArray.length / 3);
@@ -469,8 +478,16 @@ public class Geometry3D {
      * Creates the actual Buffer objects.
      */
     public void createBuffers() {
+        if (mInterleavedBufferInfo != null) {
+            mInterleavedBufferInfo.buffer.position(0);
+            createBuffer(mInterleavedBufferInfo);
+        }
 
         for (BufferInfo info : mBuffers) {
+            if (info.interleavedBuffer != null) {
+                createInterleavedAttribute(info);
+                continue;
+            }
             if (info.buffer != null) {
                 if (info.buffer instanceof FloatBuffer) {
                     ((FloatBuffer) info.buffer).compact().position(0);
@@ -620,9 +637,190 @@ public class Geometry3D {
         for (int i = 0, j = mBuffers.size(); i < j; ++i) {
             final BufferInfo info = mBuffers.get(i);
             if (info != null && info.bufferHandle == 0) {
-                createBuffer(info);
+                if (info.interleavedBuffer != null) {
+                    createInterleavedAttribute(info);
+                } else {
+                    createBuffer(info);
+                }
+            }
+        }
+    }
+
+    /**
+     * Points an interleaved attribute at the GL buffer it is interleaved into, creating that buffer if needed.
+     */
+    private void createInterleavedAttribute(BufferInfo info) {
+        final BufferInfo interleaved = info.interleavedBuffer;
+        if (interleaved.bufferHandle <= 0) {
+            createBuffer(interleaved);
+        }
+        info.bufferHandle = interleaved.bufferHandle;
+        info.bufferType = BufferType.FLOAT_BUFFER;
+        info.target = GLES20.GL_ARRAY_BUFFER;
+    }
+
+    /**
+     * Converts the vertex attributes from a buffer per attribute into a single buffer holding the position, normal,
+     * texture coordinates and color of each vertex one after another, leaving out attributes this geometry doesn't
+     * have. The attributes' {@link BufferInfo}s then share one GL buffer and describe their place in it with their
+     * stride and offset, which is how the {@link org.rajawali3d.materials.Material} binds them. Only one buffer is
+     * bound per attribute and the attributes of a vertex are fetched from one place, which suits large static meshes.
+     *
+     * The separate buffers are kept as client side copies, for bounds and picking, but changing their data is no
+     * longer reflected in GL. If the buffers have already been created this must be called on the GL thread.
+     *
+     * @throws IllegalStateException if this geometry has no vertices or is a copy of another geometry.
+     */
+    public void interleave() {
+        interleave(false);
+    }
+
+    /**
+     * Interleaves the vertex attributes as {@link #interleave()} does, optionally quantizing them. Quantized normals
+     * are stored as normalized bytes, texture coordinates as normalized unsigned shorts and colors as normalized
+     * unsigned bytes, roughly halving the size of the buffer. Positions are kept as floats, as are texture coordinates
+     * outside of [0, 1], which normalized shorts can't represent.
+     *
+     * @param quantize {@code boolean} Whether to store normals, texture coordinates and colors in compact formats.
+     *
+     * @throws IllegalStateException if this geometry has no vertices or is a copy of another geometry.
+     */
+    public void interleave(boolean quantize) {
+        if (mInterleavedBufferInfo != null) {
+            return;
+        }
+        if (mOriginalGeometry != null) {
+            throw new IllegalStateException("Interleave the original geometry rather than a copy of it.");
+        }
+        final BufferInfo vertexInfo = mBuffers.get(VERTEX_BUFFER_KEY);
+        if (vertexInfo.buffer == null) {
+            throw new IllegalStateException("A geometry without vertices can't be interleaved.");
+        }
+
+        final BufferInfo[] attributes = new BufferInfo[]{
+                vertexInfo, mBuffers.get(NORMAL_BUFFER_KEY), mBuffers.get(TEXTURE_BUFFER_KEY),
+                mBuffers.get(COLOR_BUFFER_KEY)
+        };
+        final int[] components = new int[]{ 3, 3, 2, 4 };
+        final int[] types = new int[]{ GLES20.GL_FLOAT, GLES20.GL_FLOAT, GLES20.GL_FLOAT, GLES20.GL_FLOAT };
+        if (quantize) {
+            types[1] = GLES20.GL_BYTE;
+            if (isInUnitRange((FloatBuffer) attributes[2].buffer)) {
+                types[2] = GLES20.GL_UNSIGNED_SHORT;
+            }
+            types[3] = GLES20.GL_UNSIGNED_BYTE;
+        }
+
+        // Every attribute is padded to 4 bytes, as some GPUs fetch unaligned attributes slowly
+        final int[] offsets = new int[attributes.length];
+        int stride = 0;
+        for (int i = 0; i < attributes.length; ++i) {
+            if (attributes[i].buffer != null) {
+                offsets[i] = stride;
+                stride += (components[i] * getTypeSize(types[i]) + 3) & ~3;
+            }
+        }
+
+        final int numVertices = ((FloatBuffer) vertexInfo.buffer).limit() / 3;
+        final ByteBuffer data = ByteBuffer.allocateDirect(numVertices * stride).order(ByteOrder.nativeOrder());
+        final BufferInfo interleaved = quantize ? new BufferInfo(BufferType.BYTE_BUFFER, data)
+                                                : new BufferInfo(BufferType.FLOAT_BUFFER, data.asFloatBuffer());
+        interleaved.target = GLES20.GL_ARRAY_BUFFER;
+        interleaved.usage = vertexInfo.usage;
+        interleaved.stride = stride;
+
+        final int[] oldHandles = new int[attributes.length];
+        for (int i = 0; i < attributes.length; ++i) {
+            final BufferInfo info = attributes[i];
+            if (info.buffer == null) {
+                continue;
+            }
+            final FloatBuffer source = (FloatBuffer) info.buffer;
+            final int size = components[i];
+            final int count = Math.min(numVertices, source.limit() / size);
+            for (int v = 0; v < count; ++v) {
+                final int vertexOffset = v * stride + offsets[i];
+                for (int c = 0; c < size; ++c) {
+                    final float value = source.get(v * size + c);
+                    switch (types[i]) {
+                        case GLES20.GL_BYTE:
+                            data.put(vertexOffset + c, (byte) Math.round(clamp(value, -1, 1) * 127));
+                            break;
+                        case GLES20.GL_UNSIGNED_BYTE:
+                            data.put(vertexOffset + c, (byte) Math.round(clamp(value, 0, 1) * 255));
+                            break;
+                        case GLES20.GL_UNSIGNED_SHORT:
+                            data.putShort(vertexOffset + c * SHORT_SIZE_BYTES,
+                                          (short) Math.round(clamp(value, 0, 1) * 65535));
+                            break;
+                        default:
+                            data.putFloat(vertexOffset + c * FLOAT_SIZE_BYTES, value);
+                    }
+                }
+            }
+            oldHandles[i] = info.bufferHandle;
+            info.interleavedBuffer = interleaved;
+            info.stride = stride;
+            info.offset = offsets[i];
+            info.type = types[i];
+            info.normalized = types[i] != GLES20.GL_FLOAT;
+        }
+        mInterleavedBufferInfo = interleaved;
+
+        if (mHaveCreatedBuffers) {
+            GLES20.glDeleteBuffers(oldHandles.length, oldHandles, 0);
+            for (int i = 0; i < attributes.length; ++i) {
+                if (attributes[i].interleavedBuffer != null) {
+                    createInterleavedAttribute(attributes[i]);
+                }
+            }
+        }
+    }
+
+    private static boolean isInUnitRange(FloatBuffer buffer) {
+        if (buffer == null) {
+            return false;
+        }
+        for (int i = 0, j = buffer.limit(); i < j; ++i) {
+            final float value = buffer.get(i);
+            if (value < 0 || value > 1) {
+                return false;
             }
         }
+        return true;
+    }
+
+    private static float clamp(float value, float min, float max) {
+        return value < min ? min : (value > max ? max : value);
+    }
+
+    private static int getTypeSize(int type) {
+        switch (type) {
+            case GLES20.GL_BYTE:
+            case GLES20.GL_UNSIGNED_BYTE:
+                return BYTE_SIZE_BYTES;
+            case GLES20.GL_SHORT:
+            case GLES20.GL_UNSIGNED_SHORT:
+                return SHORT_SIZE_BYTES;
+            default:
+                return FLOAT_SIZE_BYTES;
+        }
+    }
+
+    /**
+     * @return {@code boolean} True if the vertex attributes share a single interleaved buffer.
+     *
+     * @see #interleave()
+     */
+    public boolean isInterleaved() {
+        return mInterleavedBufferInfo != null;
+    }
+
+    /**
+     * @return {@link BufferInfo} The buffer the vertex attributes are interleaved into, or null if they aren't.
+     */
+    public BufferInfo getInterleavedBufferInfo() {
+        return mInterleavedBufferInfo;
     }
 
     /**
@@ -714,6 +912,9 @@ public class Geometry3D {
      * @param resizeBuffer
      */
     public void changeBufferData(BufferInfo bufferInfo, Buffer newData, int index, int size, boolean resizeBuffer) {
+        if (bufferInfo.interleavedBuffer != null) {
+            throw new IllegalStateException("The data of an interleaved attribute can't be changed in place.");
+        }
         newData.rewind();
 
         GLES20.glBindBuffer(bufferInfo.target, bufferInfo.bufferHandle);
@@ -808,24 +1009,113 @@ public class Geometry3D {
         setIndices(indices, false);
     }
 
+    /**
+     * Sets the indices. They are stored as unsigned shorts, halving the size of the index buffer, when every index
+     * fits in 16 bits, which is the case for any mesh of fewer than 65536 vertices, and as ints otherwise.
+     *
+     * @param indices  {@code int} array of the indices.
+     * @param override {@code boolean} If true a new buffer is allocated, otherwise the indices are written into the
+     *                 existing buffer at its current position.
+     */
     public void setIndices(int[] indices, boolean override) {
         final BufferInfo indexInfo = mBuffers.get(INDEX_BUFFER_KEY);
+        final boolean fitsShort = getMaxIndex(indices) <= MAX_SHORT_INDEX;
         if (indexInfo.buffer == null || override == true) {
-            indexInfo.buffer = ByteBuffer.allocateDirect(indices.length * INT_SIZE_BYTES)
-                    .order(ByteOrder.nativeOrder()).asIntBuffer();
-            ((IntBuffer) indexInfo.buffer).put(indices).position(0);
+            if (fitsShort) {
+                final ShortBuffer buffer = ByteBuffer.allocateDirect(indices.length * SHORT_SIZE_BYTES)
+                        .order(ByteOrder.nativeOrder()).asShortBuffer();
+                for (int i = 0; i < indices.length; ++i) {
+                    buffer.put(i, (short) indices[i]);
+                }
+                indexInfo.buffer = buffer;
+                indexInfo.bufferType = BufferType.SHORT_BUFFER;
+            } else {
+                indexInfo.buffer = ByteBuffer.allocateDirect(indices.length * INT_SIZE_BYTES)
+                        .order(ByteOrder.nativeOrder()).asIntBuffer();
+                ((IntBuffer) indexInfo.buffer).put(indices).position(0);
+                indexInfo.bufferType = BufferType.INT_BUFFER;
+            }
 
             mNumIndices = indices.length;
         } else {
-            ((IntBuffer) indexInfo.buffer).put(indices);
+            if (indexInfo.buffer instanceof ShortBuffer && !fitsShort) {
+                // Widen the existing indices so the new ones fit
+                final ShortBuffer shorts = (ShortBuffer) indexInfo.buffer;
+                final IntBuffer ints = ByteBuffer.allocateDirect(shorts.capacity() * INT_SIZE_BYTES)
+                        .order(ByteOrder.nativeOrder()).asIntBuffer();
+                for (int i = 0; i < shorts.capacity(); ++i) {
+                    ints.put(i, shorts.get(i) & 0xFFFF);
+                }
+                ints.position(shorts.position());
+                indexInfo.buffer = ints;
+                indexInfo.bufferType = BufferType.INT_BUFFER;
+            }
+            if (indexInfo.buffer instanceof ShortBuffer) {
+                final ShortBuffer buffer = (ShortBuffer) indexInfo.buffer;
+                for (int i = 0; i < indices.length; ++i) {
+                    buffer.put((short) indices[i]);
+                }
+            } else {
+                ((IntBuffer) indexInfo.buffer).put(indices);
+            }
         }
     }
 
+    /**
+     * Returns the indices as ints. If they are stored as shorts, see {@link #setIndices(int[], boolean)}, this
+     * allocates a new direct buffer holding a widened copy on every call, and writes to it don't reach the geometry.
+     *
+     * @return {@link IntBuffer} The indices.
+     * @deprecated The indices may be stored as shorts. Use {@link #getIndexBuffer()} or {@link #getIndex(int)}.
+     */
+    @Deprecated
     public IntBuffer getIndices() {
+        final Buffer buffer = getIndexBuffer();
+        if (buffer instanceof ShortBuffer) {
+            final ShortBuffer shorts = (ShortBuffer) buffer;
+            final IntBuffer ints = ByteBuffer.allocateDirect(shorts.capacity() * INT_SIZE_BYTES)
+                    .order(ByteOrder.nativeOrder()).asIntBuffer();
+            for (int i = 0; i < shorts.capacity(); ++i) {
+                ints.put(i, shorts.get(i) & 0xFFFF);
+            }
+            return ints;
+        }
+        return (IntBuffer) buffer;
+    }
+
+    /**
+     * @return {@link Buffer} The indices as stored, either a {@link ShortBuffer} of unsigned shorts or an
+     * {@link IntBuffer}.
+     */
+    public Buffer getIndexBuffer() {
         if (mBuffers.get(INDEX_BUFFER_KEY).buffer == null && mOriginalGeometry != null) {
-            return mOriginalGeometry.getIndices();
+            return mOriginalGeometry.getIndexBuffer();
+        }
+        return mBuffers.get(INDEX_BUFFER_KEY).buffer;
+    }
+
+    /**
+     * Reads a single index, whichever way the indices are stored.
+     *
+     * @param position {@code int} The position of the index.
+     * @return {@code int} The index.
+     */
+    public int getIndex(int position) {
+        final Buffer buffer = getIndexBuffer();
+        if (buffer instanceof ShortBuffer) {
+            return ((ShortBuffer) buffer).get(position) & 0xFFFF;
         }
-        return (IntBuffer) mBuffers.get(INDEX_BUFFER_KEY).buffer;
+        return ((IntBuffer) buffer).get(position);
+    }
+
+    private static int getMaxIndex(int[] indices) {
+        int max = 0;
+        for (int i = 0; i < indices.length; ++i) {
+            if (indices[i] > max) {
+                max = indices[i];
+            }
+        }
+        return max;
     }
 
     public void setTextureCoords(float[] textureCoords) {
@@ -935,6 +1225,71 @@ public class Geometry3D {
         GLES20.glBindBuffer(GLES20.GL_ARRAY_BUFFER, 0);
     }
 
+    /**
+     * The number of bytes this geometry's buffers take up, in GL once they are created. An interleaved buffer is
+     * counted once, in place of the attributes interleaved into it.
+     *
+     * @return {@code int} The size of the buffers in bytes.
+     */
+    public int getMemoryFootprint() {
+        int bytes = mInterleavedBufferInfo != null ? getBufferSize(mInterleavedBufferInfo) : 0;
+        for (int i = 0, j = mBuffers.size(); i < j; ++i) {
+            final BufferInfo info = mBuffers.get(i);
+            if (info != null && info.interleavedBuffer == null) {
+                bytes += getBufferSize(info);
+            }
+        }
+        return bytes;
+    }
+
+    /**
+     * Lists the size and format of each of this geometry's buffers, for finding meshes worth compacting.
+     *
+     * @return {@link String} The memory report.
+     */
+    public String getMemoryReport() {
+        final StringBuilder buff = new StringBuilder("Geometry3D memory: ");
+        buff.append(getMemoryFootprint()).append(" bytes\n");
+        final String[] names = new String[]{ "vertices", "normals", "uvs", "colors", "indices" };
+        for (int i = 0, j = mBuffers.size(); i < j; ++i) {
+            final BufferInfo info = mBuffers.get(i);
+            if (info == null || info.buffer == null) {
+                continue;
+            }
+            buff.append(i < names.length ? names[i] : "buffer " + i).append(": ");
+            if (info.interleavedBuffer != null) {
+                buff.append("interleaved, offset ").append(info.offset).append(", type ").append(info.type);
+            } else {
+                buff.append(getBufferSize(info)).append(" bytes, ").append(info.bufferType);
+            }
+            buff.append("\n");
+        }
+        if (mInterleavedBufferInfo != null) {
+            buff.append("interleaved: ").append(getBufferSize(mInterleavedBufferInfo)).append(" bytes, stride ")
+                .append(mInterleavedBufferInfo.stride).append("\n");
+        }
+        return buff.toString();
+    }
+
+    private static int getBufferSize(BufferInfo info) {
+        if (info.buffer == null) {
+            return 0;
+        }
+        if (info.bufferType == null) {
+            return info.buffer.capacity() * FLOAT_SIZE_BYTES;
+        }
+        switch (info.bufferType) {
+            case BYTE_BUFFER:
+                return info.buffer.capacity() * BYTE_SIZE_BYTES;
+            case SHORT_BUFFER:
+                return info.buffer.capacity() * SHORT_SIZE_BYTES;
+            case INT_BUFFER:
+                return info.buffer.capacity() * INT_SIZE_BYTES;
+            default:
+                return info.buffer.capacity() * FLOAT_SIZE_BYTES;
+        }
+    }
+
     public String toString() {
         final StringBuilder buff = new StringBuilder();
         if (mBuffers.get(INDEX_BUFFER_KEY).buffer != null) {
@@ -983,6 +1338,11 @@ public class Geometry3D {
             }
         }
         GLES20.glDeleteBuffers(buffers.length, buffers, 0);
+        if (mInterleavedBufferInfo != null) {
+            // The attributes held the interleaved buffer's handle, so it has been deleted with them
+            mInterleavedBufferInfo.buffer = null;
+            mInterleavedBufferInfo = null;
+        }
 
         mOriginalGeometry = null;
 
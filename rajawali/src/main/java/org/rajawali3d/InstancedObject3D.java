@@ -0,0 +1,391 @@
+/**
+ * Copyright 2013 Dennis Ippel
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except in compliance with
+ * the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License is distributed on
+ * an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations under the License.
+ */
+package org.rajawali3d;
+
+import android.opengl.GLES20;
+import android.opengl.GLES30;
+
+import org.rajawali3d.Geometry3D.BufferType;
+import org.rajawali3d.bounds.BoundingBox;
+import org.rajawali3d.materials.Material;
+import org.rajawali3d.materials.plugins.IMaterialPlugin;
+import org.rajawali3d.materials.plugins.InstancingMaterialPlugin;
+import org.rajawali3d.math.Matrix4;
+import org.rajawali3d.math.Quaternion;
+import org.rajawali3d.math.vector.Vector3;
+import org.rajawali3d.util.Capabilities;
+
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.FloatBuffer;
+
+/**
+ * Draws many copies of one mesh with a single material in one draw call. Each instance has its own model matrix and
+ * color, stored in a {@link FloatBuffer} which is uploaded to a single dynamic vertex buffer whenever it changes. The
+ * instance transforms are relative to this object, which is positioned like any other {@link Object3D}.
+ *
+ * Instance data is laid out as {@link #FLOATS_PER_INSTANCE} floats per instance: a column major 4x4 model matrix
+ * followed, at {@link #COLOR_OFFSET}, by an RGBA color which multiplies the material color. The setters write straight
+ * into the buffer and allocate nothing, so instances can be updated every frame.
+ *
+ * On GL ES 3.0 the instances are drawn with {@code glDrawElementsInstanced}. On GL ES 2.0 they are drawn one at a time
+ * with the instance attributes set as constants, which still avoids the per object uniforms and state changes of
+ * drawing separate objects.
+ *
+ * The material is given an {@link InstancingMaterialPlugin} and must not be shared with objects which aren't
+ * instanced.
+ */
+public class InstancedObject3D extends Object3D {
+
+    /**
+     * The number of floats of instance data per instance.
+     */
+    public static final int FLOATS_PER_INSTANCE = 20;
+    /**
+     * The offset of the instance color within the instance data of an instance.
+     */
+    public static final int COLOR_OFFSET = 16;
+
+    protected final int         mCapacity;
+    protected final FloatBuffer mInstances;
+    protected final BufferInfo  mInstanceBufferInfo;
+    protected final Vector3     mMeshMin = new Vector3();
+    protected final Vector3     mMeshMax = new Vector3();
+    protected       int         mInstanceCount;
+    protected       boolean     mInstancesDirty;
+    protected       boolean     mInstanceBoundsStale;
+    protected       Boolean     mHardwareInstancing;
+
+    private InstancingMaterialPlugin mMaterialPlugin;
+
+    private final Matrix4 mTmpMatrix = new Matrix4();
+    private final Vector3 mTmpScale  = new Vector3();
+    private final Vector3 mTmpMin    = new Vector3();
+    private final Vector3 mTmpMax    = new Vector3();
+
+    /**
+     * Creates an instanced copy of an object's mesh. The geometry's buffers are shared with the source object, as they
+     * are by {@link Object3D#clone()}.
+     *
+     * @param source   {@link Object3D} The object whose mesh is instanced.
+     * @param capacity {@code int} The maximum number of instances.
+     */
+    public InstancedObject3D(Object3D source, int capacity) {
+        super();
+        source.cloneTo(this, false);
+        mCapacity = capacity;
+        mInstances = ByteBuffer.allocateDirect(capacity * FLOATS_PER_INSTANCE * Geometry3D.FLOAT_SIZE_BYTES)
+            .order(ByteOrder.nativeOrder()).asFloatBuffer();
+        mInstanceBufferInfo = new BufferInfo(BufferType.FLOAT_BUFFER, mInstances);
+        mInstanceBufferInfo.target = GLES20.GL_ARRAY_BUFFER;
+        mInstanceBufferInfo.usage = GLES20.GL_DYNAMIC_DRAW;
+
+        final Matrix4 identity = mTmpMatrix.identity();
+        for (int i = 0; i < capacity; ++i) {
+            setInstanceMatrix(i, identity);
+            setInstanceColor(i, 1, 1, 1, 1);
+        }
+
+        final BoundingBox meshBounds = source.getGeometry().getBoundingBox();
+        mMeshMin.setAll(meshBounds.getMin());
+        mMeshMax.setAll(meshBounds.getMax());
+        mGeometry.setBoundingBox(new BoundingBox(mMeshMin, mMeshMax));
+
+        if (source.getMaterial() != null) {
+            setMaterial(source.getMaterial());
+        }
+    }
+
+    /**
+     * Sets the number of instances drawn, which are the first ones in the instance data.
+     *
+     * @param count {@code int} The number of instances, at most the capacity.
+     */
+    public void setInstanceCount(int count) {
+        if (count < 0 || count > mCapacity) {
+            throw new IllegalArgumentException("Instance count " + count + " is outside of [0, " + mCapacity + "].");
+        }
+        mInstanceCount = count;
+        markInstancesDirty();
+    }
+
+    public int getInstanceCount() {
+        return mInstanceCount;
+    }
+
+    public int getCapacity() {
+        return mCapacity;
+    }
+
+    /**
+     * Sets the model matrix of an instance.
+     *
+     * @param instance {@code int} The index of the instance.
+     * @param matrix   {@link Matrix4} The model matrix, relative to this object.
+     */
+    public void setInstanceMatrix(int instance, Matrix4 matrix) {
+        final double[] m = matrix.getDoubleValues();
+        final int offset = instance * FLOATS_PER_INSTANCE;
+        for (int i = 0; i < 16; ++i) {
+            mInstances.put(offset + i, (float) m[i]);
+        }
+        markInstancesDirty();
+    }
+
+    /**
+     * Sets the model matrix of an instance to the world matrix of a {@link TransformStore} node, as of the store's last
+     * update.
+     *
+     * @param instance {@code int} The index of the instance.
+     * @param store    {@link TransformStore} The store holding the instance transforms, relative to this object.
+     * @param node     {@code int} The id of the node.
+     */
+    public void setInstanceMatrix(int instance, TransformStore store, int node) {
+        final double[] world = store.getWorldMatrices();
+        final int offset = instance * FLOATS_PER_INSTANCE;
+        for (int i = 0, o = node * 16; i < 16; ++i) {
+            mInstances.put(offset + i, (float) world[o + i]);
+        }
+        markInstancesDirty();
+    }
+
+    /**
+     * Sets the model matrix of an instance to a translation, rotation and uniform scale.
+     *
+     * @param instance    {@code int} The index of the instance.
+     * @param position    {@link Vector3} The position, relative to this object.
+     * @param orientation {@link Quaternion} The orientation.
+     * @param scale       {@code double} The uniform scale.
+     */
+    public void setInstanceTransform(int instance, Vector3 position, Quaternion orientation, double scale) {
+        setInstanceMatrix(instance, mTmpMatrix.setAll(position, mTmpScale.setAll(scale, scale, scale), orientation));
+    }
+
+    /**
+     * Moves an instance, leaving the rest of its model matrix unchanged.
+     *
+     * @param instance {@code int} The index of the instance.
+     * @param x        {@code double} The x position, relative to this object.
+     * @param y        {@code double} The y position, relative to this object.
+     * @param z        {@code double} The z position, relative to this object.
+     */
+    public void setInstancePosition(int instance, double x, double y, double z) {
+        final int offset = instance * FLOATS_PER_INSTANCE;
+        mInstances.put(offset + Matrix4.M03, (float) x);
+        mInstances.put(offset + Matrix4.M13, (float) y);
+        mInstances.put(offset + Matrix4.M23, (float) z);
+        markInstancesDirty();
+    }
+
+    /**
+     * Sets the color of an instance, which multiplies the material color.
+     *
+     * @param instance {@code int} The index of the instance.
+     */
+    public void setInstanceColor(int instance, float r, float g, float b, float a) {
+        final int offset = instance * FLOATS_PER_INSTANCE + COLOR_OFFSET;
+        mInstances.put(offset, r);
+        mInstances.put(offset + 1, g);
+        mInstances.put(offset + 2, b);
+        mInstances.put(offset + 3, a);
+        markInstancesDirty();
+    }
+
+    /**
+     * Returns the instance data, for writing many instances directly. Call {@link #markInstancesDirty()} after
+     * changing it.
+     *
+     * @return {@link FloatBuffer} The instance data.
+     */
+    public FloatBuffer getInstanceBuffer() {
+        return mInstances;
+    }
+
+    /**
+     * Flags the instance data for upload and the bounds for recalculation before the next render.
+     */
+    public void markInstancesDirty() {
+        mInstancesDirty = true;
+        mInstanceBoundsStale = true;
+    }
+
+    /**
+     * Forces instanced drawing on or off. By default it is used when the device supports GL ES 3.0.
+     *
+     * @param enabled {@code boolean} Whether to draw all instances in one call.
+     */
+    public void setHardwareInstancingEnabled(boolean enabled) {
+        mHardwareInstancing = enabled;
+    }
+
+    public boolean isHardwareInstancingEnabled() {
+        if (mHardwareInstancing == null) {
+            mHardwareInstancing = Capabilities.getGLESMajorVersion() >= 3;
+        }
+        return mHardwareInstancing;
+    }
+
+    /**
+     * Sets the bounds of the mesh to the box enclosing every instance, in this object's space.
+     */
+    protected void updateInstanceBounds() {
+        final BoundingBox box = mGeometry.getBoundingBox();
+        if (mInstanceCount == 0) {
+            box.setMin(mMeshMin);
+            box.setMax(mMeshMax);
+        } else {
+            final double cx = (mMeshMax.x + mMeshMin.x) * 0.5;
+            final double cy = (mMeshMax.y + mMeshMin.y) * 0.5;
+            final double cz = (mMeshMax.z + mMeshMin.z) * 0.5;
+            final double ex = (mMeshMax.x - mMeshMin.x) * 0.5;
+            final double ey = (mMeshMax.y - mMeshMin.y) * 0.5;
+            final double ez = (mMeshMax.z - mMeshMin.z) * 0.5;
+            mTmpMin.setAll(Double.MAX_VALUE, Double.MAX_VALUE, Double.MAX_VALUE);
+            mTmpMax.setAll(-Double.MAX_VALUE, -Double.MAX_VALUE, -Double.MAX_VALUE);
+            for (int i = 0; i < mInstanceCount; ++i) {
+                final int o = i * FLOATS_PER_INSTANCE;
+                // The box around a transformed box has the transformed center and an extent summing the absolute
+                // contributions of each axis
+                for (int axis = 0; axis < 3; ++axis) {
+                    final float m0 = mInstances.get(o + axis);
+                    final float m1 = mInstances.get(o + 4 + axis);
+                    final float m2 = mInstances.get(o + 8 + axis);
+                    final double center = m0 * cx + m1 * cy + m2 * cz + mInstances.get(o + 12 + axis);
+                    final double extent = Math.abs(m0) * ex + Math.abs(m1) * ey + Math.abs(m2) * ez;
+                    if (center - extent < getAxis(mTmpMin, axis)) {
+                        setAxis(mTmpMin, axis, center - extent);
+                    }
+                    if (center + extent > getAxis(mTmpMax, axis)) {
+                        setAxis(mTmpMax, axis, center + extent);
+                    }
+                }
+            }
+            box.setMin(mTmpMin);
+            box.setMax(mTmpMax);
+        }
+        box.calculatePoints();
+        mInstanceBoundsStale = false;
+        mBoundsStale = true;
+    }
+
+    /*
+     * (non-Javadoc)
+     * @see org.rajawali3d.Object3D#preRender()
+     */
+    @Override
+    protected void preRender() {
+        super.preRender();
+        if (mInstanceBoundsStale) {
+            updateInstanceBounds();
+        }
+        if (mInstanceBufferInfo.bufferHandle <= 0) {
+            mGeometry.createBuffer(mInstanceBufferInfo, BufferType.FLOAT_BUFFER, GLES20.GL_ARRAY_BUFFER,
+                                   GLES20.GL_DYNAMIC_DRAW);
+            mInstancesDirty = false;
+        } else if (mInstancesDirty && mInstanceCount > 0) {
+            mGeometry.changeBufferData(mInstanceBufferInfo, mInstances, 0, mInstanceCount * FLOATS_PER_INSTANCE);
+            mInstancesDirty = false;
+        }
+    }
+
+    /**
+     * {@link #preRender()} only uploads the instance data, which doesn't change until the next frame, so the draw can
+     * still be queued.
+     */
+    @Override
+    protected boolean canDeferDraw() {
+        return true;
+    }
+
+    /*
+     * (non-Javadoc)
+     * @see org.rajawali3d.Object3D#drawElements(org.rajawali3d.materials.Material)
+     */
+    @Override
+    protected void drawElements(Material material) {
+        if (mInstanceCount == 0 || mMaterialPlugin == null) {
+            return;
+        }
+        final int bufferType = mGeometry.getIndexBufferInfo().bufferType == BufferType.SHORT_BUFFER
+                               ? GLES20.GL_UNSIGNED_SHORT : GLES20.GL_UNSIGNED_INT;
+        GLES20.glBindBuffer(GLES20.GL_ELEMENT_ARRAY_BUFFER, mGeometry.getIndexBufferInfo().bufferHandle);
+        if (isHardwareInstancingEnabled()) {
+            mMaterialPlugin.setInstanceBuffer(mInstanceBufferInfo.bufferHandle, true);
+            GLES30.glDrawElementsInstanced(mDrawingMode, mGeometry.getNumIndices(), bufferType, 0, mInstanceCount);
+            mMaterialPlugin.unsetInstanceBuffer(true);
+        } else {
+            for (int i = 0; i < mInstanceCount; ++i) {
+                mMaterialPlugin.setInstanceAttributes(mInstances, i);
+                GLES20.glDrawElements(mDrawingMode, mGeometry.getNumIndices(), bufferType, 0);
+            }
+        }
+        GLES20.glBindBuffer(GLES20.GL_ELEMENT_ARRAY_BUFFER, 0);
+    }
+
+    /*
+     * (non-Javadoc)
+     * @see org.rajawali3d.Object3D#setMaterial(org.rajawali3d.materials.Material)
+     */
+    @Override
+    public void setMaterial(Material material) {
+        super.setMaterial(material);
+        if (material == null) {
+            return;
+        }
+
+        IMaterialPlugin plugin = material.getPlugin(InstancingMaterialPlugin.class);
+        if (plugin == null) {
+            mMaterialPlugin = new InstancingMaterialPlugin();
+            material.addPlugin(mMaterialPlugin);
+        } else {
+            mMaterialPlugin = (InstancingMaterialPlugin) plugin;
+        }
+    }
+
+    /*
+     * (non-Javadoc)
+     * @see org.rajawali3d.Object3D#reload()
+     */
+    @Override
+    public void reload() {
+        super.reload();
+        mInstanceBufferInfo.bufferHandle = -1;
+    }
+
+    /*
+     * (non-Javadoc)
+     * @see org.rajawali3d.Object3D#destroy()
+     */
+    @Override
+    public void destroy() {
+        if (mInstanceBufferInfo.bufferHandle > 0) {
+            GLES20.glDeleteBuffers(1, new int[]{ mInstanceBufferInfo.bufferHandle }, 0);
+            mInstanceBufferInfo.bufferHandle = -1;
+        }
+        super.destroy();
+    }
+
+    private static double getAxis(Vector3 v, int axis) {
+        return axis == 0 ? v.x : (axis == 1 ? v.y : v.z);
+    }
+
+    private static void setAxis(Vector3 v, int axis, double value) {
+        if (axis == 0) {
+            v.x = value;
+        } else if (axis == 1) {
+            v.y = value;
+        } else {
+            v.z = value;
+        }
+    }
+}
@@ -15,7 +15,9 @@ package org.rajawali3d;
 import android.graphics.Color;
 import android.opengl.GLES20;
 import androidx.annotation.NonNull;
+import androidx.annotation.Nullable;
 import org.rajawali3d.bounds.BoundingBox;
+import org.rajawali3d.bounds.BoundingSphere;
 import org.rajawali3d.bounds.IBoundingVolume;
 import org.rajawali3d.cameras.Camera;
 import org.rajawali3d.materials.Material;
@@ -25,15 +27,23 @@ import org.rajawali3d.materials.textures.TexturePacker.Tile;
 import org.rajawali3d.math.Matrix;
 import org.rajawali3d.math.Matrix4;
 import org.rajawali3d.math.vector.Vector3;
+import org.rajawali3d.renderer.GLStateCache;
+import org.rajawali3d.renderer.RenderQueue;
 import org.rajawali3d.util.GLU;
 import org.rajawali3d.util.RajLog;
+import org.rajawali3d.util.RenderStats;
 import org.rajawali3d.visitors.INode;
 import org.rajawali3d.visitors.INodeVisitor;
 
+import java.lang.reflect.Method;
 import java.nio.FloatBuffer;
+import java.util.Arrays;
 import java.util.Collections;
 import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
 import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.atomic.AtomicInteger;
 
 /**
  * This is the main object that all other 3D objects inherit from.
@@ -57,6 +67,27 @@ public class Object3D extends ATransformable3D implements Comparable<Object3D>,
     protected Matrix4 mParentMatrix;
     protected final Matrix4 mRotationMatrix = new Matrix4();
 
+    // View dependent matrix and world bounds caches, invalidated when the model matrix or the camera changes
+    protected boolean        mViewMatricesStale = true;
+    protected boolean        mBoundsStale       = true;
+    protected Camera         mLastCamera;
+    protected Matrix4        mLastVPMatrix;
+    protected int            mLastViewVersion;
+    protected BoundingBox    mTransformedBoundingBox;
+    protected BoundingSphere mTransformedBoundingSphere;
+
+    // The queue draws are added to during a call to render(), if any
+    protected RenderQueue mRenderQueue;
+
+    // Whether each subclass can have its draws queued, see canDeferDraw()
+    private static final Map<Class<?>, Boolean> sDeferrableClasses = new ConcurrentHashMap<>();
+    // Whether each subclass can keep its transform in a store, see canUseTransformStore()
+    private static final Map<Class<?>, Boolean> sStorableClasses = new ConcurrentHashMap<>();
+    private static final Class<?>[] RENDER_PARAMETER_TYPES = {
+        Camera.class, Matrix4.class, Matrix4.class, Matrix4.class, Matrix4.class, Material.class
+    };
+    private static final Class<?>[] MODEL_MATRIX_PARAMETER_TYPES = { Matrix4.class };
+
     protected float[] mColor;
 
     protected Material mMaterial;
@@ -76,6 +107,11 @@ public class Object3D extends ATransformable3D implements Comparable<Object3D>,
     protected boolean mShowBoundingVolume    = false;
     protected boolean mOverrideMaterialColor = false;
     protected int     mDrawingMode           = GLES20.GL_TRIANGLES;
+    /**
+     * @deprecated Unused, the indices may be stored as shorts. Use the buffer type of
+     * {@link Geometry3D#getIndexBufferInfo()}.
+     */
+    @Deprecated
     protected int     mElementsBufferType    = GLES20.GL_UNSIGNED_INT;
 
     protected boolean mIsContainerOnly = true;
@@ -85,6 +121,10 @@ public class Object3D extends ATransformable3D implements Comparable<Object3D>,
     protected boolean mFrustumTest = false;
     protected boolean mIsInFrustum;
 
+    // The shadow caster version of the scene holding this object, see Scene#getShadowCasterVersion()
+    private volatile AtomicInteger mShadowCasterVersion;
+    protected boolean mIsShadowCaster = true;
+
     protected boolean mRenderChildrenAsBatch = false;
     protected boolean mIsPartOfBatch         = false;
     protected boolean mManageMaterial        = true;
@@ -125,7 +165,7 @@ public class Object3D extends ATransformable3D implements Comparable<Object3D>,
                         float[] colors, int[] indices, boolean createVBOs) {
         mGeometry.setData(vertexBufferInfo, normalBufferInfo, textureCoords, colors, indices, createVBOs);
         mIsContainerOnly = false;
-        mElementsBufferType = GLES20.GL_UNSIGNED_INT;
+        markShadowCasterChanged();
     }
 
     /**
@@ -150,7 +190,7 @@ public class Object3D extends ATransformable3D implements Comparable<Object3D>,
         mGeometry.setData(vertices, verticesUsage, normals, normalsUsage, textureCoords, textureCoordsUsage, colors,
                           colorsUsage, indices, indicesUsage, createVBOs);
         mIsContainerOnly = false;
-        mElementsBufferType = GLES20.GL_UNSIGNED_INT;
+        markShadowCasterChanged();
     }
 
     /**
@@ -201,21 +241,9 @@ public class Object3D extends ATransformable3D implements Comparable<Object3D>,
         preRender();
 
         // -- move view matrix transformation first
-        boolean modelMatrixWasRecalculated = onRecalculateModelMatrix(parentMatrix);
-        // -- calculate model view matrix;
-        mMVMatrix.setAll(vMatrix).multiply(mMMatrix);
-        // -- calculate inverse view matrix;
-        mInverseViewMatrix.setAll(vMatrix).inverse().transpose();
-        //Create MVP Matrix from View-Projection Matrix
-        mMVPMatrix.setAll(vpMatrix).multiply(mMMatrix);
-
-        // Transform the bounding volumes if they exist
-        if (mGeometry.hasBoundingBox()) {
-            getBoundingBox().transform(getModelMatrix());
-        }
-        if (mGeometry.hasBoundingSphere()) {
-            mGeometry.getBoundingSphere().transform(getModelMatrix());
-        }
+        onRecalculateModelMatrix(parentMatrix);
+        updateViewDependentMatrices(camera, vpMatrix, vMatrix);
+        updateTransformedBounds();
 
         mIsInFrustum = true; // only if mFrustrumTest == true it check frustum
         if (mFrustumTest && mGeometry.hasBoundingBox()) {
@@ -224,8 +252,15 @@ public class Object3D extends ATransformable3D implements Comparable<Object3D>,
                 mIsInFrustum = false;
             }
         }
+        final boolean draw = !mIsContainerOnly && mIsInFrustum
+                             && (sceneMaterial == null || sceneMaterial.shouldDraw(this));
 
-        if (!mIsContainerOnly && mIsInFrustum) {
+        if (draw && mRenderQueue != null && material != null && !mIsPartOfBatch && !mRenderChildrenAsBatch
+            && canDeferDraw()) {
+            // Drawing is deferred to the render queue, which sorts the draws to minimise state changes
+            mPMatrix = projMatrix;
+            mRenderQueue.add(this, material);
+        } else if (draw) {
             mPMatrix = projMatrix;
             if (mDoubleSided) {
                 GLES20.glDisable(GLES20.GL_CULL_FACE);
@@ -250,6 +285,7 @@ public class Object3D extends ATransformable3D implements Comparable<Object3D>,
             }
 
             GLES20.glDepthMask(mEnableDepthMask);
+            applyDrawState(null);
 
             if (!mIsPartOfBatch) {
                 if (material == null) {
@@ -276,38 +312,9 @@ public class Object3D extends ATransformable3D implements Comparable<Object3D>,
 
                 setShaderParams(camera);
                 material.bindTextures();
-                if (mGeometry.hasTextureCoordinates()) {
-                    material.setTextureCoords(mGeometry.getTexCoordBufferInfo());
-                }
-                if (mGeometry.hasNormals()) {
-                    material.setNormals(mGeometry.getNormalBufferInfo());
-                }
-                if (mMaterial.usingVertexColors()) {
-                    material.setVertexColors(mGeometry.getColorBufferInfo());
-                }
-
-                material.setVertices(mGeometry.getVertexBufferInfo());
-            }
-            material.setCurrentObject(this);
-            if (mOverrideMaterialColor) {
-                material.setColor(mColor);
-            }
-            material.applyParams();
-
-            GLES20.glBindBuffer(GLES20.GL_ARRAY_BUFFER, 0);
-
-            material.setMVPMatrix(mMVPMatrix);
-            material.setModelMatrix(mMMatrix);
-            material.setInverseViewMatrix(mInverseViewMatrix);
-            material.setModelViewMatrix(mMVMatrix);
-
-            if (mIsVisible) {
-                int bufferType = mGeometry.getIndexBufferInfo().bufferType == Geometry3D.BufferType.SHORT_BUFFER
-                                 ? GLES20.GL_UNSIGNED_SHORT : GLES20.GL_UNSIGNED_INT;
-                GLES20.glBindBuffer(GLES20.GL_ELEMENT_ARRAY_BUFFER, mGeometry.getIndexBufferInfo().bufferHandle);
-                GLES20.glDrawElements(mDrawingMode, mGeometry.getNumIndices(), bufferType, 0);
-                GLES20.glBindBuffer(GLES20.GL_ELEMENT_ARRAY_BUFFER, 0);
+                setMaterialBuffers(material);
             }
+            drawGeometry(material);
             if (!mIsPartOfBatch && !mRenderChildrenAsBatch && sceneMaterial == null) {
                 material.unbindTextures();
             }
@@ -343,10 +350,7 @@ public class Object3D extends ATransformable3D implements Comparable<Object3D>,
             if (mRenderChildrenAsBatch || mIsPartOfBatch) {
                 child.setPartOfBatch(true);
             }
-            if (modelMatrixWasRecalculated) {
-                child.markModelMatrixDirty();
-            }
-            child.render(camera, vpMatrix, projMatrix, vMatrix, mMMatrix, sceneMaterial);
+            child.render(camera, vpMatrix, projMatrix, vMatrix, mMMatrix, sceneMaterial, mRenderQueue);
         }
 
         if (mRenderChildrenAsBatch && sceneMaterial == null) {
@@ -354,6 +358,364 @@ public class Object3D extends ATransformable3D implements Comparable<Object3D>,
         }
     }
 
+    /**
+     * Renders the object, adding it and its children to the provided {@link RenderQueue} rather than drawing them
+     * immediately. Objects which are part of a batch are still drawn immediately. This delegates to
+     * {@link #render(Camera, Matrix4, Matrix4, Matrix4, Matrix4, Material)} so subclasses overriding that method keep
+     * working.
+     *
+     * @param camera        The camera
+     * @param vpMatrix      {@link Matrix4} The view-projection matrix
+     * @param projMatrix    {@link Matrix4} The projection matrix
+     * @param vMatrix       {@link Matrix4} The view matrix
+     * @param parentMatrix  {@link Matrix4} This object's parent matrix
+     * @param sceneMaterial The scene-wide Material to use, if any.
+     * @param renderQueue   {@link RenderQueue} The queue to add draws to, or null to draw immediately.
+     */
+    public void render(Camera camera, final Matrix4 vpMatrix, final Matrix4 projMatrix, final Matrix4 vMatrix,
+                       final Matrix4 parentMatrix, Material sceneMaterial, RenderQueue renderQueue) {
+        mRenderQueue = renderQueue;
+        try {
+            render(camera, vpMatrix, projMatrix, vMatrix, parentMatrix, sceneMaterial);
+        } finally {
+            mRenderQueue = null;
+        }
+    }
+
+    /**
+     * Draws the object with matrices calculated by an earlier call to
+     * {@link #render(Camera, Matrix4, Matrix4, Matrix4, Matrix4, Material, RenderQueue)}. Called by the
+     * {@link RenderQueue} when submitting. Fixed function state, the program and textures are set through the
+     * provided {@link GLStateCache} so unchanged state isn't set again, and nothing is restored afterwards.
+     *
+     * @param camera     The camera
+     * @param material   {@link Material} The material to draw with.
+     * @param stateCache {@link GLStateCache} The state cache of the current render pass.
+     */
+    public void draw(Camera camera, Material material, GLStateCache stateCache) {
+        if (mDoubleSided) {
+            stateCache.setCullFaceEnabled(false);
+        } else {
+            stateCache.setCullFaceEnabled(true);
+            if (mBackSided) {
+                stateCache.setCullFace(GLES20.GL_FRONT);
+            } else {
+                stateCache.setCullFace(GLES20.GL_BACK);
+                stateCache.setFrontFace(GLES20.GL_CCW);
+            }
+        }
+        stateCache.setBlendEnabled(mEnableBlending);
+        if (mEnableBlending) {
+            stateCache.setBlendFunc(mBlendFuncSFactor, mBlendFuncDFactor);
+        }
+        stateCache.setDepthTestEnabled(mEnableDepthTest);
+        if (mEnableDepthTest) {
+            stateCache.setDepthFunc(GLES20.GL_LESS);
+        }
+        stateCache.setDepthMask(mEnableDepthMask);
+        applyDrawState(stateCache);
+
+        material.useProgram(stateCache);
+        setShaderParams(camera);
+        material.bindTextures(stateCache);
+        setMaterialBuffers(material);
+        drawGeometry(material);
+
+        material.unsetCurrentObject(this);
+    }
+
+    /**
+     * Sets GL state which only this object's draw needs, such as the line width. Called right before the draw, both
+     * when drawing immediately and when drawn by a {@link RenderQueue}, while {@link #preRender()} runs when the draw
+     * is queued.
+     *
+     * @param stateCache {@link GLStateCache} The state cache of the render queue drawing this object, or null when it
+     *                   is drawn immediately.
+     */
+    protected void applyDrawState(@Nullable GLStateCache stateCache) {
+    }
+
+    /**
+     * Whether the draw of this object can be added to a {@link RenderQueue}, rather than drawn as soon as it is
+     * rendered. Subclasses overriding {@link #preRender()} or
+     * {@link #render(Camera, Matrix4, Matrix4, Matrix4, Matrix4, Material)} may set GL state or swap the camera there,
+     * expecting the draw to follow right away, so they are drawn immediately unless they override this method.
+     *
+     * @return {@code boolean} True if the draw can be deferred.
+     */
+    protected boolean canDeferDraw() {
+        final Class<?> type = getClass();
+        Boolean deferrable = sDeferrableClasses.get(type);
+        if (deferrable == null) {
+            deferrable = !overrides(type, "preRender", new Class<?>[0])
+                         && !overrides(type, "render", RENDER_PARAMETER_TYPES);
+            sDeferrableClasses.put(type, deferrable);
+        }
+        return deferrable;
+    }
+
+    /**
+     * Whether the transform of this object can be kept in a {@link TransformStore}, which builds the model matrix from
+     * the position, scale and orientation alone. Subclasses overriding {@link #calculateModelMatrix(Matrix4)} or
+     * {@link #onRecalculateModelMatrix(Matrix4)} build it differently, so they and their descendants, whose model
+     * matrices depend on theirs, calculate their model matrices without a store unless they override this method.
+     *
+     * @return {@code boolean} True if the transform can be kept in a store.
+     */
+    protected boolean canUseTransformStore() {
+        final Class<?> type = getClass();
+        Boolean storable = sStorableClasses.get(type);
+        if (storable == null) {
+            storable = !overrides(type, "calculateModelMatrix", MODEL_MATRIX_PARAMETER_TYPES)
+                       && !overrides(type, "onRecalculateModelMatrix", MODEL_MATRIX_PARAMETER_TYPES);
+            sStorableClasses.put(type, storable);
+        }
+        return storable;
+    }
+
+    /**
+     * Whether a subclass, below {@link Object3D}, declares the given method.
+     */
+    private static boolean overrides(Class<?> type, String name, Class<?>[] parameterTypes) {
+        for (Class<?> current = type; current != Object3D.class; current = current.getSuperclass()) {
+            for (Method method : current.getDeclaredMethods()) {
+                if (method.getName().equals(name) && Arrays.equals(method.getParameterTypes(), parameterTypes)) {
+                    return true;
+                }
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Passes this object's vertex attribute buffers to the material.
+     *
+     * @param material {@link Material} The material being drawn with.
+     */
+    protected void setMaterialBuffers(Material material) {
+        if (mGeometry.hasTextureCoordinates()) {
+            material.setTextureCoords(mGeometry.getTexCoordBufferInfo());
+        }
+        if (mGeometry.hasNormals()) {
+            material.setNormals(mGeometry.getNormalBufferInfo());
+        }
+        if (mMaterial.usingVertexColors()) {
+            material.setVertexColors(mGeometry.getColorBufferInfo());
+        }
+
+        material.setVertices(mGeometry.getVertexBufferInfo());
+    }
+
+    /**
+     * Applies the material parameters and matrices of this object and, if it is visible, draws its elements.
+     *
+     * @param material {@link Material} The material being drawn with.
+     */
+    protected void drawGeometry(Material material) {
+        material.setCurrentObject(this);
+        if (mOverrideMaterialColor) {
+            material.setColor(mColor);
+        }
+        material.applyParams();
+
+        GLES20.glBindBuffer(GLES20.GL_ARRAY_BUFFER, 0);
+
+        material.setMVPMatrix(mMVPMatrix);
+        material.setModelMatrix(mMMatrix, mIsModelMatrixUniformScale);
+        material.setInverseViewMatrix(mInverseViewMatrix);
+        material.setModelViewMatrix(mMVMatrix);
+
+        if (mIsVisible) {
+            drawElements(material);
+        }
+    }
+
+    /**
+     * Issues the draw call for this object's elements. The material is fully set up when this is called.
+     *
+     * @param material {@link Material} The material being drawn with.
+     */
+    protected void drawElements(Material material) {
+        int bufferType = mGeometry.getIndexBufferInfo().bufferType == Geometry3D.BufferType.SHORT_BUFFER
+                         ? GLES20.GL_UNSIGNED_SHORT : GLES20.GL_UNSIGNED_INT;
+        GLES20.glBindBuffer(GLES20.GL_ELEMENT_ARRAY_BUFFER, mGeometry.getIndexBufferInfo().bufferHandle);
+        GLES20.glDrawElements(mDrawingMode, mGeometry.getNumIndices(), bufferType, 0);
+        GLES20.glBindBuffer(GLES20.GL_ELEMENT_ARRAY_BUFFER, 0);
+    }
+
+    // A moved object casts a different shadow
+    @Override
+    protected void markModelMatrixDirty() {
+        super.markModelMatrixDirty();
+        markShadowCasterChanged();
+    }
+
+    /**
+     * Recalculates the model matrix if necessary, flagging the children for recalculation when it changes. The
+     * children are flagged here rather than during rendering as the scene graph may recalculate an object's
+     * matrix ahead of its render call.
+     *
+     * @param parentMatrix {@link Matrix4} The parent matrix, if any, to apply to this object.
+     * @return A flag indicating whether the model matrix was recalculated or not.
+     */
+    @Override
+    public boolean onRecalculateModelMatrix(Matrix4 parentMatrix) {
+        final boolean recalculated = super.onRecalculateModelMatrix(parentMatrix);
+        if (recalculated) {
+            for (int i = 0, j = mChildren.size(); i < j; i++) {
+                final Object3D child = mChildren.get(i);
+                if (child.mTransformStore != null) {
+                    // The store already recalculated the child, but its shadow moved with this object
+                    child.markShadowCasterChanged();
+                } else {
+                    child.markModelMatrixDirty();
+                }
+            }
+        }
+        return recalculated;
+    }
+
+    /**
+     * Keeps the transforms of this object and its children in a {@link TransformStore}. Children added later join
+     * the store too. {@link org.rajawali3d.scene.Scene} does this for the objects added to it. Objects which can't
+     * use a store, see {@link #canUseTransformStore()}, keep themselves and their children out of it.
+     *
+     * @param store      {@link TransformStore} The store, or null to calculate the model matrices without one.
+     * @param parentNode {@code int} The id of the parent's node in the store, or {@link TransformStore#NO_PARENT}.
+     */
+    @Override
+    public void setTransformStore(TransformStore store, int parentNode) {
+        if (store != null && !canUseTransformStore()) {
+            store = null;
+        }
+        if (mTransformStore != null) {
+            // The children leave the old store first, as it can't compact away a node whose children remain
+            for (int i = 0, j = mChildren.size(); i < j; i++) {
+                mChildren.get(i).setTransformStore(null, TransformStore.NO_PARENT);
+            }
+        }
+        if (store == null) {
+            super.setTransformStore(null, TransformStore.NO_PARENT);
+            return;
+        }
+        // Locked throughout, so that this object's node id can't change before its children are added under it
+        synchronized (store) {
+            super.setTransformStore(store, parentNode);
+            for (int i = 0, j = mChildren.size(); i < j; i++) {
+                mChildren.get(i).setTransformStore(store, mTransformNode);
+            }
+        }
+    }
+
+    /*
+     * (non-Javadoc)
+     * @see org.rajawali3d.ATransformable3D#calculateModelMatrix(org.rajawali3d.math.Matrix4)
+     */
+    @Override
+    public void calculateModelMatrix(final Matrix4 parentMatrix) {
+        super.calculateModelMatrix(parentMatrix);
+        mViewMatricesStale = true;
+        mBoundsStale = true;
+    }
+
+    @Override
+    protected boolean isUniformScale(Matrix4 parentMatrix) {
+        return mParent != null && parentMatrix == mParent.mMMatrix && mParent.mIsModelMatrixUniformScale;
+    }
+
+    /**
+     * Recalculates the model-view, model-view-projection and inverse view matrices, but only if the model matrix
+     * changed or the camera reports a new view version since they were last calculated. The inverse view matrix is
+     * copied from the camera, which calculates it once per view change, rather than inverted per object. Matrices
+     * which don't belong to the camera are always recalculated.
+     *
+     * @param camera   The camera
+     * @param vpMatrix {@link Matrix4} The view-projection matrix
+     * @param vMatrix  {@link Matrix4} The view matrix
+     */
+    protected void updateViewDependentMatrices(Camera camera, final Matrix4 vpMatrix, final Matrix4 vMatrix) {
+        final boolean ownsView = camera != null && camera.isViewMatrix(vMatrix);
+        final int viewVersion = ownsView ? camera.getViewVersion() : 0;
+        if (!mViewMatricesStale && viewVersion != 0 && viewVersion == mLastViewVersion
+            && camera == mLastCamera && vpMatrix == mLastVPMatrix) {
+            return;
+        }
+        // -- calculate model view matrix;
+        mMVMatrix.setAll(vMatrix).multiply(mMMatrix);
+        // -- calculate inverse view matrix;
+        if (viewVersion != 0) {
+            mInverseViewMatrix.setAll(camera.getInverseViewMatrix());
+        } else {
+            mInverseViewMatrix.setAll(vMatrix).inverse().transpose();
+        }
+        //Create MVP Matrix from View-Projection Matrix
+        mMVPMatrix.setAll(vpMatrix).multiply(mMMatrix);
+
+        mLastCamera = camera;
+        mLastVPMatrix = vpMatrix;
+        mLastViewVersion = viewVersion;
+        mViewMatricesStale = false;
+        RenderStats.countViewDependentMatrices();
+    }
+
+    /**
+     * Transforms the bounding volumes, if they exist, into world space. This is skipped while the model matrix is
+     * unchanged and the volumes are the ones transformed last time.
+     */
+    protected void updateTransformedBounds() {
+        if (mGeometry.hasBoundingBox()) {
+            final BoundingBox box = getBoundingBox();
+            if (mBoundsStale || box != mTransformedBoundingBox) {
+                box.transform(mMMatrix);
+                mTransformedBoundingBox = box;
+                RenderStats.countBoundsTransform();
+            }
+        }
+        if (mGeometry.hasBoundingSphere()) {
+            final BoundingSphere sphere = mGeometry.getBoundingSphere();
+            if (mBoundsStale || sphere != mTransformedBoundingSphere) {
+                sphere.transform(mMMatrix);
+                mTransformedBoundingSphere = sphere;
+                RenderStats.countBoundsTransform();
+            }
+        }
+        mBoundsStale = false;
+    }
+
+    /**
+     * Retrieves the world space center of this object's bounds as transformed by the last render: the center of its
+     * bounding box or, failing that, of its bounding sphere. Objects without bounds use the origin of their model
+     * matrix. Used to depth sort objects without transforming anything.
+     *
+     * @param center {@link Vector3} The vector to store the center in.
+     * @return {@link Vector3} The center vector, for chaining.
+     */
+    public Vector3 getWorldBoundsCenter(Vector3 center) {
+        if (mGeometry.hasBoundingBox()) {
+            return center.setAll(mGeometry.getBoundingBox().getPosition());
+        } else if (mGeometry.hasBoundingSphere()) {
+            return center.setAll(mGeometry.getBoundingSphere().getPosition());
+        }
+        return mMMatrix.getTranslation(center);
+    }
+
+    /**
+     * Retrieves the world space radius of this object's bounds as transformed by the last render, measured from
+     * {@link #getWorldBoundsCenter(Vector3)}: half the diagonal of its bounding box or, failing that, the scaled radius
+     * of its bounding sphere. Objects without bounds have a radius of 0.
+     *
+     * @return {@code double} The radius.
+     */
+    public double getWorldBoundsRadius() {
+        if (mGeometry.hasBoundingBox()) {
+            final BoundingBox box = mGeometry.getBoundingBox();
+            return 0.5 * box.getTransformedMin().distanceTo(box.getTransformedMax());
+        } else if (mGeometry.hasBoundingSphere()) {
+            return mGeometry.getBoundingSphere().getScaledRadius();
+        }
+        return 0;
+    }
+
     /**
      * Returns a {@link BoundingBox} for this Object3D and creates it if needed.
      * Utilizes children's bounding values to calculate its own {@link BoundingBox}.
@@ -472,7 +834,7 @@ public class Object3D extends ATransformable3D implements Comparable<Object3D>,
 
             // Apply this object's matrices to the pickingMaterial
             pickingMaterial.setMVPMatrix(mMVPMatrix);
-            pickingMaterial.setModelMatrix(mMMatrix);
+            pickingMaterial.setModelMatrix(mMMatrix, mIsModelMatrixUniformScale);
             pickingMaterial.setInverseViewMatrix(mInverseViewMatrix);
             pickingMaterial.setModelViewMatrix(mMVMatrix);
 
@@ -651,12 +1013,23 @@ public class Object3D extends ATransformable3D implements Comparable<Object3D>,
             child.getParent().removeChild(child);
         }
         mChildren.add(child);
+        child.setShadowCasterVersion(mShadowCasterVersion);
+        final TransformStore store = mTransformStore;
+        if (store != null) {
+            synchronized (store) {
+                // Read again under the lock, as the store may have compacted or this object left it
+                child.setTransformStore(mTransformStore, mTransformNode);
+            }
+        } else if (child.mTransformStore != null) {
+            child.setTransformStore(null, TransformStore.NO_PARENT);
+        }
         child.setParent(this);
         child.mParentMatrix = new Matrix4();
         child.ensureModelMatrix();
         if (mRenderChildrenAsBatch) {
             child.setPartOfBatch(true);
         }
+        markShadowCasterChanged();
     }
 
     private void ensureModelMatrix() {
@@ -670,7 +1043,15 @@ public class Object3D extends ATransformable3D implements Comparable<Object3D>,
     }
 
     public boolean removeChild(Object3D child) {
-        return mChildren.remove(child);
+        if (mChildren.remove(child)) {
+            markShadowCasterChanged();
+            child.setShadowCasterVersion(null);
+            if (child.mTransformStore != null) {
+                child.setTransformStore(null, TransformStore.NO_PARENT);
+            }
+            return true;
+        }
+        return false;
     }
 
     public Object3D getParent() {
@@ -782,7 +1163,6 @@ public class Object3D extends ATransformable3D implements Comparable<Object3D>,
         if (copyMaterial) {
             clone.setMaterial(mMaterial);
         }
-        clone.mElementsBufferType = GLES20.GL_UNSIGNED_INT;
         clone.mTransparent = this.mTransparent;
         clone.mEnableBlending = this.mEnableBlending;
         clone.mBlendFuncSFactor = this.mBlendFuncSFactor;
@@ -816,7 +1196,54 @@ public class Object3D extends ATransformable3D implements Comparable<Object3D>,
     }
 
     public void setVisible(boolean visible) {
-        mIsVisible = visible;
+        if (visible != mIsVisible) {
+            mIsVisible = visible;
+            markShadowCasterChanged();
+        }
+    }
+
+    /**
+     * Sets whether this object is drawn into shadow maps. Its children decide for themselves.
+     *
+     * @param shadowCaster {@code boolean} True to cast shadows, which is the default.
+     */
+    public void setShadowCaster(boolean shadowCaster) {
+        if (shadowCaster != mIsShadowCaster) {
+            mIsShadowCaster = shadowCaster;
+            final AtomicInteger version = mShadowCasterVersion;
+            if (version != null) {
+                version.incrementAndGet();
+            }
+        }
+    }
+
+    public boolean isShadowCaster() {
+        return mIsShadowCaster;
+    }
+
+    /**
+     * Flags that this object's shadow may have changed, for example because its geometry was modified, so cached
+     * shadow maps are rendered again. Transform and visibility changes are flagged automatically.
+     */
+    public void markShadowCasterChanged() {
+        final AtomicInteger version = mShadowCasterVersion;
+        if (mIsShadowCaster && version != null) {
+            version.incrementAndGet();
+        }
+    }
+
+    /**
+     * Sets the counter this object and its children bump when their shadow changes. This should only be called by
+     * {@link org.rajawali3d.scene.Scene} when the object is added to or removed from it.
+     *
+     * @param version {@link AtomicInteger} The shadow caster version of the scene, or null if the object isn't part
+     *                of one.
+     */
+    public void setShadowCasterVersion(@Nullable AtomicInteger version) {
+        mShadowCasterVersion = version;
+        for (int i = 0, j = mChildren.size(); i < j; i++) {
+            mChildren.get(i).setShadowCasterVersion(version);
+        }
     }
 
     public void setAlpha(int alpha) {
@@ -899,6 +1326,14 @@ public class Object3D extends ATransformable3D implements Comparable<Object3D>,
         mBlendFuncDFactor = dFactor;
     }
 
+    public int getBlendFuncSFactor() {
+        return mBlendFuncSFactor;
+    }
+
+    public int getBlendFuncDFactor() {
+        return mBlendFuncDFactor;
+    }
+
     public void setDepthTestEnabled(boolean value) {
         mEnableDepthTest = value;
     }
@@ -978,16 +1413,18 @@ public class Object3D extends ATransformable3D implements Comparable<Object3D>,
         mChildren.clear();
     }
 
-    /*
-     * (non-Javadoc)
-     * @see rajawali.scenegraph.IGraphNodeMember#getBoundingVolume()
+    /**
+     * Returns the world space bounding box as of the last model matrix calculation. The scene graph calls this for
+     * every member it culls, so the model matrix is only recalculated if it is dirty, and the box is only transformed
+     * again when the model matrix changed, see {@link #updateTransformedBounds()}.
+     *
+     * @return {@link IBoundingVolume} The transformed bounding box.
      */
     @Override
     public IBoundingVolume getTransformedBoundingVolume() {
-        IBoundingVolume volume = null;
-        volume = getBoundingBox();
-        calculateModelMatrix(null);
-        volume.transform(mMMatrix);
-        return volume;
+        onRecalculateModelMatrix(mParent == null ? null : mParent.getModelMatrix());
+        final BoundingBox box = getBoundingBox();
+        updateTransformedBounds();
+        return box;
     }
 }
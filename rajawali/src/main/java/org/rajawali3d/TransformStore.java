@@ -0,0 +1,491 @@
+/**
+ * Copyright 2013 Dennis Ippel
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except in compliance with
+ * the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License is distributed on
+ * an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations under the License.
+ */
+package org.rajawali3d;
+
+import org.rajawali3d.math.Matrix4;
+import org.rajawali3d.math.Quaternion;
+import org.rajawali3d.math.vector.Vector3;
+
+import java.util.Arrays;
+
+/**
+ * Stores the transforms of a hierarchy of nodes in packed primitive arrays, indexed by node id, rather than in one
+ * {@link ATransformable3D} and several {@link Matrix4}s per node. Each {@link org.rajawali3d.scene.Scene} keeps the
+ * transforms of its children in a store, and a store can also be used on its own for tens of thousands of simple
+ * nodes, such as the parts of an instanced or particle effect, where the per object footprint and pointer chasing of
+ * the scene graph dominate.
+ *
+ * A node's parent must be added before it, so {@link #update()} is a single linear pass which sees every parent's world
+ * matrix before its children. Only nodes which changed, or whose parent's world matrix changed, are recalculated.
+ * World matrices are column major, like {@link Matrix4}, and are built the same way as
+ * {@link ATransformable3D#calculateModelMatrix(Matrix4)} builds its model matrix.
+ *
+ * Nodes added for an {@link ATransformable3D} are owned by it. The store copies an owner's position, scale and
+ * orientation when the owner flags its model matrix as dirty, and the owner copies its world matrix back out, see
+ * {@link ATransformable3D#setTransformStore(TransformStore, int)}. Removed nodes leave a hole which the update skips.
+ * Once more than half of the nodes are holes and every remaining node has an owner, the store compacts itself and
+ * tells the owners their new ids, so the ids of nodes without an owner never change.
+ *
+ * Objects are added to and removed from a scene's store on any thread while the scene updates it on the GL thread,
+ * so every method locks the store. Code which needs an owner's id to stay the same across several calls holds the
+ * store's lock around them, as {@link ATransformable3D} does.
+ */
+public class TransformStore {
+
+    /**
+     * The parent of nodes at the root of the hierarchy.
+     */
+    public static final int NO_PARENT = -1;
+
+    // The parent of removed nodes
+    private static final int REMOVED = -2;
+
+    protected double[]           mPositions;
+    protected double[]           mOrientations;
+    protected double[]           mScales;
+    protected double[]           mWorldMatrices;
+    protected int[]              mParents;
+    protected boolean[]          mDirty;
+    protected boolean[]          mUniformScales;
+    protected int[]              mVersions;
+    protected int[]              mParentVersions;
+    protected ATransformable3D[] mOwners;
+    protected int                mSize;
+    protected int                mRemovedCount;
+    protected int                mUnownedCount;
+    protected volatile boolean   mAnyDirty;
+
+    public TransformStore() {
+        this(64);
+    }
+
+    /**
+     * @param capacity {@code int} The number of nodes to allocate space for. The store grows as needed.
+     */
+    public TransformStore(int capacity) {
+        capacity = Math.max(capacity, 1);
+        mPositions = new double[capacity * 3];
+        mOrientations = new double[capacity * 4];
+        mScales = new double[capacity * 3];
+        mWorldMatrices = new double[capacity * 16];
+        mParents = new int[capacity];
+        mDirty = new boolean[capacity];
+        mUniformScales = new boolean[capacity];
+        mVersions = new int[capacity];
+        mParentVersions = new int[capacity];
+        mOwners = new ATransformable3D[capacity];
+    }
+
+    /**
+     * Adds a node at the origin, with no rotation and a scale of one.
+     *
+     * @param parent {@code int} The id of the parent node, or {@link #NO_PARENT}.
+     * @return {@code int} The id of the new node.
+     */
+    public synchronized int add(int parent) {
+        final int node = add(parent, null);
+        ++mUnownedCount;
+        setPosition(node, 0, 0, 0);
+        setOrientation(node, 1, 0, 0, 0);
+        setScale(node, 1, 1, 1);
+        return node;
+    }
+
+    /**
+     * Adds a node whose transform is copied from an {@link ATransformable3D} on the next update.
+     */
+    synchronized int add(int parent, ATransformable3D owner) {
+        if (parent < NO_PARENT || parent >= mSize || (parent != NO_PARENT && mParents[parent] == REMOVED)) {
+            throw new IllegalArgumentException("Parent " + parent + " has not been added.");
+        }
+        if (mSize == mParents.length) {
+            grow();
+        }
+        final int node = mSize++;
+        mParents[node] = parent;
+        mOwners[node] = owner;
+        mVersions[node] = 0;
+        markDirty(node);
+        return node;
+    }
+
+    /**
+     * Removes a node. Its children must be removed as well, as they would otherwise keep the last world matrix of
+     * the removed node as their parent's.
+     *
+     * @param node {@code int} The id of the node.
+     */
+    public synchronized void remove(int node) {
+        if (node < 0 || node >= mSize || mParents[node] == REMOVED) {
+            throw new IllegalArgumentException("Node " + node + " has not been added.");
+        }
+        if (mOwners[node] == null) {
+            --mUnownedCount;
+        }
+        mParents[node] = REMOVED;
+        mOwners[node] = null;
+        mDirty[node] = false;
+        ++mRemovedCount;
+        if (mRemovedCount == mSize) {
+            clear();
+        }
+    }
+
+    private void grow() {
+        final int capacity = mParents.length * 2;
+        mPositions = Arrays.copyOf(mPositions, capacity * 3);
+        mOrientations = Arrays.copyOf(mOrientations, capacity * 4);
+        mScales = Arrays.copyOf(mScales, capacity * 3);
+        mWorldMatrices = Arrays.copyOf(mWorldMatrices, capacity * 16);
+        mParents = Arrays.copyOf(mParents, capacity);
+        mDirty = Arrays.copyOf(mDirty, capacity);
+        mUniformScales = Arrays.copyOf(mUniformScales, capacity);
+        mVersions = Arrays.copyOf(mVersions, capacity);
+        mParentVersions = Arrays.copyOf(mParentVersions, capacity);
+        mOwners = Arrays.copyOf(mOwners, capacity);
+    }
+
+    /**
+     * Moves the remaining nodes over the removed ones, keeping their order, and tells their owners their new ids.
+     */
+    private void compact() {
+        final int[] parents = mParents;
+        int size = 0;
+        for (int node = 0; node < mSize; ++node) {
+            if (parents[node] == REMOVED) {
+                continue;
+            }
+            // Parents come first, so a parent's new id is already stored in its owner
+            final int parent = parents[node];
+            parents[size] = parent == NO_PARENT ? NO_PARENT : mOwners[parent].mTransformNode;
+            System.arraycopy(mPositions, node * 3, mPositions, size * 3, 3);
+            System.arraycopy(mOrientations, node * 4, mOrientations, size * 4, 4);
+            System.arraycopy(mScales, node * 3, mScales, size * 3, 3);
+            System.arraycopy(mWorldMatrices, node * 16, mWorldMatrices, size * 16, 16);
+            mDirty[size] = mDirty[node];
+            mUniformScales[size] = mUniformScales[node];
+            mVersions[size] = mVersions[node];
+            mParentVersions[size] = mParentVersions[node];
+            mOwners[size] = mOwners[node];
+            mOwners[size].mTransformNode = size;
+            ++size;
+        }
+        Arrays.fill(mOwners, size, mSize, null);
+        mSize = size;
+        mRemovedCount = 0;
+    }
+
+    /**
+     * Removes all nodes, keeping the allocated space. Owners are not told, so this should only be used on stores
+     * whose nodes have no owner.
+     */
+    public synchronized void clear() {
+        Arrays.fill(mOwners, 0, mSize, null);
+        mSize = 0;
+        mRemovedCount = 0;
+        mUnownedCount = 0;
+        mAnyDirty = false;
+    }
+
+    /**
+     * @return {@code int} The number of ids in use, including the ones of removed nodes which haven't been compacted
+     * away yet.
+     */
+    public synchronized int size() {
+        return mSize;
+    }
+
+    /**
+     * @return {@code int} The number of removed nodes whose ids aren't reused yet.
+     */
+    public synchronized int getRemovedCount() {
+        return mRemovedCount;
+    }
+
+    public synchronized int getParent(int node) {
+        return mParents[node];
+    }
+
+    public synchronized void setPosition(int node, double x, double y, double z) {
+        final int offset = node * 3;
+        mPositions[offset] = x;
+        mPositions[offset + 1] = y;
+        mPositions[offset + 2] = z;
+        markDirty(node);
+    }
+
+    public synchronized void setPosition(int node, Vector3 position) {
+        setPosition(node, position.x, position.y, position.z);
+    }
+
+    public synchronized Vector3 getPosition(int node, Vector3 result) {
+        final int offset = node * 3;
+        return result.setAll(mPositions[offset], mPositions[offset + 1], mPositions[offset + 2]);
+    }
+
+    public synchronized void setOrientation(int node, double w, double x, double y, double z) {
+        final int offset = node * 4;
+        mOrientations[offset] = w;
+        mOrientations[offset + 1] = x;
+        mOrientations[offset + 2] = y;
+        mOrientations[offset + 3] = z;
+        markDirty(node);
+    }
+
+    public synchronized void setOrientation(int node, Quaternion orientation) {
+        setOrientation(node, orientation.w, orientation.x, orientation.y, orientation.z);
+    }
+
+    public synchronized Quaternion getOrientation(int node, Quaternion result) {
+        final int offset = node * 4;
+        return result.setAll(mOrientations[offset], mOrientations[offset + 1], mOrientations[offset + 2],
+                             mOrientations[offset + 3]);
+    }
+
+    public synchronized void setScale(int node, double x, double y, double z) {
+        final int offset = node * 3;
+        mScales[offset] = x;
+        mScales[offset + 1] = y;
+        mScales[offset + 2] = z;
+        markDirty(node);
+    }
+
+    public synchronized void setScale(int node, Vector3 scale) {
+        setScale(node, scale.x, scale.y, scale.z);
+    }
+
+    public synchronized Vector3 getScale(int node, Vector3 result) {
+        final int offset = node * 3;
+        return result.setAll(mScales[offset], mScales[offset + 1], mScales[offset + 2]);
+    }
+
+    private void markDirty(int node) {
+        mDirty[node] = true;
+        mAnyDirty = true;
+    }
+
+    /**
+     * Flags that an owner changed its transform. The owner keeps its own dirty flag, which is read on the next update.
+     */
+    void markOwnerDirty() {
+        mAnyDirty = true;
+    }
+
+    /**
+     * Recalculates the world matrices of the nodes which changed since the last update, and of their descendants.
+     *
+     * @return {@code int} The number of world matrices recalculated.
+     */
+    public synchronized int update() {
+        if (!mAnyDirty) {
+            return 0;
+        }
+        // Cleared first, so that owners changing while the pass runs are picked up by the next one
+        mAnyDirty = false;
+        if (mRemovedCount > mSize / 2 && mUnownedCount == 0) {
+            compact();
+        }
+        final int[] parents = mParents;
+        int count = 0;
+        for (int node = 0, size = mSize; node < size; ++node) {
+            if (parents[node] != REMOVED && refresh(node)) {
+                ++count;
+            }
+        }
+        return count;
+    }
+
+    /**
+     * Brings the world matrix of one node and of its ancestors up to date, without updating the rest of the store.
+     * Used when a node is needed before the next {@link #update()}.
+     *
+     * @param node {@code int} The id of the node.
+     * @return {@code boolean} True if the node's world matrix was recalculated.
+     */
+    public synchronized boolean update(int node) {
+        if (!mAnyDirty) {
+            return false;
+        }
+        final int parent = mParents[node];
+        if (parent >= 0) {
+            update(parent);
+        }
+        return refresh(node);
+    }
+
+    /**
+     * Recalculates the world matrix of a node if it, or its parent's world matrix, changed since it was last
+     * calculated. The parent must be up to date.
+     */
+    private boolean refresh(int node) {
+        final ATransformable3D owner = mOwners[node];
+        if (owner != null && owner.mIsModelMatrixDirty) {
+            owner.mIsModelMatrixDirty = false;
+            final Vector3 position = owner.mPosition;
+            final Vector3 scale = owner.mScale;
+            final Quaternion orientation = owner.mOrientation;
+            final int p = node * 3;
+            final int q = node * 4;
+            mPositions[p] = position.x;
+            mPositions[p + 1] = position.y;
+            mPositions[p + 2] = position.z;
+            mScales[p] = scale.x;
+            mScales[p + 1] = scale.y;
+            mScales[p + 2] = scale.z;
+            mOrientations[q] = orientation.w;
+            mOrientations[q + 1] = orientation.x;
+            mOrientations[q + 2] = orientation.y;
+            mOrientations[q + 3] = orientation.z;
+            mDirty[node] = true;
+        }
+        final int parent = mParents[node];
+        if (!mDirty[node] && (parent == NO_PARENT || mParentVersions[node] == mVersions[parent])) {
+            return false;
+        }
+        mDirty[node] = false;
+        ++mVersions[node];
+        calculateWorldMatrix(node, parent);
+        if (parent != NO_PARENT) {
+            mParentVersions[node] = mVersions[parent];
+        }
+        return true;
+    }
+
+    private void calculateWorldMatrix(int node, int parent) {
+        final double[] positions = mPositions;
+        final double[] orientations = mOrientations;
+        final double[] scales = mScales;
+        final double[] world = mWorldMatrices;
+        // The local matrix, as built by Matrix4#setAll(Vector3, Vector3, Quaternion)
+        final int p = node * 3;
+        final int q = node * 4;
+        final double sx = scales[p];
+        final double sy = scales[p + 1];
+        final double sz = scales[p + 2];
+        final double w = orientations[q];
+        final double x = orientations[q + 1];
+        final double y = orientations[q + 2];
+        final double z = orientations[q + 3];
+        final double x2 = x * x;
+        final double y2 = y * y;
+        final double z2 = z * z;
+        final double xy = x * y;
+        final double xz = x * z;
+        final double yz = y * z;
+        final double wx = w * x;
+        final double wy = w * y;
+        final double wz = w * z;
+
+        final double l00 = sx * (1.0 - 2.0 * (y2 + z2));
+        final double l10 = 2.0 * sy * (xy - wz);
+        final double l20 = 2.0 * sz * (xz + wy);
+        final double l01 = 2.0 * sx * (xy + wz);
+        final double l11 = sy * (1.0 - 2.0 * (x2 + z2));
+        final double l21 = 2.0 * sz * (yz - wx);
+        final double l02 = 2.0 * sx * (xz - wy);
+        final double l12 = 2.0 * sy * (yz + wx);
+        final double l22 = sz * (1.0 - 2.0 * (x2 + y2));
+        final double l03 = positions[p];
+        final double l13 = positions[p + 1];
+        final double l23 = positions[p + 2];
+
+        final int o = node * 16;
+        mUniformScales[node] = sx == sy && sy == sz && (parent == NO_PARENT || mUniformScales[parent]);
+        if (parent == NO_PARENT) {
+            world[o + Matrix4.M00] = l00;
+            world[o + Matrix4.M10] = l10;
+            world[o + Matrix4.M20] = l20;
+            world[o + Matrix4.M01] = l01;
+            world[o + Matrix4.M11] = l11;
+            world[o + Matrix4.M21] = l21;
+            world[o + Matrix4.M02] = l02;
+            world[o + Matrix4.M12] = l12;
+            world[o + Matrix4.M22] = l22;
+            world[o + Matrix4.M03] = l03;
+            world[o + Matrix4.M13] = l13;
+            world[o + Matrix4.M23] = l23;
+        } else {
+            // Both matrices are affine, so the bottom row of the product is always 0, 0, 0, 1
+            final int po = parent * 16;
+            for (int r = 0; r < 3; ++r) {
+                final double p0 = world[po + r];
+                final double p1 = world[po + 4 + r];
+                final double p2 = world[po + 8 + r];
+                world[o + r] = p0 * l00 + p1 * l10 + p2 * l20;
+                world[o + 4 + r] = p0 * l01 + p1 * l11 + p2 * l21;
+                world[o + 8 + r] = p0 * l02 + p1 * l12 + p2 * l22;
+                world[o + 12 + r] = p0 * l03 + p1 * l13 + p2 * l23 + world[po + 12 + r];
+            }
+        }
+        world[o + Matrix4.M30] = 0;
+        world[o + Matrix4.M31] = 0;
+        world[o + Matrix4.M32] = 0;
+        world[o + Matrix4.M33] = 1;
+    }
+
+    /**
+     * Retrieves a counter which changes whenever the world matrix of a node is recalculated.
+     *
+     * @param node {@code int} The id of the node.
+     * @return {@code int} The version of the node's world matrix.
+     */
+    public synchronized int getVersion(int node) {
+        return mVersions[node];
+    }
+
+    /**
+     * Whether the world matrix of a node, as of the last update, scales all axes by the same amount.
+     *
+     * @param node {@code int} The id of the node.
+     * @return {@code boolean} True if the world matrix has a uniform scale.
+     */
+    public synchronized boolean isUniformScale(int node) {
+        return mUniformScales[node];
+    }
+
+    /**
+     * Copies the world matrix of a node, as of the last {@link #update()}.
+     *
+     * @param node   {@code int} The id of the node.
+     * @param result {@link Matrix4} The matrix to copy into.
+     * @return {@link Matrix4} The result, for chaining.
+     */
+    public synchronized Matrix4 getWorldMatrix(int node, Matrix4 result) {
+        System.arraycopy(mWorldMatrices, node * 16, result.getDoubleValues(), 0, 16);
+        return result;
+    }
+
+    /**
+     * Copies the world matrix of a node into a float array, for sending to GL.
+     *
+     * @param node   {@code int} The id of the node.
+     * @param result {@code float} array to copy into.
+     * @param offset {@code int} The index in the array to copy the first element to.
+     */
+    public synchronized void getWorldMatrix(int node, float[] result, int offset) {
+        final double[] world = mWorldMatrices;
+        for (int i = 0, o = node * 16; i < 16; ++i) {
+            result[offset + i] = (float) world[o + i];
+        }
+    }
+
+    /**
+     * Returns the packed world matrices, 16 per node starting at {@code node * 16}. The array is owned by this store
+     * and is replaced when it grows, so it should only be read while holding the store's lock.
+     *
+     * @return {@code double} array of the world matrices.
+     */
+    public double[] getWorldMatrices() {
+        return mWorldMatrices;
+    }
+}
@@ -12,7 +12,6 @@
  */
 package org.rajawali3d.animation.mesh;
 
-import android.opengl.GLES20;
 import android.os.SystemClock;
 
 import org.rajawali3d.cameras.Camera;
@@ -55,6 +54,7 @@ public class VertexAnimationObject3D extends AAnimationObject3D {
 		if (mGeometry.getVertexBufferInfo() != currentGeometry.getVertexBufferInfo()) {
 			mGeometry.setVertexBufferInfo(currentGeometry.getVertexBufferInfo());
 			mGeometry.setNormalBufferInfo(currentGeometry.getNormalBufferInfo());
+			markShadowCasterChanged();
 		}
 
 		// Find geometry for next frame in sequence
@@ -114,7 +114,6 @@ public class VertexAnimationObject3D extends AAnimationObject3D {
 		clone.setRotation(getOrientation());
 		clone.setScale(getScale());
 		clone.setFps(mFps);
-		clone.mElementsBufferType = GLES20.GL_UNSIGNED_INT;
 		return clone;
 	}
 
@@ -142,8 +142,9 @@ public class ArcballCamera extends Camera {
     }
 
     @Override
-    public Matrix4 getViewMatrix() {
-        Matrix4 m = super.getViewMatrix();
+    protected void calculateViewMatrix() {
+        super.calculateViewMatrix();
+        final Matrix4 m = mViewMatrix;
 
         if (mTarget != null) {
             mScratchMatrix.identity();
@@ -163,8 +164,6 @@ public class ArcballCamera extends Camera {
             mScratchMatrix.translate(mScratchVector);
             m.multiply(mScratchMatrix);
         }
-
-        return m;
     }
 
     @Override
@@ -18,6 +18,7 @@ import org.rajawali3d.bounds.IBoundingVolume;
 import org.rajawali3d.math.Matrix4;
 import org.rajawali3d.math.Quaternion;
 import org.rajawali3d.math.vector.Vector3;
+import org.rajawali3d.util.RenderStats;
 
 public class Camera extends ATransformable3D {
 
@@ -29,6 +30,9 @@ public class Camera extends ATransformable3D {
 	protected final Matrix4 mViewMatrix = new Matrix4();
 	protected final Matrix4 mProjMatrix = new Matrix4();
 	protected final Matrix4 mScratchMatrix = new Matrix4();
+	protected final Matrix4 mInverseViewMatrix = new Matrix4();
+	protected final double[] mLastViewProjection = new double[32];
+	protected int mViewVersion;
 	protected double mNearPlane = 1.0;
 	protected double mFarPlane = 120.0;
 	protected double mFieldOfView = 45.0;
@@ -84,53 +88,122 @@ public class Camera extends ATransformable3D {
 
 	public Matrix4 getViewMatrix() {
 		synchronized (mFrustumLock) {
-            // Create an inverted orientation. This is because the view matrix is the
-            // inverse operation of a model matrix
-            mTmpOrientation.setAll(mOrientation);
-            mTmpOrientation.inverse();
-
-            // Create the view matrix
-            final double[] matrix = mViewMatrix.getDoubleValues();
-            // Precompute these factors for speed
-            final double x2 = mTmpOrientation.x * mTmpOrientation.x;
-            final double y2 = mTmpOrientation.y * mTmpOrientation.y;
-            final double z2 = mTmpOrientation.z * mTmpOrientation.z;
-            final double xy = mTmpOrientation.x * mTmpOrientation.y;
-            final double xz = mTmpOrientation.x * mTmpOrientation.z;
-            final double yz = mTmpOrientation.y * mTmpOrientation.z;
-            final double wx = mTmpOrientation.w * mTmpOrientation.x;
-            final double wy = mTmpOrientation.w * mTmpOrientation.y;
-            final double wz = mTmpOrientation.w * mTmpOrientation.z;
-
-            matrix[Matrix4.M00] = 1.0 - 2.0 * (y2 + z2);
-            matrix[Matrix4.M10] = 2.0 * (xy - wz);
-            matrix[Matrix4.M20] = 2.0 * (xz + wy);
-            matrix[Matrix4.M30] = 0;
-
-            matrix[Matrix4.M01] = 2.0 * (xy + wz);
-            matrix[Matrix4.M11] = 1.0 - 2.0 * (x2 + z2);
-            matrix[Matrix4.M21] = 2.0 * (yz - wx);
-            matrix[Matrix4.M31] = 0;
-
-            matrix[Matrix4.M02] = 2.0 * (xz - wy);
-            matrix[Matrix4.M12] = 2.0 * (yz + wx);
-            matrix[Matrix4.M22] = 1.0 - 2.0 * (x2 + y2);
-            matrix[Matrix4.M32] = 0;
-
-            matrix[Matrix4.M03] = -mPosition.x * matrix[Matrix4.M00]
-                + -mPosition.y * matrix[Matrix4.M01] + -mPosition.z * matrix[Matrix4.M02];
-            matrix[Matrix4.M13] = -mPosition.x * matrix[Matrix4.M10]
-                + -mPosition.y * matrix[Matrix4.M11] + -mPosition.z * matrix[Matrix4.M12];
-            matrix[Matrix4.M23] = -mPosition.x * matrix[Matrix4.M20]
-                + -mPosition.y * matrix[Matrix4.M21] + -mPosition.z * matrix[Matrix4.M22];
-            matrix[Matrix4.M33] = 1;
-
-            mTmpOrientation.setAll(mLocalOrientation).inverse();
-            mViewMatrix.leftMultiply(mTmpOrientation.toRotationMatrix(mScratchMatrix));
+            calculateViewMatrix();
+            updateViewVersion();
 			return mViewMatrix;
 		}
 	}
 
+    /**
+     * Recalculates {@link #mViewMatrix} from the current position and orientation. Subclasses which apply additional
+     * transformations to the view should do so here so they are seen by {@link #getViewVersion()}.
+     */
+    protected void calculateViewMatrix() {
+        // Create an inverted orientation. This is because the view matrix is the
+        // inverse operation of a model matrix
+        mTmpOrientation.setAll(mOrientation);
+        mTmpOrientation.inverse();
+
+        // Create the view matrix
+        final double[] matrix = mViewMatrix.getDoubleValues();
+        // Precompute these factors for speed
+        final double x2 = mTmpOrientation.x * mTmpOrientation.x;
+        final double y2 = mTmpOrientation.y * mTmpOrientation.y;
+        final double z2 = mTmpOrientation.z * mTmpOrientation.z;
+        final double xy = mTmpOrientation.x * mTmpOrientation.y;
+        final double xz = mTmpOrientation.x * mTmpOrientation.z;
+        final double yz = mTmpOrientation.y * mTmpOrientation.z;
+        final double wx = mTmpOrientation.w * mTmpOrientation.x;
+        final double wy = mTmpOrientation.w * mTmpOrientation.y;
+        final double wz = mTmpOrientation.w * mTmpOrientation.z;
+
+        matrix[Matrix4.M00] = 1.0 - 2.0 * (y2 + z2);
+        matrix[Matrix4.M10] = 2.0 * (xy - wz);
+        matrix[Matrix4.M20] = 2.0 * (xz + wy);
+        matrix[Matrix4.M30] = 0;
+
+        matrix[Matrix4.M01] = 2.0 * (xy + wz);
+        matrix[Matrix4.M11] = 1.0 - 2.0 * (x2 + z2);
+        matrix[Matrix4.M21] = 2.0 * (yz - wx);
+        matrix[Matrix4.M31] = 0;
+
+        matrix[Matrix4.M02] = 2.0 * (xz - wy);
+        matrix[Matrix4.M12] = 2.0 * (yz + wx);
+        matrix[Matrix4.M22] = 1.0 - 2.0 * (x2 + y2);
+        matrix[Matrix4.M32] = 0;
+
+        matrix[Matrix4.M03] = -mPosition.x * matrix[Matrix4.M00]
+            + -mPosition.y * matrix[Matrix4.M01] + -mPosition.z * matrix[Matrix4.M02];
+        matrix[Matrix4.M13] = -mPosition.x * matrix[Matrix4.M10]
+            + -mPosition.y * matrix[Matrix4.M11] + -mPosition.z * matrix[Matrix4.M12];
+        matrix[Matrix4.M23] = -mPosition.x * matrix[Matrix4.M20]
+            + -mPosition.y * matrix[Matrix4.M21] + -mPosition.z * matrix[Matrix4.M22];
+        matrix[Matrix4.M33] = 1;
+
+        mTmpOrientation.setAll(mLocalOrientation).inverse();
+        mViewMatrix.leftMultiply(mTmpOrientation.toRotationMatrix(mScratchMatrix));
+    }
+
+    /**
+     * Compares the view and projection matrices against the ones seen on the previous call and, if either changed,
+     * bumps the view version and recalculates the view dependent matrices shared by every object rendered with this
+     * camera. Comparing values rather than tracking setters also catches direct edits to {@link #getProjectionMatrix()}.
+     */
+    private void updateViewVersion() {
+        final double[] view = mViewMatrix.getDoubleValues();
+        final double[] projection = mProjMatrix.getDoubleValues();
+        boolean changed = false;
+        for (int i = 0; i < 16; ++i) {
+            if (mLastViewProjection[i] != view[i] || mLastViewProjection[i + 16] != projection[i]) {
+                changed = true;
+                break;
+            }
+        }
+        if (changed || mViewVersion == 0) {
+            System.arraycopy(view, 0, mLastViewProjection, 0, 16);
+            System.arraycopy(projection, 0, mLastViewProjection, 16, 16);
+            mInverseViewMatrix.setAll(mViewMatrix).inverse().transpose();
+            ++mViewVersion;
+            RenderStats.countViewMatrix();
+        }
+    }
+
+    /**
+     * Retrieves a counter which changes whenever the view or projection matrix of this camera changes. Objects use
+     * this to skip recalculating their view dependent matrices when neither they nor the camera moved. The version
+     * is updated by {@link #getViewMatrix()}.
+     *
+     * @return {@code int} The current view version. Never 0 once {@link #getViewMatrix()} has been called.
+     */
+    public int getViewVersion() {
+        synchronized (mFrustumLock) {
+            return mViewVersion;
+        }
+    }
+
+    /**
+     * Retrieves the transposed inverse of the view matrix, calculated once per view change rather than once per
+     * object. The value is updated by {@link #getViewMatrix()}.
+     *
+     * @return {@link Matrix4} The inverse transpose of the view matrix. Do not modify.
+     */
+    public Matrix4 getInverseViewMatrix() {
+        synchronized (mFrustumLock) {
+            return mInverseViewMatrix;
+        }
+    }
+
+    /**
+     * Checks whether the provided matrix is this camera's own view matrix instance, as returned by
+     * {@link #getViewMatrix()}.
+     *
+     * @param matrix {@link Matrix4} The matrix to check.
+     * @return {@code boolean} True if the matrix is this camera's view matrix.
+     */
+    public boolean isViewMatrix(Matrix4 matrix) {
+        return matrix == mViewMatrix;
+    }
+
     public void getFrustumCorners(Vector3[] points) {
         getFrustumCorners(points, false);
     }
@@ -182,9 +255,9 @@ public class Camera extends ATransformable3D {
         }
 	}
 
-	public void updateFrustum(Matrix4 invVPMatrix) {
+	public void updateFrustum(Matrix4 vpMatrix) {
 		synchronized (mFrustumLock) {
-			mFrustum.update(invVPMatrix);
+			mFrustum.update(vpMatrix);
 		}
 	}
 
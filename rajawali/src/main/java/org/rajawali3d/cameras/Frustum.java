@@ -18,6 +18,20 @@ import org.rajawali3d.math.Plane;
 import org.rajawali3d.math.vector.Vector3;
 
 public class Frustum {
+
+	/**
+	 * Result of {@link #classifyBounds(Vector3, Vector3)} for bounds entirely outside the frustum.
+	 */
+	public static final int OUTSIDE = 0;
+	/**
+	 * Result of {@link #classifyBounds(Vector3, Vector3)} for bounds straddling at least one plane.
+	 */
+	public static final int INTERSECT = 1;
+	/**
+	 * Result of {@link #classifyBounds(Vector3, Vector3)} for bounds entirely inside the frustum.
+	 */
+	public static final int INSIDE = 2;
+
 	private final Plane[] mPlanes;
 	private Vector3 mPoint1;
 	private Vector3 mPoint2;
@@ -30,8 +44,13 @@ public class Frustum {
 			mPlanes[i] = new Plane();
 	}
 
-	public void update(Matrix4 inverseProjectionView) {
-		float[] m = inverseProjectionView.getFloatValues();
+	/**
+	 * Extracts the six clipping planes from the provided view-projection matrix.
+	 *
+	 * @param projectionView {@link Matrix4} The combined projection * view matrix of the camera.
+	 */
+	public void update(Matrix4 projectionView) {
+		float[] m = projectionView.getFloatValues();
 		
 		mPlanes[0].setComponents(m[Matrix4.M30] - m[Matrix4.M00], m[Matrix4.M31] - m[Matrix4.M01], m[Matrix4.M32] - m[Matrix4.M02], m[Matrix4.M33] - m[Matrix4.M03]);
 		mPlanes[1].setComponents(m[Matrix4.M30] + m[Matrix4.M00], m[Matrix4.M31] + m[Matrix4.M01], m[Matrix4.M32] + m[Matrix4.M02], m[Matrix4.M33] + m[Matrix4.M03]);
@@ -58,24 +77,44 @@ public class Frustum {
 		return true;
 	}
 
+	/**
+	 * Tests the world space (transformed) extents of the provided {@link BoundingBox} against the frustum.
+	 *
+	 * @param bounds {@link BoundingBox} which has been transformed into world space.
+	 * @return {@code true} if the bounds are at least partially inside the frustum.
+	 */
 	public boolean boundsInFrustum(BoundingBox bounds) {
+		return classifyBounds(bounds.getTransformedMin(), bounds.getTransformedMax()) != OUTSIDE;
+	}
+
+	/**
+	 * Classifies the axis aligned box described by the provided extents against the frustum. Only the corner
+	 * furthest along each plane normal (and the nearest one, for the containment case) is tested, so a box
+	 * costs at most two distance evaluations per plane.
+	 *
+	 * @param min {@link Vector3} The minimum corner of the box.
+	 * @param max {@link Vector3} The maximum corner of the box.
+	 * @return {@code int} One of {@link #OUTSIDE}, {@link #INTERSECT} or {@link #INSIDE}.
+	 */
+	public int classifyBounds(Vector3 min, Vector3 max) {
+		int result = INSIDE;
 		for(int i=0; i<6; i++) {
 			Plane p = mPlanes[i];
-			mPoint1.x = p.getNormal().x > 0 ? bounds.getMin().x : bounds.getMax().x;
-			mPoint2.x = p.getNormal().x > 0 ? bounds.getMax().x : bounds.getMin().x;
-			mPoint1.y = p.getNormal().y > 0 ? bounds.getMin().y : bounds.getMax().y;
-			mPoint2.y = p.getNormal().y > 0 ? bounds.getMax().y : bounds.getMin().y;
-			mPoint1.z = p.getNormal().z > 0 ? bounds.getMin().z : bounds.getMax().z;
-			mPoint2.z = p.getNormal().z > 0 ? bounds.getMax().z : bounds.getMin().z;
-
-			double distance1 = p.getDistanceTo(mPoint1);
-			double distance2 = p.getDistanceTo(mPoint2);
+			Vector3 normal = p.getNormal();
+			mPoint1.x = normal.x > 0 ? min.x : max.x;
+			mPoint2.x = normal.x > 0 ? max.x : min.x;
+			mPoint1.y = normal.y > 0 ? min.y : max.y;
+			mPoint2.y = normal.y > 0 ? max.y : min.y;
+			mPoint1.z = normal.z > 0 ? min.z : max.z;
+			mPoint2.z = normal.z > 0 ? max.z : min.z;
 
-			if ( distance1 < 0 && distance2 < 0 )
-				return false;
+			if (p.getDistanceTo(mPoint2) < 0)
+				return OUTSIDE;
+			if (p.getDistanceTo(mPoint1) < 0)
+				result = INTERSECT;
 		}
-		
-		return true;
+
+		return result;
 	}
 
 	public boolean pointInFrustum(Vector3 point) {
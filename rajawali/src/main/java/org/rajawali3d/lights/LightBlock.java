@@ -0,0 +1,173 @@
+/**
+ * Copyright 2013 Dennis Ippel
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except in compliance with
+ * the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License is distributed on
+ * an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations under the License.
+ */
+package org.rajawali3d.lights;
+
+import java.util.List;
+
+/**
+ * The uniform values of a list of lights, packed once per frame into a single float array in the layout the lights
+ * shader fragment uploads. Each light takes {@link #STRIDE} floats, with the values at the offsets given by the
+ * constants of this class. Values which don't apply to a light's type are undefined.
+ *
+ * Every time the packed values change the block takes a new version. Versions are unique across all blocks, so a
+ * program which recorded the version of the last block uploaded to it can skip uploading the lights again.
+ *
+ * Like the rest of the render path a block must only be used on the GL thread.
+ */
+public class LightBlock {
+
+    public static final int COLOR        = 0;
+    public static final int POWER        = 3;
+    public static final int POSITION     = 4;
+    public static final int CUTOFF_ANGLE = 7;
+    public static final int DIRECTION    = 8;
+    public static final int FALLOFF      = 11;
+    public static final int ATTENUATION  = 12;
+    public static final int STRIDE       = 16;
+
+    private static int sNextVersion = 1;
+
+    private ALight[] mLights = new ALight[0];
+    private float[]  mData   = new float[0];
+    private int mLightCount;
+    private int mVersion;
+
+    public LightBlock() {
+        mVersion = sNextVersion++;
+    }
+
+    /**
+     * Packs the current values of the lights, taking a new version if anything differs from the last update.
+     *
+     * @param lights {@link List} of {@link ALight}s in the order the shaders declare them.
+     * @return {@code boolean} True if the block changed.
+     */
+    public boolean update(List<ALight> lights) {
+        final int count = lights.size();
+        boolean changed = count != mLightCount;
+        if (mLights.length < count) {
+            final ALight[] grown = new ALight[count];
+            System.arraycopy(mLights, 0, grown, 0, mLightCount);
+            mLights = grown;
+            final float[] data = new float[count * STRIDE];
+            System.arraycopy(mData, 0, data, 0, mLightCount * STRIDE);
+            mData = data;
+        }
+        for (int i = 0; i < count; ++i) {
+            final ALight light = lights.get(i);
+            if (mLights[i] != light) {
+                mLights[i] = light;
+                changed = true;
+            }
+            changed |= pack(light, i * STRIDE);
+        }
+        for (int i = count; i < mLightCount; ++i) {
+            mLights[i] = null;
+        }
+        mLightCount = count;
+        if (changed) {
+            mVersion = sNextVersion++;
+        }
+        return changed;
+    }
+
+    private boolean pack(ALight light, int offset) {
+        boolean changed = set(offset + COLOR, light.getColor(), 3);
+        changed |= set(offset + POWER, light.getPower());
+        final double[] position = light.getPositionArray();
+        changed |= set(offset + POSITION, (float) position[0]);
+        changed |= set(offset + POSITION + 1, (float) position[1]);
+        changed |= set(offset + POSITION + 2, (float) position[2]);
+        final int type = light.getLightType();
+        if (type == ALight.DIRECTIONAL_LIGHT || type == ALight.SPOT_LIGHT) {
+            final double[] direction = ((DirectionalLight) light).getDirection();
+            changed |= set(offset + DIRECTION, (float) direction[0]);
+            changed |= set(offset + DIRECTION + 1, (float) direction[1]);
+            changed |= set(offset + DIRECTION + 2, (float) direction[2]);
+        }
+        if (type == ALight.SPOT_LIGHT) {
+            final SpotLight spotLight = (SpotLight) light;
+            changed |= set(offset + ATTENUATION, spotLight.getAttenuation(), 4);
+            changed |= set(offset + CUTOFF_ANGLE, spotLight.getCutoffAngle());
+            changed |= set(offset + FALLOFF, spotLight.getFalloff());
+        } else if (type == ALight.POINT_LIGHT) {
+            changed |= set(offset + ATTENUATION, ((PointLight) light).getAttenuation(), 4);
+        }
+        return changed;
+    }
+
+    private boolean set(int index, float value) {
+        if (Float.floatToRawIntBits(mData[index]) == Float.floatToRawIntBits(value)) {
+            return false;
+        }
+        mData[index] = value;
+        return true;
+    }
+
+    private boolean set(int index, float[] values, int count) {
+        boolean changed = false;
+        for (int i = 0; i < count; ++i) {
+            changed |= set(index + i, values[i]);
+        }
+        return changed;
+    }
+
+    /**
+     * @return {@code int} The version of the values currently in the block.
+     */
+    public int getVersion() {
+        return mVersion;
+    }
+
+    /**
+     * @return {@code float[]} The packed values. Must not be modified, and may be replaced by the next update.
+     */
+    public float[] getData() {
+        return mData;
+    }
+
+    /**
+     * @param index {@code int} The index of a light.
+     * @return {@code int} The offset of the light's values in {@link #getData()}.
+     */
+    public int getOffset(int index) {
+        return index * STRIDE;
+    }
+
+    public int getLightCount() {
+        return mLightCount;
+    }
+
+    public ALight getLight(int index) {
+        return mLights[index];
+    }
+
+    /**
+     * Checks whether a list of lights matches the start of this block, so its values can be uploaded from it.
+     *
+     * @param lights {@link List} of {@link ALight}s.
+     * @return {@code boolean} True if the block holds the lights at the same indices.
+     */
+    public boolean startsWith(List<ALight> lights) {
+        final int count = lights.size();
+        if (count > mLightCount) {
+            return false;
+        }
+        for (int i = 0; i < count; ++i) {
+            if (mLights[i] != lights.get(i)) {
+                return false;
+            }
+        }
+        return true;
+    }
+}
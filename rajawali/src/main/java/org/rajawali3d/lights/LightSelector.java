@@ -0,0 +1,178 @@
+/**
+ * Copyright 2013 Dennis Ippel
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except in compliance with
+ * the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License is distributed on
+ * an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations under the License.
+ */
+package org.rajawali3d.lights;
+
+import org.rajawali3d.math.vector.Vector3;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * Picks the point and spot lights which most influence an object and copies them into a fixed set of light slots.
+ * A material compiled for the slots rather than for the scene's lights keeps the same shader however many local
+ * lights the scene holds, and each object is lit by at most the number of slots.
+ *
+ * A light's influence is its power times the attenuation at the point of the object's bounds nearest to it, the same
+ * attenuation the shaders apply. Lights whose attenuation range doesn't reach the bounds are never selected. Slots
+ * left without a light get a power of 0, so they don't contribute. Directional lights reach everything and aren't
+ * selected; materials keep them as regular lights.
+ */
+public class LightSelector {
+
+    private final PointLight[] mPointSlots;
+    private final SpotLight[]  mSpotSlots;
+    private final List<ALight> mSlotLights;
+
+    private final ALight[] mSelectedPointLights;
+    private final ALight[] mSelectedSpotLights;
+    private final double[] mPointScores;
+    private final double[] mSpotScores;
+
+    /**
+     * @param maxPointLights {@code int} The number of point light slots.
+     * @param maxSpotLights  {@code int} The number of spot light slots.
+     */
+    public LightSelector(int maxPointLights, int maxSpotLights) {
+        mPointSlots = new PointLight[maxPointLights];
+        mSpotSlots = new SpotLight[maxSpotLights];
+        final List<ALight> slots = new ArrayList<ALight>(maxPointLights + maxSpotLights);
+        for (int i = 0; i < maxPointLights; ++i) {
+            mPointSlots[i] = new PointLight();
+            mPointSlots[i].setPower(0);
+            slots.add(mPointSlots[i]);
+        }
+        for (int i = 0; i < maxSpotLights; ++i) {
+            mSpotSlots[i] = new SpotLight();
+            mSpotSlots[i].setPower(0);
+            slots.add(mSpotSlots[i]);
+        }
+        mSlotLights = Collections.unmodifiableList(slots);
+        mSelectedPointLights = new ALight[maxPointLights];
+        mSelectedSpotLights = new ALight[maxSpotLights];
+        mPointScores = new double[maxPointLights];
+        mSpotScores = new double[maxSpotLights];
+    }
+
+    /**
+     * @return {@link List} The slot lights, point lights first, which shaders should be compiled for.
+     */
+    public List<ALight> getSlotLights() {
+        return mSlotLights;
+    }
+
+    public int getMaxPointLights() {
+        return mPointSlots.length;
+    }
+
+    public int getMaxSpotLights() {
+        return mSpotSlots.length;
+    }
+
+    /**
+     * Selects the most influential point and spot lights for bounds and copies them into the slots.
+     *
+     * @param lights {@link List} of candidate {@link ALight}s. Directional lights are ignored.
+     * @param center {@link Vector3} The world space center of the bounds.
+     * @param radius {@code double} The world space radius of the bounds.
+     */
+    public void select(List<ALight> lights, Vector3 center, double radius) {
+        int pointCount = 0;
+        int spotCount = 0;
+        for (int i = 0, j = lights.size(); i < j; ++i) {
+            final ALight light = lights.get(i);
+            final int type = light.getLightType();
+            if (type == ALight.POINT_LIGHT) {
+                final double score = getInfluence(light, ((PointLight) light).getAttenuation(), center, radius);
+                pointCount = insert(light, score, mSelectedPointLights, mPointScores, pointCount);
+            } else if (type == ALight.SPOT_LIGHT) {
+                final double score = getInfluence(light, ((SpotLight) light).getAttenuation(), center, radius);
+                spotCount = insert(light, score, mSelectedSpotLights, mSpotScores, spotCount);
+            }
+        }
+        for (int i = 0; i < mPointSlots.length; ++i) {
+            if (i < pointCount) {
+                copy((PointLight) mSelectedPointLights[i], mPointSlots[i]);
+                mSelectedPointLights[i] = null;
+            } else {
+                mPointSlots[i].setPower(0);
+            }
+        }
+        for (int i = 0; i < mSpotSlots.length; ++i) {
+            if (i < spotCount) {
+                copy((SpotLight) mSelectedSpotLights[i], mSpotSlots[i]);
+                mSelectedSpotLights[i] = null;
+            } else {
+                mSpotSlots[i].setPower(0);
+            }
+        }
+    }
+
+    /**
+     * Estimates how much a local light contributes to bounds.
+     *
+     * @return {@code double} The power of the light attenuated at the nearest point of the bounds, or 0 if it is out
+     * of range.
+     */
+    static double getInfluence(ALight light, float[] attenuation, Vector3 center, double radius) {
+        final double distance = Math.max(0, light.getPosition().distanceTo(center) - radius);
+        if (distance > attenuation[0]) {
+            return 0;
+        }
+        final double falloff = attenuation[1] + attenuation[2] * distance + attenuation[3] * distance * distance;
+        return falloff > 0 ? light.getPower() / falloff : light.getPower();
+    }
+
+    /**
+     * Inserts a light into the selection, which is sorted by descending score, dropping the weakest light when full.
+     *
+     * @return {@code int} The new number of selected lights.
+     */
+    private static int insert(ALight light, double score, ALight[] selected, double[] scores, int count) {
+        if (score <= 0 || selected.length == 0) {
+            return count;
+        }
+        int index = count < selected.length ? count : selected.length - 1;
+        if (count == selected.length && scores[index] >= score) {
+            return count;
+        }
+        while (index > 0 && scores[index - 1] < score) {
+            selected[index] = selected[index - 1];
+            scores[index] = scores[index - 1];
+            --index;
+        }
+        selected[index] = light;
+        scores[index] = score;
+        return Math.min(count + 1, selected.length);
+    }
+
+    private static void copy(PointLight source, PointLight slot) {
+        copyCommon(source, slot);
+        System.arraycopy(source.mAttenuation, 0, slot.mAttenuation, 0, 4);
+    }
+
+    private static void copy(SpotLight source, SpotLight slot) {
+        copyCommon(source, slot);
+        System.arraycopy(source.mAttenuation, 0, slot.mAttenuation, 0, 4);
+        slot.mDirectionVec.setAll(source.mDirectionVec);
+        slot.mCutoffAngle = source.mCutoffAngle;
+        slot.mFalloff = source.mFalloff;
+    }
+
+    private static void copyCommon(ALight source, ALight slot) {
+        final float[] color = source.getColor();
+        slot.setColor(color[0], color[1], color[2]);
+        slot.setPower(source.getPower());
+        slot.setPosition(source.getPosition());
+    }
+}
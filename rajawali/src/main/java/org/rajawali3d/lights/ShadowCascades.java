@@ -0,0 +1,376 @@
+/**
+ * Copyright 2013 Dennis Ippel
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except in compliance with
+ * the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License is distributed on
+ * an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations under the License.
+ */
+package org.rajawali3d.lights;
+
+import org.rajawali3d.cameras.Camera;
+import org.rajawali3d.math.Matrix4;
+import org.rajawali3d.math.vector.Vector3;
+
+/**
+ * Splits the view frustum of a camera into cascades and fits an orthographic light projection to each, so a
+ * directional light's shadow map resolution is spent where the camera needs it: small cascades close to the camera,
+ * larger ones further away.
+ *
+ * Split distances use the practical split scheme, a blend of logarithmic and uniform splits weighted by
+ * {@link #setSplitLambda(double)}. Each cascade is fitted to the bounding sphere of its part of the frustum rather
+ * than to its bounding box. The sphere doesn't change size when the camera turns, and its center is snapped to whole
+ * shadow map texels, so shadow edges don't shimmer as the camera moves. Each projection is extended toward the light
+ * by the caster distance so objects outside the view still cast shadows into it.
+ *
+ * The cascades of a shadow map share one texture, laid out as tiles. A single cascade takes the whole texture, more
+ * take a quarter each.
+ *
+ * Since the projections only move in whole texels, they often stay the same from one frame to the next. The version
+ * changes whenever they don't, so a shadow map of static casters can be kept until then.
+ */
+public class ShadowCascades {
+
+    public static final int MAX_CASCADES = 4;
+
+    private static final int MIN_X = 0;
+    private static final int MAX_X = 1;
+    private static final int MIN_Y = 2;
+    private static final int MAX_Y = 3;
+    private static final int MIN_Z = 4;
+    private static final int MAX_Z = 5;
+
+    private final int       mCascadeCount;
+    private final double[]  mSplits;
+    private final double[]  mBounds;
+    private final Matrix4[] mProjectionMatrices;
+    private final Matrix4[] mViewProjectionMatrices;
+    private final Matrix4   mLightViewMatrix = new Matrix4();
+    private final double[]  mLastMatrices;
+
+    private final Vector3[] mFrustumCorners = new Vector3[8];
+    private final Vector3[] mCascadeCorners = new Vector3[8];
+    private final Vector3   mCenter         = new Vector3();
+    private final Vector3   mRight          = new Vector3();
+    private final Vector3   mUp             = new Vector3();
+    private final Vector3   mBackward       = new Vector3();
+
+    private double mSplitLambda = 0.75;
+    private double mShadowDistance;
+    private double mCasterDistance;
+    private int    mVersion;
+
+    /**
+     * @param cascadeCount {@code int} The number of cascades, from 1 to {@link #MAX_CASCADES}.
+     */
+    public ShadowCascades(int cascadeCount) {
+        if (cascadeCount < 1 || cascadeCount > MAX_CASCADES) {
+            throw new IllegalArgumentException("The number of cascades must be between 1 and " + MAX_CASCADES);
+        }
+        mCascadeCount = cascadeCount;
+        mSplits = new double[cascadeCount + 1];
+        mBounds = new double[cascadeCount * 6];
+        mProjectionMatrices = new Matrix4[cascadeCount];
+        mViewProjectionMatrices = new Matrix4[cascadeCount];
+        mLastMatrices = new double[cascadeCount * 16];
+        for (int i = 0; i < cascadeCount; ++i) {
+            mProjectionMatrices[i] = new Matrix4();
+            mViewProjectionMatrices[i] = new Matrix4();
+        }
+        for (int i = 0; i < 8; ++i) {
+            mFrustumCorners[i] = new Vector3();
+            mCascadeCorners[i] = new Vector3();
+        }
+    }
+
+    public int getCascadeCount() {
+        return mCascadeCount;
+    }
+
+    /**
+     * Sets the weight of the logarithmic split distances against the uniform ones. 1 gives purely logarithmic
+     * splits, which suit perspective aliasing best but crowd the cascades around the near plane. 0 gives uniform
+     * splits. The default is 0.75.
+     *
+     * @param lambda {@code double} The weight, from 0 to 1.
+     */
+    public void setSplitLambda(double lambda) {
+        mSplitLambda = Math.max(0, Math.min(1, lambda));
+    }
+
+    public double getSplitLambda() {
+        return mSplitLambda;
+    }
+
+    /**
+     * Limits the distance from the camera up to which shadows are drawn. Large outdoor scenes rarely need shadows up
+     * to the far plane, and a shorter distance gives every cascade more resolution.
+     *
+     * @param distance {@code double} The distance, or 0 to draw shadows up to the camera's far plane.
+     */
+    public void setShadowDistance(double distance) {
+        mShadowDistance = distance;
+    }
+
+    public double getShadowDistance() {
+        return mShadowDistance;
+    }
+
+    /**
+     * Sets how far toward the light each cascade's projection reaches beyond the cascade, which is how far away
+     * objects may be and still cast shadows into it.
+     *
+     * @param distance {@code double} The distance, or 0 to use the distance shadows are drawn up to.
+     */
+    public void setCasterDistance(double distance) {
+        mCasterDistance = distance;
+    }
+
+    public double getCasterDistance() {
+        return mCasterDistance;
+    }
+
+    /**
+     * Fits the cascades to the current view of a camera.
+     *
+     * @param camera         {@link Camera} The camera whose view receives the shadows.
+     * @param lightDirection {@link Vector3} The direction of the light.
+     * @param shadowMapSize  {@code int} The size of the shadow map texture holding all cascades.
+     * @return {@code boolean} True if any cascade's projection changed.
+     */
+    public boolean update(Camera camera, Vector3 lightDirection, int shadowMapSize) {
+        camera.getFrustumCorners(mFrustumCorners, true);
+        return update(mFrustumCorners, camera.getNearPlane(), camera.getFarPlane(), lightDirection, shadowMapSize);
+    }
+
+    /**
+     * Fits the cascades to a view frustum.
+     *
+     * @param frustumCorners {@link Vector3} array of the 8 world space frustum corners, near plane first, in the
+     *                       order of {@link Camera#getFrustumCorners(Vector3[], boolean)}.
+     * @param near           {@code double} The distance of the near plane.
+     * @param far            {@code double} The distance of the far plane.
+     * @param lightDirection {@link Vector3} The direction of the light.
+     * @param shadowMapSize  {@code int} The size of the shadow map texture holding all cascades.
+     * @return {@code boolean} True if any cascade's projection changed.
+     */
+    public boolean update(Vector3[] frustumCorners, double near, double far, Vector3 lightDirection,
+                          int shadowMapSize) {
+        final double shadowFar = mShadowDistance > 0 ? Math.min(far, mShadowDistance) : far;
+        calculateSplits(near, shadowFar, mSplitLambda, mSplits);
+        final double casterDistance = mCasterDistance > 0 ? mCasterDistance : shadowFar - near;
+        setLightView(lightDirection);
+        final int tileSize = getTileSize(shadowMapSize);
+        for (int i = 0; i < mCascadeCount; ++i) {
+            // The corners of the cascade lie on the lines from the near to the far corners of the frustum
+            final double start = (mSplits[i] - near) / (far - near);
+            final double end = (mSplits[i + 1] - near) / (far - near);
+            for (int j = 0; j < 4; ++j) {
+                mCascadeCorners[j].lerpAndSet(frustumCorners[j], frustumCorners[j + 4], start);
+                mCascadeCorners[j + 4].lerpAndSet(frustumCorners[j], frustumCorners[j + 4], end);
+            }
+            fitCascade(i, casterDistance, tileSize);
+        }
+
+        boolean changed = false;
+        for (int i = 0; i < mCascadeCount; ++i) {
+            final double[] matrix = mViewProjectionMatrices[i].getDoubleValues();
+            for (int j = 0; j < 16; ++j) {
+                if (mLastMatrices[i * 16 + j] != matrix[j]) {
+                    mLastMatrices[i * 16 + j] = matrix[j];
+                    changed = true;
+                }
+            }
+        }
+        if (changed) {
+            ++mVersion;
+        }
+        return changed;
+    }
+
+    /**
+     * @return {@code int} A counter which changes whenever an update changes any cascade's projection.
+     */
+    public int getVersion() {
+        return mVersion;
+    }
+
+    /**
+     * Calculates the practical split distances, blending logarithmic and uniform splits.
+     *
+     * @param near   {@code double} The distance the first cascade starts at.
+     * @param far    {@code double} The distance the last cascade ends at.
+     * @param lambda {@code double} The weight of the logarithmic splits, from 0 to 1.
+     * @param splits {@code double} array to store the distances in. Its length is the number of cascades plus one,
+     *               starting with near and ending with far.
+     */
+    public static void calculateSplits(double near, double far, double lambda, double[] splits) {
+        final int count = splits.length - 1;
+        splits[0] = near;
+        for (int i = 1; i < count; ++i) {
+            final double fraction = i / (double) count;
+            final double logarithmic = near * Math.pow(far / near, fraction);
+            final double uniform = near + (far - near) * fraction;
+            splits[i] = lambda * logarithmic + (1 - lambda) * uniform;
+        }
+        splits[count] = far;
+    }
+
+    /**
+     * Sets up the light's view matrix. It has no translation, so light space only differs from world space by a
+     * rotation and the snapping of a cascade's center is the same wherever the camera is. The light looks down the
+     * negative z axis of light space.
+     */
+    private void setLightView(Vector3 lightDirection) {
+        mBackward.setAll(lightDirection).inverse();
+        mBackward.normalize();
+        if (Math.abs(mBackward.y) > 0.99) {
+            mUp.setAll(Vector3.Z);
+        } else {
+            mUp.setAll(Vector3.Y);
+        }
+        mRight.crossAndSet(mUp, mBackward);
+        mRight.normalize();
+        mUp.crossAndSet(mBackward, mRight);
+
+        final double[] m = mLightViewMatrix.getDoubleValues();
+        m[Matrix4.M00] = mRight.x;
+        m[Matrix4.M01] = mRight.y;
+        m[Matrix4.M02] = mRight.z;
+        m[Matrix4.M03] = 0;
+        m[Matrix4.M10] = mUp.x;
+        m[Matrix4.M11] = mUp.y;
+        m[Matrix4.M12] = mUp.z;
+        m[Matrix4.M13] = 0;
+        m[Matrix4.M20] = mBackward.x;
+        m[Matrix4.M21] = mBackward.y;
+        m[Matrix4.M22] = mBackward.z;
+        m[Matrix4.M23] = 0;
+        m[Matrix4.M30] = 0;
+        m[Matrix4.M31] = 0;
+        m[Matrix4.M32] = 0;
+        m[Matrix4.M33] = 1;
+    }
+
+    private void fitCascade(int cascade, double casterDistance, int tileSize) {
+        mCenter.setAll(0, 0, 0);
+        for (int i = 0; i < 8; ++i) {
+            mCenter.add(mCascadeCorners[i]);
+        }
+        mCenter.multiply(1.0 / 8.0);
+        double radius = 0;
+        for (int i = 0; i < 8; ++i) {
+            radius = Math.max(radius, mCenter.distanceTo(mCascadeCorners[i]));
+        }
+        // The radius only depends on the shape of the frustum, round it so precision errors don't resize the cascade
+        radius = Math.ceil(radius * 16.0) / 16.0;
+
+        final double texelSize = 2.0 * radius / tileSize;
+        final double x = Math.floor(mRight.dot(mCenter) / texelSize) * texelSize;
+        final double y = Math.floor(mUp.dot(mCenter) / texelSize) * texelSize;
+        // Snapping the depth too keeps the projection unchanged while the camera moves less than a texel. The caster
+        // range toward the light covers the part of the sphere this moves out of the receiver range.
+        final double z = Math.floor(mBackward.dot(mCenter) / texelSize) * texelSize;
+
+        final int offset = cascade * 6;
+        mBounds[offset + MIN_X] = x - radius;
+        mBounds[offset + MAX_X] = x + radius;
+        mBounds[offset + MIN_Y] = y - radius;
+        mBounds[offset + MAX_Y] = y + radius;
+        mBounds[offset + MIN_Z] = z - radius;
+        mBounds[offset + MAX_Z] = z + radius + Math.max(casterDistance, texelSize);
+
+        // Light space z grows toward the light, while the projection's near and far planes are distances along -z
+        mProjectionMatrices[cascade].setToOrthographic(x - radius, x + radius, y - radius, y + radius,
+            -mBounds[offset + MAX_Z], -mBounds[offset + MIN_Z]);
+        mViewProjectionMatrices[cascade].setAll(mProjectionMatrices[cascade]).multiply(mLightViewMatrix);
+    }
+
+    /**
+     * Checks whether a bounding sphere reaches into the light space volume of a cascade, and so may cast shadows
+     * into it.
+     *
+     * @param cascade {@code int} The index of the cascade.
+     * @param center  {@link Vector3} The world space center of the sphere.
+     * @param radius  {@code double} The radius of the sphere.
+     * @return {@code boolean} True if the sphere intersects the volume.
+     */
+    public boolean intersects(int cascade, Vector3 center, double radius) {
+        final int offset = cascade * 6;
+        final double x = mRight.dot(center);
+        if (x + radius < mBounds[offset + MIN_X] || x - radius > mBounds[offset + MAX_X]) {
+            return false;
+        }
+        final double y = mUp.dot(center);
+        if (y + radius < mBounds[offset + MIN_Y] || y - radius > mBounds[offset + MAX_Y]) {
+            return false;
+        }
+        final double z = mBackward.dot(center);
+        return z + radius >= mBounds[offset + MIN_Z] && z - radius <= mBounds[offset + MAX_Z];
+    }
+
+    /**
+     * @param index {@code int} The index of the split, from 0 for the near plane to the number of cascades.
+     * @return {@code double} The distance from the camera at which the cascade with the index starts.
+     */
+    public double getSplit(int index) {
+        return mSplits[index];
+    }
+
+    /**
+     * @return {@link Matrix4} The view matrix of the light, shared by all cascades.
+     */
+    public Matrix4 getLightViewMatrix() {
+        return mLightViewMatrix;
+    }
+
+    public Matrix4 getProjectionMatrix(int cascade) {
+        return mProjectionMatrices[cascade];
+    }
+
+    /**
+     * @param cascade {@code int} The index of the cascade.
+     * @return {@link Matrix4} The view projection matrix which renders the cascade's shadow casters.
+     */
+    public Matrix4 getViewProjectionMatrix(int cascade) {
+        return mViewProjectionMatrices[cascade];
+    }
+
+    /**
+     * @param cascade {@code int} The index of the cascade.
+     * @return {@code double} The width in world units of the area the cascade covers.
+     */
+    public double getWidth(int cascade) {
+        return mBounds[cascade * 6 + MAX_X] - mBounds[cascade * 6 + MIN_X];
+    }
+
+    /**
+     * @param shadowMapSize {@code int} The size of the shadow map texture.
+     * @return {@code int} The size of the tile each cascade takes in the texture.
+     */
+    public int getTileSize(int shadowMapSize) {
+        return mCascadeCount == 1 ? shadowMapSize : shadowMapSize / 2;
+    }
+
+    /**
+     * @param cascade       {@code int} The index of the cascade.
+     * @param shadowMapSize {@code int} The size of the shadow map texture.
+     * @return {@code int} The x coordinate in pixels of the cascade's tile.
+     */
+    public int getTileX(int cascade, int shadowMapSize) {
+        return (cascade % 2) * getTileSize(shadowMapSize);
+    }
+
+    /**
+     * @param cascade       {@code int} The index of the cascade.
+     * @param shadowMapSize {@code int} The size of the shadow map texture.
+     * @return {@code int} The y coordinate in pixels of the cascade's tile.
+     */
+    public int getTileY(int cascade, int shadowMapSize) {
+        return (cascade / 2) * getTileSize(shadowMapSize);
+    }
+}
@@ -17,6 +17,8 @@ import android.graphics.Bitmap;
 import android.graphics.BitmapFactory;
 import android.os.Environment;
 
+import org.rajawali3d.materials.textures.ATexture;
+import org.rajawali3d.materials.textures.TextureManager;
 import org.rajawali3d.renderer.Renderer;
 import org.rajawali3d.util.LittleEndianDataInputStream;
 import org.rajawali3d.util.RajLog;
@@ -252,6 +254,24 @@ public abstract class ALoader implements ILoader {
 		return bitmap;
 	}
 
+	/**
+	 * Returns the key which identifies the source of a texture for
+	 * {@link TextureManager#acquireSharedTexture(String, ATexture.TextureType, TextureManager.TextureFactory)}, so that
+	 * a texture referenced by several materials is only decoded and uploaded once.
+	 *
+	 * @param name the file name of the texture
+	 * @param resourceType the resource type to look the texture up with when loading from a resource
+	 * @return the key, or null if the texture can't be found
+	 */
+	protected String findTextureKey(String name, String resourceType) {
+		if(mFile == null) {
+			String resourcePackage = mResources.getResourcePackageName(mResourceId);
+			return TextureManager.getResourceKey(
+					mResources.getIdentifier(getFileNameWithoutExtension(name), resourceType, resourcePackage));
+		}
+		return TextureManager.getFileKey(new File(mFile.getParent() + File.separatorChar + getOnlyFileName(name)));
+	}
+
 	protected InputStream findCompressedStream(String name) throws FileNotFoundException {
 		InputStream stream;
 		if(mFile == null) {
@@ -0,0 +1,461 @@
+/**
+ * Copyright 2013 Dennis Ippel
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except in compliance with
+ * the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License is distributed on
+ * an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations under the License.
+ */
+package org.rajawali3d.loader;
+
+import java.io.IOException;
+import java.io.Reader;
+import java.io.StringReader;
+
+/**
+ * Reads text model formats line by line from a reusable {@code char} window, parsing numbers and matching keywords in
+ * place so that reading a file doesn't create a {@link String} per line or per value. Spaces, tabs, carriage returns
+ * and commas separate tokens.
+ *
+ * A typical loop reads the keyword of each line and then its values:
+ * <pre><code>
+ * LineScanner scanner = new LineScanner(getBufferedReader());
+ * while (scanner.nextLine()) {
+ *     if (scanner.nextTokenEquals("v")) {
+ *         vertices.add(scanner.nextFloat());
+ *     }
+ * }
+ * </code></pre>
+ */
+public class LineScanner {
+
+    private static final int BUFFER_SIZE = 8192;
+
+    private static final double[] POWERS_OF_TEN = new double[]{
+            1e0, 1e1, 1e2, 1e3, 1e4, 1e5, 1e6, 1e7, 1e8, 1e9, 1e10, 1e11, 1e12, 1e13, 1e14, 1e15, 1e16, 1e17, 1e18,
+            1e19, 1e20, 1e21, 1e22
+    };
+
+    private final Reader mReader;
+
+    /**
+     * The window of text read so far. The current line is the range from {@link #mLineStart} to {@link #mLineEnd}.
+     */
+    private char[]  mBuffer = new char[BUFFER_SIZE];
+    private int     mBufferLength;
+    private int     mLineStart;
+    private int     mLineEnd;
+    private int     mNextLineStart;
+    private int     mPosition;
+    private int     mTokenStart;
+    private int     mTokenEnd;
+    private int     mLineNumber;
+    private boolean mEndOfStream;
+
+    /**
+     * @param reader {@link Reader} The text to scan. It is read in blocks, so it doesn't need to be buffered.
+     */
+    public LineScanner(Reader reader) {
+        mReader = reader;
+    }
+
+    /**
+     * @param text {@link String} The text to scan.
+     */
+    public LineScanner(String text) {
+        this(new StringReader(text));
+    }
+
+    /**
+     * Advances to the next line.
+     *
+     * @return {@code boolean} False if there are no more lines.
+     *
+     * @throws IOException if reading fails.
+     */
+    public boolean nextLine() throws IOException {
+        mLineStart = mNextLineStart;
+        int scan = mLineStart;
+        while (true) {
+            while (scan < mBufferLength) {
+                if (mBuffer[scan] == '\n') {
+                    setLine(scan, scan + 1);
+                    return true;
+                }
+                ++scan;
+            }
+            if (mEndOfStream) {
+                if (mLineStart < mBufferLength) {
+                    setLine(mBufferLength, mBufferLength);
+                    return true;
+                }
+                setLine(mLineStart, mLineStart);
+                return false;
+            }
+            // Move the partial line to the front of the window, growing it if the line doesn't fit, and read more
+            final int partial = mBufferLength - mLineStart;
+            if (partial == mBuffer.length) {
+                final char[] buffer = new char[mBuffer.length * 2];
+                System.arraycopy(mBuffer, 0, buffer, 0, partial);
+                mBuffer = buffer;
+            } else if (mLineStart > 0) {
+                System.arraycopy(mBuffer, mLineStart, mBuffer, 0, partial);
+            }
+            mLineStart = 0;
+            mBufferLength = partial;
+            scan = partial;
+            final int read = mReader.read(mBuffer, partial, mBuffer.length - partial);
+            if (read <= 0) {
+                mEndOfStream = true;
+            } else {
+                mBufferLength += read;
+            }
+        }
+    }
+
+    private void setLine(int end, int nextLineStart) {
+        mLineEnd = end;
+        mNextLineStart = nextLineStart;
+        mPosition = mTokenStart = mTokenEnd = mLineStart;
+        if (nextLineStart > mLineStart) {
+            ++mLineNumber;
+        }
+    }
+
+    /**
+     * @return {@code int} The number of the current line, starting at 1.
+     */
+    public int getLineNumber() {
+        return mLineNumber;
+    }
+
+    /**
+     * @return {@code boolean} True if the current line has no tokens or is a comment starting with '#'.
+     */
+    public boolean isBlankOrComment() {
+        skipWhitespace();
+        return mPosition == mLineEnd || mBuffer[mPosition] == '#';
+    }
+
+    /**
+     * @return {@code boolean} True if there are more tokens on the current line.
+     */
+    public boolean hasNext() {
+        skipWhitespace();
+        return mPosition < mLineEnd;
+    }
+
+    /**
+     * Moves past the next token, remembering it for {@link #tokenEquals(String)} and {@link #getToken()}.
+     *
+     * @return {@code boolean} False if there are no more tokens on the current line.
+     */
+    public boolean nextToken() {
+        skipWhitespace();
+        mTokenStart = mPosition;
+        while (mPosition < mLineEnd && !isWhitespace(mBuffer[mPosition])) {
+            ++mPosition;
+        }
+        mTokenEnd = mPosition;
+        return mTokenEnd > mTokenStart;
+    }
+
+    /**
+     * Reads the next token and compares it to a keyword.
+     *
+     * @param keyword {@link String} The expected token.
+     * @return {@code boolean} True if the next token equals the keyword.
+     */
+    public boolean nextTokenEquals(String keyword) {
+        return nextToken() && tokenEquals(keyword);
+    }
+
+    /**
+     * @param keyword {@link String} The expected token.
+     * @return {@code boolean} True if the last token read by {@link #nextToken()} equals the keyword.
+     */
+    public boolean tokenEquals(String keyword) {
+        final int length = mTokenEnd - mTokenStart;
+        if (length != keyword.length()) {
+            return false;
+        }
+        for (int i = 0; i < length; ++i) {
+            if (mBuffer[mTokenStart + i] != keyword.charAt(i)) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * @param keyword {@link String} The expected token, in any case.
+     * @return {@code boolean} True if the last token read by {@link #nextToken()} equals the keyword, ignoring case.
+     */
+    public boolean tokenEqualsIgnoreCase(String keyword) {
+        final int length = mTokenEnd - mTokenStart;
+        if (length != keyword.length()) {
+            return false;
+        }
+        for (int i = 0; i < length; ++i) {
+            if (Character.toLowerCase(mBuffer[mTokenStart + i]) != Character.toLowerCase(keyword.charAt(i))) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * @param prefix {@link String} The expected start of the token.
+     * @return {@code boolean} True if the last token read by {@link #nextToken()} starts with the prefix.
+     */
+    public boolean tokenStartsWith(String prefix) {
+        final int length = prefix.length();
+        if (mTokenEnd - mTokenStart < length) {
+            return false;
+        }
+        for (int i = 0; i < length; ++i) {
+            if (mBuffer[mTokenStart + i] != prefix.charAt(i)) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * @return {@link String} The last token read by {@link #nextToken()}. This allocates, so use it for names rather
+     * than values.
+     */
+    public String getToken() {
+        return new String(mBuffer, mTokenStart, mTokenEnd - mTokenStart);
+    }
+
+    /**
+     * Reads the next token, which may be a quoted string containing whitespace. The quotes are not included.
+     *
+     * @return {@link String} The token, or null if there are no more tokens on the current line.
+     */
+    public String nextQuoted() {
+        skipWhitespace();
+        if (skip('"')) {
+            final int start = mPosition;
+            while (mPosition < mLineEnd && mBuffer[mPosition] != '"') {
+                ++mPosition;
+            }
+            final String quoted = new String(mBuffer, start, mPosition - start);
+            skip('"');
+            return quoted;
+        }
+        return nextToken() ? getToken() : null;
+    }
+
+    /**
+     * @return {@code char} The next character on the current line which isn't whitespace, or 0 if there is none. The
+     * position is left at that character.
+     */
+    public char peek() {
+        skipWhitespace();
+        return mPosition < mLineEnd ? mBuffer[mPosition] : 0;
+    }
+
+    /**
+     * @return {@link String} The rest of the current line, without surrounding whitespace.
+     */
+    public String getRemainder() {
+        skipWhitespace();
+        int end = mLineEnd;
+        while (end > mPosition && isWhitespace(mBuffer[end - 1])) {
+            --end;
+        }
+        final String remainder = new String(mBuffer, mPosition, end - mPosition);
+        mPosition = mLineEnd;
+        return remainder;
+    }
+
+    /**
+     * @return {@link String} The whole current line. This allocates, so use it for error messages and rare lines.
+     */
+    public String getLine() {
+        return new String(mBuffer, mLineStart, mLineEnd - mLineStart);
+    }
+
+    /**
+     * Moves past a character if it is next on the line, without skipping whitespace first. Used for separators within
+     * a token, such as the slashes of an OBJ face.
+     *
+     * @param c {@code char} The expected character.
+     * @return {@code boolean} True if the character was next and has been skipped.
+     */
+    public boolean skip(char c) {
+        if (mPosition < mLineEnd && mBuffer[mPosition] == c) {
+            ++mPosition;
+            return true;
+        }
+        return false;
+    }
+
+    /**
+     * Moves to the next occurrence of a character on the current line and past it.
+     *
+     * @param c {@code char} The character to look for.
+     * @return {@code boolean} False if the rest of the line doesn't contain the character.
+     */
+    public boolean skipPast(char c) {
+        while (mPosition < mLineEnd) {
+            if (mBuffer[mPosition++] == c) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Parses the next integer, which ends at the first character that isn't a digit.
+     *
+     * @return {@code int} The value.
+     *
+     * @throws NumberFormatException if there is no integer at the current position.
+     */
+    public int nextInt() {
+        skipWhitespace();
+        int position = mPosition;
+        boolean negative = false;
+        if (position < mLineEnd && (mBuffer[position] == '-' || mBuffer[position] == '+')) {
+            negative = mBuffer[position] == '-';
+            ++position;
+        }
+        final int digitsStart = position;
+        long value = 0;
+        while (position < mLineEnd && mBuffer[position] >= '0' && mBuffer[position] <= '9') {
+            value = value * 10 + (mBuffer[position] - '0');
+            if (value > 0x80000000L) {
+                throw numberFormatException(mPosition);
+            }
+            ++position;
+        }
+        if (position == digitsStart || (!negative && value > Integer.MAX_VALUE)) {
+            throw numberFormatException(mPosition);
+        }
+        mPosition = position;
+        return (int) (negative ? -value : value);
+    }
+
+    /**
+     * Parses the next decimal number, which ends at the first character that can't be part of it. Values with more
+     * significant digits than a {@code long} holds, or spelled out special values, fall back to
+     * {@link Float#parseFloat(String)}.
+     *
+     * @return {@code float} The value.
+     *
+     * @throws NumberFormatException if there is no number at the current position.
+     */
+    public float nextFloat() {
+        skipWhitespace();
+        final int start = mPosition;
+        int position = start;
+        boolean negative = false;
+        if (position < mLineEnd && (mBuffer[position] == '-' || mBuffer[position] == '+')) {
+            negative = mBuffer[position] == '-';
+            ++position;
+        }
+
+        long mantissa = 0;
+        int digits = 0;
+        int exponent = 0;
+        boolean hasDigits = false;
+        while (position < mLineEnd && mBuffer[position] >= '0' && mBuffer[position] <= '9') {
+            if (digits < 18) {
+                mantissa = mantissa * 10 + (mBuffer[position] - '0');
+                if (mantissa > 0) ++digits;
+            } else {
+                ++exponent;
+            }
+            hasDigits = true;
+            ++position;
+        }
+        if (position < mLineEnd && mBuffer[position] == '.') {
+            ++position;
+            while (position < mLineEnd && mBuffer[position] >= '0' && mBuffer[position] <= '9') {
+                if (digits < 18) {
+                    mantissa = mantissa * 10 + (mBuffer[position] - '0');
+                    if (mantissa > 0) ++digits;
+                    --exponent;
+                }
+                hasDigits = true;
+                ++position;
+            }
+        }
+        if (!hasDigits) {
+            return parseFloatFallback(start);
+        }
+        if (position < mLineEnd && (mBuffer[position] == 'e' || mBuffer[position] == 'E')) {
+            int cursor = position + 1;
+            boolean negativeExponent = false;
+            if (cursor < mLineEnd && (mBuffer[cursor] == '-' || mBuffer[cursor] == '+')) {
+                negativeExponent = mBuffer[cursor] == '-';
+                ++cursor;
+            }
+            int value = 0;
+            final int exponentStart = cursor;
+            while (cursor < mLineEnd && mBuffer[cursor] >= '0' && mBuffer[cursor] <= '9') {
+                value = Math.min(value * 10 + (mBuffer[cursor] - '0'), 1000);
+                ++cursor;
+            }
+            if (cursor > exponentStart) {
+                exponent += negativeExponent ? -value : value;
+                position = cursor;
+            }
+        }
+        if (position < mLineEnd && isNumberCharacter(mBuffer[position])) {
+            return parseFloatFallback(start);
+        }
+
+        mPosition = position;
+        double value = mantissa;
+        if (exponent < 0) {
+            value = -exponent < POWERS_OF_TEN.length ? value / POWERS_OF_TEN[-exponent]
+                                                     : value * Math.pow(10, exponent);
+        } else if (exponent > 0) {
+            value = exponent < POWERS_OF_TEN.length ? value * POWERS_OF_TEN[exponent] : value * Math.pow(10, exponent);
+        }
+        return (float) (negative ? -value : value);
+    }
+
+    private float parseFloatFallback(int start) {
+        mPosition = start;
+        if (!nextToken()) {
+            throw numberFormatException(start);
+        }
+        try {
+            return Float.parseFloat(getToken());
+        } catch (NumberFormatException e) {
+            throw numberFormatException(start);
+        }
+    }
+
+    private NumberFormatException numberFormatException(int position) {
+        int end = position;
+        while (end < mLineEnd && !isWhitespace(mBuffer[end])) {
+            ++end;
+        }
+        return new NumberFormatException("Invalid number \"" + new String(mBuffer, position, end - position)
+                                         + "\" on line " + mLineNumber);
+    }
+
+    private void skipWhitespace() {
+        while (mPosition < mLineEnd && isWhitespace(mBuffer[mPosition])) {
+            ++mPosition;
+        }
+    }
+
+    private static boolean isWhitespace(char c) {
+        return c == ' ' || c == '\t' || c == '\r' || c == ',' || c == '\f';
+    }
+
+    private static boolean isNumberCharacter(char c) {
+        return (c >= '0' && c <= '9') || c == '.' || (c >= 'a' && c <= 'z') || (c >= 'A' && c <= 'Z');
+    }
+}
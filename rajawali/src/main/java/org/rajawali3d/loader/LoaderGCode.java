@@ -17,6 +17,7 @@ import java.io.File;
 import java.io.FileInputStream;
 import java.io.FileNotFoundException;
 import java.io.IOException;
+import java.io.InputStreamReader;
 import java.util.HashMap;
 import java.util.Locale;
 import java.util.Stack;
@@ -135,6 +136,21 @@ public class LoaderGCode extends AMeshLoader {
 
 		}
 
+		private static final SupportedCommands[] VALUES = values();
+
+		/**
+		 * @param scanner {@link LineScanner} positioned after the command token.
+		 * @return {@link SupportedCommands} The command, or null if it isn't supported.
+		 */
+		static SupportedCommands fromToken(LineScanner scanner) {
+			for (int i = 0; i < VALUES.length; i++) {
+				if (scanner.tokenEqualsIgnoreCase(VALUES[i].name())) {
+					return VALUES[i];
+				}
+			}
+			return null;
+		}
+
 		public String toString() {
 			switch (this) {
 			case G1:
@@ -204,40 +220,56 @@ public class LoaderGCode extends AMeshLoader {
 			color = DEFAULT_COLOR;
 			init();
 			if (null != in) {
-				String gin = in;
-				String[] parts = gin.toLowerCase(Locale.US).split(" ");
-				for (int i = 0; i < parts.length; i++) {
-					String part = parts[i].trim();
-					try {
-						String sVal = part.substring(1, part.length() - 1);
-						sVal = sVal.replaceAll("[,;\\s]+", "");
-						if (sVal.trim().length() == 0) {
-							continue;
-						}
-						float val = Float.parseFloat(sVal);
-						if (part.startsWith("x")) {
-							x = val;
-							continue;
-						}
-						if (part.startsWith("y")) {
-							y = val;
-							continue;
-						}
-						if (part.startsWith("z")) {
-							z = val;
-							continue;
-						}
-						if (part.startsWith("e")) {
-							e = val;
-							continue;
-						}
-						if (part.startsWith("f")) {
-							f = val;
-							continue;
-						}
-					} catch (Exception e) {
-						RajLog.e("there was an error parsing gcode=" + gin);
+				try {
+					final LineScanner scanner = new LineScanner(in);
+					if (scanner.nextLine()) {
+						parse(scanner);
+					}
+				} catch (IOException e) {
+					RajLog.e("there was an error parsing gcode=" + in);
+				}
+			}
+		}
+
+		/**
+		 * Hydrates x, y, z, e, f values from the rest of a gcode motion line.
+		 *
+		 * @param scanner {@link LineScanner} positioned after the command token.
+		 */
+		public GCodeLine(final LineScanner scanner) {
+			thickness = DEFAULT_THICKNESS;
+			color = DEFAULT_COLOR;
+			init();
+			parse(scanner);
+		}
+
+		private void parse(final LineScanner scanner) {
+			while (scanner.hasNext()) {
+				final char axis = Character.toLowerCase(scanner.peek());
+				if (axis == ';') {
+					// The rest of the line is a comment
+					return;
+				}
+				scanner.skip(scanner.peek());
+				if (!scanner.hasNext() || scanner.peek() == ';') {
+					continue;
+				}
+				try {
+					float val = scanner.nextFloat();
+					if (axis == 'x') {
+						x = val;
+					} else if (axis == 'y') {
+						y = val;
+					} else if (axis == 'z') {
+						z = val;
+					} else if (axis == 'e') {
+						e = val;
+					} else if (axis == 'f') {
+						f = val;
 					}
+				} catch (NumberFormatException e) {
+					RajLog.e("there was an error parsing gcode=" + scanner.getLine());
+					scanner.nextToken();
 				}
 			}
 		}
@@ -621,7 +653,6 @@ public class LoaderGCode extends AMeshLoader {
 	protected Object3D readGCode(BufferedInputStream buffer) throws IOException {
 		RajLog.i("GCodePaser: reading file");
 		Object3D ret = new Object3D();
-		String codeLine;
 		// Read the facet
 		SupportedCommands cmd = null;
 		GCodeLine motion = null, prevMotion = null;
@@ -636,34 +667,19 @@ public class LoaderGCode extends AMeshLoader {
 		prevMotion.setZ(0.0f);
 		prevMotion.setE(0.0f);
 		prevMotion.setF(0.0f);
-		StringBuilder lnBuilder = new StringBuilder(1024);
-		int lineNum = 0;
-		while (buffer.available() > 0) {
-			byte b = (byte) buffer.read();
-			if (b != '\n') {
-				lnBuilder.append((char) b);
-				continue;
-			} else {
-				codeLine = lnBuilder.toString();
-				lnBuilder.delete(0, lnBuilder.length());
-			}
-			// while ((codeline = buffer.readLine()) != null) {
-			if (codeLine.startsWith(";")) {
-				continue;
-			}
-			String[] tokens = codeLine.split(" ");
-			if (null == tokens || tokens.length == 0) {
+		final LineScanner scanner = new LineScanner(new InputStreamReader(buffer));
+		while (scanner.nextLine()) {
+			if (scanner.peek() == ';' || !scanner.nextToken()) {
 				continue;
 			}
-			try {
-				cmd = SupportedCommands.fromString(tokens[0]);
-			} catch (IllegalArgumentException e) {
-				RajLog.w("encountered unsupported gcode:" + tokens[0]);
+			cmd = SupportedCommands.fromToken(scanner);
+			if (cmd == null) {
+				RajLog.w("encountered unsupported gcode:" + scanner.getToken());
 				continue;
 			}
 			switch (cmd) {
 			case G1:
-				motion = new GCodeLine(codeLine);
+				motion = new GCodeLine(scanner);
 				motion.setOrigin(prevMotion);
 				// TODO color lines based on travel and speed
 				if (motion.getX() == 0xFFFFFFFF && motion.getY() == 0xFFFFFFFF && motion.getZ() == 0xFFFFFFFF) {
@@ -719,7 +735,7 @@ public class LoaderGCode extends AMeshLoader {
 			case G92:
 				// G92: Set Position
 				// Example: G92 E0
-				motion = new GCodeLine(codeLine);
+				motion = new GCodeLine(scanner);
 				if (motion.getX() != -0xFFFFFFFF) {
 					prevMotion.setX(motion.getX());
 				}
@@ -742,7 +758,7 @@ public class LoaderGCode extends AMeshLoader {
 				// no-op
 				break;
 			}
-			// RajLog.d("gcode parser parsed line #" + lineNum++);
+			// RajLog.d("gcode parser parsed line #" + scanner.getLineNumber());
 		}
 		return ret;
 	}
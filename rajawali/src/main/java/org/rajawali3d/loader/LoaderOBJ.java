@@ -21,7 +21,9 @@ import org.rajawali3d.Object3D;
 import org.rajawali3d.materials.Material;
 import org.rajawali3d.materials.methods.DiffuseMethod;
 import org.rajawali3d.materials.methods.SpecularMethod;
+import org.rajawali3d.materials.textures.ATexture;
 import org.rajawali3d.materials.textures.ATexture.TextureException;
+import org.rajawali3d.materials.textures.ATexture.TextureType;
 import org.rajawali3d.materials.textures.Etc1Texture;
 import org.rajawali3d.materials.textures.NormalMapTexture;
 import org.rajawali3d.materials.textures.OcclusionMapTexture;
@@ -29,6 +31,8 @@ import org.rajawali3d.materials.textures.SpecularMapTexture;
 import org.rajawali3d.materials.textures.Texture;
 import org.rajawali3d.materials.textures.TextureManager;
 import org.rajawali3d.renderer.Renderer;
+import org.rajawali3d.util.FloatArrayList;
+import org.rajawali3d.util.IntArrayList;
 import org.rajawali3d.util.RajLog;
 
 import java.io.BufferedReader;
@@ -36,6 +40,7 @@ import java.io.File;
 import java.io.FileNotFoundException;
 import java.lang.reflect.Field;
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.HashMap;
 import java.util.Map;
 import java.util.Stack;
@@ -113,6 +118,10 @@ public class LoaderOBJ extends AMeshLoader {
 		super(renderer, file);
 	}
 
+	public LoaderOBJ(File file) {
+		super(file);
+	}
+
 	@Override
 	public LoaderOBJ parse() throws ParsingException {
 		return parse(false);
@@ -130,13 +139,15 @@ public class LoaderOBJ extends AMeshLoader {
 			return this;
 		}
 
-		String line;
 		ObjIndexData currObjIndexData = new ObjIndexData(new Object3D(generateObjectName()));
 		ArrayList<ObjIndexData> objIndices = new ArrayList<ObjIndexData>();
 
-		ArrayList<Float> vertices = new ArrayList<Float>();
-		ArrayList<Float> texCoords = new ArrayList<Float>();
-		ArrayList<Float> normals = new ArrayList<Float>();
+		FloatArrayList vertices = new FloatArrayList(1024);
+		FloatArrayList texCoords = new FloatArrayList(1024);
+		FloatArrayList normals = new FloatArrayList(1024);
+		IntArrayList faceVertices = new IntArrayList();
+		IntArrayList faceTexCoords = new IntArrayList();
+		IntArrayList faceNormals = new IntArrayList();
 		MaterialLib matLib = new MaterialLib();
 
 		String currentMaterialName=null;
@@ -146,96 +157,63 @@ public class LoaderOBJ extends AMeshLoader {
 		Map<String, Object3D> groups = new HashMap<String, Object3D>();
 
 		try {
-			while((line = buffer.readLine()) != null) {
+			LineScanner scanner = new LineScanner(buffer);
+			while(scanner.nextLine()) {
 				// Skip comments and empty lines.
-				if(line.length() == 0 || line.charAt(0) == '#')
+				if(scanner.isBlankOrComment() || !scanner.nextToken())
 					continue;
-				StringTokenizer parts = new StringTokenizer(line, " ");
-				int numTokens = parts.countTokens();
 
-				if(numTokens == 0)
-					continue;
-				String type = parts.nextToken();
-
-				if(type.equals(VERTEX)) {
-					vertices.add(Float.parseFloat(parts.nextToken()));
-					vertices.add(Float.parseFloat(parts.nextToken()));
-					vertices.add(Float.parseFloat(parts.nextToken()));
-				} else if(type.equals(FACE)) {
+				if(scanner.tokenEquals(VERTEX)) {
+					vertices.add(scanner.nextFloat());
+					vertices.add(scanner.nextFloat());
+					vertices.add(scanner.nextFloat());
+				} else if(scanner.tokenEquals(FACE)) {
 					currentObjHasFaces=true;
-					boolean isQuad = numTokens == 5;
-					int[] quadvids = new int[4];
-					int[] quadtids = new int[4];
-					int[] quadnids = new int[4];
-
-                    boolean emptyVt = line.indexOf("//") > -1;
-                    if(emptyVt) line = line.replace("//", "/");
-
-                    parts = new StringTokenizer(line);
-
-                    parts.nextToken();
-                    StringTokenizer subParts = new StringTokenizer(parts.nextToken(), "/");
-                    int partLength = subParts.countTokens();
-
-                    boolean hasuv = partLength >= 2 && !emptyVt;
-                    boolean hasn = partLength == 3 || (partLength == 2 && emptyVt);
-                    int idx;
-
-                    for (int i = 1; i < numTokens; i++) {
-                    	if(i > 1)
-                    		subParts = new StringTokenizer(parts.nextToken(), "/");
-                    	idx = Integer.parseInt(subParts.nextToken());
-
-                    	if(idx < 0) idx = (vertices.size() / 3) + idx;
-                    	else idx -= 1;
-                        if(!isQuad)
-                        	currObjIndexData.vertexIndices.add(idx);
-                        else
-                        	quadvids[i-1] = idx;
-                        if (hasuv)
-                        {
-                        	idx = Integer.parseInt(subParts.nextToken());
-                        	if(idx < 0) idx = (texCoords.size() / 2) + idx;
-                        	else idx -= 1;
-                        	if(!isQuad)
-                        		currObjIndexData.texCoordIndices.add(idx);
-                        	else
-                            	quadtids[i-1] = idx;
-                        }
-                        if (hasn)
-                        {
-                        	idx = Integer.parseInt(subParts.nextToken());
-                        	if(idx < 0) idx = (normals.size() / 3) + idx;
-                        	else idx -= 1;
-                        	if(!isQuad)
-                        		currObjIndexData.normalIndices.add(idx);
-                        	else
-                            	quadnids[i-1] = idx;
-                        }
-                    }
-
-                    if(isQuad) {
-                    	int[] indices = new int[] { 0, 1, 2, 0, 2, 3 };
-
-                    	for(int i=0; i<6; ++i) {
-                    		int index = indices[i];
-                        	currObjIndexData.vertexIndices.add(quadvids[index]);
-                        	currObjIndexData.texCoordIndices.add(quadtids[index]);
-                        	currObjIndexData.normalIndices.add(quadnids[index]);
-                    	}
-                    }
-				} else if(type.equals(TEXCOORD)) {
-					texCoords.add(Float.parseFloat(parts.nextToken()));
-                    texCoords.add(1f - Float.parseFloat(parts.nextToken()));
-				} else if(type.equals(NORMAL)) {
-					normals.add(Float.parseFloat(parts.nextToken()));
-                    normals.add(Float.parseFloat(parts.nextToken()));
-                    normals.add(Float.parseFloat(parts.nextToken()));
-				} else if(type.equals(GROUP)) {
-					int numGroups = parts.countTokens();
+					faceVertices.clear();
+					faceTexCoords.clear();
+					faceNormals.clear();
+
+					// Each face vertex is v, v/vt, v//vn or v/vt/vn, with negative indices counting back from the end
+					while(scanner.hasNext()) {
+						int idx = scanner.nextInt();
+						faceVertices.add(idx < 0 ? (vertices.size() / 3) + idx : idx - 1);
+						int texCoordIdx = -1;
+						int normalIdx = -1;
+						if(scanner.skip('/')) {
+							if(!scanner.skip('/')) {
+								idx = scanner.nextInt();
+								texCoordIdx = idx < 0 ? (texCoords.size() / 2) + idx : idx - 1;
+								if(scanner.skip('/')) {
+									idx = scanner.nextInt();
+									normalIdx = idx < 0 ? (normals.size() / 3) + idx : idx - 1;
+								}
+							} else {
+								idx = scanner.nextInt();
+								normalIdx = idx < 0 ? (normals.size() / 3) + idx : idx - 1;
+							}
+						}
+						faceTexCoords.add(texCoordIdx);
+						faceNormals.add(normalIdx);
+					}
+
+					// Triangulate quads and other convex polygons as a fan
+					for(int i=1; i<faceVertices.size() - 1; ++i) {
+						currObjIndexData.addFaceVertex(faceVertices.get(0), faceTexCoords.get(0), faceNormals.get(0));
+						currObjIndexData.addFaceVertex(faceVertices.get(i), faceTexCoords.get(i), faceNormals.get(i));
+						currObjIndexData.addFaceVertex(faceVertices.get(i + 1), faceTexCoords.get(i + 1),
+													   faceNormals.get(i + 1));
+					}
+				} else if(scanner.tokenEquals(TEXCOORD)) {
+					texCoords.add(scanner.nextFloat());
+					texCoords.add(1f - scanner.nextFloat());
+				} else if(scanner.tokenEquals(NORMAL)) {
+					normals.add(scanner.nextFloat());
+					normals.add(scanner.nextFloat());
+					normals.add(scanner.nextFloat());
+				} else if(scanner.tokenEquals(GROUP)) {
 					Object3D previousGroup = null;
-					for(int i=0; i<numGroups; i++) {
-						String groupName = parts.nextToken();
+					while(scanner.nextToken()) {
+						String groupName = scanner.getToken();
 						if(!groups.containsKey(groupName)) {
 							groups.put(groupName, new Object3D(groupName));
 						}
@@ -256,8 +234,8 @@ public class LoaderOBJ extends AMeshLoader {
 						currentObjHasFaces = false;
 					}
 					addChildSetParent(currentGroup, currObjIndexData.targetObj);
-				} else if(type.equals(OBJECT)) {
-					String objName = parts.hasMoreTokens() ? parts.nextToken() : generateObjectName();
+				} else if(scanner.tokenEquals(OBJECT)) {
+					String objName = scanner.nextToken() ? scanner.getToken() : generateObjectName();
 
 					if (currentObjHasFaces) {
 						objIndices.add(currObjIndexData);
@@ -268,14 +246,15 @@ public class LoaderOBJ extends AMeshLoader {
 						currentObjHasFaces = false;
 					}
 					currObjIndexData.targetObj.setName(objName);
-				} else if(type.equals(MATERIAL_LIB)) {
-					if(!parts.hasMoreTokens()) continue;
-                    String materialLibPath = mNeedToRenameMtl ? parts.nextToken().replace(".", "_") : parts.nextToken();
+				} else if(scanner.tokenEquals(MATERIAL_LIB)) {
+					if(!scanner.nextToken()) continue;
+					String materialLibPath = mNeedToRenameMtl ? scanner.getToken().replace(".", "_") : scanner.getToken();
 
 					RajLog.d("Found Material Lib: " + materialLibPath);
 					matLib.parse(materialLibPath);
-				} else if(type.equals(USE_MATERIAL)) {
-					currentMaterialName = parts.nextToken();
+				} else if(scanner.tokenEquals(USE_MATERIAL)) {
+					scanner.nextToken();
+					currentMaterialName = scanner.getToken();
 					if(currentObjHasFaces) {
 						objIndices.add(currObjIndexData);
 						currObjIndexData = new ObjIndexData(new Object3D(generateObjectName(currentMaterialName)));
@@ -303,56 +282,54 @@ public class LoaderOBJ extends AMeshLoader {
 		for(int j=0; j<numObjects; ++j) {
 			ObjIndexData oid = objIndices.get(j);
 
-			int i;
-			float[] aVertices 	= new float[oid.vertexIndices.size() * 3];
-			float[] aTexCoords 	= new float[oid.texCoordIndices.size() * 2];
-			float[] aNormals 	= new float[oid.normalIndices.size() * 3];
-			float[] aColors		= new float[oid.colorIndices.size() * 4];
-			int[] aIndices 		= new int[oid.vertexIndices.size()];
+			int numReferences = oid.vertexIndices.size();
+			boolean hasTexCoords = texCoords.size() > 0 && oid.hasTexCoords;
+			boolean hasNormals = oid.hasNormals;
+			if(hasNormals && normals.size() == 0) {
+				RajLog.e("["+getClass().getName()+"] There are no normals specified for this model. Please re-export with normals.");
+				throw new ParsingException("["+getClass().getName()+"] There are no normals specified for this model. Please re-export with normals.");
+			}
+
+			// Face vertices sharing a position, texture coordinate and normal become a single indexed vertex
+			VertexWelder welder = new VertexWelder(numReferences);
+			int[] aIndices = new int[numReferences];
+			for(int i=0; i<numReferences; ++i) {
+				int texCoordIndex = hasTexCoords ? oid.texCoordIndices.get(i) : -1;
+				int normalIndex = hasNormals ? oid.normalIndices.get(i) : -1;
+				aIndices[i] = welder.weld(oid.vertexIndices.get(i), texCoordIndex, normalIndex);
+			}
+
+			int numVertices = welder.size();
+			float[] aVertices 	= new float[numVertices * 3];
+			float[] aTexCoords 	= new float[hasTexCoords ? numVertices * 2 : 0];
+			float[] aNormals 	= new float[hasNormals ? numVertices * 3 : 0];
 
 			float[] centroid = offsetCentroids ? getCentroid(oid.vertexIndices, vertices) : new float[] { 0, 0, 0 };
 			oid.targetObj.setPosition(centroid[0], centroid[1], centroid[2]);
-			for(i=0; i<oid.vertexIndices.size(); ++i) {
-				int faceIndex = oid.vertexIndices.get(i) * 3;
+			for(int i=0; i<numVertices; ++i) {
+				int faceIndex = welder.getVertexIndex(i) * 3;
 				int vertexIndex = i * 3;
 				try {
 					aVertices[vertexIndex] = vertices.get(faceIndex) - centroid[0];
 					aVertices[vertexIndex+1] = vertices.get(faceIndex + 1) - centroid[1];
 					aVertices[vertexIndex+2] = vertices.get(faceIndex + 2) - centroid[2];
-					aIndices[i] = i;
 				} catch(ArrayIndexOutOfBoundsException e) {
 					RajLog.d("Obj array index out of bounds: " + vertexIndex + ", " + faceIndex);
 				}
-			}
-			if(texCoords != null && texCoords.size() > 0) {
-				for(i=0; i<oid.texCoordIndices.size(); ++i) {
-					int texCoordIndex = oid.texCoordIndices.get(i) * 2;
-					int ti = i * 2;
-					aTexCoords[ti] = texCoords.get(texCoordIndex);
-					aTexCoords[ti + 1] = texCoords.get(texCoordIndex + 1);
+				if(hasTexCoords && welder.getTexCoordIndex(i) >= 0) {
+					int texCoordIndex = welder.getTexCoordIndex(i) * 2;
+					aTexCoords[i * 2] = texCoords.get(texCoordIndex);
+					aTexCoords[i * 2 + 1] = texCoords.get(texCoordIndex + 1);
 				}
-			}
-			for(i=0; i<oid.colorIndices.size(); ++i) {
-				int colorIndex = oid.colorIndices.get(i) * 4;
-				int ti = i * 4;
-				aTexCoords[ti] = texCoords.get(colorIndex);
-				aTexCoords[ti + 1] = texCoords.get(colorIndex + 1);
-				aTexCoords[ti + 2] = texCoords.get(colorIndex + 2);
-				aTexCoords[ti + 3] = texCoords.get(colorIndex + 3);
-			}
-			for(i=0; i<oid.normalIndices.size(); ++i){
-				int normalIndex = oid.normalIndices.get(i) * 3;
-				int ni = i * 3;
-				if(normals.size() == 0) {
-					RajLog.e("["+getClass().getName()+"] There are no normals specified for this model. Please re-export with normals.");
-					throw new ParsingException("["+getClass().getName()+"] There are no normals specified for this model. Please re-export with normals.");
+				if(hasNormals && welder.getNormalIndex(i) >= 0) {
+					int normalIndex = welder.getNormalIndex(i) * 3;
+					aNormals[vertexIndex] = normals.get(normalIndex);
+					aNormals[vertexIndex+1] = normals.get(normalIndex + 1);
+					aNormals[vertexIndex+2] = normals.get(normalIndex + 2);
 				}
-				aNormals[ni] = normals.get(normalIndex);
-				aNormals[ni+1] = normals.get(normalIndex + 1);
-				aNormals[ni+2] = normals.get(normalIndex + 2);
 			}
 
-			oid.targetObj.setData(aVertices, aNormals, aTexCoords, aColors, aIndices, false);
+			oid.targetObj.setData(aVertices, aNormals, aTexCoords, null, aIndices, false);
 			try {
 				matLib.setMaterial(oid.targetObj, oid.materialName);
 			} catch(Exception tme) {
@@ -375,7 +352,7 @@ public class LoaderOBJ extends AMeshLoader {
 		return this;
 	}
 
-	float[] getCentroid(ArrayList<Integer> vertexIndices, ArrayList<Float> vertices) {
+	float[] getCentroid(IntArrayList vertexIndices, FloatArrayList vertices) {
 		float[] centroid = new float[] { 0,0,0 };
 		for(int i=0; i<vertexIndices.size(); ++i) {
 			int faceIndex = vertexIndices.get(i) * 3;
@@ -469,19 +446,119 @@ public class LoaderOBJ extends AMeshLoader {
 	protected class ObjIndexData {
 		public Object3D targetObj;
 
-		public ArrayList<Integer> vertexIndices;
-		public ArrayList<Integer> texCoordIndices;
-		public ArrayList<Integer> colorIndices;
-		public ArrayList<Integer> normalIndices;
+		public IntArrayList vertexIndices;
+		/**
+		 * Texture coordinate indices, parallel to the vertex indices, with -1 for face vertices without one.
+		 */
+		public IntArrayList texCoordIndices;
+		/**
+		 * Normal indices, parallel to the vertex indices, with -1 for face vertices without one.
+		 */
+		public IntArrayList normalIndices;
+		public boolean hasTexCoords;
+		public boolean hasNormals;
 
 		public String materialName;
 
 		public ObjIndexData(Object3D targetObj) {
 			this.targetObj = targetObj;
-			vertexIndices = new ArrayList<Integer>();
-			texCoordIndices = new ArrayList<Integer>();
-			colorIndices = new ArrayList<Integer>();
-			normalIndices = new ArrayList<Integer>();
+			vertexIndices = new IntArrayList(1024);
+			texCoordIndices = new IntArrayList(1024);
+			normalIndices = new IntArrayList(1024);
+		}
+
+		public void addFaceVertex(int vertexIndex, int texCoordIndex, int normalIndex) {
+			vertexIndices.add(vertexIndex);
+			texCoordIndices.add(texCoordIndex);
+			normalIndices.add(normalIndex);
+			hasTexCoords |= texCoordIndex >= 0;
+			hasNormals |= normalIndex >= 0;
+		}
+	}
+
+	/**
+	 * Assigns one vertex to each distinct combination of position, texture coordinate and normal index referenced by
+	 * the faces of an object. The combinations are kept in an open addressing hash table of primitive arrays, so
+	 * welding large meshes doesn't allocate per vertex.
+	 */
+	protected static class VertexWelder {
+		private int[] mTable;
+		private int[] mKeys;
+		private int mSize;
+
+		/**
+		 * @param numReferences The number of face vertex references which will be welded, an upper bound on the
+		 *                      number of vertices.
+		 */
+		public VertexWelder(int numReferences) {
+			// Closed meshes reference each vertex about six times, so start small and grow
+			int capacity = 16;
+			while(capacity < numReferences / 3)
+				capacity <<= 1;
+			mTable = new int[capacity];
+			mKeys = new int[(capacity / 2) * 3];
+		}
+
+		/**
+		 * @param vertexIndex The index of the position.
+		 * @param texCoordIndex The index of the texture coordinate, or -1 if there is none.
+		 * @param normalIndex The index of the normal, or -1 if there is none.
+		 * @return The index of the welded vertex.
+		 */
+		public int weld(int vertexIndex, int texCoordIndex, int normalIndex) {
+			int mask = mTable.length - 1;
+			int slot = hash(vertexIndex, texCoordIndex, normalIndex) & mask;
+			int entry;
+			// Table entries are vertex indices plus one, so zero marks an empty slot
+			while((entry = mTable[slot]) != 0) {
+				int key = (entry - 1) * 3;
+				if(mKeys[key] == vertexIndex && mKeys[key + 1] == texCoordIndex && mKeys[key + 2] == normalIndex)
+					return entry - 1;
+				slot = (slot + 1) & mask;
+			}
+
+			int index = mSize++;
+			int key = index * 3;
+			mKeys[key] = vertexIndex;
+			mKeys[key + 1] = texCoordIndex;
+			mKeys[key + 2] = normalIndex;
+			mTable[slot] = index + 1;
+			if(mSize * 2 >= mTable.length)
+				grow();
+			return index;
+		}
+
+		public int size() {
+			return mSize;
+		}
+
+		public int getVertexIndex(int index) {
+			return mKeys[index * 3];
+		}
+
+		public int getTexCoordIndex(int index) {
+			return mKeys[index * 3 + 1];
+		}
+
+		public int getNormalIndex(int index) {
+			return mKeys[index * 3 + 2];
+		}
+
+		private void grow() {
+			mTable = new int[mTable.length * 2];
+			mKeys = Arrays.copyOf(mKeys, (mTable.length / 2) * 3);
+			int mask = mTable.length - 1;
+			for(int i=0; i<mSize; ++i) {
+				int slot = hash(mKeys[i * 3], mKeys[i * 3 + 1], mKeys[i * 3 + 2]) & mask;
+				while(mTable[slot] != 0)
+					slot = (slot + 1) & mask;
+				mTable[slot] = i + 1;
+			}
+		}
+
+		private static int hash(int vertexIndex, int texCoordIndex, int normalIndex) {
+			int h = vertexIndex * 0x9E3779B1 + texCoordIndex * 0x85EBCA77 + normalIndex * 0xC2B2AE3D;
+			return h ^ (h >>> 16);
 		}
 	}
 
@@ -590,6 +667,7 @@ public class LoaderOBJ extends AMeshLoader {
 			boolean hasSpecularTexture = matDef != null && matDef.specularColorTexture != null;
 			boolean hasSpecular = matDef != null && matDef.specularColor > 0xff000000 && matDef.specularCoefficient > 0;
 
+			final TextureManager textureManager = TextureManager.getInstance();
 			Material mat = new Material();
 			mat.enableLighting(true);
 			mat.setDiffuseMethod(new DiffuseMethod.Lambert());
@@ -608,26 +686,60 @@ public class LoaderOBJ extends AMeshLoader {
 			}
 
 			if(hasTexture) {
-				String textureName = getFileNameWithoutExtension(matDef.diffuseTexture);
-				if(isCompressedStream(matDef.diffuseTexture)) {
-					Etc1Texture compressed = new Etc1Texture(textureName + "etc1", findCompressedStream(matDef.diffuseTexture), null);
-					mat.addTexture(new Texture(textureName, compressed));
+				final String fileName = matDef.diffuseTexture;
+				final String textureName = getFileNameWithoutExtension(fileName);
+				if(isCompressedStream(fileName)) {
+					mat.addTexture(textureManager.acquireSharedTexture(findTextureKey(fileName, "raw"), TextureType.DIFFUSE,
+							new TextureManager.TextureFactory() {
+								@Override
+								public ATexture createTexture() throws TextureException {
+									try {
+										return new Texture(textureName, new Etc1Texture(textureName + "etc1", findCompressedStream(fileName), null));
+									} catch (FileNotFoundException e) {
+										throw new TextureException(e);
+									}
+								}
+							}));
 				} else {
-					mat.addTexture(new Texture(textureName, findBitmap(matDef.diffuseTexture)));
+					mat.addTexture(textureManager.acquireSharedTexture(findTextureKey(fileName, "drawable"), TextureType.DIFFUSE,
+							new TextureManager.TextureFactory() {
+								@Override
+								public ATexture createTexture() {
+									return new Texture(textureName, findBitmap(fileName));
+								}
+							}));
 				}
 				mat.setColorInfluence(0);
 			}
 			if(hasOcclusion) {
-				String textureName = getFileNameWithoutExtension(matDef.ambientTexture);
-				mat.addTexture(new OcclusionMapTexture(textureName, findBitmap(matDef.ambientTexture)));
+				final String fileName = matDef.ambientTexture;
+				mat.addTexture(textureManager.acquireSharedTexture(findTextureKey(fileName, "drawable"), TextureType.OCCLUSION,
+						new TextureManager.TextureFactory() {
+							@Override
+							public ATexture createTexture() {
+								return new OcclusionMapTexture(getFileNameWithoutExtension(fileName), findBitmap(fileName));
+							}
+						}));
 			}
 			if(hasBump) {
-				String textureName = getFileNameWithoutExtension(matDef.bumpTexture);
-				mat.addTexture(new NormalMapTexture(textureName, findBitmap(matDef.bumpTexture)));
+				final String fileName = matDef.bumpTexture;
+				mat.addTexture(textureManager.acquireSharedTexture(findTextureKey(fileName, "drawable"), TextureType.NORMAL,
+						new TextureManager.TextureFactory() {
+							@Override
+							public ATexture createTexture() {
+								return new NormalMapTexture(getFileNameWithoutExtension(fileName), findBitmap(fileName));
+							}
+						}));
 			}
 			if(hasSpecularTexture) {
-				String textureName = getFileNameWithoutExtension(matDef.specularColorTexture);
-				mat.addTexture(new SpecularMapTexture(textureName, findBitmap(matDef.specularColorTexture)));
+				final String fileName = matDef.specularColorTexture;
+				mat.addTexture(textureManager.acquireSharedTexture(findTextureKey(fileName, "drawable"), TextureType.SPECULAR,
+						new TextureManager.TextureFactory() {
+							@Override
+							public ATexture createTexture() {
+								return new SpecularMapTexture(getFileNameWithoutExtension(fileName), findBitmap(fileName));
+							}
+						}));
 			}
 			object.setMaterial(mat);
 			if(matDef!=null && matDef.alpha<1f)
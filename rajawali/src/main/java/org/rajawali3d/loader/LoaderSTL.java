@@ -17,6 +17,7 @@ import android.content.res.Resources.NotFoundException;
 
 import org.rajawali3d.materials.textures.TextureManager;
 import org.rajawali3d.renderer.Renderer;
+import org.rajawali3d.util.FloatArrayList;
 import org.rajawali3d.util.LittleEndianDataInputStream;
 import org.rajawali3d.util.RajLog;
 
@@ -26,8 +27,6 @@ import java.io.FileNotFoundException;
 import java.io.FileReader;
 import java.io.IOException;
 import java.io.InputStreamReader;
-import java.util.ArrayList;
-import java.util.List;
 
 /**
  * STL Parser written using the ASCII format as describe on Wikipedia.
@@ -137,68 +136,44 @@ public class LoaderSTL extends AMeshLoader {
 	private void readASCII(final BufferedReader buffer) throws NumberFormatException, IOException {
 		RajLog.i("StlPaser: Reading ASCII");
 
-		final List<Float> vertices = new ArrayList<Float>();
-		final List<Float> normals = new ArrayList<Float>();
-		final float[] tempNorms = new float[3];
-
-		int nextOffset, prevOffset, i, insert;
-		String line;
+		final FloatArrayList vertices = new FloatArrayList(1024);
+		final FloatArrayList normals = new FloatArrayList(1024);
+		final LineScanner scanner = new LineScanner(buffer);
+		int i;
 
 		// Skip the first line
-		line = buffer.readLine();
+		scanner.nextLine();
 
 		// Read the facet
-		while ((line = buffer.readLine()) != null) {
+		while (scanner.nextLine()) {
 
 			// Only read lines containing facet normal and vertex. No reason to read others
+			if (!scanner.nextToken())
+				continue;
 
-			if (line.contains("facet normal ")) {
-
-				nextOffset = line.lastIndexOf(" ");
-				tempNorms[2] = Float.parseFloat(line.substring(nextOffset + 1));
+			if (scanner.tokenEquals("facet") && scanner.nextTokenEquals("normal")) {
 
-				prevOffset = nextOffset;
-				nextOffset = line.lastIndexOf(" ", prevOffset - 1);
-				tempNorms[1] = Float.parseFloat(line.substring(nextOffset + 1, prevOffset));
-
-				prevOffset = nextOffset;
-				nextOffset = line.lastIndexOf(" ", prevOffset - 1);
-				tempNorms[0] = Float.parseFloat(line.substring(nextOffset + 1, prevOffset));
+				final float x = scanner.nextFloat();
+				final float y = scanner.nextFloat();
+				final float z = scanner.nextFloat();
 
 				// Need to duplicate the normal for each vertex of the triangle
 				for (i = 0; i < 3; i++) {
-					normals.add(tempNorms[0]);
-					normals.add(tempNorms[1]);
-					normals.add(tempNorms[2]);
+					normals.add(x);
+					normals.add(y);
+					normals.add(z);
 				}
 
-			} else if (line.contains("vertex ")) {
-
-				insert = vertices.size();
+			} else if (scanner.tokenEquals("vertex")) {
 
-				nextOffset = line.lastIndexOf(" ");
-				vertices.add(Float.parseFloat(line.substring(nextOffset + 1)));
-
-				prevOffset = nextOffset;
-				nextOffset = line.lastIndexOf(" ", prevOffset - 1);
-				vertices.add(insert, Float.parseFloat(line.substring(nextOffset + 1, prevOffset)));
-
-				prevOffset = nextOffset;
-				nextOffset = line.lastIndexOf(" ", prevOffset - 1);
-				vertices.add(insert, Float.parseFloat(line.substring(nextOffset + 1, prevOffset)));
+				vertices.add(scanner.nextFloat());
+				vertices.add(scanner.nextFloat());
+				vertices.add(scanner.nextFloat());
 			}
 		}
 
-		float[] verticesArr = new float[vertices.size()];
-		float[] normalsArr = new float[normals.size()];
-		for (i = 0; i < verticesArr.length; i++) {
-			verticesArr[i] = vertices.get(i);
-			normalsArr[i] = normals.get(i);
-		}
-
-		// Cleanup
-		vertices.clear();
-		normals.clear();
+		float[] verticesArr = vertices.toArray();
+		float[] normalsArr = normals.toArray();
 
 		int[] indicesArr = new int[verticesArr.length / 3];
 		for (i = 0; i < indicesArr.length; i++)
@@ -38,11 +38,14 @@ import org.rajawali3d.primitives.NPrism;
 import org.rajawali3d.primitives.Plane;
 import org.rajawali3d.primitives.RectangularPrism;
 import org.rajawali3d.primitives.Sphere;
+import org.rajawali3d.util.FloatArrayList;
+import org.rajawali3d.util.IntArrayList;
 import org.w3c.dom.Document;
 import org.w3c.dom.Element;
 import org.w3c.dom.Node;
 import org.w3c.dom.NodeList;
 
+import java.io.IOException;
 import java.io.InputStream;
 import java.util.List;
 import java.util.Stack;
@@ -720,39 +723,30 @@ public class LoaderX3D extends AMeshLoader {
         Object3D obj = null;
         if(triangleSet != null) {
             Node tag;
-            String[] values;
 
             Node coordinate = triangleSet.getElementsByTagName("Coordinate").item(0);
             tag = coordinate.getAttributes().getNamedItem("point");
-            values = tag.getNodeValue().trim().split("\\s+");
-            float[] vertices = new float[values.length];
-            for(int i=0; i<values.length; i++) vertices[i] = Float.parseFloat(values[i]);
+            float[] vertices = parseFloats(tag.getNodeValue());
 
             float[] normals = null;
             Node normal = triangleSet.getElementsByTagName("Normal").item(0);
             if(normal!=null) {
                 tag = normal.getAttributes().getNamedItem("vector");
-                values = tag.getNodeValue().trim().split("\\s+");
-                normals = new float[values.length];
-                for(int i=0; i<values.length; i++) normals[i] = Float.parseFloat(values[i]);
+                normals = parseFloats(tag.getNodeValue());
             }
 
             float[] texcoords = null;
             Node texcoord = triangleSet.getElementsByTagName("TextureCoordinate").item(0);
             if(texcoord!=null) {
                 tag = texcoord.getAttributes().getNamedItem("point");
-                values = tag.getNodeValue().trim().split("\\s+");
-                texcoords = new float[values.length];
-                for(int i=0; i<values.length; i++) texcoords[i] = Float.parseFloat(values[i]);
+                texcoords = parseFloats(tag.getNodeValue());
             }
 
             float[] colors = null;
             Node color = triangleSet.getElementsByTagName("Color").item(0);
             if(color!=null) {
                 tag = color.getAttributes().getNamedItem("color");
-                values = tag.getNodeValue().trim().split("\\s+");
-                colors = new float[values.length];
-                for(int i=0; i<values.length; i++) colors[i] = Float.parseFloat(values[i]);
+                colors = parseFloats(tag.getNodeValue());
             }
 
             obj = new TriangleSet(vertices, normals, texcoords, colors, true);
@@ -765,44 +759,33 @@ public class LoaderX3D extends AMeshLoader {
         Object3D obj = null;
         if(indexedTriangleSet != null) {
             Node tag;
-            String[] values;
 
             tag = indexedTriangleSet.getAttributes().getNamedItem("index");
-            values = tag.getNodeValue().trim().split("\\s+");
-            int[] indices = new int[values.length];
-            for(int i=0; i<values.length; i++) indices[i] = Integer.parseInt(values[i]);
+            int[] indices = parseInts(tag.getNodeValue());
 
             Node coordinate = indexedTriangleSet.getElementsByTagName("Coordinate").item(0);
             tag = coordinate.getAttributes().getNamedItem("point");
-            values = tag.getNodeValue().trim().split("\\s+");
-            float[] vertices = new float[values.length];
-            for(int i=0; i<values.length; i++) vertices[i] = Float.parseFloat(values[i]);
+            float[] vertices = parseFloats(tag.getNodeValue());
 
             float[] normals = null;
             Node normal = indexedTriangleSet.getElementsByTagName("Normal").item(0);
             if(normal!=null) {
                 tag = normal.getAttributes().getNamedItem("vector");
-                values = tag.getNodeValue().trim().split("\\s+");
-                normals = new float[values.length];
-                for(int i=0; i<values.length; i++) normals[i] = Float.parseFloat(values[i]);
+                normals = parseFloats(tag.getNodeValue());
             }
 
             float[] texcoords = null;
             Node texcoord = indexedTriangleSet.getElementsByTagName("TextureCoordinate").item(0);
             if(texcoord!=null) {
                 tag = texcoord.getAttributes().getNamedItem("point");
-                values = tag.getNodeValue().trim().split("\\s+");
-                texcoords = new float[values.length];
-                for(int i=0; i<values.length; i++) texcoords[i] = Float.parseFloat(values[i]);
+                texcoords = parseFloats(tag.getNodeValue());
             }
 
             float[] colors = null;
             Node color = indexedTriangleSet.getElementsByTagName("Color").item(0);
             if(color!=null) {
                 tag = color.getAttributes().getNamedItem("color");
-                values = tag.getNodeValue().trim().split("\\s+");
-                colors = new float[values.length];
-                for(int i=0; i<values.length; i++) colors[i] = Float.parseFloat(values[i]);
+                colors = parseFloats(tag.getNodeValue());
             }
 
             obj = new IndexedTriangleSet(vertices, normals, texcoords, colors, indices, true);
@@ -811,6 +794,35 @@ public class LoaderX3D extends AMeshLoader {
         return obj;
     }
 
+    /**
+     * Parses a whitespace or comma separated list of numbers, such as the points of a Coordinate node.
+     */
+    static float[] parseFloats(@NotNull String value) {
+        final FloatArrayList values = new FloatArrayList(256);
+        final LineScanner scanner = new LineScanner(value);
+        try {
+            while(scanner.nextLine()) {
+                while(scanner.hasNext()) values.add(scanner.nextFloat());
+            }
+        } catch(IOException e) {
+            // Reading from a String doesn't fail
+        }
+        return values.toArray();
+    }
+
+    static int[] parseInts(@NotNull String value) {
+        final IntArrayList values = new IntArrayList(256);
+        final LineScanner scanner = new LineScanner(value);
+        try {
+            while(scanner.nextLine()) {
+                while(scanner.hasNext()) values.add(scanner.nextInt());
+            }
+        } catch(IOException e) {
+            // Reading from a String doesn't fail
+        }
+        return values.toArray();
+    }
+
     static class TriangleSet extends Object3D {
 
         public TriangleSet(        float[] vertices,
@@ -3,6 +3,7 @@ package org.rajawali3d.loader.awd;
 import org.rajawali3d.loader.LoaderAWD.AWDLittleEndianDataInputStream;
 import org.rajawali3d.loader.LoaderAWD.BlockHeader;
 import org.rajawali3d.loader.awd.exceptions.NotImplementedParsingException;
+import org.rajawali3d.materials.textures.TextureManager;
 import org.rajawali3d.util.RajLog;
 import android.graphics.Bitmap;
 import android.graphics.BitmapFactory;
@@ -21,6 +22,8 @@ public class BlockBitmapTexture extends ABlockParser {
 	protected byte mImageType;
 	protected long mDataLength;
 	protected Bitmap mBitmap;
+	protected byte[] mImageData;
+	protected String mContentKey;
 
 	public void parseBlock(AWDLittleEndianDataInputStream dis, BlockHeader blockHeader) throws Exception {
 
@@ -43,9 +46,10 @@ public class BlockBitmapTexture extends ABlockParser {
 		case IMAGE_TYPE_EXTERNAL:
 			throw new NotImplementedParsingException();
 		case IMAGE_TYPE_EMBEDDED:
-			byte[] imageData = new byte[(int) mDataLength];
-			dis.readFully(imageData);
-			mBitmap = BitmapFactory.decodeByteArray(imageData, 0, imageData.length);
+			mImageData = new byte[(int) mDataLength];
+			dis.readFully(mImageData);
+			// Decoded when a material needs it, which it doesn't if an identical image is already shared
+			mContentKey = TextureManager.getContentKey(mImageData, 0, mImageData.length);
 			break;
 		}
 
@@ -54,7 +58,19 @@ public class BlockBitmapTexture extends ABlockParser {
 	}
 
 	public Bitmap getTexture() {
+		if (mBitmap == null && mImageData != null) {
+			mBitmap = BitmapFactory.decodeByteArray(mImageData, 0, mImageData.length);
+			mImageData = null;
+		}
 		return mBitmap;
 	}
 
+	/**
+	 * @return the key identifying the embedded image by its content, see
+	 *         {@link TextureManager#getContentKey(byte[], int, int)}
+	 */
+	public String getContentKey() {
+		return mContentKey;
+	}
+
 }
@@ -11,12 +11,15 @@ import org.rajawali3d.loader.awd.exceptions.NotParsableException;
 import org.rajawali3d.materials.Material;
 import org.rajawali3d.materials.methods.DiffuseMethod;
 import org.rajawali3d.materials.methods.SpecularMethod;
+import org.rajawali3d.materials.textures.ATexture;
+import org.rajawali3d.materials.textures.ATexture.TextureException;
+import org.rajawali3d.materials.textures.ATexture.TextureType;
 import org.rajawali3d.materials.textures.NormalMapTexture;
 import org.rajawali3d.materials.textures.SpecularMapTexture;
 import org.rajawali3d.materials.textures.Texture;
+import org.rajawali3d.materials.textures.TextureManager;
 import org.rajawali3d.util.RajLog;
 
-import android.graphics.Bitmap;
 import android.graphics.Color;
 import android.util.SparseArray;
 
@@ -173,10 +176,10 @@ public class BlockSimpleMaterial extends ATextureBlockParser {
 				throw new ParsingException("Texture ID can not be 0, document corrupt or unsupported version.");
 
 			if(diffuseTexture > 0)
-				mMaterial.addTexture(new Texture(cleanName + diffuseTexture, lookup(blockHeader, diffuseTexture)));
+				mMaterial.addTexture(acquireTexture(blockHeader, diffuseTexture, TextureType.DIFFUSE, cleanName));
 
 			if(ambientTexture > 0)
-				mMaterial.addTexture(new Texture(cleanName + ambientTexture, lookup(blockHeader, ambientTexture)));
+				mMaterial.addTexture(acquireTexture(blockHeader, ambientTexture, TextureType.DIFFUSE, cleanName));
 
 			mMaterial.setColorInfluence(0);
 
@@ -198,10 +201,10 @@ public class BlockSimpleMaterial extends ATextureBlockParser {
 		double specularLevel = (Double) properties.get(PROP_SPECULAR_LEVEL, 1.0d);
 
 		if(specularTexture > 0)
-			mMaterial.addTexture(new SpecularMapTexture(cleanName + specularTexture, lookup(blockHeader, specularTexture)));
+			mMaterial.addTexture(acquireTexture(blockHeader, specularTexture, TextureType.SPECULAR, cleanName));
 
 		if(normalTexture > 0)
-			mMaterial.addTexture(new NormalMapTexture(cleanName + normalTexture, lookup(blockHeader, normalTexture)));
+			mMaterial.addTexture(acquireTexture(blockHeader, normalTexture, TextureType.NORMAL, cleanName));
 
 		// ambient 1.0 is default, washes-out object; assume < 1 is intended
 		ambientLevel = (ambientLevel < 1.0 ? ambientLevel : 0.0);
@@ -228,7 +231,7 @@ public class BlockSimpleMaterial extends ATextureBlockParser {
 			mMaterial.enableLighting(true);
 	}
 
-	private Bitmap lookup(BlockHeader blockHeader, long texref) throws ParsingException
+	private BlockBitmapTexture lookup(BlockHeader blockHeader, long texref) throws ParsingException
 	{
 		final BlockHeader lookupHeader = blockHeader.blockHeaders.get((short) texref);
 
@@ -236,7 +239,30 @@ public class BlockSimpleMaterial extends ATextureBlockParser {
 				|| !(lookupHeader.parser instanceof BlockBitmapTexture))
 			throw new ParsingException("Invalid block reference.");
 
-		return ((BlockBitmapTexture) lookupHeader.parser).mBitmap;
+		return (BlockBitmapTexture) lookupHeader.parser;
+	}
+
+	/**
+	 * Returns the texture of a bitmap block, shared with every material using an image with the same content.
+	 */
+	private ATexture acquireTexture(BlockHeader blockHeader, final long texref, final TextureType type,
+			final String cleanName) throws ParsingException, TextureException
+	{
+		final BlockBitmapTexture block = lookup(blockHeader, texref);
+		return TextureManager.getInstance().acquireSharedTexture(block.getContentKey(), type,
+				new TextureManager.TextureFactory() {
+					@Override
+					public ATexture createTexture() {
+						switch (type) {
+						case SPECULAR:
+							return new SpecularMapTexture(cleanName + texref, block.getTexture());
+						case NORMAL:
+							return new NormalMapTexture(cleanName + texref, block.getTexture());
+						default:
+							return new Texture(cleanName + texref, block.getTexture());
+						}
+					}
+				});
 	}
 
 	private final static String TEX_PREFIX = "TEX_";
@@ -36,8 +36,11 @@ import org.rajawali3d.loader.fbx.FBXValues.Objects.Model;
 import org.rajawali3d.materials.Material;
 import org.rajawali3d.materials.methods.DiffuseMethod;
 import org.rajawali3d.materials.methods.SpecularMethod;
+import org.rajawali3d.materials.textures.ATexture;
 import org.rajawali3d.materials.textures.ATexture.TextureException;
+import org.rajawali3d.materials.textures.ATexture.TextureType;
 import org.rajawali3d.materials.textures.Texture;
+import org.rajawali3d.materials.textures.TextureManager;
 import org.rajawali3d.math.vector.Vector2;
 import org.rajawali3d.math.vector.Vector3;
 import org.rajawali3d.renderer.Renderer;
@@ -420,28 +423,41 @@ public class LoaderFBX extends AMeshLoader {
 				if(conn.object2.equals(name) && conn.object1.equals(tex.textureName))
 				{
 					// -- one texture for now
-					String textureName = tex.fileName;
-
-					Bitmap bitmap = null;
+					final String textureName = tex.fileName;
+					final String key;
+					final File file;
 					if(mFile == null) {
-						int identifier = mResources.getIdentifier(getFileNameWithoutExtension(textureName).toLowerCase(Locale.US), "drawable", mResources.getResourcePackageName(mResourceId));
-						bitmap = BitmapFactory.decodeResource(mResources, identifier);
+						file = null;
+						key = TextureManager.getResourceKey(getTextureIdentifier(textureName));
 					} else {
-						try {
-							String filePath = mFile.getParent() + File.separatorChar + getOnlyFileName(textureName);
-							bitmap = BitmapFactory.decodeFile(filePath);
-						} catch (Exception e) {
-							throw new ParsingException("["+getClass().getCanonicalName()+"] Could not find file " + getOnlyFileName(textureName));
-						}
+						file = new File(mFile.getParent() + File.separatorChar + getOnlyFileName(textureName));
+						key = TextureManager.getFileKey(file);
 					}
+
 					o.getMaterial().setColorInfluence(0);
-					o.getMaterial().addTexture(new Texture(textureName.replaceAll("[\\W]|_", ""), bitmap));
+					o.getMaterial().addTexture(TextureManager.getInstance().acquireSharedTexture(key, TextureType.DIFFUSE,
+							new TextureManager.TextureFactory() {
+								@Override
+								public ATexture createTexture() {
+									Bitmap bitmap;
+									if(file == null)
+										bitmap = BitmapFactory.decodeResource(mResources, getTextureIdentifier(textureName));
+									else
+										bitmap = BitmapFactory.decodeFile(file.getPath());
+									return new Texture(textureName.replaceAll("[\\W]|_", ""), bitmap);
+								}
+							}));
 					return;
 				}
 			}
 		}
 	}
 
+	private int getTextureIdentifier(String textureName) {
+		return mResources.getIdentifier(getFileNameWithoutExtension(textureName).toLowerCase(Locale.US), "drawable",
+				mResources.getResourcePackageName(mResourceId));
+	}
+
 	private Material getMaterialForMesh(Object3D o, String name) {
 		Material mat = new Material();
 		FBXMaterial material = null;
@@ -17,7 +17,6 @@ import java.io.FileNotFoundException;
 import java.io.FileReader;
 import java.io.InputStream;
 import java.io.InputStreamReader;
-import java.util.StringTokenizer;
 
 import org.rajawali3d.animation.mesh.IAnimationSequence;
 import org.rajawali3d.animation.mesh.SkeletalAnimationFrame;
@@ -27,6 +26,7 @@ import org.rajawali3d.animation.mesh.SkeletalAnimationSequence;
 import org.rajawali3d.math.vector.Vector3;
 import org.rajawali3d.loader.ALoader;
 import org.rajawali3d.loader.IAnimationSequenceLoader;
+import org.rajawali3d.loader.LineScanner;
 import org.rajawali3d.loader.ParsingException;
 import org.rajawali3d.renderer.Renderer;
 import org.rajawali3d.util.RajLog;
@@ -81,39 +81,34 @@ public class LoaderMD5Anim extends ALoader implements IAnimationSequenceLoader {
 
 		mSequence = new SkeletalAnimationSequence(mAnimationName);
 		SkeletalAnimationFrame[] frames = null;
-		String line;
 
 		try {
-			while((line = buffer.readLine()) != null) {
-				line = line.replace("\t", " ");
-				StringTokenizer parts = new StringTokenizer(line, " ");
-				int numTokens = parts.countTokens();
-
-				if(numTokens == 0)
+			LineScanner scanner = new LineScanner(buffer);
+			while(scanner.nextLine()) {
+				if(!scanner.nextToken())
 					continue;
-				String type = parts.nextToken();
 
-				if(type.equalsIgnoreCase(MD5_VERSION)) {
-				} else if(type.equalsIgnoreCase(COMMAND_LINE)) {
-				} else if(type.equalsIgnoreCase(NUM_JOINTS)) {
-					mNumJoints = Integer.parseInt(parts.nextToken());
+				if(scanner.tokenEqualsIgnoreCase(MD5_VERSION)) {
+				} else if(scanner.tokenEqualsIgnoreCase(COMMAND_LINE)) {
+				} else if(scanner.tokenEqualsIgnoreCase(NUM_JOINTS)) {
+					mNumJoints = scanner.nextInt();
 					mJoints = new SkeletonJoint[mNumJoints];
-				} else if(type.equalsIgnoreCase(NUM_FRAMES)) {
-					mSequence.setNumFrames(Integer.parseInt(parts.nextToken()));
+				} else if(scanner.tokenEqualsIgnoreCase(NUM_FRAMES)) {
+					mSequence.setNumFrames(scanner.nextInt());
 					frames = new SkeletalAnimationFrame[mSequence.getNumFrames()];
-				} else if(type.equalsIgnoreCase(FRAME_RATE)) {
-					mSequence.setFrameRate(Integer.parseInt(parts.nextToken()));
-				} else if(type.equalsIgnoreCase(NUM_ANIMATED_COMPONENTS)) {
-					mNumAnimatedComponents = Integer.parseInt(parts.nextToken());
-				} else if(type.equalsIgnoreCase(HIERARCHY)) {
-					parseHierarchy(buffer);
-				} else if(type.equalsIgnoreCase(BOUNDS)) {
-					parseBounds(frames, buffer);
-				} else if(type.equalsIgnoreCase(FRAME)) {
-					parseFrame(frames, Integer.parseInt(parts.nextToken()), buffer);
-				} else if(type.equalsIgnoreCase(BASEFRAME)) {
+				} else if(scanner.tokenEqualsIgnoreCase(FRAME_RATE)) {
+					mSequence.setFrameRate(scanner.nextInt());
+				} else if(scanner.tokenEqualsIgnoreCase(NUM_ANIMATED_COMPONENTS)) {
+					mNumAnimatedComponents = scanner.nextInt();
+				} else if(scanner.tokenEqualsIgnoreCase(HIERARCHY)) {
+					parseHierarchy(scanner);
+				} else if(scanner.tokenEqualsIgnoreCase(BOUNDS)) {
+					parseBounds(frames, scanner);
+				} else if(scanner.tokenEqualsIgnoreCase(FRAME)) {
+					parseFrame(frames, scanner.nextInt(), scanner);
+				} else if(scanner.tokenEqualsIgnoreCase(BASEFRAME)) {
 					mBaseFrame = new SkeletonJoint[mNumJoints];
-					parseBaseFrame(buffer);
+					parseBaseFrame(scanner);
 				}
 			}
 			buffer.close();
@@ -130,27 +125,21 @@ public class LoaderMD5Anim extends ALoader implements IAnimationSequenceLoader {
 		return mSequence;
 	}
 
-	private void parseHierarchy(BufferedReader buffer) {
+	private void parseHierarchy(LineScanner scanner) {
 		try {
-			String line;
 			int index = 0;
 
-			while((line = buffer.readLine()) != null) {
-				line = line.replace("\t", " ");
-				StringTokenizer parts = new StringTokenizer(line, " ");
-
-				int numTokens = parts.countTokens();
-
-				if(line.indexOf('}') > -1) return;
-				if(numTokens == 0) continue;
+			while(scanner.nextLine()) {
+				if(scanner.peek() == '}') return;
+				if(!scanner.nextToken()) continue;
 
 				SkeletonJoint joint = new SkeletonJoint();
 
 				joint.setIndex(index);
-				joint.setName(parts.nextToken());
-				joint.setParentIndex(Integer.parseInt(parts.nextToken()));
-				joint.setFlags(Integer.parseInt(parts.nextToken()));
-				joint.setStartIndex(Integer.parseInt(parts.nextToken()));
+				joint.setName(scanner.getToken());
+				joint.setParentIndex(scanner.nextInt());
+				joint.setFlags(scanner.nextInt());
+				joint.setStartIndex(scanner.nextInt());
 
 				mJoints[index++] = joint;
 			}
@@ -159,29 +148,25 @@ public class LoaderMD5Anim extends ALoader implements IAnimationSequenceLoader {
 		}
 	}
 
-	private void parseBounds(SkeletalAnimationFrame[] frames, BufferedReader buffer) {
+	private void parseBounds(SkeletalAnimationFrame[] frames, LineScanner scanner) {
 		try {
-			String line;
 			int index = 0;
 
-			while((line = buffer.readLine()) != null) {
-				StringTokenizer parts = new StringTokenizer(line, " ");
-				int numTokens = parts.countTokens();
-				if(line.indexOf('}') > -1) return;
-				if(numTokens == 0) continue;
+			while(scanner.nextLine()) {
+				if(scanner.peek() == '}') return;
+				if(!scanner.hasNext()) continue;
 
 				SkeletalAnimationFrame frame = new SkeletalAnimationFrame();
 				frames[index++] = frame;
 				// discard (
-				parts.nextToken();
+				scanner.skipPast('(');
 
-				Vector3 min = new Vector3(Float.parseFloat(parts.nextToken()), Float.parseFloat(parts.nextToken()), Float.parseFloat(parts.nextToken()));
-				// discard )
-				parts.nextToken();
-				// discard (
-				parts.nextToken();
+				Vector3 min = new Vector3(scanner.nextFloat(), scanner.nextFloat(), scanner.nextFloat());
+				// discard ) and (
+				scanner.skipPast(')');
+				scanner.skipPast('(');
 
-				Vector3 max = new Vector3(Float.parseFloat(parts.nextToken()), Float.parseFloat(parts.nextToken()), Float.parseFloat(parts.nextToken()));
+				Vector3 max = new Vector3(scanner.nextFloat(), scanner.nextFloat(), scanner.nextFloat());
 
 				frame.setBounds(min, max);
 			}
@@ -190,9 +175,8 @@ public class LoaderMD5Anim extends ALoader implements IAnimationSequenceLoader {
 		}
 	}
 
-	private void parseFrame(SkeletalAnimationFrame[] frames, int frameIndex, BufferedReader buffer) {
+	private void parseFrame(SkeletalAnimationFrame[] frames, int frameIndex, LineScanner scanner) {
 		try {
-			String line;
 			SkeletalAnimationFrame frame = frames[frameIndex];
 			frame.setFrameIndex(frameIndex);
 			Skeleton skeleton = frame.getSkeleton();
@@ -200,19 +184,15 @@ public class LoaderMD5Anim extends ALoader implements IAnimationSequenceLoader {
 			float[] frameData = new float[mNumAnimatedComponents];
 			int index = 0;
 
-			while((line = buffer.readLine()) != null) {
-				line = line.replace("\t", " ");
-
-				StringTokenizer parts = new StringTokenizer(line, " ");
-
-				if(line.indexOf('}') > -1) {
+			while(scanner.nextLine()) {
+				if(scanner.peek() == '}') {
 					skeleton.setJoints(joints);
 					buildFrameSkeleton(frameData, skeleton);
 					return;
 				}
-				while(parts.hasMoreTokens())
+				while(scanner.hasNext())
 				{
-					frameData[index++] = Float.parseFloat(parts.nextToken());
+					frameData[index++] = scanner.nextFloat();
 				}
 			}
 		} catch(Exception e) {
@@ -251,36 +231,31 @@ public class LoaderMD5Anim extends ALoader implements IAnimationSequenceLoader {
 		}
 	}
 
-	private void parseBaseFrame(BufferedReader buffer) {
+	private void parseBaseFrame(LineScanner scanner) {
 		try {
-			String line;
 			int index = 0;
 
-			while((line = buffer.readLine()) != null) {
-				line = line.replace("\t", " ");
-				StringTokenizer parts = new StringTokenizer(line, " ");
-				int numTokens = parts.countTokens();
-				if(line.indexOf('}') > -1) return;
-				if(numTokens == 0) continue;
+			while(scanner.nextLine()) {
+				if(scanner.peek() == '}') return;
+				if(!scanner.hasNext()) continue;
 
 				SkeletonJoint joint = new SkeletonJoint();
 				mBaseFrame[index++] = joint;
 
 				// ignore "("
-				parts.nextToken();
-				float x = Float.parseFloat(parts.nextToken());
-				float y = Float.parseFloat(parts.nextToken());
-				float z = Float.parseFloat(parts.nextToken());
+				scanner.skipPast('(');
+				float x = scanner.nextFloat();
+				float y = scanner.nextFloat();
+				float z = scanner.nextFloat();
 				joint.setPosition(x, z, y);
 
-				// ignore ")"
-				parts.nextToken();
-				// ignore "("
-				parts.nextToken();
+				// ignore ")" and "("
+				scanner.skipPast(')');
+				scanner.skipPast('(');
 
-				x = Float.parseFloat(parts.nextToken());
-				y = Float.parseFloat(parts.nextToken());
-				z = Float.parseFloat(parts.nextToken());
+				x = scanner.nextFloat();
+				y = scanner.nextFloat();
+				z = scanner.nextFloat();
 				joint.setOrientation(x, z, y);
 				joint.getOrientation().computeW();
 			}
@@ -20,7 +20,6 @@ import java.io.FileNotFoundException;
 import java.io.FileReader;
 import java.io.InputStream;
 import java.io.InputStreamReader;
-import java.util.StringTokenizer;
 
 import org.rajawali3d.animation.mesh.AAnimationObject3D;
 import org.rajawali3d.animation.mesh.SkeletalAnimationChildObject3D;
@@ -39,6 +38,7 @@ import org.rajawali3d.math.Matrix;
 import org.rajawali3d.math.vector.Vector3;
 import org.rajawali3d.loader.AMeshLoader;
 import org.rajawali3d.loader.IAnimatedMeshLoader;
+import org.rajawali3d.loader.LineScanner;
 import org.rajawali3d.loader.ParsingException;
 import org.rajawali3d.renderer.Renderer;
 import org.rajawali3d.util.RajLog;
@@ -103,30 +103,25 @@ public class LoaderMD5Mesh extends AMeshLoader implements IAnimatedMeshLoader {
 				throw new ParsingException(e);
 			}
 		}
-		String line;
-
 		try {
-			while ((line = buffer.readLine()) != null) {
-				StringTokenizer parts = new StringTokenizer(line, " ");
-				int numTokens = parts.countTokens();
-
-				if (numTokens == 0)
+			LineScanner scanner = new LineScanner(buffer);
+			while (scanner.nextLine()) {
+				if (!scanner.nextToken())
 					continue;
-				String type = parts.nextToken();
 
-				if (type.equalsIgnoreCase(MD5_VERSION)) {
+				if (scanner.tokenEqualsIgnoreCase(MD5_VERSION)) {
                     if (RajLog.isDebugEnabled())
-					    RajLog.d("MD5 Version: " + parts.nextToken());
-				} else if (type.equalsIgnoreCase(COMMAND_LINE)) {} else if (type.equalsIgnoreCase(NUM_JOINTS)) {
-					mNumJoints = Integer.parseInt(parts.nextToken());
+					    RajLog.d("MD5 Version: " + scanner.nextQuoted());
+				} else if (scanner.tokenEqualsIgnoreCase(COMMAND_LINE)) {} else if (scanner.tokenEqualsIgnoreCase(NUM_JOINTS)) {
+					mNumJoints = scanner.nextInt();
 					mJoints = new SkeletonJoint[mNumJoints];
-				} else if (type.equalsIgnoreCase(NUM_MESHES)) {
-					mNumMeshes = Integer.parseInt(parts.nextToken());
+				} else if (scanner.tokenEqualsIgnoreCase(NUM_MESHES)) {
+					mNumMeshes = scanner.nextInt();
 					mMeshes = new SkeletonMeshData[mNumMeshes];
-				} else if (type.equalsIgnoreCase(JOINTS)) {
-					parseJoints(buffer);
-				} else if (type.equals(MESH)) {
-					parseMesh(buffer);
+				} else if (scanner.tokenEqualsIgnoreCase(JOINTS)) {
+					parseJoints(scanner);
+				} else if (scanner.tokenEquals(MESH)) {
+					parseMesh(scanner);
 				}
 			}
 			buffer.close();
@@ -151,36 +146,38 @@ public class LoaderMD5Mesh extends AMeshLoader implements IAnimatedMeshLoader {
 		return this;
 	}
 
-	private void parseJoints(BufferedReader buffer) {
+	private void parseJoints(LineScanner scanner) {
 		try {
-			String line;
 			int count = 0;
 
-			while ((line = buffer.readLine()) != null) {
-				SkeletonJoint joint = new SkeletonJoint();
-				if (line.length() == 0)
+			while (scanner.nextLine()) {
+				if (!scanner.hasNext())
 					continue;
 
-				if (line.indexOf('}') > -1) {
+				if (scanner.peek() == '}') {
 					return;
 				}
-				line = line.replace('\t', ' ');
+				SkeletonJoint joint = new SkeletonJoint();
 
 				// -- Bone Name
-				int offset = line.lastIndexOf('"');
-				joint.setName(line.substring(line.indexOf('"') + 1, offset));
+				joint.setName(scanner.nextQuoted());
 
 				// -- Parent Index
-				offset += 2;
-				joint.setParentIndex(Integer.parseInt(line.substring(offset, line.indexOf(' ', offset))));
+				joint.setParentIndex(scanner.nextInt());
 
 				// -- position
-				offset = line.indexOf(')');
-				String[] p = line.substring(line.indexOf('(') + 2, offset).split(" ");
-				joint.setPosition(Float.parseFloat(p[0]), Float.parseFloat(p[2]), Float.parseFloat(p[1]));
+				scanner.skipPast('(');
+				float x = scanner.nextFloat();
+				float y = scanner.nextFloat();
+				float z = scanner.nextFloat();
+				joint.setPosition(x, z, y);
 				// -- orientation
-				p = line.substring(line.indexOf('(', offset) + 2, line.lastIndexOf(')')).split(" ");
-				joint.setOrientation(Float.parseFloat(p[0]), Float.parseFloat(p[2]), Float.parseFloat(p[1]));
+				scanner.skipPast(')');
+				scanner.skipPast('(');
+				x = scanner.nextFloat();
+				y = scanner.nextFloat();
+				z = scanner.nextFloat();
+				joint.setOrientation(x, z, y);
 				joint.getOrientation().computeW();
 
 				mJoints[count++] = joint;
@@ -190,29 +187,22 @@ public class LoaderMD5Mesh extends AMeshLoader implements IAnimatedMeshLoader {
 		}
 	}
 
-	private void parseMesh(BufferedReader buffer) {
+	private void parseMesh(LineScanner scanner) {
 		try {
-			String line;
 			SkeletonMeshData mesh = new SkeletonMeshData();
 
-			while ((line = buffer.readLine()) != null) {
-				line = line.replace("\t", "");
-				StringTokenizer parts = new StringTokenizer(line, " ");
-				int numTokens = parts.countTokens();
-				if (line.indexOf('}') > -1) {
+			while (scanner.nextLine()) {
+				if (scanner.peek() == '}') {
 					mMeshes[mMeshIndex++] = mesh;
 					return;
 				}
-				if (numTokens == 0 || line.indexOf('}') > -1)
+				if (!scanner.nextToken())
 					continue;
 
-				String type = parts.nextToken();
-
-				if (type.equalsIgnoreCase(SHADER)) {
-					String shader = parts.nextToken();
-					shader = shader.replace("\"", "");
+				if (scanner.tokenEqualsIgnoreCase(SHADER)) {
+					String shader = scanner.nextQuoted();
 					mesh.textureName = shader;
-					if (shader.length() == 0)
+					if (shader == null || shader.length() == 0)
 						continue;
 
 					int lastDelim = shader.lastIndexOf("/");
@@ -224,51 +214,51 @@ public class LoaderMD5Mesh extends AMeshLoader implements IAnimatedMeshLoader {
 					int dot = shader.lastIndexOf(".");
 					if (dot > -1)
 						mesh.textureName = shader.substring(0, dot);
-				} else if (type.equalsIgnoreCase(NUM_VERTS)) {
-					mesh.numVertices = Integer.parseInt(parts.nextToken());
+				} else if (scanner.tokenEqualsIgnoreCase(NUM_VERTS)) {
+					mesh.numVertices = scanner.nextInt();
 					mesh.boneVertices = new BoneVertex[mesh.numVertices];
-				} else if (type.equalsIgnoreCase(VERT)) {
-					int index = Integer.parseInt(parts.nextToken());
+				} else if (scanner.tokenEqualsIgnoreCase(VERT)) {
+					int index = scanner.nextInt();
 					BoneVertex vert = new BoneVertex();
 
 					// -- ignore '('
-					parts.nextToken();
-					vert.textureCoordinate.setAll(Float.parseFloat(parts.nextToken()),
-							Float.parseFloat(parts.nextToken()));
+					scanner.skipPast('(');
+					float u = scanner.nextFloat();
+					float v = scanner.nextFloat();
+					vert.textureCoordinate.setAll(u, v);
 
 					// -- ignore ')'
-					parts.nextToken();
-					vert.weightIndex = Integer.parseInt(parts.nextToken());
-					vert.numWeights = Integer.parseInt(parts.nextToken());
+					scanner.skipPast(')');
+					vert.weightIndex = scanner.nextInt();
+					vert.numWeights = scanner.nextInt();
 					mesh.numWeights += vert.numWeights;
 
 					mesh.maxBoneWeightsPerVertex = Math.max(mesh.maxBoneWeightsPerVertex, vert.numWeights);
 
 					mesh.boneVertices[index] = vert;
-				} else if (type.equalsIgnoreCase(NUM_TRIS)) {
-					mesh.numTriangles = Integer.parseInt(parts.nextToken());
+				} else if (scanner.tokenEqualsIgnoreCase(NUM_TRIS)) {
+					mesh.numTriangles = scanner.nextInt();
 					mesh.triangles = new int[mesh.numTriangles][];
-				} else if (type.equalsIgnoreCase(TRI)) {
-					int index = Integer.parseInt(parts.nextToken());
-					mesh.triangles[index] = new int[] { Integer.parseInt(parts.nextToken()),
-							Integer.parseInt(parts.nextToken()), Integer.parseInt(parts.nextToken()) };
-				} else if (type.equalsIgnoreCase(NUM_WEIGHTS)) {
-					mesh.numWeights = Integer.parseInt(parts.nextToken());
+				} else if (scanner.tokenEqualsIgnoreCase(TRI)) {
+					int index = scanner.nextInt();
+					mesh.triangles[index] = new int[] { scanner.nextInt(), scanner.nextInt(), scanner.nextInt() };
+				} else if (scanner.tokenEqualsIgnoreCase(NUM_WEIGHTS)) {
+					mesh.numWeights = scanner.nextInt();
 					mesh.boneWeights = new BoneWeight[mesh.numWeights];
-				} else if (type.equalsIgnoreCase(WEIGHT)) {
-					int index = Integer.parseInt(parts.nextToken());
+				} else if (scanner.tokenEqualsIgnoreCase(WEIGHT)) {
+					int index = scanner.nextInt();
 
 					BoneWeight weight = new BoneWeight();
-					weight.jointIndex = Integer.parseInt(parts.nextToken());
-					weight.weightValue = Float.parseFloat(parts.nextToken());
+					weight.jointIndex = scanner.nextInt();
+					weight.weightValue = scanner.nextFloat();
 
 					mesh.boneWeights[index] = weight;
 
 					// -- ignore '('
-					parts.nextToken();
-					float x = Float.parseFloat(parts.nextToken());
-					float z = Float.parseFloat(parts.nextToken());
-					float y = Float.parseFloat(parts.nextToken());
+					scanner.skipPast('(');
+					float x = scanner.nextFloat();
+					float z = scanner.nextFloat();
+					float y = scanner.nextFloat();
 					weight.position.setAll(x, y, z);
 				}
 			}
@@ -19,6 +19,8 @@ import androidx.annotation.NonNull;
 import org.rajawali3d.BufferInfo;
 import org.rajawali3d.Object3D;
 import org.rajawali3d.lights.ALight;
+import org.rajawali3d.lights.LightBlock;
+import org.rajawali3d.lights.LightSelector;
 import org.rajawali3d.materials.methods.DiffuseMethod;
 import org.rajawali3d.materials.methods.IDiffuseMethod;
 import org.rajawali3d.materials.methods.ISpecularMethod;
@@ -41,7 +43,10 @@ import org.rajawali3d.materials.textures.ATexture.TextureException;
 import org.rajawali3d.materials.textures.CubeMapTexture;
 import org.rajawali3d.materials.textures.SphereMapTexture;
 import org.rajawali3d.materials.textures.TextureManager;
+import org.rajawali3d.math.FloatMatrix;
 import org.rajawali3d.math.Matrix4;
+import org.rajawali3d.math.vector.Vector3;
+import org.rajawali3d.renderer.GLStateCache;
 import org.rajawali3d.renderer.Renderer;
 import org.rajawali3d.scene.Scene;
 import org.rajawali3d.util.Capabilities;
@@ -98,6 +103,58 @@ public class Material {
      * is where lighting calculations are performed.
      */
     private LightsVertexShaderFragment mLightsVertexShaderFragment;
+    /**
+     * Compiles this material for a fixed number of point and spot light slots instead of the scene's lights. Every
+     * object drawn with it is lit by the directional lights of the scene and by the point and spot lights which
+     * influence its bounds most, at most one per slot. Adding or removing local lights then no longer rebuilds the
+     * shaders, and the cost per pixel stays bounded however many local lights the scene holds.
+     *
+     * @param maxPointLights {@code int} The number of point light slots.
+     * @param maxSpotLights  {@code int} The number of spot light slots.
+     */
+    public void enableLightSelection(int maxPointLights, int maxSpotLights) {
+        final List<ALight> lights = mSelectableLights != null ? mSelectableLights : mLights;
+        mLightSelector = new LightSelector(maxPointLights, maxSpotLights);
+        mLights = null;
+        setSelectableLights(lights != null ? lights : new ArrayList<ALight>());
+    }
+
+    /**
+     * @return {@link LightSelector} The selector enabled by {@link #enableLightSelection(int, int)}, or null.
+     */
+    public LightSelector getLightSelector() {
+        return mLightSelector;
+    }
+
+    private void setSelectableLights(List<ALight> lights) {
+        mSelectableLights = lights;
+        // Only directional lights are compiled in, local lights come and go through the slots
+        final List<ALight> compiledLights = new ArrayList<ALight>();
+        for (int i = 0, j = lights.size(); i < j; ++i) {
+            if (lights.get(i).getLightType() == ALight.DIRECTIONAL_LIGHT) {
+                compiledLights.add(lights.get(i));
+            }
+        }
+        compiledLights.addAll(mLightSelector.getSlotLights());
+        if (!compiledLights.equals(mLights)) {
+            mLights = compiledLights;
+            mIsDirty = true;
+        }
+    }
+
+    /**
+     * Sets the block the {@link Scene} packs its lights into once per frame. Materials whose lights are the scene's
+     * lights upload them from the block, and skip the upload when their program already holds the current values.
+     *
+     * @param lightBlock {@link LightBlock} The scene's light block.
+     */
+    public void setLightBlock(LightBlock lightBlock) {
+        mLightBlock = lightBlock;
+        if (mLightsVertexShaderFragment != null) {
+            mLightsVertexShaderFragment.setLightBlock(lightBlock);
+        }
+    }
+
     /**
      * The diffuse method specifies the reflection of light from a surface such that an incident
      * ray is reflected at many angles rather than at just one angle as in the case of specular reflection.
@@ -145,13 +202,9 @@ public class Material {
      */
     private int mProgramHandle = -1;
     /**
-     * Holds a reference to the vertex shader
+     * The shared program, from the {@link ShaderProgramCache} of the {@link MaterialManager}
      */
-    private int mVShaderHandle;
-    /**
-     * Holds a reference to the fragment shader
-     */
-    private int mFShaderHandle;
+    private ShaderProgramCache.Program mProgram;
     /**
      * The model matrix holds the object's local coordinates
      */
@@ -217,6 +270,19 @@ public class Material {
      * than {@link Scene}. To add lights to a scene call {@link Scene#addLight(ALight).
      */
     protected List<ALight> mLights;
+    /**
+     * The block the {@link Scene} packs its lights into once per frame.
+     */
+    private LightBlock mLightBlock;
+    /**
+     * Selects the local lights of each object drawn, when light selection is enabled.
+     */
+    private LightSelector mLightSelector;
+    /**
+     * The lights the {@link LightSelector} picks from.
+     */
+    private List<ALight> mSelectableLights;
+    private final Vector3 mBoundsCenter = new Vector3();
     /**
      * A list of material plugins that are used by this material. A material plugin is basically
      * a class that contains a vertex shader fragment and a fragment shader fragment. Material
@@ -245,11 +311,6 @@ public class Material {
      * the normal into eye space.
      */
     protected final float[] mNormalFloats = new float[9];
-    /**
-     * Scratch normal matrix. The normal matrix is used in the shaders to transform
-     * the normal into eye space.
-     */
-    protected Matrix4 mNormalMatrix = new Matrix4();
     protected VertexShader mCustomVertexShader;
     protected FragmentShader mCustomFragmentShader;
 
@@ -483,11 +544,11 @@ public class Material {
         if (mTextureList != null)
             mTextureList.clear();
 
-        if (Renderer.hasGLContext()) {
-            GLES20.glDeleteShader(mVShaderHandle);
-            GLES20.glDeleteShader(mFShaderHandle);
-            GLES20.glDeleteProgram(mProgramHandle);
-        }
+        // The program is only deleted once no other material shares it
+        MaterialManager.getInstance().getProgramCache().release(mProgram);
+        mProgram = null;
+        mProgramHandle = -1;
+        mIsDirty = true;
     }
 
     /**
@@ -668,6 +729,7 @@ public class Material {
             mLightsVertexShaderFragment = new LightsVertexShaderFragment(mLights);
             mLightsVertexShaderFragment.setAmbientColor(mAmbientColor);
             mLightsVertexShaderFragment.setAmbientIntensity(mAmbientIntensity);
+            mLightsVertexShaderFragment.setLightBlock(mLightBlock);
             mVertexShader.addShaderFragment(mLightsVertexShaderFragment);
             mFragmentShader.addShaderFragment(new LightsFragmentShaderFragment(mLights));
 
@@ -730,8 +792,15 @@ public class Material {
             RajLog.d(mFragmentShader.getShaderString());
         }
 
-        mProgramHandle = createProgram(mVertexShader.getShaderString(), mFragmentShader.getShaderString());
+        // Acquire before releasing, so a rebuild which produces the same source keeps its program
+        final ShaderProgramCache programCache = MaterialManager.getInstance().getProgramCache();
+        final ShaderProgramCache.Program program = programCache.acquire(mVertexShader.getShaderString(),
+                                                                        mFragmentShader.getShaderString());
+        programCache.release(mProgram);
+        mProgram = program;
+        mProgramHandle = program == null ? 0 : program.getHandle();
         if (mProgramHandle == 0) {
+            RajLog.e("[" + getClass().getName() + "] Could not create the shader program.");
             mIsDirty = false;
             return;
         }
@@ -775,77 +844,34 @@ public class Material {
     }
 
     /**
-     * Loads the shader from a text string and then compiles it.
-     *
-     * @param shaderType
-     * @param source
-     *
-     * @return
+     * Tells the OpenGL context to use this program. This should be called every frame.
      */
-    private int loadShader(int shaderType, String source) {
-        int shader = GLES20.glCreateShader(shaderType);
-        if (shader != 0) {
-            GLES20.glShaderSource(shader, source);
-            GLES20.glCompileShader(shader);
-            int[] compiled = new int[1];
-            GLES20.glGetShaderiv(shader, GLES20.GL_COMPILE_STATUS, compiled, 0);
-            if (compiled[0] == 0) {
-                RajLog.e("[" + getClass().getName() + "] Could not compile "
-                    + (shaderType == GLES20.GL_FRAGMENT_SHADER ? "fragment" : "vertex") + " shader:");
-                RajLog.e("Shader log: " + GLES20.glGetShaderInfoLog(shader));
-                GLES20.glDeleteShader(shader);
-                shader = 0;
-            }
+    public void useProgram() {
+        if (mIsDirty) {
+            createShaders();
         }
-        return shader;
+        GLES20.glUseProgram(mProgramHandle);
     }
 
     /**
-     * Creates a shader program by compiling the vertex and fragment shaders
-     * from a string.
-     *
-     * @param vertexSource
-     * @param fragmentSource
+     * Tells the OpenGL context to use this program, skipping the call if the program is already current.
      *
-     * @return
+     * @param stateCache {@link GLStateCache} The state cache of the current render pass.
      */
-    private int createProgram(String vertexSource, String fragmentSource) {
-        mVShaderHandle = loadShader(GLES20.GL_VERTEX_SHADER, vertexSource);
-        if (mVShaderHandle == 0) {
-            return 0;
-        }
-
-        mFShaderHandle = loadShader(GLES20.GL_FRAGMENT_SHADER, fragmentSource);
-        if (mFShaderHandle == 0) {
-            return 0;
-        }
-
-        int program = GLES20.glCreateProgram();
-        if (program != 0) {
-            GLES20.glAttachShader(program, mVShaderHandle);
-            GLES20.glAttachShader(program, mFShaderHandle);
-            GLES20.glLinkProgram(program);
-
-            int[] linkStatus = new int[1];
-            GLES20.glGetProgramiv(program, GLES20.GL_LINK_STATUS, linkStatus, 0);
-            if (linkStatus[0] != GLES20.GL_TRUE) {
-                RajLog.e("Could not link program in " + getClass().getCanonicalName() + ": ");
-                RajLog.e(GLES20.glGetProgramInfoLog(program));
-                GLES20.glDeleteProgram(program);
-                program = 0;
-            }
+    public void useProgram(GLStateCache stateCache) {
+        if (mIsDirty) {
+            createShaders();
         }
-        return program;
+        stateCache.useProgram(mProgramHandle);
     }
 
     /**
-     * Tells the OpenGL context to use this program. This should be called every frame.
+     * Retrieves the OpenGL handle of this material's program.
+     *
+     * @return {@code int} The program handle, or a value less than 1 if the program hasn't been created yet.
      */
-    public void useProgram() {
-        if (mIsDirty) {
-            createShaders();
-        }
-        GLES20.glUseProgram(mProgramHandle);
+    public int getProgramHandle() {
+        return mProgramHandle;
     }
 
     /**
@@ -869,7 +895,8 @@ public class Material {
     private void setTextureParameters(ATexture texture) {
         if (mTextureHandles.containsKey(texture.getTextureName())) return;
 
-        int textureHandle = GLES20.glGetUniformLocation(mProgramHandle, texture.getTextureName());
+        int textureHandle = MaterialManager.getInstance().getProgramCache()
+            .getUniformLocation(mProgramHandle, texture.getTextureName());
         if (textureHandle == -1 && RajLog.isDebugEnabled()) {
             RajLog.e("Could not get uniform location for " + texture.getTextureName() + ", "
                      + texture.getTextureType());
@@ -882,7 +909,7 @@ public class Material {
         if (mProgramHandle < 0 || mTextureHandles.containsKey(name) && mTextureHandles.get(name) > -1) {
             return;
         }
-        int textureHandle = GLES20.glGetUniformLocation(mProgramHandle, name);
+        int textureHandle = MaterialManager.getInstance().getProgramCache().getUniformLocation(mProgramHandle, name);
         if (textureHandle == -1 && RajLog.isDebugEnabled()) {
             RajLog.e("Could not get uniform location for " + name + " Program Handle: " + mProgramHandle);
             return;
@@ -915,22 +942,64 @@ public class Material {
                 plugin.bindTextures(num);
     }
 
+    /**
+     * Binds the textures to an OpenGL texturing target through the render pass state cache, skipping binds of
+     * textures which are already bound to their unit. Textures bound this way aren't unbound after drawing.
+     *
+     * @param stateCache {@link GLStateCache} The state cache of the current render pass.
+     */
+    public void bindTextures(GLStateCache stateCache) {
+        int num = mTextureList.size();
+        if (num > mMaxTextures) {
+            RajLog.e(num + " textures have been added to this material but this device supports a max of "
+                + mMaxTextures + " textures in the fragment shader. Only the first " + mMaxTextures + " will be used.");
+            num = mMaxTextures;
+        }
+
+        // Upload evicted textures before binding any, as uploads bind textures behind the back of the cache
+        boolean reloaded = false;
+        for (int i = 0; i < num; i++) {
+            reloaded |= TextureManager.getInstance().useTexture(mTextureList.get(i));
+        }
+        if (reloaded) {
+            stateCache.invalidateTextureUnits(0);
+        }
+
+        for (int i = 0; i < num; i++) {
+            final ATexture texture = mTextureList.get(i);
+            if (!mTextureHandles.containsKey(texture.getTextureName())) {
+                setTextureParameters(texture);
+            }
+            stateCache.bindTexture(i, texture.getGLTextureType(), texture.getTextureId());
+            mFragmentShader.setUniform1i(mTextureHandles.get(texture.getTextureName()), i);
+        }
+
+        if (mPlugins != null) {
+            for (IMaterialPlugin plugin : mPlugins)
+                plugin.bindTextures(num);
+            // Plugins bind their textures directly
+            stateCache.invalidateTextureUnits(num);
+        }
+    }
+
     public void bindTextureByName(int index, ATexture texture) {
         if (!mTextureHandles.containsKey(texture.getTextureName())) {
             setTextureParameters(texture);
         }
+        TextureManager.getInstance().useTexture(texture);
         GLES20.glActiveTexture(GLES20.GL_TEXTURE0 + index);
         GLES20.glBindTexture(texture.getGLTextureType(), texture.getTextureId());
-        GLES20.glUniform1i(mTextureHandles.get(texture.getTextureName()), index);
+        mFragmentShader.setUniform1i(mTextureHandles.get(texture.getTextureName()), index);
     }
 
     public void bindTextureByName(String name, int index, ATexture texture) {
         if (!mTextureHandles.containsKey(texture.getTextureName())) {
             setTextureHandleForName(name);
         }
+        TextureManager.getInstance().useTexture(texture);
         GLES20.glActiveTexture(GLES20.GL_TEXTURE0 + index);
         GLES20.glBindTexture(texture.getGLTextureType(), texture.getTextureId());
-        GLES20.glUniform1i(mTextureHandles.get(name), index);
+        mFragmentShader.setUniform1i(mTextureHandles.get(name), index);
     }
 
     /**
@@ -972,13 +1041,15 @@ public class Material {
     }
 
     /**
-     * Removes a texture from this material.
+     * Removes a texture from this material. A texture shared through the {@link TextureManager} is removed from the
+     * GPU once no material uses it anymore.
      *
      * @param texture
      */
     public void removeTexture(ATexture texture) {
         mTextureList.remove(texture);
         texture.unregisterMaterial(this);
+        TextureManager.getInstance().releaseSharedTexture(texture);
     }
 
     /**
@@ -1019,7 +1090,8 @@ public class Material {
      * @param bufferInfo
      */
     public void setVertices(BufferInfo bufferInfo) {
-        mVertexShader.setVertices(bufferInfo.bufferHandle, bufferInfo.type, bufferInfo.stride, bufferInfo.offset);
+        mVertexShader.setVertices(bufferInfo.bufferHandle, bufferInfo.type, bufferInfo.normalized,
+                                  bufferInfo.stride, bufferInfo.offset);
     }
 
     /**
@@ -1037,7 +1109,8 @@ public class Material {
      * @param bufferInfo
      */
     public void setTextureCoords(BufferInfo bufferInfo) {
-        mVertexShader.setTextureCoords(bufferInfo.bufferHandle, bufferInfo.type, bufferInfo.stride, bufferInfo.offset);
+        mVertexShader.setTextureCoords(bufferInfo.bufferHandle, bufferInfo.type, bufferInfo.normalized,
+                                       bufferInfo.stride, bufferInfo.offset);
     }
 
     /**
@@ -1055,7 +1128,8 @@ public class Material {
      * @param bufferInfo
      */
     public void setNormals(BufferInfo bufferInfo) {
-        mVertexShader.setNormals(bufferInfo.bufferHandle, bufferInfo.type, bufferInfo.stride, bufferInfo.offset);
+        mVertexShader.setNormals(bufferInfo.bufferHandle, bufferInfo.type, bufferInfo.normalized,
+                                 bufferInfo.stride, bufferInfo.offset);
     }
 
     /**
@@ -1073,7 +1147,8 @@ public class Material {
      * @param bufferInfo
      */
     public void setVertexColors(BufferInfo bufferInfo) {
-        mVertexShader.setVertexColors(bufferInfo.bufferHandle, bufferInfo.type, bufferInfo.stride, bufferInfo.offset);
+        mVertexShader.setVertexColors(bufferInfo.bufferHandle, bufferInfo.type, bufferInfo.normalized,
+                                      bufferInfo.stride, bufferInfo.offset);
     }
 
     /**
@@ -1110,26 +1185,36 @@ public class Material {
      * @param modelMatrix
      */
     public void setModelMatrix(Matrix4 modelMatrix) {
-        mModelMatrix = modelMatrix;//.getFloatValues();
-        mVertexShader.setModelMatrix(mModelMatrix);
+        setModelMatrix(modelMatrix, false);
+    }
 
-        mNormalMatrix.setAll(modelMatrix);
-        try {
-            mNormalMatrix.setToNormalMatrix();
-        } catch (IllegalStateException exception) {
+    /**
+     * Sets the model matrix. The model matrix holds the object's local coordinates.
+     *
+     * @param modelMatrix
+     * @param uniformScale {@code boolean} True if the model matrix scales all axes equally, in which case the normal
+     *                     matrix is derived without an inverse.
+     */
+    public void setModelMatrix(Matrix4 modelMatrix, boolean uniformScale) {
+        mModelMatrix = modelMatrix;
+        final float[] matrix = modelMatrix.getFloatValues();
+        mVertexShader.setModelMatrix(matrix);
+
+        // The normal matrix is calculated in single precision as it is only ever sent to GL
+        final boolean valid = uniformScale ? FloatMatrix.uniformScaleNormalMatrix(mNormalFloats, 0, matrix, 0)
+                                           : FloatMatrix.normalMatrix(mNormalFloats, 0, matrix, 0);
+        if (!valid) {
             RajLog.d("modelMatrix is degenerate (zero scale)...");
+            mNormalFloats[0] = matrix[0];
+            mNormalFloats[1] = matrix[1];
+            mNormalFloats[2] = matrix[2];
+            mNormalFloats[3] = matrix[4];
+            mNormalFloats[4] = matrix[5];
+            mNormalFloats[5] = matrix[6];
+            mNormalFloats[6] = matrix[8];
+            mNormalFloats[7] = matrix[9];
+            mNormalFloats[8] = matrix[10];
         }
-        float[] matrix = mNormalMatrix.getFloatValues();
-
-        mNormalFloats[0] = matrix[0];
-        mNormalFloats[1] = matrix[1];
-        mNormalFloats[2] = matrix[2];
-        mNormalFloats[3] = matrix[4];
-        mNormalFloats[4] = matrix[5];
-        mNormalFloats[5] = matrix[6];
-        mNormalFloats[6] = matrix[8];
-        mNormalFloats[7] = matrix[9];
-        mNormalFloats[8] = matrix[10];
 
         mVertexShader.setNormalMatrix(mNormalFloats);
     }
@@ -1263,6 +1348,10 @@ public class Material {
      * @param lights The lights collection
      */
     public void setLights(List<ALight> lights) {
+        if (mLightSelector != null) {
+            setSelectableLights(lights);
+            return;
+        }
         if (mLights != null) {
             for (ALight light : lights) {
                 if (!mLights.contains(light)) {
@@ -1379,11 +1468,27 @@ public class Material {
     }
 
     public void setCurrentObject(Object3D currentObject) {
+        if (mLightSelector != null && mSelectableLights != null) {
+            mLightSelector.select(mSelectableLights, currentObject.getWorldBoundsCenter(mBoundsCenter),
+                                  currentObject.getWorldBoundsRadius());
+        }
     }
 
     public void unsetCurrentObject(Object3D currentObject) {
     }
 
+    /**
+     * Checks whether an object rendered with this material as the scene-wide material should be drawn. This is
+     * called once the object's model matrix and bounds are up to date. Children are checked separately, so skipping
+     * an object doesn't skip its children.
+     *
+     * @param object {@link Object3D} The object about to be drawn.
+     * @return {@code boolean} True to draw the object, which is the default.
+     */
+    public boolean shouldDraw(Object3D object) {
+        return true;
+    }
+
     /**
      * Remove a material plugin. A material plugin is basically
      * a class that contains a vertex shader fragment and a fragment shader fragment. Material
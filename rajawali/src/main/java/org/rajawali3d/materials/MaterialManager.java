@@ -21,6 +21,7 @@ import java.util.concurrent.CopyOnWriteArrayList;
 public class MaterialManager extends AResourceManager {
 	private static MaterialManager instance = null;
 	private List<Material> mMaterialList;
+	private ShaderProgramCache mProgramCache = new ShaderProgramCache();
 
 	private MaterialManager() {
 		mMaterialList = Collections.synchronizedList(new CopyOnWriteArrayList<Material>());
@@ -65,6 +66,8 @@ public class MaterialManager extends AResourceManager {
 	}
 
 	public void taskReload() {
+		// The programs went with the old context, the materials recompile them as they reload
+		mProgramCache.invalidate();
 		for(Material material: mMaterialList) {
 			material.reload();
 		}
@@ -105,4 +108,23 @@ public class MaterialManager extends AResourceManager {
 	public int getMaterialCount() {
 		return mMaterialList.size();
 	}
+
+	/**
+	 * Returns the cache through which materials share their compiled programs.
+	 *
+	 * @return {@link ShaderProgramCache} The program cache.
+	 */
+	public ShaderProgramCache getProgramCache() {
+		return mProgramCache;
+	}
+
+	/**
+	 * Replaces the program cache. Only call this while no material holds a program, for example to intercept the
+	 * GL calls of the cache in tests.
+	 *
+	 * @param programCache {@link ShaderProgramCache} The new cache.
+	 */
+	public void setProgramCache(ShaderProgramCache programCache) {
+		mProgramCache = programCache;
+	}
 }
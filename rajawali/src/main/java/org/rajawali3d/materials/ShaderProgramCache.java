@@ -0,0 +1,398 @@
+/**
+ * Copyright 2013 Dennis Ippel
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except in compliance with
+ * the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License is distributed on
+ * an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations under the License.
+ */
+package org.rajawali3d.materials;
+
+import android.opengl.GLES20;
+
+import org.rajawali3d.renderer.Renderer;
+import org.rajawali3d.util.RajLog;
+
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Shares compiled and linked GL programs between materials whose generated shader source is identical, such as
+ * materials which only differ by color or texture. Programs are keyed by their full vertex and fragment source and
+ * reference counted, so a program is compiled once for its first material and deleted when its last material is
+ * removed. Each program also keeps the uniform and attribute locations looked up in it, so materials sharing it don't
+ * query the driver again, and a shadow copy of the last value uploaded to each uniform so repeated uploads of the same
+ * value can be skipped.
+ *
+ * The cache is owned by the {@link MaterialManager} and must only be used on the GL thread. The raw GL calls are made
+ * through protected methods so they can be intercepted, for example to count compiles in tests.
+ */
+public class ShaderProgramCache {
+
+    /**
+     * A linked program, shared by every material with the same shader source.
+     */
+    public static final class Program {
+        /**
+         * Uniforms at or above this location are always uploaded, keeping the shadow table small on drivers which
+         * hand out sparse locations.
+         */
+        static final int MAX_SHADOWED_LOCATION = 1024;
+
+        final String mKey;
+        final Map<String, Integer> mUniformLocations = new HashMap<String, Integer>();
+        final Map<String, Integer> mAttribLocations  = new HashMap<String, Integer>();
+        int mHandle;
+        int mVertexShaderHandle;
+        int mFragmentShaderHandle;
+        int mReferenceCount;
+        // Raw bits of the last values uploaded, indexed by uniform location
+        int[][] mUniformValues;
+        int mUniformBlockVersion;
+
+        Program(String key) {
+            mKey = key;
+        }
+
+        /**
+         * @return {@code int} The GL program handle, or 0 if the GL context it was created in has been lost.
+         */
+        public int getHandle() {
+            return mHandle;
+        }
+
+        public int getReferenceCount() {
+            return mReferenceCount;
+        }
+
+        /**
+         * Records a value about to be uploaded to a uniform of this program, which must be the program in use.
+         *
+         * @param location {@code int} The uniform location.
+         * @param value    {@code float} The value.
+         * @return {@code boolean} True if the value differs from the last one uploaded to the location and has to be
+         * issued to GL.
+         */
+        public boolean updateUniform(int location, float value) {
+            return updateUniform(location, Float.floatToRawIntBits(value));
+        }
+
+        /**
+         * Records a value about to be uploaded to a uniform of this program, which must be the program in use.
+         *
+         * @param location {@code int} The uniform location.
+         * @param value    {@code int} The value.
+         * @return {@code boolean} True if the value differs from the last one uploaded to the location and has to be
+         * issued to GL.
+         */
+        public boolean updateUniform(int location, int value) {
+            if (location >= MAX_SHADOWED_LOCATION) {
+                return true;
+            }
+            int[] shadow = getShadow(location);
+            if (shadow == null || shadow.length != 1) {
+                mUniformValues[location] = new int[] { value };
+                return true;
+            }
+            if (shadow[0] == value) {
+                return false;
+            }
+            shadow[0] = value;
+            return true;
+        }
+
+        /**
+         * Records values about to be uploaded to a vector, matrix or array uniform of this program, which must be the
+         * program in use. Values are compared bit for bit, so -0 and 0 are treated as different values.
+         *
+         * @param location {@code int} The uniform location.
+         * @param values   {@code float[]} The array holding the values.
+         * @param offset   {@code int} The index of the first value.
+         * @param count    {@code int} The number of values.
+         * @return {@code boolean} True if any value differs from the last ones uploaded to the location and the upload
+         * has to be issued to GL.
+         */
+        public boolean updateUniform(int location, float[] values, int offset, int count) {
+            if (location >= MAX_SHADOWED_LOCATION) {
+                return true;
+            }
+            int[] shadow = getShadow(location);
+            boolean changed = false;
+            if (shadow == null || shadow.length != count) {
+                shadow = new int[count];
+                mUniformValues[location] = shadow;
+                changed = true;
+            }
+            for (int i = 0; i < count; ++i) {
+                final int bits = Float.floatToRawIntBits(values[offset + i]);
+                if (changed || shadow[i] != bits) {
+                    shadow[i] = bits;
+                    changed = true;
+                }
+            }
+            return changed;
+        }
+
+        /**
+         * Records that a block of uniforms shared by many materials, such as a {@link org.rajawali3d.lights.LightBlock},
+         * is about to be uploaded to this program. Block versions must be unique across all blocks.
+         *
+         * @param version {@code int} The version of the block, never 0.
+         * @return {@code boolean} True if the program doesn't hold this version yet and the block has to be uploaded.
+         */
+        public boolean updateUniformBlock(int version) {
+            if (mUniformBlockVersion == version) {
+                return false;
+            }
+            mUniformBlockVersion = version;
+            return true;
+        }
+
+        /**
+         * Forgets the block version recorded by {@link #updateUniformBlock(int)}, after the uniforms it covers were
+         * uploaded from elsewhere.
+         */
+        public void invalidateUniformBlock() {
+            mUniformBlockVersion = 0;
+        }
+
+        private int[] getShadow(int location) {
+            if (mUniformValues == null || location >= mUniformValues.length) {
+                final int length = Math.min(MAX_SHADOWED_LOCATION,
+                                            Math.max(location + 1, mUniformValues == null ? 16 : mUniformValues.length * 2));
+                final int[][] values = new int[length][];
+                if (mUniformValues != null) {
+                    System.arraycopy(mUniformValues, 0, values, 0, mUniformValues.length);
+                }
+                mUniformValues = values;
+            }
+            return mUniformValues[location];
+        }
+    }
+
+    private final Map<String, Program>  mPrograms        = new HashMap<String, Program>();
+    private final Map<Integer, Program> mProgramsByHandle = new HashMap<Integer, Program>();
+    private int mCompiledPrograms;
+
+    /**
+     * Returns the program for a pair of shader sources, compiling and linking it if no material uses it yet, and adds
+     * a reference to it. Every successful call must be balanced by a call to {@link #release(Program)}.
+     *
+     * @param vertexSource   {@link String} The complete vertex shader source.
+     * @param fragmentSource {@link String} The complete fragment shader source.
+     * @return {@link Program} The shared program, or null if it failed to compile or link.
+     */
+    public Program acquire(String vertexSource, String fragmentSource) {
+        // The NUL character can't appear in GLSL, so the key is unambiguous
+        final String key = vertexSource + '\0' + fragmentSource;
+        Program program = mPrograms.get(key);
+        if (program == null) {
+            program = new Program(key);
+            if (!link(program, vertexSource, fragmentSource)) {
+                return null;
+            }
+            mPrograms.put(key, program);
+            mProgramsByHandle.put(program.mHandle, program);
+            ++mCompiledPrograms;
+        }
+        ++program.mReferenceCount;
+        return program;
+    }
+
+    /**
+     * Removes a reference to a program, deleting it once no material uses it.
+     *
+     * @param program {@link Program} The program returned by {@link #acquire(String, String)}.
+     */
+    public void release(Program program) {
+        if (program == null || --program.mReferenceCount > 0) {
+            return;
+        }
+        // Programs from before a context loss are no longer in the cache and have no GL objects left to delete
+        if (mPrograms.get(program.mKey) == program) {
+            mPrograms.remove(program.mKey);
+            mProgramsByHandle.remove(program.mHandle);
+            if (hasGLContext()) {
+                deleteProgram(program.mHandle, program.mVertexShaderHandle, program.mFragmentShaderHandle);
+            }
+            program.mHandle = 0;
+        }
+    }
+
+    /**
+     * Forgets every program after the GL context was lost, without deleting anything as the GL objects went with the
+     * context. Materials acquire their programs again when they are reloaded.
+     */
+    public void invalidate() {
+        for (Program program : mPrograms.values()) {
+            program.mHandle = 0;
+            program.mUniformLocations.clear();
+            program.mAttribLocations.clear();
+            program.mUniformValues = null;
+        }
+        mPrograms.clear();
+        mProgramsByHandle.clear();
+    }
+
+    /**
+     * Finds the cached program with a GL handle.
+     *
+     * @param programHandle {@code int} The GL program handle.
+     * @return {@link Program} The program, or null if it wasn't created by this cache or has been deleted since.
+     */
+    public Program getProgram(int programHandle) {
+        return mProgramsByHandle.get(programHandle);
+    }
+
+    /**
+     * Looks up the location of a uniform, querying GL only the first time it is asked for in a cached program.
+     *
+     * @param programHandle {@code int} The GL program handle.
+     * @param name          {@link String} The name of the uniform.
+     * @return {@code int} The location, or -1 if the program has no such active uniform.
+     */
+    public int getUniformLocation(int programHandle, String name) {
+        final Program program = mProgramsByHandle.get(programHandle);
+        if (program == null) {
+            return queryUniformLocation(programHandle, name);
+        }
+        Integer location = program.mUniformLocations.get(name);
+        if (location == null) {
+            location = queryUniformLocation(programHandle, name);
+            program.mUniformLocations.put(name, location);
+        }
+        return location;
+    }
+
+    /**
+     * Looks up the location of an attribute, querying GL only the first time it is asked for in a cached program.
+     *
+     * @param programHandle {@code int} The GL program handle.
+     * @param name          {@link String} The name of the attribute.
+     * @return {@code int} The location, or -1 if the program has no such active attribute.
+     */
+    public int getAttribLocation(int programHandle, String name) {
+        final Program program = mProgramsByHandle.get(programHandle);
+        if (program == null) {
+            return queryAttribLocation(programHandle, name);
+        }
+        Integer location = program.mAttribLocations.get(name);
+        if (location == null) {
+            location = queryAttribLocation(programHandle, name);
+            program.mAttribLocations.put(name, location);
+        }
+        return location;
+    }
+
+    /**
+     * @return {@code int} The number of distinct programs currently in use.
+     */
+    public int size() {
+        return mPrograms.size();
+    }
+
+    /**
+     * @return {@code int} The number of programs compiled and linked since the cache was created.
+     */
+    public int getCompiledProgramCount() {
+        return mCompiledPrograms;
+    }
+
+    private boolean link(Program program, String vertexSource, String fragmentSource) {
+        program.mVertexShaderHandle = compileShader(GLES20.GL_VERTEX_SHADER, vertexSource);
+        if (program.mVertexShaderHandle == 0) {
+            return false;
+        }
+        program.mFragmentShaderHandle = compileShader(GLES20.GL_FRAGMENT_SHADER, fragmentSource);
+        if (program.mFragmentShaderHandle == 0) {
+            deleteProgram(0, program.mVertexShaderHandle, 0);
+            return false;
+        }
+        program.mHandle = linkProgram(program.mVertexShaderHandle, program.mFragmentShaderHandle);
+        if (program.mHandle == 0) {
+            deleteProgram(0, program.mVertexShaderHandle, program.mFragmentShaderHandle);
+            return false;
+        }
+        return true;
+    }
+
+    /**
+     * Compiles a shader.
+     *
+     * @param shaderType {@code int} {@link GLES20#GL_VERTEX_SHADER} or {@link GLES20#GL_FRAGMENT_SHADER}.
+     * @param source     {@link String} The shader source.
+     * @return {@code int} The shader handle, or 0 if it failed to compile.
+     */
+    protected int compileShader(int shaderType, String source) {
+        int shader = GLES20.glCreateShader(shaderType);
+        if (shader != 0) {
+            GLES20.glShaderSource(shader, source);
+            GLES20.glCompileShader(shader);
+            int[] compiled = new int[1];
+            GLES20.glGetShaderiv(shader, GLES20.GL_COMPILE_STATUS, compiled, 0);
+            if (compiled[0] == 0) {
+                RajLog.e("[" + getClass().getName() + "] Could not compile "
+                         + (shaderType == GLES20.GL_FRAGMENT_SHADER ? "fragment" : "vertex") + " shader:");
+                RajLog.e("Shader log: " + GLES20.glGetShaderInfoLog(shader));
+                GLES20.glDeleteShader(shader);
+                shader = 0;
+            }
+        }
+        return shader;
+    }
+
+    /**
+     * Links a program from two compiled shaders.
+     *
+     * @return {@code int} The program handle, or 0 if it failed to link.
+     */
+    protected int linkProgram(int vertexShader, int fragmentShader) {
+        int program = GLES20.glCreateProgram();
+        if (program != 0) {
+            GLES20.glAttachShader(program, vertexShader);
+            GLES20.glAttachShader(program, fragmentShader);
+            GLES20.glLinkProgram(program);
+
+            int[] linkStatus = new int[1];
+            GLES20.glGetProgramiv(program, GLES20.GL_LINK_STATUS, linkStatus, 0);
+            if (linkStatus[0] != GLES20.GL_TRUE) {
+                RajLog.e("Could not link program in " + getClass().getCanonicalName() + ": ");
+                RajLog.e(GLES20.glGetProgramInfoLog(program));
+                GLES20.glDeleteProgram(program);
+                program = 0;
+            }
+        }
+        return program;
+    }
+
+    /**
+     * Deletes a program and its shaders. Handles of 0 are skipped.
+     */
+    protected void deleteProgram(int program, int vertexShader, int fragmentShader) {
+        if (vertexShader != 0) {
+            GLES20.glDeleteShader(vertexShader);
+        }
+        if (fragmentShader != 0) {
+            GLES20.glDeleteShader(fragmentShader);
+        }
+        if (program != 0) {
+            GLES20.glDeleteProgram(program);
+        }
+    }
+
+    protected boolean hasGLContext() {
+        return Renderer.hasGLContext();
+    }
+
+    protected int queryUniformLocation(int programHandle, String name) {
+        return GLES20.glGetUniformLocation(programHandle, name);
+    }
+
+    protected int queryAttribLocation(int programHandle, String name) {
+        return GLES20.glGetAttribLocation(programHandle, name);
+    }
+}
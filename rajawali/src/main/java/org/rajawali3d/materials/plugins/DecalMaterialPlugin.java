@@ -103,6 +103,7 @@ public class DecalMaterialPlugin implements IMaterialPlugin {
         @Override
         public void bindTextures(int nextIndex) {
             if(mDecalTexture != null) {
+                TextureManager.getInstance().useTexture(mDecalTexture);
                 GLES20.glActiveTexture(GLES20.GL_TEXTURE0 + nextIndex);
                 GLES20.glBindTexture(mDecalTexture.getGLTextureType(), mDecalTexture.getTextureId());
                 GLES20.glUniform1i(muDecalTextureHandle, nextIndex);
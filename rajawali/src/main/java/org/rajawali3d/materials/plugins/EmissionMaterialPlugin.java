@@ -89,6 +89,7 @@ public class EmissionMaterialPlugin implements IMaterialPlugin {
         @Override
         public void bindTextures(int nextIndex) {
             if(mEmissionTexture != null) {
+                TextureManager.getInstance().useTexture(mEmissionTexture);
                 GLES20.glActiveTexture(GLES20.GL_TEXTURE0 + nextIndex);
                 GLES20.glBindTexture(mEmissionTexture.getGLTextureType(), mEmissionTexture.getTextureId());
                 GLES20.glUniform1i(muEmissionTextureHandle, nextIndex);
@@ -121,6 +121,7 @@ public class FlowmapTexturePlugin extends AShader implements IMaterialPlugin {
         @Override
         public void bindTextures(int nextIndex) {
             if (mFlowmap != null) {
+                TextureManager.getInstance().useTexture(mFlowmap);
                 GLES20.glActiveTexture(GLES20.GL_TEXTURE0 + nextIndex);
                 GLES20.glBindTexture(mFlowmap.getGLTextureType(), mFlowmap.getTextureId());
                 GLES20.glUniform1i(muFlowmapHandle, nextIndex);
@@ -0,0 +1,87 @@
+/**
+ * Copyright 2013 Dennis Ippel
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except in compliance with
+ * the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License is distributed on
+ * an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations under the License.
+ */
+package org.rajawali3d.materials.plugins;
+
+import org.rajawali3d.materials.Material.PluginInsertLocation;
+import org.rajawali3d.materials.shaders.AShaderBase.DataType;
+import org.rajawali3d.materials.shaders.AShaderBase.IGlobalShaderVar;
+import org.rajawali3d.materials.shaders.IShaderFragment;
+import org.rajawali3d.materials.shaders.fragments.instancing.InstancingVertexShaderFragment;
+
+import java.nio.FloatBuffer;
+
+/**
+ * Adds per instance model matrices and colors to a material. Added automatically by
+ * {@link org.rajawali3d.InstancedObject3D}.
+ */
+public class InstancingMaterialPlugin implements IMaterialPlugin {
+	public enum InstancingShaderVar implements IGlobalShaderVar {
+		A_INSTANCE_MATRIX("aInstanceMatrix", DataType.MAT4),
+		A_INSTANCE_COLOR("aInstanceColor", DataType.VEC4);
+
+		private String mVarString;
+		private DataType mDataType;
+
+		InstancingShaderVar(String varString, DataType dataType) {
+			mVarString = varString;
+			mDataType = dataType;
+		}
+
+		public String getVarString() {
+			return mVarString;
+		}
+
+		public DataType getDataType() {
+			return mDataType;
+		}
+	}
+
+	private InstancingVertexShaderFragment mVertexShader;
+
+	public InstancingMaterialPlugin()
+	{
+		mVertexShader = new InstancingVertexShaderFragment();
+	}
+
+	public IShaderFragment getVertexShaderFragment() {
+		return mVertexShader;
+	}
+
+	public IShaderFragment getFragmentShaderFragment() {
+		return null;
+	}
+
+	public void setInstanceBuffer(final int instanceBufferHandle, boolean useDivisor)
+	{
+		mVertexShader.setInstanceBuffer(instanceBufferHandle, useDivisor);
+	}
+
+	public void unsetInstanceBuffer(boolean useDivisor)
+	{
+		mVertexShader.unsetInstanceBuffer(useDivisor);
+	}
+
+	public void setInstanceAttributes(FloatBuffer instances, int instance)
+	{
+		mVertexShader.setInstanceAttributes(instances, instance);
+	}
+
+	public PluginInsertLocation getInsertLocation() {
+		return PluginInsertLocation.PRE_LIGHTING;
+	}
+
+	@Override
+	public void bindTextures(int nextIndex) {}
+	@Override
+	public void unbindTextures() {}
+}
@@ -1,5 +1,6 @@
 package org.rajawali3d.materials.plugins;
 
+import org.rajawali3d.lights.ShadowCascades;
 import org.rajawali3d.materials.Material.PluginInsertLocation;
 import org.rajawali3d.materials.shaders.AShader;
 import org.rajawali3d.materials.shaders.IShaderFragment;
@@ -9,6 +10,11 @@ import org.rajawali3d.math.vector.Vector3;
 import android.opengl.GLES20;
 
 
+/**
+ * Shades objects with the shadow map rendered by {@link org.rajawali3d.postprocessing.materials.ShadowMapMaterial}.
+ * With more than one cascade each vertex is projected into every cascade, taking one varying per cascade, and each
+ * fragment samples the smallest cascade which contains it from that cascade's tile of the shadow map.
+ */
 public class ShadowMapMaterialPlugin implements IMaterialPlugin {
 	private final static String U_LIGHT_MVP_MATRIX = "uLightMVPMatrix";
 	private final static String U_SHADOW_MAP_TEX = "uShadowMapTex";
@@ -23,12 +29,23 @@ public class ShadowMapMaterialPlugin implements IMaterialPlugin {
 	
 	private float mShadowInfluence;
 	private Vector3 mLightDir;
+	private final int mCascadeCount;
 
 	public ShadowMapMaterialPlugin() {
 		this(0.4f);
 	}
 	
 	public ShadowMapMaterialPlugin(float shadowInfluence) {
+		this(shadowInfluence, 1);
+	}
+
+	/**
+	 * @param shadowInfluence {@code float} How much shadows darken the objects they fall on.
+	 * @param cascadeCount {@code int} The number of shadow map cascades, from 1 to
+	 * {@link ShadowCascades#MAX_CASCADES}.
+	 */
+	public ShadowMapMaterialPlugin(float shadowInfluence, int cascadeCount) {
+		mCascadeCount = cascadeCount;
 		mVertexShader = new ShadowMapVertexShaderFragment();
 		mFragmentShader = new ShadowMapFragmentShaderFragment();
 		mShadowInfluence = shadowInfluence;
@@ -58,7 +75,11 @@ public class ShadowMapMaterialPlugin implements IMaterialPlugin {
 	}
 	
 	public void setLightModelViewProjectionMatrix(Matrix4 lightModelViewProjectionMatrix) {
-		mVertexShader.setLightModelViewProjectionMatrix(lightModelViewProjectionMatrix);
+		setLightModelViewProjectionMatrix(0, lightModelViewProjectionMatrix);
+	}
+
+	public void setLightModelViewProjectionMatrix(int cascade, Matrix4 lightModelViewProjectionMatrix) {
+		mVertexShader.setLightModelViewProjectionMatrix(cascade, lightModelViewProjectionMatrix);
 	}
 	
 	public void bindTextures(int nextIndex) {
@@ -77,13 +98,13 @@ public class ShadowMapMaterialPlugin implements IMaterialPlugin {
 		public final static String SHADER_ID = "SHADOW_MAP_VERTEX_SHADER_FRAGMENT";
 		
 		private RMat4 mcBiasMatrix;
-		private RMat4 muLightModelViewProjectionMatrix;
-		private RVec4 mvShadowTexCoord;
+		private RMat4[] muLightModelViewProjectionMatrix;
+		private RVec4[] mvShadowTexCoord;
 		
-		private int muLightModelViewProjectionMatrixHandle;
+		private int[] muLightModelViewProjectionMatrixHandle;
 		
 		private float[] mLightModelViewProjectionMatrix = new float[16];
-		private Matrix4 mLightModelViewProjectionMatrix4;
+		private Matrix4[] mLightModelViewProjectionMatrix4;
 		
 		public ShadowMapVertexShaderFragment() 
 		{
@@ -101,8 +122,8 @@ public class ShadowMapMaterialPlugin implements IMaterialPlugin {
 			return SHADER_ID;
 		}		
 		
-		public void setLightModelViewProjectionMatrix(Matrix4 lightModelViewProjectionMatrix) {
-			mLightModelViewProjectionMatrix4 = lightModelViewProjectionMatrix;
+		public void setLightModelViewProjectionMatrix(int cascade, Matrix4 lightModelViewProjectionMatrix) {
+			mLightModelViewProjectionMatrix4[cascade] = lightModelViewProjectionMatrix;
 		}
 		
 		@Override
@@ -115,28 +136,42 @@ public class ShadowMapMaterialPlugin implements IMaterialPlugin {
                     0.0f, 0.0f, 0.5f, 0.0f,
                     0.5f, 0.5f, 0.5f, 1.0f);
 			mcBiasMatrix = (RMat4) addConst(C_BIAS_MATRIX, biasMatrix);
-			muLightModelViewProjectionMatrix = (RMat4) addUniform(U_LIGHT_MVP_MATRIX,DataType.MAT4);
-			mvShadowTexCoord = (RVec4) addVarying(V_SHADOW_TEX_COORD, DataType.VEC4);
+			muLightModelViewProjectionMatrix = new RMat4[mCascadeCount];
+			mvShadowTexCoord = new RVec4[mCascadeCount];
+			muLightModelViewProjectionMatrixHandle = new int[mCascadeCount];
+			mLightModelViewProjectionMatrix4 = new Matrix4[mCascadeCount];
+			for (int i = 0; i < mCascadeCount; i++) {
+				muLightModelViewProjectionMatrix[i] = (RMat4) addUniform(U_LIGHT_MVP_MATRIX + i, DataType.MAT4);
+				mvShadowTexCoord[i] = (RVec4) addVarying(V_SHADOW_TEX_COORD + i, DataType.VEC4);
+			}
 		}
 		
 		@Override
 		public void setLocations(int programHandle) {
-			muLightModelViewProjectionMatrixHandle = getUniformLocation(programHandle, U_LIGHT_MVP_MATRIX);
+			super.setLocations(programHandle);
+			for (int i = 0; i < mCascadeCount; i++)
+				muLightModelViewProjectionMatrixHandle[i] = getUniformLocation(programHandle, U_LIGHT_MVP_MATRIX + i);
 		}
 		
 		@Override
 		public void applyParams() {
 			super.applyParams();
-			mLightModelViewProjectionMatrix4.toFloatArray(mLightModelViewProjectionMatrix);
-			GLES20.glUniformMatrix4fv(muLightModelViewProjectionMatrixHandle, 1, false, mLightModelViewProjectionMatrix, 0);
+			for (int i = 0; i < mCascadeCount; i++) {
+				if (mLightModelViewProjectionMatrix4[i] == null)
+					continue;
+				mLightModelViewProjectionMatrix4[i].toFloatArray(mLightModelViewProjectionMatrix);
+				setUniformMatrix4fv(muLightModelViewProjectionMatrixHandle[i], mLightModelViewProjectionMatrix);
+			}
 		}
 		
 		@Override
 		public void main() {
 			ShaderVar position = getGlobal(DefaultShaderVar.A_POSITION);
 			ShaderVar modelMatrix = getGlobal(DefaultShaderVar.U_MODEL_MATRIX);
-			mvShadowTexCoord.assign(muLightModelViewProjectionMatrix.multiply(modelMatrix.multiply(position)));
-			mvShadowTexCoord.assign(mcBiasMatrix.multiply(mvShadowTexCoord));
+			for (int i = 0; i < mCascadeCount; i++) {
+				mvShadowTexCoord[i].assign(muLightModelViewProjectionMatrix[i].multiply(modelMatrix.multiply(position)));
+				mvShadowTexCoord[i].assign(mcBiasMatrix.multiply(mvShadowTexCoord[i]));
+			}
 		}
 		
 		public void bindTextures(int nextIndex) {
@@ -154,14 +189,15 @@ public class ShadowMapMaterialPlugin implements IMaterialPlugin {
 		private RSampler2D muShadowMapTexture;
 		private RFloat muShadowInfluence;
 		private RVec3 muShadowLightDir;
-		private RVec4 mvShadowTexCoord;
+		private RVec4[] mvShadowTexCoord;
 		private RFloat mcShadowBias;
 		
 		private int muShadowMapTextureHandle;
 		private int muShadowInfluenceHandle;
 		private int muShadowLightDirHandle;
 		
-		private ATexture mShadowMapTexture;		
+		private ATexture mShadowMapTexture;
+		private float[] mLightDirection = new float[3];
 		
 		public ShadowMapFragmentShaderFragment() {
 			super(ShaderType.FRAGMENT_SHADER_FRAGMENT);
@@ -185,7 +221,9 @@ public class ShadowMapMaterialPlugin implements IMaterialPlugin {
 		@Override
 		public void initialize() {
 			super.initialize();
-			mvShadowTexCoord = (RVec4) addVarying(V_SHADOW_TEX_COORD, DataType.VEC4);
+			mvShadowTexCoord = new RVec4[mCascadeCount];
+			for (int i = 0; i < mCascadeCount; i++)
+				mvShadowTexCoord[i] = (RVec4) addVarying(V_SHADOW_TEX_COORD + i, DataType.VEC4);
 			muShadowMapTexture = (RSampler2D) addUniform(U_SHADOW_MAP_TEX, DataType.SAMPLER2D);
 			muShadowInfluence = (RFloat) addUniform(U_SHADOW_INFLUENCE, DataType.FLOAT);
 			muShadowLightDir = (RVec3) addUniform(U_SHADOW_LIGHT_DIR, DataType.VEC3);
@@ -195,12 +233,16 @@ public class ShadowMapMaterialPlugin implements IMaterialPlugin {
 		@Override
 		public void applyParams() {
 			super.applyParams();
-			GLES20.glUniform1f(muShadowInfluenceHandle, mShadowInfluence);
-			GLES20.glUniform3f(muShadowLightDirHandle, (float)mLightDir.x, (float)mLightDir.y, (float)mLightDir.z);
+			setUniform1f(muShadowInfluenceHandle, mShadowInfluence);
+			mLightDirection[0] = (float) mLightDir.x;
+			mLightDirection[1] = (float) mLightDir.y;
+			mLightDirection[2] = (float) mLightDir.z;
+			setUniform3fv(muShadowLightDirHandle, mLightDirection);
 		}
 		
 		@Override
 		public void setLocations(int programHandle) {
+			super.setLocations(programHandle);
 			muShadowMapTextureHandle = getUniformLocation(programHandle, U_SHADOW_MAP_TEX);
 			muShadowInfluenceHandle = getUniformLocation(programHandle, U_SHADOW_INFLUENCE);
 			muShadowLightDirHandle = getUniformLocation(programHandle, U_SHADOW_LIGHT_DIR);
@@ -208,8 +250,33 @@ public class ShadowMapMaterialPlugin implements IMaterialPlugin {
 		
 		@Override
 		public void main() {
+			RVec4 shadowTexCoord = new RVec4("shadowTexCoord");
 			RVec4 lightDepthCol = new RVec4("lightDepthCol");
-			lightDepthCol.assign(texture2D(muShadowMapTexture, mvShadowTexCoord.xy()));
+			if (mCascadeCount == 1) {
+				shadowTexCoord.assign(mvShadowTexCoord[0]);
+				lightDepthCol.assign(texture2D(muShadowMapTexture, shadowTexCoord.xy()));
+			} else {
+				// Use the smallest cascade containing the fragment, falling back on the largest one
+				int last = mCascadeCount - 1;
+				RVec2 shadowTileOffset = new RVec2("shadowTileOffset");
+				shadowTexCoord.assign(mvShadowTexCoord[last]);
+				shadowTileOffset.assign((last % 2) * .5f, (last / 2) * .5f);
+				for (int i = last - 1; i >= 0; i--) {
+					startif(
+							new Condition(mvShadowTexCoord[i].x(), Operator.GREATER_THAN_EQUALS, 0),
+							new Condition(Operator.AND, mvShadowTexCoord[i].x(), Operator.LESS_THAN_EQUALS, 1),
+							new Condition(Operator.AND, mvShadowTexCoord[i].y(), Operator.GREATER_THAN_EQUALS, 0),
+							new Condition(Operator.AND, mvShadowTexCoord[i].y(), Operator.LESS_THAN_EQUALS, 1)
+							);
+					{
+						shadowTexCoord.assign(mvShadowTexCoord[i]);
+						shadowTileOffset.assign((i % 2) * .5f, (i / 2) * .5f);
+					}
+					endif();
+				}
+				lightDepthCol.assign(texture2D(muShadowMapTexture,
+						shadowTexCoord.xy().multiply(.5f).add(shadowTileOffset)));
+			}
 			
 			ShaderVar gShadowValue = getGlobal(DefaultShaderVar.G_SHADOW_VALUE);
 			ShaderVar gSpecularValue = getGlobal(DefaultShaderVar.G_SPECULAR_VALUE);
@@ -219,7 +286,7 @@ public class ShadowMapMaterialPlugin implements IMaterialPlugin {
 			shadowLightAngle.assign(dot(gNormal, muShadowLightDir));
 			
 			startif(
-					new Condition(lightDepthCol.z(), Operator.LESS_THAN, mvShadowTexCoord.z().subtract(mcShadowBias)),
+					new Condition(lightDepthCol.z(), Operator.LESS_THAN, shadowTexCoord.z().subtract(mcShadowBias)),
 					new Condition(Operator.AND, shadowLightAngle, Operator.LESS_THAN_EQUALS, -.15f)
 					);
 			{
@@ -233,7 +300,7 @@ public class ShadowMapMaterialPlugin implements IMaterialPlugin {
 			if(mShadowMapTexture != null) {
 				GLES20.glActiveTexture(GLES20.GL_TEXTURE0 + nextIndex);
 				GLES20.glBindTexture(mShadowMapTexture.getGLTextureType(), mShadowMapTexture.getTextureId());
-				GLES20.glUniform1i(muShadowMapTextureHandle, nextIndex);
+				setUniform1i(muShadowMapTextureHandle, nextIndex);
 			}
 		}
 		
@@ -235,6 +235,7 @@ public class SignedDistancePlugin implements IMaterialPlugin {
         @Override
         public void bindTextures(int nextIndex) {
             if (mDistanceTexture != null) {
+                TextureManager.getInstance().useTexture(mDistanceTexture);
                 GLES20.glActiveTexture(GLES20.GL_TEXTURE0 + nextIndex);
                 GLES20.glBindTexture(mDistanceTexture.getGLTextureType(), mDistanceTexture.getTextureId());
                 GLES20.glUniform1i(muDistanceTextureHandle, nextIndex);
@@ -13,7 +13,10 @@
 package org.rajawali3d.materials.shaders;
 
 import android.opengl.GLES20;
+import org.rajawali3d.materials.MaterialManager;
+import org.rajawali3d.materials.ShaderProgramCache;
 import org.rajawali3d.util.RajLog;
+import org.rajawali3d.util.RenderStats;
 import org.rajawali3d.util.RawShaderLoader;
 
 import java.util.ArrayList;
@@ -176,6 +179,7 @@ public abstract class AShader extends AShaderBase {
 	protected List<IShaderFragment> mShaderFragments;
 	protected int mProgramHandle;
 	protected boolean mNeedsBuild = true;
+	private ShaderProgramCache.Program mProgram;
 
 	public AShader() {}
 
@@ -300,26 +304,118 @@ public abstract class AShader extends AShaderBase {
 
 	public void setUniform1f(String name, float value)
 	{
-		int handle = getUniformLocation(mProgramHandle, name);
-		GLES20.glUniform1f(handle, value);
+		setUniform1f(getUniformLocation(mProgramHandle, name), value);
 	}
 
 	public void setUniform2fv(String name, float[] value)
 	{
-		int handle = getUniformLocation(mProgramHandle, name);
-		GLES20.glUniform2fv(handle, 1, value, 0);
+		setUniform2fv(getUniformLocation(mProgramHandle, name), value);
 	}
 
 	public void setUniform3fv(String name, float[] value)
 	{
-		int handle = getUniformLocation(mProgramHandle, name);
-		GLES20.glUniform3fv(handle, 1, value, 0);
+		setUniform3fv(getUniformLocation(mProgramHandle, name), value);
 	}
 
 	public void setUniform1i(String name, int value)
 	{
-		int handle = getUniformLocation(mProgramHandle, name);
-		GLES20.glUniform1i(handle, value);
+		setUniform1i(getUniformLocation(mProgramHandle, name), value);
+	}
+
+	/*
+	 * The setters below upload a uniform of the program in use, skipping the call when the uniform already holds the
+	 * value. The last value uploaded is shadowed per program, so materials sharing a program stay correct.
+	 */
+
+	public void setUniform1f(int location, float value)
+	{
+		final ShaderProgramCache.Program program = getProgram();
+		if (location < 0 || (program != null && !program.updateUniform(location, value))) {
+			RenderStats.countSkippedUniformUpload();
+			return;
+		}
+		RenderStats.countUniformUpload();
+		GLES20.glUniform1f(location, value);
+	}
+
+	public void setUniform1i(int location, int value)
+	{
+		final ShaderProgramCache.Program program = getProgram();
+		if (location < 0 || (program != null && !program.updateUniform(location, value))) {
+			RenderStats.countSkippedUniformUpload();
+			return;
+		}
+		RenderStats.countUniformUpload();
+		GLES20.glUniform1i(location, value);
+	}
+
+	public void setUniform2fv(int location, float[] value)
+	{
+		if (shouldUpload(location, value, 0, 2)) {
+			GLES20.glUniform2fv(location, 1, value, 0);
+		}
+	}
+
+	public void setUniform3fv(int location, float[] value)
+	{
+		setUniform3fv(location, value, 0);
+	}
+
+	public void setUniform3fv(int location, float[] value, int offset)
+	{
+		if (shouldUpload(location, value, offset, 3)) {
+			GLES20.glUniform3fv(location, 1, value, offset);
+		}
+	}
+
+	public void setUniform4fv(int location, float[] value)
+	{
+		setUniform4fv(location, value, 0);
+	}
+
+	public void setUniform4fv(int location, float[] value, int offset)
+	{
+		if (shouldUpload(location, value, offset, 4)) {
+			GLES20.glUniform4fv(location, 1, value, offset);
+		}
+	}
+
+	public void setUniformMatrix3fv(int location, float[] value)
+	{
+		if (shouldUpload(location, value, 0, 9)) {
+			GLES20.glUniformMatrix3fv(location, 1, false, value, 0);
+		}
+	}
+
+	public void setUniformMatrix4fv(int location, float[] value)
+	{
+		if (shouldUpload(location, value, 0, 16)) {
+			GLES20.glUniformMatrix4fv(location, 1, false, value, 0);
+		}
+	}
+
+	private boolean shouldUpload(int location, float[] value, int offset, int count)
+	{
+		final ShaderProgramCache.Program program = getProgram();
+		if (location < 0 || (program != null && !program.updateUniform(location, value, offset, count))) {
+			RenderStats.countSkippedUniformUpload();
+			return false;
+		}
+		RenderStats.countUniformUpload();
+		return true;
+	}
+
+	/**
+	 * @return {@link ShaderProgramCache.Program} The cached program this shader is linked into, or null if the
+	 * program isn't cached.
+	 */
+	protected ShaderProgramCache.Program getProgram()
+	{
+		// A program is dropped from the cache when it is deleted or its context is lost, which zeroes its handle
+		if (mProgram == null || mProgram.getHandle() == 0 || mProgram.getHandle() != mProgramHandle) {
+			mProgram = MaterialManager.getInstance().getProgramCache().getProgram(mProgramHandle);
+		}
+		return mProgram;
 	}
 
 	/**
@@ -618,7 +714,8 @@ public abstract class AShader extends AShaderBase {
 	}
 
 	protected int getUniformLocation(int programHandle, String name) {
-		int result = GLES20.glGetUniformLocation(programHandle, name);
+		// Materials sharing a program share its locations, so the driver is only asked once per program
+		int result = MaterialManager.getInstance().getProgramCache().getUniformLocation(programHandle, name);
         if (result < 0 && RajLog.isDebugEnabled()) RajLog.e("Getting location of uniform: " + name + " returned -1!");
 		return result;
 	}
@@ -632,8 +729,7 @@ public abstract class AShader extends AShaderBase {
 	}
 
 	protected int getAttribLocation(int programHandle, String name) {
-		int result = GLES20.glGetAttribLocation(programHandle, name);
-		return result;
+		return MaterialManager.getInstance().getProgramCache().getAttribLocation(programHandle, name);
 	}
 
 	public void addShaderFragment(IShaderFragment fragment)
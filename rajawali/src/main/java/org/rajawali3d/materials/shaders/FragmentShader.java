@@ -12,8 +12,6 @@
  */
 package org.rajawali3d.materials.shaders;
 
-import android.opengl.GLES20;
-
 import org.rajawali3d.lights.ALight;
 import org.rajawali3d.materials.shaders.fragments.LightsVertexShaderFragment.LightsShaderVar;
 
@@ -118,7 +116,7 @@ public class FragmentShader extends AShader {
 	public void applyParams() {
 		super.applyParams();
 
-		GLES20.glUniform1f(muColorInfluenceHandle, mColorInfluence);
+		setUniform1f(muColorInfluenceHandle, mColorInfluence);
 	}
 
 	@Override
@@ -188,8 +188,8 @@ public class VertexShader extends AShader {
     @Override
     public void applyParams() {
         super.applyParams();
-        GLES20.glUniform4fv(muColorHandle, 1, mColor, 0);
-        GLES20.glUniform1f(muTimeHandle, mTime);
+        setUniform4fv(muColorHandle, mColor);
+        setUniform1f(muTimeHandle, mTime);
     }
 
     @Override
@@ -217,9 +217,14 @@ public class VertexShader extends AShader {
     }
 
     public void setVertices(final int vertexBufferHandle, final int type, final int stride, final int offset) {
+        setVertices(vertexBufferHandle, type, false, stride, offset);
+    }
+
+    public void setVertices(final int vertexBufferHandle, final int type, final boolean normalized,
+                            final int stride, final int offset) {
         GLES20.glBindBuffer(GLES20.GL_ARRAY_BUFFER, vertexBufferHandle);
         GLES20.glEnableVertexAttribArray(maPositionHandle);
-        GLES20.glVertexAttribPointer(maPositionHandle, 3, type, false, stride, offset);
+        GLES20.glVertexAttribPointer(maPositionHandle, 3, type, normalized, stride, offset);
     }
 
     public void setTextureCoords(final int textureCoordBufferHandle) {
@@ -228,12 +233,17 @@ public class VertexShader extends AShader {
 
     public void setTextureCoords(final int textureCoordBufferHandle, final int type, final int stride,
                                  final int offset) {
+        setTextureCoords(textureCoordBufferHandle, type, false, stride, offset);
+    }
+
+    public void setTextureCoords(final int textureCoordBufferHandle, final int type, final boolean normalized,
+                                 final int stride, final int offset) {
         if (maTextureCoordHandle < 0) {
             return;
         }
         GLES20.glBindBuffer(GLES20.GL_ARRAY_BUFFER, textureCoordBufferHandle);
         GLES20.glEnableVertexAttribArray(maTextureCoordHandle);
-        GLES20.glVertexAttribPointer(maTextureCoordHandle, 2, type, false, stride, offset);
+        GLES20.glVertexAttribPointer(maTextureCoordHandle, 2, type, normalized, stride, offset);
     }
 
     public void setNormals(final int normalBufferHandle) {
@@ -241,12 +251,17 @@ public class VertexShader extends AShader {
     }
 
     public void setNormals(final int normalBufferHandle, final int type, final int stride, final int offset) {
+        setNormals(normalBufferHandle, type, false, stride, offset);
+    }
+
+    public void setNormals(final int normalBufferHandle, final int type, final boolean normalized,
+                           final int stride, final int offset) {
         if (maNormalHandle < 0) {
             return;
         }
         GLES20.glBindBuffer(GLES20.GL_ARRAY_BUFFER, normalBufferHandle);
         GLES20.glEnableVertexAttribArray(maNormalHandle);
-        GLES20.glVertexAttribPointer(maNormalHandle, 3, type, false, stride, offset);
+        GLES20.glVertexAttribPointer(maNormalHandle, 3, type, normalized, stride, offset);
     }
 
     public void setVertexColors(final int vertexColorBufferHandle) {
@@ -254,32 +269,41 @@ public class VertexShader extends AShader {
     }
 
     public void setVertexColors(final int vertexColorBufferHandle, final int type, final int stride, final int offset) {
+        setVertexColors(vertexColorBufferHandle, type, false, stride, offset);
+    }
+
+    public void setVertexColors(final int vertexColorBufferHandle, final int type, final boolean normalized,
+                                final int stride, final int offset) {
         if (maVertexColorBufferHandle < 0) {
             return;
         }
         GLES20.glBindBuffer(GLES20.GL_ARRAY_BUFFER, vertexColorBufferHandle);
         GLES20.glEnableVertexAttribArray(maVertexColorBufferHandle);
-        GLES20.glVertexAttribPointer(maVertexColorBufferHandle, 4, type, false, stride, offset);
+        GLES20.glVertexAttribPointer(maVertexColorBufferHandle, 4, type, normalized, stride, offset);
     }
 
     public void setMVPMatrix(float[] mvpMatrix) {
-        GLES20.glUniformMatrix4fv(muMVPMatrixHandle, 1, false, mvpMatrix, 0);
+        setUniformMatrix4fv(muMVPMatrixHandle, mvpMatrix);
     }
 
     public void setModelMatrix(Matrix4 modelMatrix) {
-        GLES20.glUniformMatrix4fv(muModelMatrixHandle, 1, false, modelMatrix.getFloatValues(), 0);
+        setModelMatrix(modelMatrix.getFloatValues());
+    }
+
+    public void setModelMatrix(float[] modelMatrix) {
+        setUniformMatrix4fv(muModelMatrixHandle, modelMatrix);
     }
 
     public void setNormalMatrix(float[] normalMatrix) {
-        GLES20.glUniformMatrix3fv(muNormalMatrixHandle, 1, false, normalMatrix, 0);
+        setUniformMatrix3fv(muNormalMatrixHandle, normalMatrix);
     }
 
     public void setInverseViewMatrix(float[] inverseViewMatrix) {
-        GLES20.glUniformMatrix4fv(muInverseViewMatrixHandle, 1, false, inverseViewMatrix, 0);
+        setUniformMatrix4fv(muInverseViewMatrixHandle, inverseViewMatrix);
     }
 
     public void setModelViewMatrix(float[] modelViewMatrix) {
-        GLES20.glUniformMatrix4fv(muModelViewMatrixHandle, 1, false, modelViewMatrix, 0);
+        setUniformMatrix4fv(muModelViewMatrixHandle, modelViewMatrix);
     }
 
     public void setColor(int color) {
@@ -12,16 +12,17 @@
  */
 package org.rajawali3d.materials.shaders.fragments;
 
-import android.opengl.GLES20;
-
 import org.rajawali3d.lights.ALight;
 import org.rajawali3d.lights.DirectionalLight;
+import org.rajawali3d.lights.LightBlock;
 import org.rajawali3d.lights.PointLight;
 import org.rajawali3d.lights.SpotLight;
 import org.rajawali3d.materials.Material.PluginInsertLocation;
+import org.rajawali3d.materials.ShaderProgramCache;
 import org.rajawali3d.materials.shaders.AShader;
 import org.rajawali3d.materials.shaders.IShaderFragment;
 import org.rajawali3d.util.ArrayUtils;
+import org.rajawali3d.util.RenderStats;
 
 import java.util.List;
 
@@ -78,6 +79,8 @@ public class LightsVertexShaderFragment extends AShader implements IShaderFragme
 			muLightDirectionHandles, muLightAttenuationHandles, muSpotExponentHandles,
 			muSpotCutoffAngleHandles, muSpotFalloffHandles;
 	protected int muAmbientColorHandle, muAmbientIntensityHandle;
+	private int mLightUniformCount;
+	private LightBlock mLightBlock;
 
 	private int mDirLightCount, mSpotLightCount, mPointLightCount;
 
@@ -230,8 +233,10 @@ public class LightsVertexShaderFragment extends AShader implements IShaderFragme
 
 	@Override
 	public void setLocations(int programHandle) {
+		super.setLocations(programHandle);
 		int lightDirCount = 0, lightAttCount = 0;
 		int spotCount = 0;
+		mLightUniformCount = 0;
 		
 		for (int i = 0; i < mLights.size(); i++)
 		{
@@ -241,19 +246,23 @@ public class LightsVertexShaderFragment extends AShader implements IShaderFragme
 			muLightColorHandles[i] = getUniformLocation(programHandle, LightsShaderVar.U_LIGHT_COLOR, i);
 			muLightPowerHandles[i] = getUniformLocation(programHandle, LightsShaderVar.U_LIGHT_POWER, i);
 			muLightPositionHandles[i] = getUniformLocation(programHandle, LightsShaderVar.U_LIGHT_POSITION, i);
+			mLightUniformCount += 3;
 			
 			if(t == ALight.DIRECTIONAL_LIGHT || t == ALight.SPOT_LIGHT)
 			{
 				muLightDirectionHandles[lightDirCount] = getUniformLocation(programHandle, LightsShaderVar.U_LIGHT_DIRECTION, lightDirCount);
 				lightDirCount++;
+				mLightUniformCount++;
 			}
 			if(t == ALight.SPOT_LIGHT || t == ALight.POINT_LIGHT)
 			{
 				muLightAttenuationHandles[lightAttCount] = getUniformLocation(programHandle, LightsShaderVar.U_LIGHT_ATTENUATION, lightAttCount);
 				lightAttCount++;
+				mLightUniformCount++;
 			}
 			if(t == ALight.SPOT_LIGHT)
 			{
+				mLightUniformCount += 2;
 				muSpotExponentHandles[spotCount] = getUniformLocation(programHandle, LightsShaderVar.U_SPOT_EXPONENT, spotCount);
 				muSpotCutoffAngleHandles[spotCount] = getUniformLocation(programHandle, LightsShaderVar.U_SPOT_CUTOFF_ANGLE, spotCount);
 				muSpotFalloffHandles[spotCount] = getUniformLocation(programHandle, LightsShaderVar.U_SPOT_FALLOFF, spotCount);
@@ -268,7 +277,54 @@ public class LightsVertexShaderFragment extends AShader implements IShaderFragme
 	@Override
 	public void applyParams() {
 		super.applyParams();
+
+		final ShaderProgramCache.Program program = getProgram();
+		if (mLightBlock != null && mLightBlock.startsWith(mLights)) {
+			// The block is packed once per frame, so a program which already holds its version has nothing to upload
+			if (program == null || program.updateUniformBlock(mLightBlock.getVersion())) {
+				applyLightBlock(mLightBlock);
+			} else {
+				RenderStats.countSkippedUniformUploads(mLightUniformCount);
+			}
+		} else {
+			if (program != null) {
+				program.invalidateUniformBlock();
+			}
+			applyLights();
+		}
 		
+		setUniform3fv(muAmbientColorHandle, mAmbientColor);
+		setUniform3fv(muAmbientIntensityHandle, mAmbientIntensity);
+	}
+
+	private void applyLightBlock(LightBlock block) {
+		final float[] data = block.getData();
+		int lightCount = mLights.size();
+		int dirCount = 0, spotCount = 0, attCount = 0;
+
+		for (int i = 0; i < lightCount; i++)
+		{
+			int offset = block.getOffset(i);
+			int t = mLights.get(i).getLightType();
+
+			setUniform3fv(muLightColorHandles[i], data, offset + LightBlock.COLOR);
+			setUniform1f(muLightPowerHandles[i], data[offset + LightBlock.POWER]);
+			setUniform3fv(muLightPositionHandles[i], data, offset + LightBlock.POSITION);
+
+			if(t == ALight.DIRECTIONAL_LIGHT || t == ALight.SPOT_LIGHT)
+				setUniform3fv(muLightDirectionHandles[dirCount++], data, offset + LightBlock.DIRECTION);
+			if(t == ALight.SPOT_LIGHT || t == ALight.POINT_LIGHT)
+				setUniform4fv(muLightAttenuationHandles[attCount++], data, offset + LightBlock.ATTENUATION);
+			if(t == ALight.SPOT_LIGHT)
+			{
+				setUniform1f(muSpotCutoffAngleHandles[spotCount], data[offset + LightBlock.CUTOFF_ANGLE]);
+				setUniform1f(muSpotFalloffHandles[spotCount], data[offset + LightBlock.FALLOFF]);
+				spotCount++;
+			}
+		}
+	}
+
+	private void applyLights() {
 		int lightCount = mLights.size();
 		int dirCount = 0, spotCount = 0, attCount = 0;
 		
@@ -277,34 +333,41 @@ public class LightsVertexShaderFragment extends AShader implements IShaderFragme
 			ALight light = mLights.get(i);
 			int t = light.getLightType();
 			
-			GLES20.glUniform3fv(muLightColorHandles[i], 1, light.getColor(), 0);
-			GLES20.glUniform1f(muLightPowerHandles[i], light.getPower());
-			GLES20.glUniform3fv(muLightPositionHandles[i], 1, ArrayUtils.convertDoublesToFloats(light.getPositionArray(), mTemp3Floats), 0);
+			setUniform3fv(muLightColorHandles[i], light.getColor());
+			setUniform1f(muLightPowerHandles[i], light.getPower());
+			setUniform3fv(muLightPositionHandles[i], ArrayUtils.convertDoublesToFloats(light.getPositionArray(), mTemp3Floats));
 			
 			if(t == ALight.SPOT_LIGHT)
 			{
 				SpotLight l = (SpotLight)light;
-				GLES20.glUniform3fv(muLightDirectionHandles[spotCount], 1, ArrayUtils.convertDoublesToFloats(l.getDirection(), mTemp3Floats), 0);
-				GLES20.glUniform4fv(muLightAttenuationHandles[attCount], 1, l.getAttenuation(), 0);
+				setUniform3fv(muLightDirectionHandles[dirCount], ArrayUtils.convertDoublesToFloats(l.getDirection(), mTemp3Floats));
+				setUniform4fv(muLightAttenuationHandles[attCount], l.getAttenuation());
 				//GLES20.glUniform1f(muSpotExponentHandles[spotCount], l.get)
-				GLES20.glUniform1f(muSpotCutoffAngleHandles[spotCount], l.getCutoffAngle());
-				GLES20.glUniform1f(muSpotFalloffHandles[spotCount], l.getFalloff());
+				setUniform1f(muSpotCutoffAngleHandles[spotCount], l.getCutoffAngle());
+				setUniform1f(muSpotFalloffHandles[spotCount], l.getFalloff());
 				spotCount++;
 				dirCount++;
 				attCount++;
 			} else if(t == ALight.POINT_LIGHT) {
 				PointLight l = (PointLight)light;
-				GLES20.glUniform4fv(muLightAttenuationHandles[attCount], 1, l.getAttenuation(), 0);
+				setUniform4fv(muLightAttenuationHandles[attCount], l.getAttenuation());
 				attCount++;
 			} else if(t == ALight.DIRECTIONAL_LIGHT) {
 				DirectionalLight l = (DirectionalLight)light;
-				GLES20.glUniform3fv(muLightDirectionHandles[dirCount], 1, ArrayUtils.convertDoublesToFloats(l.getDirection(), mTemp3Floats), 0);
+				setUniform3fv(muLightDirectionHandles[dirCount], ArrayUtils.convertDoublesToFloats(l.getDirection(), mTemp3Floats));
 				dirCount++;
 			}
 		}
-		
-		GLES20.glUniform3fv(muAmbientColorHandle, 1, mAmbientColor, 0);
-		GLES20.glUniform3fv(muAmbientIntensityHandle, 1, mAmbientIntensity, 0);
+	}
+
+	/**
+	 * Sets the block the scene packs its lights into every frame. When this fragment's lights are the first lights of
+	 * the block their values are uploaded from it instead of being read from each light.
+	 *
+	 * @param lightBlock {@link LightBlock} The scene's light block, or null.
+	 */
+	public void setLightBlock(LightBlock lightBlock) {
+		mLightBlock = lightBlock;
 	}
 	
 	public void setAmbientColor(float[] ambientColor)
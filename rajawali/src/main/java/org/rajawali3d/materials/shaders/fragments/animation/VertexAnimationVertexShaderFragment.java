@@ -70,6 +70,7 @@ public class VertexAnimationVertexShaderFragment extends AShader implements ISha
 
 	@Override
 	public void setLocations(final int programHandle) {
+		super.setLocations(programHandle);
 		maNextFramePositionHandle = getAttribLocation(programHandle, VertexAnimationShaderVar.A_NEXT_FRAME_POSITION);
 		maNextFrameNormalHandle = getAttribLocation(programHandle, VertexAnimationShaderVar.A_NEXT_FRAME_NORMAL);
 		muInterpolationHandle = getUniformLocation(programHandle, VertexAnimationShaderVar.U_INTERPOLATION);
@@ -92,7 +93,7 @@ public class VertexAnimationVertexShaderFragment extends AShader implements ISha
 	}
 	
 	public void setInterpolation(double interpolation) {
-		GLES20.glUniform1f(muInterpolationHandle, (float) interpolation);
+		setUniform1f(muInterpolationHandle, (float) interpolation);
 	}
 	
 	@Override
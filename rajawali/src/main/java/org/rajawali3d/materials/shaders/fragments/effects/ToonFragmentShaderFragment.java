@@ -20,7 +20,6 @@ import org.rajawali3d.materials.methods.DiffuseMethod.DiffuseShaderVar;
 import org.rajawali3d.materials.shaders.AShader;
 import org.rajawali3d.materials.shaders.IShaderFragment;
 import org.rajawali3d.materials.shaders.fragments.LightsVertexShaderFragment.LightsShaderVar;
-import android.opengl.GLES20;
 
 
 public class ToonFragmentShaderFragment extends AShader implements IShaderFragment {
@@ -150,10 +149,10 @@ public class ToonFragmentShaderFragment extends AShader implements IShaderFragme
 	@Override
 	public void applyParams() {
 		super.applyParams();
-		GLES20.glUniform4fv(muToonColor0Handle, 1, mToonColor0, 0);
-		GLES20.glUniform4fv(muToonColor1Handle, 1, mToonColor1, 0);
-		GLES20.glUniform4fv(muToonColor2Handle, 1, mToonColor2, 0);
-		GLES20.glUniform4fv(muToonColor3Handle, 1, mToonColor3, 0);
+		setUniform4fv(muToonColor0Handle, mToonColor0);
+		setUniform4fv(muToonColor1Handle, mToonColor1);
+		setUniform4fv(muToonColor2Handle, mToonColor2);
+		setUniform4fv(muToonColor3Handle, mToonColor3);
 	}
 	
 	public void setToonColors(float[] toonColor0, float[] toonColor1, float[] toonColor2, float[] toonColor3) {
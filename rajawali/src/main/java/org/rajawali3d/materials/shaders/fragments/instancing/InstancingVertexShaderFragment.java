@@ -0,0 +1,179 @@
+/**
+ * Copyright 2013 Dennis Ippel
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except in compliance with
+ * the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License is distributed on
+ * an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations under the License.
+ */
+package org.rajawali3d.materials.shaders.fragments.instancing;
+
+import android.opengl.GLES20;
+import android.opengl.GLES30;
+
+import org.rajawali3d.InstancedObject3D;
+import org.rajawali3d.materials.Material.PluginInsertLocation;
+import org.rajawali3d.materials.plugins.InstancingMaterialPlugin.InstancingShaderVar;
+import org.rajawali3d.materials.shaders.AShader;
+import org.rajawali3d.materials.shaders.IShaderFragment;
+
+import java.nio.FloatBuffer;
+
+/**
+ * Transforms each vertex by the model matrix of the instance it is drawn for and tints it with the instance color.
+ * Both are read from vertex attributes laid out as in {@link InstancedObject3D}.
+ */
+public class InstancingVertexShaderFragment extends AShader implements IShaderFragment {
+
+	public final static String SHADER_ID = "INSTANCING_VERTEX";
+
+	private static final int MATRIX_COLUMNS = 4;
+	private static final int STRIDE_BYTES = InstancedObject3D.FLOATS_PER_INSTANCE * 4;
+	private static final int COLOR_OFFSET_BYTES = InstancedObject3D.COLOR_OFFSET * 4;
+
+	private RMat4 maInstanceMatrix;
+	private RVec4 maInstanceColor;
+
+	private int maInstanceMatrixHandle;
+	private int maInstanceColorHandle;
+
+	public InstancingVertexShaderFragment()
+	{
+		super(ShaderType.VERTEX_SHADER_FRAGMENT);
+		initialize();
+	}
+
+	@Override
+	public void initialize()
+	{
+		super.initialize();
+
+		maInstanceMatrix = (RMat4) addAttribute(InstancingShaderVar.A_INSTANCE_MATRIX);
+		maInstanceColor = (RVec4) addAttribute(InstancingShaderVar.A_INSTANCE_COLOR);
+	}
+
+	public String getShaderId() {
+		return SHADER_ID;
+	}
+
+	@Override
+	public void main() {
+		RVec4 position = (RVec4)getGlobal(DefaultShaderVar.G_POSITION);
+		RVec3 normal = (RVec3)getGlobal(DefaultShaderVar.G_NORMAL);
+		RVec4 color = (RVec4)getGlobal(DefaultShaderVar.G_COLOR);
+
+		//
+		// -- position = aInstanceMatrix * position;
+		//
+		position.assign(maInstanceMatrix.multiply(position));
+
+		//
+		// -- normal = mat3(aInstanceMatrix) * normal;
+		//
+		normal.assign(castMat3(maInstanceMatrix).multiply(normal));
+
+		//
+		// -- color *= aInstanceColor;
+		//
+		color.assignMultiply(maInstanceColor);
+	}
+
+	@Override
+	public void setLocations(final int programHandle) {
+		maInstanceMatrixHandle = getAttribLocation(programHandle, InstancingShaderVar.A_INSTANCE_MATRIX);
+		maInstanceColorHandle = getAttribLocation(programHandle, InstancingShaderVar.A_INSTANCE_COLOR);
+	}
+
+	/**
+	 * Sources the instance attributes from a vertex buffer holding one record per instance. With a divisor the
+	 * attributes advance once per instance, which requires GL ES 3.0.
+	 *
+	 * @param instanceBufferHandle {@code int} The GL name of the instance buffer.
+	 * @param useDivisor           {@code boolean} Whether to advance the attributes per instance.
+	 */
+	public void setInstanceBuffer(final int instanceBufferHandle, boolean useDivisor)
+	{
+		GLES20.glBindBuffer(GLES20.GL_ARRAY_BUFFER, instanceBufferHandle);
+		if (maInstanceMatrixHandle >= 0) {
+			for (int i = 0; i < MATRIX_COLUMNS; ++i) {
+				final int handle = maInstanceMatrixHandle + i;
+				GLES20.glEnableVertexAttribArray(handle);
+				GLES20.glVertexAttribPointer(handle, 4, GLES20.GL_FLOAT, false, STRIDE_BYTES, i * 16);
+				if (useDivisor) {
+					GLES30.glVertexAttribDivisor(handle, 1);
+				}
+			}
+		}
+		if (maInstanceColorHandle >= 0) {
+			GLES20.glEnableVertexAttribArray(maInstanceColorHandle);
+			GLES20.glVertexAttribPointer(maInstanceColorHandle, 4, GLES20.GL_FLOAT, false, STRIDE_BYTES,
+					COLOR_OFFSET_BYTES);
+			if (useDivisor) {
+				GLES30.glVertexAttribDivisor(maInstanceColorHandle, 1);
+			}
+		}
+		GLES20.glBindBuffer(GLES20.GL_ARRAY_BUFFER, 0);
+	}
+
+	/**
+	 * Disables the instance attribute arrays and resets their divisors, so other programs using the same attribute
+	 * locations are unaffected.
+	 *
+	 * @param useDivisor {@code boolean} Whether the arrays were set up with a divisor.
+	 */
+	public void unsetInstanceBuffer(boolean useDivisor)
+	{
+		if (maInstanceMatrixHandle >= 0) {
+			for (int i = 0; i < MATRIX_COLUMNS; ++i) {
+				if (useDivisor) {
+					GLES30.glVertexAttribDivisor(maInstanceMatrixHandle + i, 0);
+				}
+				GLES20.glDisableVertexAttribArray(maInstanceMatrixHandle + i);
+			}
+		}
+		if (maInstanceColorHandle >= 0) {
+			if (useDivisor) {
+				GLES30.glVertexAttribDivisor(maInstanceColorHandle, 0);
+			}
+			GLES20.glDisableVertexAttribArray(maInstanceColorHandle);
+		}
+	}
+
+	/**
+	 * Sets the instance attributes to constant values read from one record of the instance data. Used to draw the
+	 * instances one at a time where instanced drawing isn't available.
+	 *
+	 * @param instances {@link FloatBuffer} The instance data.
+	 * @param instance  {@code int} The index of the instance to read.
+	 */
+	public void setInstanceAttributes(FloatBuffer instances, int instance)
+	{
+		final int offset = instance * InstancedObject3D.FLOATS_PER_INSTANCE;
+		if (maInstanceMatrixHandle >= 0) {
+			for (int i = 0; i < MATRIX_COLUMNS; ++i) {
+				final int column = offset + i * 4;
+				GLES20.glVertexAttrib4f(maInstanceMatrixHandle + i, instances.get(column), instances.get(column + 1),
+						instances.get(column + 2), instances.get(column + 3));
+			}
+		}
+		if (maInstanceColorHandle >= 0) {
+			final int color = offset + InstancedObject3D.COLOR_OFFSET;
+			GLES20.glVertexAttrib4f(maInstanceColorHandle, instances.get(color), instances.get(color + 1),
+					instances.get(color + 2), instances.get(color + 3));
+		}
+	}
+
+	@Override
+	public PluginInsertLocation getInsertLocation() {
+		return PluginInsertLocation.IGNORE;
+	}
+
+	@Override
+	public void bindTextures(int nextIndex) {}
+	@Override
+	public void unbindTextures() {}
+}
@@ -23,7 +23,6 @@ import org.rajawali3d.materials.shaders.fragments.LightsVertexShaderFragment.Lig
 import org.rajawali3d.materials.shaders.fragments.texture.ATextureFragmentShaderFragment;
 import org.rajawali3d.materials.textures.ATexture;
 import android.graphics.Color;
-import android.opengl.GLES20;
 
 public class CookTorranceFragmentShaderFragment extends ATextureFragmentShaderFragment implements IShaderFragment {
 	public final static String SHADER_ID = "COOK_TORRANCE_FRAGMENT";
@@ -156,9 +155,9 @@ public class CookTorranceFragmentShaderFragment extends ATextureFragmentShaderFr
 	@Override
 	public void applyParams() {
 		super.applyParams();
-		GLES20.glUniform3fv(muSpecularColorHandle, 1, mSpecularColor, 0);
-		GLES20.glUniform1f(muRoughnessHandle, mRoughness);
-		GLES20.glUniform1f(muExtinctionCoefficientHandle, mExtinctionCoefficient);
+		setUniform3fv(muSpecularColorHandle, mSpecularColor);
+		setUniform1f(muRoughnessHandle, mRoughness);
+		setUniform1f(muExtinctionCoefficientHandle, mExtinctionCoefficient);
 	}
 	
 	public void setSpecularColor(float[] color)
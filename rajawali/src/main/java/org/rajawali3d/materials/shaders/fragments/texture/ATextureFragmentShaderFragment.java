@@ -19,7 +19,6 @@ import org.rajawali3d.materials.shaders.IShaderFragment;
 import org.rajawali3d.materials.textures.ATexture;
 import org.rajawali3d.materials.textures.ATexture.TextureType;
 import org.rajawali3d.materials.textures.ATexture.WrapType;
-import android.opengl.GLES20;
 
 public abstract class ATextureFragmentShaderFragment extends AShader implements IShaderFragment {
 	protected List<ATexture> mTextures;
@@ -95,6 +94,7 @@ public abstract class ATextureFragmentShaderFragment extends AShader implements
 
 	@Override
 	public void setLocations(int programHandle) {
+		super.setLocations(programHandle);
 		if(mTextures == null) return;
 		for(int i=0; i<mTextures.size(); i++)
 		{
@@ -115,9 +115,9 @@ public abstract class ATextureFragmentShaderFragment extends AShader implements
 		for(int i=0; i<mTextures.size(); i++)
 		{
 			ATexture texture = mTextures.get(i);
-			GLES20.glUniform1f(muInfluenceHandles[i], texture.getInfluence());
+			setUniform1f(muInfluenceHandles[i], texture.getInfluence());
 			if(texture.transformEnabled())
-				GLES20.glUniformMatrix3fv(muTransformHandles[i], 1, false, texture.getTransform(), 0);
+				setUniformMatrix3fv(muTransformHandles[i], texture.getTransform());
 		}
 	}
 	
@@ -34,7 +34,8 @@ public abstract class ACompressedTexture extends ATexture {
 		THREEDC,
 		ATC,
 		DXT1,
-		PVRTC
+		PVRTC,
+		ASTC
 	}
 
     /**
@@ -124,6 +125,11 @@ public abstract class ACompressedTexture extends ATexture {
 		setByteBuffers(new ByteBuffer[] { byteBuffer });
 	}
 
+	/**
+	 * @param byteBuffers
+	 *            one buffer per mipmap level, starting at the largest. For cube maps, the six faces of each level
+	 *            follow each other in the order of the cube map targets.
+	 */
 	public void setByteBuffers(ByteBuffer[] byteBuffers) {
 		mByteBuffers = byteBuffers;
 	}
@@ -132,6 +138,43 @@ public abstract class ACompressedTexture extends ATexture {
         return mByteBuffers;
     }
 
+    @Override
+    public long getMemorySize() {
+        if (mByteBuffers == null) {
+            return 0;
+        }
+        long size = 0;
+        for (int i = 0; i < mByteBuffers.length; i++) {
+            if (mByteBuffers[i] != null) {
+                size += mByteBuffers[i].capacity();
+            }
+        }
+        return size;
+    }
+
+    @Override
+    public boolean isReloadable() {
+        if (mByteBuffers == null || mByteBuffers.length == 0) {
+            return false;
+        }
+        for (int i = 0; i < mByteBuffers.length; i++) {
+            if (mByteBuffers[i] == null) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    @Override
+    protected void reload() throws TextureException {
+        // The data stays in the buffers after an upload, only their limits are cleared
+        for (int i = 0; i < mByteBuffers.length; i++) {
+            mByteBuffers[i].rewind();
+            mByteBuffers[i].limit(mByteBuffers[i].capacity());
+        }
+        add();
+    }
+
     protected void add() throws TextureException
 	{
 		int[] textures = new int[1];
@@ -139,55 +182,95 @@ public abstract class ACompressedTexture extends ATexture {
 		int textureId = textures[0];
 		if (textureId > 0)
 		{
-			GLES20.glBindTexture(GLES20.GL_TEXTURE_2D, textureId);
-
-			if (mFilterType == FilterType.LINEAR)
-				GLES20.glTexParameterf(GLES20.GL_TEXTURE_2D, GLES20.GL_TEXTURE_MIN_FILTER, GLES20.GL_LINEAR);
+			final int target = mGLTextureType;
+			final int faces = getFaceCount();
+			final int levels = mByteBuffers == null ? 0 : mByteBuffers.length / faces;
+			GLES20.glBindTexture(target, textureId);
+
+			// The mipmaps can only be sampled when the chain goes all the way down to 1x1
+			if (mMipmap && levels > 1 && levels >= getMipLevelCount())
+			{
+				if (mFilterType == FilterType.LINEAR)
+					GLES20.glTexParameterf(target, GLES20.GL_TEXTURE_MIN_FILTER, GLES20.GL_LINEAR_MIPMAP_LINEAR);
+				else
+					GLES20.glTexParameterf(target, GLES20.GL_TEXTURE_MIN_FILTER, GLES20.GL_NEAREST_MIPMAP_NEAREST);
+			} else if (mFilterType == FilterType.LINEAR)
+				GLES20.glTexParameterf(target, GLES20.GL_TEXTURE_MIN_FILTER, GLES20.GL_LINEAR);
 			else
-				GLES20.glTexParameterf(GLES20.GL_TEXTURE_2D, GLES20.GL_TEXTURE_MIN_FILTER, GLES20.GL_NEAREST);
+				GLES20.glTexParameterf(target, GLES20.GL_TEXTURE_MIN_FILTER, GLES20.GL_NEAREST);
 
 			if (mFilterType == FilterType.LINEAR)
-				GLES20.glTexParameterf(GLES20.GL_TEXTURE_2D, GLES20.GL_TEXTURE_MAG_FILTER, GLES20.GL_LINEAR);
+				GLES20.glTexParameterf(target, GLES20.GL_TEXTURE_MAG_FILTER, GLES20.GL_LINEAR);
 			else
-				GLES20.glTexParameterf(GLES20.GL_TEXTURE_2D, GLES20.GL_TEXTURE_MAG_FILTER, GLES20.GL_NEAREST);
-
-                        switch (mWrapType) {
-                        case MIRRORED:
-                                GLES20.glTexParameteri(GLES20.GL_TEXTURE_2D, GLES20.GL_TEXTURE_WRAP_S, GLES20.GL_MIRRORED_REPEAT);
-                                GLES20.glTexParameteri(GLES20.GL_TEXTURE_2D, GLES20.GL_TEXTURE_WRAP_T, GLES20.GL_MIRRORED_REPEAT);
-                                break;
-                        case REPEAT:
-                                GLES20.glTexParameteri(GLES20.GL_TEXTURE_2D, GLES20.GL_TEXTURE_WRAP_S, GLES20.GL_REPEAT);
-                                GLES20.glTexParameteri(GLES20.GL_TEXTURE_2D, GLES20.GL_TEXTURE_WRAP_T, GLES20.GL_REPEAT);
-                                break;
-                        default:
-                                GLES20.glTexParameteri(GLES20.GL_TEXTURE_2D, GLES20.GL_TEXTURE_WRAP_S, GLES20.GL_CLAMP_TO_EDGE);
-                                GLES20.glTexParameteri(GLES20.GL_TEXTURE_2D, GLES20.GL_TEXTURE_WRAP_T, GLES20.GL_CLAMP_TO_EDGE);
-                        }
-
-			if ((mByteBuffers != null && mByteBuffers.length == 0) || mByteBuffers == null) {
+				GLES20.glTexParameterf(target, GLES20.GL_TEXTURE_MAG_FILTER, GLES20.GL_NEAREST);
+
+			switch (mWrapType) {
+			case MIRRORED:
+				GLES20.glTexParameteri(target, GLES20.GL_TEXTURE_WRAP_S, GLES20.GL_MIRRORED_REPEAT);
+				GLES20.glTexParameteri(target, GLES20.GL_TEXTURE_WRAP_T, GLES20.GL_MIRRORED_REPEAT);
+				break;
+			case REPEAT:
+				GLES20.glTexParameteri(target, GLES20.GL_TEXTURE_WRAP_S, GLES20.GL_REPEAT);
+				GLES20.glTexParameteri(target, GLES20.GL_TEXTURE_WRAP_T, GLES20.GL_REPEAT);
+				break;
+			default:
+				GLES20.glTexParameteri(target, GLES20.GL_TEXTURE_WRAP_S, GLES20.GL_CLAMP_TO_EDGE);
+				GLES20.glTexParameteri(target, GLES20.GL_TEXTURE_WRAP_T, GLES20.GL_CLAMP_TO_EDGE);
+			}
+
+			if (levels == 0) {
 				GLES20.glCompressedTexImage2D(GLES20.GL_TEXTURE_2D, 0, mCompressionFormat, mWidth, mHeight, 0, 0, null);
 			} else {
 				int w = mWidth, h = mHeight;
-				for (int i = 0; i < mByteBuffers.length; i++) {
-					GLES20.glCompressedTexImage2D(GLES20.GL_TEXTURE_2D, i, mCompressionFormat, w, h, 0,
-							mByteBuffers[i].capacity(), mByteBuffers[i]);
+				for (int i = 0; i < levels; i++) {
+					for (int face = 0; face < faces; face++)
+						uploadLevel(getFaceTarget(face), i, w, h, mByteBuffers[i * faces + face]);
 					w = w > 1 ? w / 2 : 1;
 					h = h > 1 ? h / 2 : 1;
 				}
 			}
 			setTextureId(textureId);
+			GLES20.glBindTexture(target, 0);
 		} else {
 			throw new TextureException("Couldn't generate a texture name.");
 		}
 
-		for (int i = 0; i < mByteBuffers.length; i++) {
-			if (mByteBuffers[i] != null) {
-				mByteBuffers[i].limit(0);
+		if (mByteBuffers != null) {
+			for (int i = 0; i < mByteBuffers.length; i++) {
+				if (mByteBuffers[i] != null) {
+					mByteBuffers[i].limit(0);
+				}
 			}
 		}
+	}
 
-		GLES20.glBindTexture(GLES20.GL_TEXTURE_2D, 0);
+	/**
+	 * Uploads one mipmap level of one face to the bound texture.
+	 *
+	 * @param target the face target, or {@link GLES20#GL_TEXTURE_2D}
+	 * @param level the mipmap level
+	 * @param width the width of the level
+	 * @param height the height of the level
+	 * @param buffer the data of the level
+	 */
+	protected void uploadLevel(int target, int level, int width, int height, ByteBuffer buffer)
+	{
+		GLES20.glCompressedTexImage2D(target, level, mCompressionFormat, width, height, 0, buffer.capacity(), buffer);
+	}
+
+	/**
+	 * Replaces one mipmap level of one face of the bound texture.
+	 *
+	 * @param target the face target, or {@link GLES20#GL_TEXTURE_2D}
+	 * @param level the mipmap level
+	 * @param width the width of the level
+	 * @param height the height of the level
+	 * @param buffer the data of the level
+	 */
+	protected void replaceLevel(int target, int level, int width, int height, ByteBuffer buffer)
+	{
+		GLES20.glCompressedTexSubImage2D(target, level, 0, 0, width, height, mCompressionFormat, buffer.capacity(),
+				buffer);
 	}
 
 	protected void remove() {
@@ -203,15 +286,35 @@ public abstract class ACompressedTexture extends ATexture {
 			throw new TextureException(
 					"Could not update ByteBuffer texture. One or more of the following properties haven't been set: width or height");
 
-        GLES20.glBindTexture(GLES20.GL_TEXTURE_2D, mTextureId);
+		final int faces = getFaceCount();
+		GLES20.glBindTexture(mGLTextureType, mTextureId);
 		int w = mWidth, h = mHeight;
-		for (int i = 0; i < mByteBuffers.length; i++) {
-			GLES20.glCompressedTexSubImage2D(GLES20.GL_TEXTURE_2D, i, 0, 0, w, h, mCompressionFormat,
-					mByteBuffers[i].capacity(), mByteBuffers[i]);
+		for (int i = 0; i < mByteBuffers.length / faces; i++) {
+			for (int face = 0; face < faces; face++)
+				replaceLevel(getFaceTarget(face), i, w, h, mByteBuffers[i * faces + face]);
 			w = w > 1 ? w / 2 : 1;
 			h = h > 1 ? h / 2 : 1;
 		}
-        GLES20.glBindTexture(GLES20.GL_TEXTURE_2D, 0);
+		GLES20.glBindTexture(mGLTextureType, 0);
+	}
+
+	private int getFaceCount()
+	{
+		return mGLTextureType == GLES20.GL_TEXTURE_CUBE_MAP ? 6 : 1;
+	}
+
+	private int getFaceTarget(int face)
+	{
+		return mGLTextureType == GLES20.GL_TEXTURE_CUBE_MAP ? GLES20.GL_TEXTURE_CUBE_MAP_POSITIVE_X + face
+				: mGLTextureType;
+	}
+
+	private int getMipLevelCount()
+	{
+		int levels = 1;
+		for (int size = Math.max(mWidth, mHeight); size > 1; size /= 2)
+			levels++;
+		return levels;
 	}
 
 	protected void reset() throws TextureException
@@ -134,6 +134,41 @@ public abstract class ASingleTexture extends ATexture
 		return mByteBuffer;
 	}
 
+	@Override
+	public long getMemorySize()
+	{
+		if (mCompressedTexture != null)
+			return mCompressedTexture.getMemorySize();
+		return super.getMemorySize();
+	}
+
+	@Override
+	public boolean isReloadable()
+	{
+		if (mCompressedTexture != null)
+			return mCompressedTexture.isReloadable();
+		return (mBitmap != null && !mBitmap.isRecycled()) || (mByteBuffer != null && mByteBuffer.limit() > 0)
+			|| mResourceId != 0;
+	}
+
+	@Override
+	protected void reload() throws TextureException
+	{
+		if (mCompressedTexture != null)
+		{
+			mCompressedTexture.reload();
+			setTextureId(mCompressedTexture.getTextureId());
+			return;
+		}
+
+		if (mBitmap == null && mByteBuffer == null && mResourceId != 0)
+		{
+			// The bitmap was dropped after the upload, decode it again
+			setResourceId(mResourceId);
+		}
+		add();
+	}
+
 	protected void add() throws TextureException
 	{
 		if(mCompressedTexture != null)
@@ -163,39 +198,7 @@ public abstract class ASingleTexture extends ATexture
 		{
 			GLES20.glBindTexture(GLES20.GL_TEXTURE_2D, textureId);
 
-			if (isMipmap())
-			{
-				if (mFilterType == FilterType.LINEAR)
-					GLES20.glTexParameterf(GLES20.GL_TEXTURE_2D, GLES20.GL_TEXTURE_MIN_FILTER,
-							GLES20.GL_LINEAR_MIPMAP_LINEAR);
-				else
-					GLES20.glTexParameterf(GLES20.GL_TEXTURE_2D, GLES20.GL_TEXTURE_MIN_FILTER,
-							GLES20.GL_NEAREST_MIPMAP_NEAREST);
-			} else {
-				if (mFilterType == FilterType.LINEAR)
-					GLES20.glTexParameterf(GLES20.GL_TEXTURE_2D, GLES20.GL_TEXTURE_MIN_FILTER, GLES20.GL_LINEAR);
-				else
-					GLES20.glTexParameterf(GLES20.GL_TEXTURE_2D, GLES20.GL_TEXTURE_MIN_FILTER, GLES20.GL_NEAREST);
-			}
-
-			if (mFilterType == FilterType.LINEAR)
-				GLES20.glTexParameterf(GLES20.GL_TEXTURE_2D, GLES20.GL_TEXTURE_MAG_FILTER, GLES20.GL_LINEAR);
-			else
-				GLES20.glTexParameterf(GLES20.GL_TEXTURE_2D, GLES20.GL_TEXTURE_MAG_FILTER, GLES20.GL_NEAREST);
-
-			switch (mWrapType) {
-			case MIRRORED:
-				GLES20.glTexParameteri(GLES20.GL_TEXTURE_2D, GLES20.GL_TEXTURE_WRAP_S, GLES20.GL_MIRRORED_REPEAT);
-				GLES20.glTexParameteri(GLES20.GL_TEXTURE_2D, GLES20.GL_TEXTURE_WRAP_T, GLES20.GL_MIRRORED_REPEAT);
-				break;
-			case REPEAT:
-				GLES20.glTexParameteri(GLES20.GL_TEXTURE_2D, GLES20.GL_TEXTURE_WRAP_S, GLES20.GL_REPEAT);
-				GLES20.glTexParameteri(GLES20.GL_TEXTURE_2D, GLES20.GL_TEXTURE_WRAP_T, GLES20.GL_REPEAT);
-				break;
-			default:
-				GLES20.glTexParameteri(GLES20.GL_TEXTURE_2D, GLES20.GL_TEXTURE_WRAP_S, GLES20.GL_CLAMP_TO_EDGE);
-				GLES20.glTexParameteri(GLES20.GL_TEXTURE_2D, GLES20.GL_TEXTURE_WRAP_T, GLES20.GL_CLAMP_TO_EDGE);
-			}
+			applyTextureParameters();
 
 			if (mBitmap == null)
 			{
@@ -215,7 +218,58 @@ public abstract class ASingleTexture extends ATexture
 			throw new TextureException("Couldn't generate a texture name.");
 		}
 
-		if (mShouldRecycle)
+		releaseBitmapAfterUpload();
+
+		GLES20.glBindTexture(GLES20.GL_TEXTURE_2D, 0);
+	}
+
+	/**
+	 * Sets the filtering and wrapping parameters of the texture bound to {@link GLES20#GL_TEXTURE_2D}.
+	 */
+	protected void applyTextureParameters()
+	{
+		if (isMipmap())
+		{
+			if (mFilterType == FilterType.LINEAR)
+				GLES20.glTexParameterf(GLES20.GL_TEXTURE_2D, GLES20.GL_TEXTURE_MIN_FILTER,
+						GLES20.GL_LINEAR_MIPMAP_LINEAR);
+			else
+				GLES20.glTexParameterf(GLES20.GL_TEXTURE_2D, GLES20.GL_TEXTURE_MIN_FILTER,
+						GLES20.GL_NEAREST_MIPMAP_NEAREST);
+		} else {
+			if (mFilterType == FilterType.LINEAR)
+				GLES20.glTexParameterf(GLES20.GL_TEXTURE_2D, GLES20.GL_TEXTURE_MIN_FILTER, GLES20.GL_LINEAR);
+			else
+				GLES20.glTexParameterf(GLES20.GL_TEXTURE_2D, GLES20.GL_TEXTURE_MIN_FILTER, GLES20.GL_NEAREST);
+		}
+
+		if (mFilterType == FilterType.LINEAR)
+			GLES20.glTexParameterf(GLES20.GL_TEXTURE_2D, GLES20.GL_TEXTURE_MAG_FILTER, GLES20.GL_LINEAR);
+		else
+			GLES20.glTexParameterf(GLES20.GL_TEXTURE_2D, GLES20.GL_TEXTURE_MAG_FILTER, GLES20.GL_NEAREST);
+
+		switch (mWrapType) {
+		case MIRRORED:
+			GLES20.glTexParameteri(GLES20.GL_TEXTURE_2D, GLES20.GL_TEXTURE_WRAP_S, GLES20.GL_MIRRORED_REPEAT);
+			GLES20.glTexParameteri(GLES20.GL_TEXTURE_2D, GLES20.GL_TEXTURE_WRAP_T, GLES20.GL_MIRRORED_REPEAT);
+			break;
+		case REPEAT:
+			GLES20.glTexParameteri(GLES20.GL_TEXTURE_2D, GLES20.GL_TEXTURE_WRAP_S, GLES20.GL_REPEAT);
+			GLES20.glTexParameteri(GLES20.GL_TEXTURE_2D, GLES20.GL_TEXTURE_WRAP_T, GLES20.GL_REPEAT);
+			break;
+		default:
+			GLES20.glTexParameteri(GLES20.GL_TEXTURE_2D, GLES20.GL_TEXTURE_WRAP_S, GLES20.GL_CLAMP_TO_EDGE);
+			GLES20.glTexParameteri(GLES20.GL_TEXTURE_2D, GLES20.GL_TEXTURE_WRAP_T, GLES20.GL_CLAMP_TO_EDGE);
+		}
+	}
+
+	/**
+	 * Drops the Bitmap or ByteBuffer once it is uploaded if the texture should be recycled, or if it was decoded
+	 * from a resource and the {@link TextureManager} drops those Bitmaps.
+	 */
+	protected void releaseBitmapAfterUpload()
+	{
+		if (mShouldRecycle || (mResourceId != 0 && TextureManager.getInstance().willDropBitmapsAfterUpload()))
 		{
 			if (mBitmap != null)
 			{
@@ -227,8 +281,6 @@ public abstract class ASingleTexture extends ATexture
 				mByteBuffer = null;
 			}
 		}
-
-		GLES20.glBindTexture(GLES20.GL_TEXTURE_2D, 0);
 	}
 
 	protected void remove() throws TextureException
@@ -503,6 +503,70 @@ public abstract class ATexture {
         return mCompressedTexture;
     }
 
+    /**
+     * Estimates the GPU memory used by this texture, including its mipmaps and all faces of a cube map.
+     *
+     * @return {@code long} The size in bytes.
+     */
+    public long getMemorySize() {
+        long size = 0;
+        int width = Math.max(1, mWidth);
+        int height = Math.max(1, mHeight);
+        while (true) {
+            size += (long) width * height * getBytesPerPixel();
+            if (!mMipmap || (width == 1 && height == 1)) {
+                break;
+            }
+            width = Math.max(1, width / 2);
+            height = Math.max(1, height / 2);
+        }
+        return mGLTextureType == GLES20.GL_TEXTURE_CUBE_MAP ? 6 * size : size;
+    }
+
+    protected int getBytesPerPixel() {
+        if (mBitmapConfig != null) {
+            switch (mBitmapConfig) {
+                case ALPHA_8:
+                    return 1;
+                case RGB_565:
+                case ARGB_4444:
+                    return 2;
+                default:
+                    return 4;
+            }
+        }
+        switch (mBitmapFormat) {
+            case GLES20.GL_ALPHA:
+            case GLES20.GL_LUMINANCE:
+                return 1;
+            case GLES20.GL_LUMINANCE_ALPHA:
+                return 2;
+            case GLES20.GL_RGB:
+                return 3;
+            default:
+                return 4;
+        }
+    }
+
+    /**
+     * Returns whether the texture can be uploaded again from its source after its GPU copy was removed, which lets
+     * the {@link TextureManager} evict it when it is over its memory budget.
+     *
+     * @return {@code boolean} True if the texture can be reloaded.
+     */
+    public boolean isReloadable() {
+        return false;
+    }
+
+    /**
+     * Uploads the texture again from its source after its GPU copy was removed.
+     *
+     * @throws TextureException
+     */
+    protected void reload() throws TextureException {
+        add();
+    }
+
     abstract protected void add() throws TextureException;
 
     abstract protected void remove() throws TextureException;
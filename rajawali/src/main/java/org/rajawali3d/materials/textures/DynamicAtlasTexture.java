@@ -0,0 +1,267 @@
+/**
+ * Copyright 2013 Dennis Ippel
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except in compliance with
+ * the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License is distributed on
+ * an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations under the License.
+ */
+package org.rajawali3d.materials.textures;
+
+import android.graphics.Bitmap;
+import android.graphics.Bitmap.Config;
+import android.opengl.GLES20;
+import android.opengl.GLUtils;
+import androidx.annotation.NonNull;
+import androidx.annotation.Nullable;
+import org.rajawali3d.materials.textures.MaxRectsPacker.Region;
+
+import java.nio.ByteBuffer;
+import java.util.ArrayList;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * A texture atlas whose images can be added and removed at runtime, for glyphs, icons and other images which are
+ * generated while the application runs. Images are packed with a {@link MaxRectsPacker}, and each change only uploads
+ * the region it touches instead of the whole texture. Changes are uploaded on the GL thread through
+ * {@link TextureManager#replaceTexture(ATexture)}.
+ * <p/>
+ * The atlas keeps a reference to every image it holds, so that it can be restored when the GL context is lost. Don't
+ * recycle the Bitmaps of images which are still in the atlas.
+ */
+public class DynamicAtlasTexture extends ASingleTexture {
+
+    // The most zeroes uploaded at once when clearing, so that clearing the whole atlas doesn't need a buffer its size
+    private static final int CLEAR_BUFFER_SIZE = 256 * 1024;
+
+    private final MaxRectsPacker       mPacker;
+    private final Map<Region, Bitmap> mImages         = new IdentityHashMap<>();
+    private final List<Region>         mPendingUploads = new ArrayList<>();
+    private final List<Region>         mPendingClears  = new ArrayList<>();
+
+    private boolean    mUploadRequested;
+    private ByteBuffer mClearBuffer;
+
+    public DynamicAtlasTexture(String textureName, int width, int height) {
+        this(textureName, width, height, 1);
+    }
+
+    /**
+     * @param textureName The name of the texture.
+     * @param width       The width of the atlas.
+     * @param height      The height of the atlas.
+     * @param padding     The empty pixels kept between images, so that filtering doesn't bleed neighbours in.
+     */
+    public DynamicAtlasTexture(String textureName, int width, int height, int padding) {
+        super(TextureType.DIFFUSE, textureName);
+        mPacker = new MaxRectsPacker(width, height, padding);
+        setWidth(width);
+        setHeight(height);
+        setBitmapFormat(GLES20.GL_RGBA);
+        // The mipmaps would have to be generated again after every change
+        setMipmap(false);
+        setWrapType(WrapType.CLAMP);
+    }
+
+    /**
+     * Copies the images of another atlas, in the same regions. The copy doesn't share the texture of the other atlas,
+     * it gets its own one with every image uploaded when it is added to the {@link TextureManager}. From then on,
+     * images can be added to and removed from either atlas independently.
+     *
+     * @param other The atlas to copy.
+     */
+    public DynamicAtlasTexture(DynamicAtlasTexture other) {
+        super(other);
+        synchronized (other) {
+            mPacker = new MaxRectsPacker(other.mPacker);
+            mImages.putAll(other.mImages);
+        }
+        setTextureId(-1);
+    }
+
+    @Override
+    public DynamicAtlasTexture clone() {
+        return new DynamicAtlasTexture(this);
+    }
+
+    /**
+     * Adds an image to the atlas.
+     *
+     * @param bitmap The image. Bitmaps which aren't {@link Config#ARGB_8888} are converted.
+     *
+     * @return The region of the atlas holding the image, or null if there is no room left.
+     */
+    @Nullable
+    public synchronized Region insert(@NonNull Bitmap bitmap) {
+        final Region region = mPacker.insert(bitmap.getWidth(), bitmap.getHeight());
+        if (region == null) {
+            return null;
+        }
+        mImages.put(region, bitmap.getConfig() == Config.ARGB_8888 ? bitmap : bitmap.copy(Config.ARGB_8888, false));
+        mPendingUploads.add(region);
+        requestUpload();
+        return region;
+    }
+
+    /**
+     * Removes an image from the atlas. Its region is cleared, and can be reused by the next images.
+     *
+     * @param region The region returned by {@link #insert(Bitmap)}.
+     *
+     * @return False if the region is not in this atlas.
+     */
+    public synchronized boolean remove(@NonNull Region region) {
+        if (!mPacker.free(region)) {
+            return false;
+        }
+        mImages.remove(region);
+        if (!mPendingUploads.remove(region)) {
+            mPendingClears.add(region);
+            requestUpload();
+        }
+        return true;
+    }
+
+    /**
+     * Removes all images from the atlas.
+     */
+    public synchronized void clear() {
+        for (Region region : mImages.keySet()) {
+            if (!mPendingUploads.contains(region)) {
+                mPendingClears.add(region);
+            }
+        }
+        mImages.clear();
+        mPendingUploads.clear();
+        mPacker.clear();
+        requestUpload();
+    }
+
+    /**
+     * Computes the texture coordinates of a region.
+     *
+     * @param region The region returned by {@link #insert(Bitmap)}.
+     * @param out    Receives the left, top, right and bottom texture coordinates.
+     */
+    public void getTextureCoordinates(@NonNull Region region, @NonNull float[] out) {
+        out[0] = (float) region.x / mWidth;
+        out[1] = (float) region.y / mHeight;
+        out[2] = (float) (region.x + region.width) / mWidth;
+        out[3] = (float) (region.y + region.height) / mHeight;
+    }
+
+    /**
+     * @return The fraction of the atlas covered by images, from 0 to 1. When an image doesn't fit while the
+     * occupancy is low, the atlas is fragmented and should be cleared and filled again.
+     */
+    public synchronized double getOccupancy() {
+        return mPacker.getOccupancy();
+    }
+
+    public synchronized int getImageCount() {
+        return mImages.size();
+    }
+
+    @Override
+    public boolean isReloadable() {
+        return true;
+    }
+
+    @Override
+    protected void add() throws TextureException {
+        final int[] genTextureNames = new int[1];
+        GLES20.glGenTextures(1, genTextureNames, 0);
+        final int textureId = genTextureNames[0];
+        if (textureId <= 0) {
+            throw new TextureException("Couldn't generate a texture name.");
+        }
+
+        GLES20.glBindTexture(GLES20.GL_TEXTURE_2D, textureId);
+        applyTextureParameters();
+        GLES20.glTexImage2D(GLES20.GL_TEXTURE_2D, 0, GLES20.GL_RGBA, mWidth, mHeight, 0, GLES20.GL_RGBA,
+                            GLES20.GL_UNSIGNED_BYTE, null);
+        // Start out transparent, so that padding and free regions don't bleed into the images
+        clearRect(0, 0, mWidth, mHeight);
+        synchronized (this) {
+            for (Map.Entry<Region, Bitmap> image : mImages.entrySet()) {
+                upload(image.getKey(), image.getValue());
+            }
+            mPendingUploads.clear();
+            mPendingClears.clear();
+            mUploadRequested = false;
+        }
+        setTextureId(textureId);
+        GLES20.glBindTexture(GLES20.GL_TEXTURE_2D, 0);
+    }
+
+    @Override
+    protected void replace() throws TextureException {
+        synchronized (this) {
+            mUploadRequested = false;
+            if (mPendingUploads.isEmpty() && mPendingClears.isEmpty()) {
+                return;
+            }
+            GLES20.glBindTexture(GLES20.GL_TEXTURE_2D, mTextureId);
+            for (int i = 0, j = mPendingClears.size(); i < j; ++i) {
+                clearRegion(mPendingClears.get(i));
+            }
+            for (int i = 0, j = mPendingUploads.size(); i < j; ++i) {
+                final Region region = mPendingUploads.get(i);
+                upload(region, mImages.get(region));
+            }
+            mPendingClears.clear();
+            mPendingUploads.clear();
+        }
+        GLES20.glBindTexture(GLES20.GL_TEXTURE_2D, 0);
+    }
+
+    @Override
+    protected void reset() throws TextureException {
+        synchronized (this) {
+            mImages.clear();
+            mPendingUploads.clear();
+            mPendingClears.clear();
+            mPacker.clear();
+            mClearBuffer = null;
+        }
+        super.reset();
+    }
+
+    private void requestUpload() {
+        // Before the texture is added, add() uploads everything
+        if (mTextureId > 0 && !mUploadRequested) {
+            mUploadRequested = true;
+            TextureManager.getInstance().replaceTexture(this);
+        }
+    }
+
+    private void upload(@NonNull Region region, @NonNull Bitmap bitmap) {
+        GLUtils.texSubImage2D(GLES20.GL_TEXTURE_2D, 0, region.x, region.y, bitmap);
+    }
+
+    private void clearRegion(@NonNull Region region) {
+        final int width = Math.min(region.width + mPacker.getPadding(), mWidth - region.x);
+        final int height = Math.min(region.height + mPacker.getPadding(), mHeight - region.y);
+        clearRect(region.x, region.y, width, height);
+    }
+
+    private void clearRect(int x, int y, int width, int height) {
+        // Upload the zeroes in strips of rows, reusing the buffer across strips and calls
+        final int rows = Math.max(1, Math.min(height, CLEAR_BUFFER_SIZE / (width * 4)));
+        final int size = width * rows * 4;
+        if (mClearBuffer == null || mClearBuffer.capacity() < size) {
+            mClearBuffer = ByteBuffer.allocateDirect(size);
+        }
+        for (int row = 0; row < height; row += rows) {
+            mClearBuffer.rewind();
+            GLES20.glTexSubImage2D(GLES20.GL_TEXTURE_2D, 0, x, y + row, width, Math.min(rows, height - row),
+                                   GLES20.GL_RGBA, GLES20.GL_UNSIGNED_BYTE, mClearBuffer);
+        }
+    }
+}
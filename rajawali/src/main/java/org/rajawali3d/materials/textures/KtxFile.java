@@ -0,0 +1,410 @@
+/**
+ * Copyright 2013 Dennis Ippel
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except in compliance with
+ * the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License is distributed on
+ * an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations under the License.
+ */
+package org.rajawali3d.materials.textures;
+
+import androidx.annotation.NonNull;
+
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.BufferUnderflowException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.channels.FileChannel;
+import java.util.Arrays;
+
+/**
+ * Reads KTX 1.1 and KTX 2.0 texture containers, which hold every mipmap level and cube map face of a texture in a
+ * single file. The images are exposed as slices of the file's buffer, so nothing is copied: a file read with
+ * {@link #read(File)} is memory mapped and its images are paged in when they are uploaded. KTX 2.0 files must not
+ * be supercompressed. Array and 3D textures are not supported.
+ * <p/>
+ * The OpenGL formats of KTX 2.0 files are derived from their Vulkan format. The uncompressed 8 bit formats and the
+ * ETC2, EAC, S3TC, ASTC and PVRTC block formats are supported.
+ */
+public class KtxFile {
+
+    public static final int VERSION_1 = 1;
+    public static final int VERSION_2 = 2;
+
+    private static final byte[] IDENTIFIER_1 = {
+            (byte) 0xAB, 'K', 'T', 'X', ' ', '1', '1', (byte) 0xBB, '\r', '\n', 0x1A, '\n'
+    };
+    private static final byte[] IDENTIFIER_2 = {
+            (byte) 0xAB, 'K', 'T', 'X', ' ', '2', '0', (byte) 0xBB, '\r', '\n', 0x1A, '\n'
+    };
+    private static final int ENDIANNESS = 0x04030201;
+
+    private static final int GL_UNSIGNED_BYTE = 0x1401;
+    private static final int GL_RGB           = 0x1907;
+    private static final int GL_RGBA          = 0x1908;
+    private static final int GL_LUMINANCE     = 0x1909;
+
+    private final int          mVersion;
+    private final int          mInternalFormat;
+    private final int          mFormat;
+    private final int          mType;
+    private final int          mWidth;
+    private final int          mHeight;
+    private final int          mFaceCount;
+    private final ByteBuffer[] mImages;
+
+    private KtxFile(int version, int internalFormat, int format, int type, int width, int height, int faceCount,
+                    @NonNull ByteBuffer[] images) {
+        mVersion = version;
+        mInternalFormat = internalFormat;
+        mFormat = format;
+        mType = type;
+        mWidth = width;
+        mHeight = height;
+        mFaceCount = faceCount;
+        mImages = images;
+    }
+
+    /**
+     * Reads a KTX file by memory mapping it.
+     *
+     * @param file {@link File} The KTX file.
+     *
+     * @return {@link KtxFile} The parsed file.
+     *
+     * @throws IOException if the file can't be read or is not a supported KTX file.
+     */
+    @NonNull
+    public static KtxFile read(@NonNull File file) throws IOException {
+        final FileInputStream stream = new FileInputStream(file);
+        try {
+            return read(stream.getChannel(), 0, file.length());
+        } finally {
+            stream.close();
+        }
+    }
+
+    /**
+     * Reads a KTX file by memory mapping part of a channel, such as an uncompressed asset or raw resource.
+     *
+     * @param channel {@link FileChannel} The channel to map. It can be closed after this returns.
+     * @param offset  {@code long} The offset of the KTX data in the channel.
+     * @param length  {@code long} The length of the KTX data.
+     *
+     * @return {@link KtxFile} The parsed file.
+     *
+     * @throws IOException if the channel can't be mapped or does not hold a supported KTX file.
+     */
+    @NonNull
+    public static KtxFile read(@NonNull FileChannel channel, long offset, long length) throws IOException {
+        return read(channel.map(FileChannel.MapMode.READ_ONLY, offset, length));
+    }
+
+    /**
+     * Reads a KTX file from a stream into a direct buffer. The stream is not closed.
+     *
+     * @param stream {@link InputStream} The stream to read.
+     *
+     * @return {@link KtxFile} The parsed file.
+     *
+     * @throws IOException if the stream can't be read or does not hold a supported KTX file.
+     */
+    @NonNull
+    public static KtxFile read(@NonNull InputStream stream) throws IOException {
+        final ByteArrayOutputStream bytes = new ByteArrayOutputStream(Math.max(stream.available(), 4096));
+        final byte[] chunk = new byte[16 * 1024];
+        int count;
+        while ((count = stream.read(chunk)) != -1) {
+            bytes.write(chunk, 0, count);
+        }
+        final ByteBuffer buffer = ByteBuffer.allocateDirect(bytes.size());
+        buffer.put(bytes.toByteArray()).rewind();
+        return read(buffer);
+    }
+
+    /**
+     * Reads a KTX file from a buffer, from its position to its limit. The images are slices of this buffer.
+     *
+     * @param buffer {@link ByteBuffer} The KTX data.
+     *
+     * @return {@link KtxFile} The parsed file.
+     *
+     * @throws IOException if the buffer does not hold a supported KTX file.
+     */
+    @NonNull
+    public static KtxFile read(@NonNull ByteBuffer buffer) throws IOException {
+        final ByteBuffer data = buffer.slice();
+        final byte[] identifier = new byte[IDENTIFIER_1.length];
+        if (data.remaining() < identifier.length) {
+            throw new IOException("Not a KTX file.");
+        }
+        data.get(identifier);
+        try {
+            if (Arrays.equals(identifier, IDENTIFIER_1)) {
+                return readVersion1(data);
+            } else if (Arrays.equals(identifier, IDENTIFIER_2)) {
+                return readVersion2(data);
+            }
+        } catch (BufferUnderflowException | IndexOutOfBoundsException | IllegalArgumentException e) {
+            throw new IOException("The KTX file is truncated.", e);
+        }
+        throw new IOException("Not a KTX file.");
+    }
+
+    @NonNull
+    private static KtxFile readVersion1(@NonNull ByteBuffer data) throws IOException {
+        data.order(ByteOrder.LITTLE_ENDIAN);
+        final int endianness = data.getInt();
+        if (endianness != ENDIANNESS) {
+            data.order(ByteOrder.BIG_ENDIAN);
+            if (Integer.reverseBytes(endianness) != ENDIANNESS) {
+                throw new IOException("Invalid KTX endianness.");
+            }
+        }
+        final int type = data.getInt();
+        final int typeSize = data.getInt();
+        final int format = data.getInt();
+        final int internalFormat = data.getInt();
+        final int baseInternalFormat = data.getInt();
+        final int width = data.getInt();
+        final int height = Math.max(1, data.getInt());
+        final int depth = data.getInt();
+        final int arrayElements = data.getInt();
+        final int faceCount = data.getInt();
+        final int levelCount = Math.max(1, data.getInt());
+        final int keyValueBytes = data.getInt();
+
+        if (depth > 1 || arrayElements > 0) {
+            throw new IOException("KTX array and 3D textures are not supported.");
+        }
+        checkFaceCount(faceCount);
+        if (type != 0 && typeSize > 1 && data.order() != ByteOrder.nativeOrder()) {
+            throw new IOException("KTX files of another endianness must be compressed or use single byte types.");
+        }
+
+        data.position(data.position() + keyValueBytes);
+        final ByteBuffer[] images = new ByteBuffer[levelCount * faceCount];
+        for (int level = 0; level < levelCount; level++) {
+            // For cube maps this is the size of one face
+            final int imageSize = data.getInt();
+            for (int face = 0; face < faceCount; face++) {
+                images[level * faceCount + face] = slice(data, data.position(), imageSize);
+                data.position(align(data.position() + imageSize));
+            }
+        }
+        // Uncompressed data is uploaded with the unsized format, which OpenGL ES 2.0 requires
+        return new KtxFile(VERSION_1, type == 0 ? internalFormat : baseInternalFormat, format, type, width, height,
+                           faceCount, images);
+    }
+
+    @NonNull
+    private static KtxFile readVersion2(@NonNull ByteBuffer data) throws IOException {
+        data.order(ByteOrder.LITTLE_ENDIAN);
+        final int vkFormat = data.getInt();
+        data.getInt(); // typeSize
+        final int width = data.getInt();
+        final int height = Math.max(1, data.getInt());
+        final int depth = data.getInt();
+        final int layerCount = data.getInt();
+        final int faceCount = data.getInt();
+        final int levelCount = Math.max(1, data.getInt());
+        final int supercompression = data.getInt();
+
+        if (supercompression != 0) {
+            throw new IOException("Supercompressed KTX2 files are not supported.");
+        }
+        if (depth > 1 || layerCount > 0) {
+            throw new IOException("KTX array and 3D textures are not supported.");
+        }
+        checkFaceCount(faceCount);
+        final int[] formats = getGLFormats(vkFormat);
+        if (formats == null) {
+            throw new IOException("Unsupported KTX2 Vulkan format " + vkFormat + ".");
+        }
+
+        // Skip the data format descriptor, key/value and supercompression global data offsets
+        data.position(data.position() + 4 * 4 + 2 * 8);
+        final ByteBuffer[] images = new ByteBuffer[levelCount * faceCount];
+        for (int level = 0; level < levelCount; level++) {
+            final int offset = toInt(data.getLong());
+            final int length = toInt(data.getLong());
+            data.getLong(); // uncompressedByteLength
+            final int imageSize = length / faceCount;
+            for (int face = 0; face < faceCount; face++) {
+                // Offsets are relative to the start of the file, the identifier included
+                images[level * faceCount + face] = slice(data, offset + face * imageSize, imageSize);
+            }
+        }
+        return new KtxFile(VERSION_2, formats[0], formats[1], formats[2], width, height, faceCount, images);
+    }
+
+    /**
+     * Returns the OpenGL internal format, format and type for a Vulkan format. Format and type are 0 for compressed
+     * formats.
+     *
+     * @param vkFormat {@code int} The Vulkan format.
+     *
+     * @return {@code int[]} The OpenGL formats, or null if the format is not supported.
+     */
+    static int[] getGLFormats(int vkFormat) {
+        switch (vkFormat) {
+            case 9: // VK_FORMAT_R8_UNORM
+                return new int[]{ GL_LUMINANCE, GL_LUMINANCE, GL_UNSIGNED_BYTE };
+            case 23: // VK_FORMAT_R8G8B8_UNORM
+                return new int[]{ GL_RGB, GL_RGB, GL_UNSIGNED_BYTE };
+            case 37: // VK_FORMAT_R8G8B8A8_UNORM
+                return new int[]{ GL_RGBA, GL_RGBA, GL_UNSIGNED_BYTE };
+            case 131: // VK_FORMAT_BC1_RGB_UNORM_BLOCK
+                return compressed(0x83F0);
+            case 132: // VK_FORMAT_BC1_RGB_SRGB_BLOCK
+                return compressed(0x8C4C);
+            case 133: // VK_FORMAT_BC1_RGBA_UNORM_BLOCK
+                return compressed(0x83F1);
+            case 134: // VK_FORMAT_BC1_RGBA_SRGB_BLOCK
+                return compressed(0x8C4D);
+            case 135: // VK_FORMAT_BC2_UNORM_BLOCK
+                return compressed(0x83F2);
+            case 137: // VK_FORMAT_BC3_UNORM_BLOCK
+                return compressed(0x83F3);
+            case 1000054000: // VK_FORMAT_PVRTC1_2BPP_UNORM_BLOCK_IMG
+                return compressed(0x8C03);
+            case 1000054001: // VK_FORMAT_PVRTC1_4BPP_UNORM_BLOCK_IMG
+                return compressed(0x8C02);
+        }
+        if (vkFormat >= 147 && vkFormat <= 152) {
+            // VK_FORMAT_ETC2_R8G8B8_UNORM_BLOCK to VK_FORMAT_ETC2_R8G8B8A8_SRGB_BLOCK, in the same order as OpenGL
+            return compressed(0x9274 + vkFormat - 147);
+        }
+        if (vkFormat >= 153 && vkFormat <= 156) {
+            // VK_FORMAT_EAC_R11_UNORM_BLOCK to VK_FORMAT_EAC_R11G11_SNORM_BLOCK
+            return compressed(0x9270 + vkFormat - 153);
+        }
+        if (vkFormat >= 157 && vkFormat <= 184) {
+            // VK_FORMAT_ASTC_4x4_UNORM_BLOCK to VK_FORMAT_ASTC_12x12_SRGB_BLOCK alternate between linear and sRGB
+            final int block = (vkFormat - 157) / 2;
+            final boolean srgb = (vkFormat - 157) % 2 == 1;
+            return compressed((srgb ? 0x93D0 : 0x93B0) + block);
+        }
+        return null;
+    }
+
+    @NonNull
+    private static int[] compressed(int internalFormat) {
+        return new int[]{ internalFormat, 0, 0 };
+    }
+
+    private static void checkFaceCount(int faceCount) throws IOException {
+        if (faceCount != 1 && faceCount != 6) {
+            throw new IOException("Invalid KTX face count " + faceCount + ".");
+        }
+    }
+
+    @NonNull
+    private static ByteBuffer slice(@NonNull ByteBuffer data, int offset, int length) {
+        final ByteBuffer image = data.duplicate();
+        image.limit(offset + length).position(offset);
+        return image.slice().order(ByteOrder.nativeOrder());
+    }
+
+    private static int align(int offset) {
+        return (offset + 3) & ~3;
+    }
+
+    private static int toInt(long value) throws IOException {
+        if (value < 0 || value > Integer.MAX_VALUE) {
+            throw new IOException("KTX offset out of range.");
+        }
+        return (int) value;
+    }
+
+    /**
+     * @return {@code int} {@link #VERSION_1} or {@link #VERSION_2}.
+     */
+    public int getVersion() {
+        return mVersion;
+    }
+
+    /**
+     * @return {@code int} The OpenGL internal format, which is the compression format of compressed textures.
+     */
+    public int getGLInternalFormat() {
+        return mInternalFormat;
+    }
+
+    /**
+     * @return {@code int} The OpenGL format of uncompressed textures, 0 for compressed textures.
+     */
+    public int getGLFormat() {
+        return mFormat;
+    }
+
+    /**
+     * @return {@code int} The OpenGL type of uncompressed textures, 0 for compressed textures.
+     */
+    public int getGLType() {
+        return mType;
+    }
+
+    public boolean isCompressed() {
+        return mType == 0;
+    }
+
+    public int getWidth() {
+        return mWidth;
+    }
+
+    public int getHeight() {
+        return mHeight;
+    }
+
+    /**
+     * @return {@code int} 6 for cube maps, 1 otherwise.
+     */
+    public int getFaceCount() {
+        return mFaceCount;
+    }
+
+    public boolean isCubeMap() {
+        return mFaceCount == 6;
+    }
+
+    public int getLevelCount() {
+        return mImages.length / mFaceCount;
+    }
+
+    /**
+     * Returns the image of one mipmap level of one face.
+     *
+     * @param level {@code int} The mipmap level, 0 being the largest.
+     * @param face  {@code int} The cube map face, in the order of the cube map targets. 0 for other textures.
+     *
+     * @return {@link ByteBuffer} A new buffer sharing the file's data.
+     */
+    @NonNull
+    public ByteBuffer getImage(int level, int face) {
+        return mImages[level * mFaceCount + face].duplicate().order(ByteOrder.nativeOrder());
+    }
+
+    /**
+     * Returns every image, level by level with the faces of each level following each other, as expected by
+     * {@link ACompressedTexture#setByteBuffers(ByteBuffer[])}.
+     *
+     * @return {@link ByteBuffer}[] New buffers sharing the file's data.
+     */
+    @NonNull
+    public ByteBuffer[] getImages() {
+        final ByteBuffer[] images = new ByteBuffer[mImages.length];
+        for (int i = 0; i < images.length; i++) {
+            images[i] = mImages[i].duplicate().order(ByteOrder.nativeOrder());
+        }
+        return images;
+    }
+}
@@ -0,0 +1,204 @@
+/**
+ * Copyright 2013 Dennis Ippel
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except in compliance with
+ * the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License is distributed on
+ * an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations under the License.
+ */
+package org.rajawali3d.materials.textures;
+
+import android.content.res.AssetFileDescriptor;
+import android.content.res.Resources;
+import android.opengl.GLES20;
+import androidx.annotation.NonNull;
+import org.rajawali3d.util.RajLog;
+
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.ByteBuffer;
+
+/**
+ * A texture loaded from a KTX or KTX2 file, with all of its mipmap levels. The mipmaps are used as they are, so
+ * nothing is generated at runtime. A file with six faces becomes a cube map. Uncompressed files are supported as well.
+ * <p/>
+ * Raw resources are memory mapped when they are stored uncompressed in the APK, which can be ensured by adding
+ * {@code noCompress 'ktx', 'ktx2'} to the {@code aaptOptions} of the application. Otherwise they are read into memory.
+ */
+public class KtxTexture extends ACompressedTexture {
+
+    protected int mResourceId;
+    protected int mGLFormat;
+    protected int mGLType;
+
+    public KtxTexture(String textureName) {
+        super(textureName);
+    }
+
+    public KtxTexture(int resourceId) {
+        this(TextureManager.getInstance().getContext().getResources().getResourceName(resourceId));
+        setResourceId(resourceId);
+    }
+
+    public KtxTexture(String textureName, int resourceId) {
+        this(textureName);
+        setResourceId(resourceId);
+    }
+
+    public KtxTexture(String textureName, File file) {
+        this(textureName);
+        try {
+            setKtxFile(KtxFile.read(file));
+        } catch (IOException e) {
+            RajLog.e("Could not read KTX file " + file + ": " + e.getMessage());
+        }
+    }
+
+    public KtxTexture(String textureName, InputStream stream) {
+        this(textureName);
+        try {
+            setKtxFile(KtxFile.read(stream));
+        } catch (IOException e) {
+            RajLog.e("Could not read KTX texture " + textureName + ": " + e.getMessage());
+        }
+    }
+
+    public KtxTexture(String textureName, KtxFile file) {
+        this(textureName);
+        setKtxFile(file);
+    }
+
+    public KtxTexture(KtxTexture other) {
+        super();
+        setFrom(other);
+    }
+
+    @Override
+    public KtxTexture clone() {
+        return new KtxTexture(this);
+    }
+
+    public void setFrom(KtxTexture other) {
+        super.setFrom(other);
+        mTextureType = other.getTextureType();
+        mResourceId = other.getResourceId();
+        mGLFormat = other.mGLFormat;
+        mGLType = other.mGLType;
+        setByteBuffers(other.getByteBuffers());
+    }
+
+    /**
+     * Uses the images of a KTX file. Their data is shared, not copied.
+     *
+     * @param file the parsed KTX file
+     */
+    public void setKtxFile(@NonNull KtxFile file) {
+        setWidth(file.getWidth());
+        setHeight(file.getHeight());
+        setCompressionFormat(file.getGLInternalFormat());
+        setCompressionType(getCompressionType(file));
+        mGLFormat = file.getGLFormat();
+        mGLType = file.getGLType();
+        if (file.isCubeMap()) {
+            mTextureType = TextureType.CUBE_MAP;
+            setGLTextureType(GLES20.GL_TEXTURE_CUBE_MAP);
+            setWrapType(WrapType.CLAMP);
+        } else {
+            mTextureType = TextureType.COMPRESSED;
+            setGLTextureType(GLES20.GL_TEXTURE_2D);
+        }
+        // A single level can't be sampled with a mipmap filter
+        setMipmap(file.getLevelCount() > 1);
+        setByteBuffers(file.getImages());
+    }
+
+    public void setResourceId(int resourceId) {
+        mResourceId = resourceId;
+        final Resources resources = TextureManager.getInstance().getContext().getResources();
+        try {
+            KtxFile file;
+            try {
+                final AssetFileDescriptor descriptor = resources.openRawResourceFd(resourceId);
+                final FileInputStream stream = descriptor.createInputStream();
+                try {
+                    file = KtxFile.read(stream.getChannel(), descriptor.getStartOffset(), descriptor.getLength());
+                } finally {
+                    stream.close();
+                }
+            } catch (Resources.NotFoundException e) {
+                // The resource is compressed in the APK, so it can't be mapped
+                final InputStream stream = resources.openRawResource(resourceId);
+                try {
+                    file = KtxFile.read(stream);
+                } finally {
+                    stream.close();
+                }
+            }
+            setKtxFile(file);
+        } catch (IOException e) {
+            RajLog.e("Could not read KTX resource " + resourceId + ": " + e.getMessage());
+        }
+    }
+
+    public int getResourceId() {
+        return mResourceId;
+    }
+
+    @Override
+    protected void add() throws TextureException {
+        if (mByteBuffers == null || mByteBuffers.length == 0) {
+            throw new TextureException("Texture could not be added because no KTX file was read.");
+        }
+        super.add();
+    }
+
+    @Override
+    protected void uploadLevel(int target, int level, int width, int height, ByteBuffer buffer) {
+        if (mGLType == 0) {
+            super.uploadLevel(target, level, width, height, buffer);
+        } else {
+            GLES20.glTexImage2D(target, level, mCompressionFormat, width, height, 0, mGLFormat, mGLType, buffer);
+        }
+    }
+
+    @Override
+    protected void replaceLevel(int target, int level, int width, int height, ByteBuffer buffer) {
+        if (mGLType == 0) {
+            super.replaceLevel(target, level, width, height, buffer);
+        } else {
+            GLES20.glTexSubImage2D(target, level, 0, 0, width, height, mGLFormat, mGLType, buffer);
+        }
+    }
+
+    /**
+     * Returns the {@link CompressionType} of the format of a KTX file.
+     */
+    static CompressionType getCompressionType(@NonNull KtxFile file) {
+        if (!file.isCompressed()) {
+            return CompressionType.NONE;
+        }
+        final int format = file.getGLInternalFormat();
+        if (format == 0x8D64) {
+            return CompressionType.ETC1;
+        } else if (format >= 0x9270 && format <= 0x9279) {
+            return CompressionType.ETC2;
+        } else if ((format >= 0x83F0 && format <= 0x83F3) || (format >= 0x8C4C && format <= 0x8C4F)) {
+            return CompressionType.DXT1;
+        } else if (format >= 0x8C00 && format <= 0x8C03) {
+            return CompressionType.PVRTC;
+        } else if (format == 0x8C92 || format == 0x8C93 || format == 0x87EE) {
+            return CompressionType.ATC;
+        } else if (format == 0x87F9 || format == 0x87FA) {
+            return CompressionType.THREEDC;
+        } else if ((format >= 0x93B0 && format <= 0x93BD) || (format >= 0x93D0 && format <= 0x93DD)) {
+            return CompressionType.ASTC;
+        }
+        return null;
+    }
+}
@@ -0,0 +1,319 @@
+/**
+ * Copyright 2013 Dennis Ippel
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except in compliance with
+ * the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License is distributed on
+ * an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations under the License.
+ */
+package org.rajawali3d.materials.textures;
+
+import androidx.annotation.NonNull;
+import androidx.annotation.Nullable;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.IdentityHashMap;
+import java.util.Set;
+
+/**
+ * Packs rectangles into a fixed size bin one at a time, using the MaxRects algorithm with the best short side fit
+ * heuristic. The free space is kept as a list of maximal free rectangles, which may overlap. Rectangles can be freed
+ * again at any time, so the packer suits atlases whose content changes at runtime, such as glyph and icon caches.
+ * <p/>
+ * Freed space is merged with neighbouring free rectangles which share a full edge, but it isn't rebuilt into maximal
+ * rectangles, so an atlas with a lot of churn fragments over time. {@link #getOccupancy()} tells how much of the bin
+ * is in use, a caller that can't insert while the occupancy is low should {@link #clear()} and insert again.
+ * <p/>
+ * This class is not thread safe.
+ */
+public class MaxRectsPacker {
+
+    /**
+     * A packed rectangle.
+     */
+    public static final class Region {
+        public final int x;
+        public final int y;
+        public final int width;
+        public final int height;
+
+        Region(int x, int y, int width, int height) {
+            this.x = x;
+            this.y = y;
+            this.width = width;
+            this.height = height;
+        }
+
+        @Override
+        public String toString() {
+            return "Region(" + x + ", " + y + ", " + width + "x" + height + ")";
+        }
+    }
+
+    private static final class FreeRect {
+        int x;
+        int y;
+        int width;
+        int height;
+
+        FreeRect(int x, int y, int width, int height) {
+            this.x = x;
+            this.y = y;
+            this.width = width;
+            this.height = height;
+        }
+
+        boolean contains(@NonNull FreeRect other) {
+            return other.x >= x && other.y >= y && other.x + other.width <= x + width
+                   && other.y + other.height <= y + height;
+        }
+    }
+
+    private final int mWidth;
+    private final int mHeight;
+    private final int mPadding;
+
+    private final ArrayList<FreeRect> mFreeRects = new ArrayList<>();
+    private final ArrayList<FreeRect> mSplitRects = new ArrayList<>();
+    private final Set<Region> mRegions = Collections.newSetFromMap(new IdentityHashMap<Region, Boolean>());
+    private long mUsedArea;
+
+    /**
+     * @param width   {@code int} The width of the bin.
+     * @param height  {@code int} The height of the bin.
+     * @param padding {@code int} The empty space kept between packed rectangles, to avoid filtering bleeding
+     *                neighbours into each other.
+     */
+    public MaxRectsPacker(int width, int height, int padding) {
+        if (width <= 0 || height <= 0 || padding < 0) {
+            throw new IllegalArgumentException("Invalid bin size " + width + "x" + height + " or padding " + padding);
+        }
+        mWidth = width;
+        mHeight = height;
+        mPadding = padding;
+        clear();
+    }
+
+    /**
+     * Copies the placed rectangles and free space of another packer. The {@link Region}s placed in the other packer
+     * are placed in this one too, and can be freed from either independently.
+     *
+     * @param other {@link MaxRectsPacker} The packer to copy.
+     */
+    public MaxRectsPacker(@NonNull MaxRectsPacker other) {
+        mWidth = other.mWidth;
+        mHeight = other.mHeight;
+        mPadding = other.mPadding;
+        for (int i = 0, j = other.mFreeRects.size(); i < j; ++i) {
+            final FreeRect rect = other.mFreeRects.get(i);
+            mFreeRects.add(new FreeRect(rect.x, rect.y, rect.width, rect.height));
+        }
+        mRegions.addAll(other.mRegions);
+        mUsedArea = other.mUsedArea;
+    }
+
+    /**
+     * Finds room for a rectangle.
+     *
+     * @param width  {@code int} The width of the rectangle.
+     * @param height {@code int} The height of the rectangle.
+     *
+     * @return {@link Region} The placed rectangle, or null if there is no room for it.
+     */
+    @Nullable
+    public Region insert(int width, int height) {
+        if (width <= 0 || height <= 0) {
+            throw new IllegalArgumentException("Invalid rectangle size " + width + "x" + height);
+        }
+        final int paddedWidth = width + mPadding;
+        final int paddedHeight = height + mPadding;
+        FreeRect best = null;
+        int bestShortSide = Integer.MAX_VALUE;
+        int bestLongSide = Integer.MAX_VALUE;
+        for (int i = 0, j = mFreeRects.size(); i < j; ++i) {
+            final FreeRect rect = mFreeRects.get(i);
+            if (rect.width < paddedWidth || rect.height < paddedHeight) {
+                continue;
+            }
+            final int leftoverX = rect.width - paddedWidth;
+            final int leftoverY = rect.height - paddedHeight;
+            final int shortSide = Math.min(leftoverX, leftoverY);
+            final int longSide = Math.max(leftoverX, leftoverY);
+            if (shortSide < bestShortSide || (shortSide == bestShortSide && longSide < bestLongSide)) {
+                best = rect;
+                bestShortSide = shortSide;
+                bestLongSide = longSide;
+            }
+        }
+        if (best == null) {
+            return null;
+        }
+
+        final Region region = new Region(best.x, best.y, width, height);
+        place(region.x, region.y, paddedWidth, paddedHeight);
+        mRegions.add(region);
+        mUsedArea += (long) width * height;
+        return region;
+    }
+
+    /**
+     * Frees the space of a rectangle placed by {@link #insert(int, int)}.
+     *
+     * @param region {@link Region} The rectangle to free.
+     *
+     * @return {@code boolean} False if the region is not currently placed in this packer.
+     */
+    public boolean free(@NonNull Region region) {
+        if (!mRegions.remove(region)) {
+            return false;
+        }
+        mUsedArea -= (long) region.width * region.height;
+        if (mRegions.isEmpty()) {
+            clear();
+            return true;
+        }
+
+        final FreeRect freed = new FreeRect(region.x, region.y, region.width + mPadding, region.height + mPadding);
+        while (mergeAdjacent(freed)) {
+            // Keep growing the freed rectangle while it shares a full edge with a free one
+        }
+        addFreeRect(freed);
+        return true;
+    }
+
+    /**
+     * Frees all rectangles.
+     */
+    public void clear() {
+        mRegions.clear();
+        mFreeRects.clear();
+        // The padding is only needed between rectangles, not along the right and bottom edges of the bin
+        mFreeRects.add(new FreeRect(0, 0, mWidth + mPadding, mHeight + mPadding));
+        mUsedArea = 0;
+    }
+
+    public int getWidth() {
+        return mWidth;
+    }
+
+    public int getHeight() {
+        return mHeight;
+    }
+
+    public int getPadding() {
+        return mPadding;
+    }
+
+    /**
+     * @return {@code int} The number of placed rectangles.
+     */
+    public int getRegionCount() {
+        return mRegions.size();
+    }
+
+    /**
+     * @return {@code long} The area covered by the placed rectangles, without their padding.
+     */
+    public long getUsedArea() {
+        return mUsedArea;
+    }
+
+    /**
+     * @return {@code double} The fraction of the bin covered by placed rectangles, from 0 to 1.
+     */
+    public double getOccupancy() {
+        return (double) mUsedArea / ((long) mWidth * mHeight);
+    }
+
+    /**
+     * @return {@code int} The number of free rectangles tracked, which grows with fragmentation.
+     */
+    public int getFreeRectCount() {
+        return mFreeRects.size();
+    }
+
+    private void place(int x, int y, int width, int height) {
+        for (int i = 0, j = mFreeRects.size(); i < j; ) {
+            final FreeRect rect = mFreeRects.get(i);
+            if (x >= rect.x + rect.width || x + width <= rect.x || y >= rect.y + rect.height
+                || y + height <= rect.y) {
+                ++i;
+                continue;
+            }
+            // Replace the free rectangle with the up to four parts of it left around the placed one
+            if (x > rect.x) {
+                mSplitRects.add(new FreeRect(rect.x, rect.y, x - rect.x, rect.height));
+            }
+            if (x + width < rect.x + rect.width) {
+                mSplitRects.add(new FreeRect(x + width, rect.y, rect.x + rect.width - x - width, rect.height));
+            }
+            if (y > rect.y) {
+                mSplitRects.add(new FreeRect(rect.x, rect.y, rect.width, y - rect.y));
+            }
+            if (y + height < rect.y + rect.height) {
+                mSplitRects.add(new FreeRect(rect.x, y + height, rect.width, rect.y + rect.height - y - height));
+            }
+            removeAt(i);
+            --j;
+        }
+        for (int i = 0, j = mSplitRects.size(); i < j; ++i) {
+            addFreeRect(mSplitRects.get(i));
+        }
+        mSplitRects.clear();
+    }
+
+    /**
+     * Merges one free rectangle which shares a full edge with the given one into it.
+     *
+     * @return {@code boolean} True if a rectangle was merged.
+     */
+    private boolean mergeAdjacent(@NonNull FreeRect rect) {
+        for (int i = 0, j = mFreeRects.size(); i < j; ++i) {
+            final FreeRect other = mFreeRects.get(i);
+            if (rect.x == other.x && rect.width == other.width
+                && (rect.y + rect.height == other.y || other.y + other.height == rect.y)) {
+                rect.y = Math.min(rect.y, other.y);
+                rect.height += other.height;
+            } else if (rect.y == other.y && rect.height == other.height
+                       && (rect.x + rect.width == other.x || other.x + other.width == rect.x)) {
+                rect.x = Math.min(rect.x, other.x);
+                rect.width += other.width;
+            } else {
+                continue;
+            }
+            removeAt(i);
+            return true;
+        }
+        return false;
+    }
+
+    /**
+     * Adds a free rectangle unless another one contains it, and removes the ones it contains. As no free rectangle
+     * contains another, only the new one has to be checked.
+     */
+    private void addFreeRect(@NonNull FreeRect rect) {
+        for (int i = 0; i < mFreeRects.size(); ) {
+            final FreeRect other = mFreeRects.get(i);
+            if (other.contains(rect)) {
+                return;
+            } else if (rect.contains(other)) {
+                removeAt(i);
+            } else {
+                ++i;
+            }
+        }
+        mFreeRects.add(rect);
+    }
+
+    private void removeAt(int index) {
+        // The order of the free rectangles doesn't matter, so avoid shifting the list
+        final int last = mFreeRects.size() - 1;
+        mFreeRects.set(index, mFreeRects.get(last));
+        mFreeRects.remove(last);
+    }
+}
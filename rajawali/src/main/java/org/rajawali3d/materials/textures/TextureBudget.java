@@ -0,0 +1,218 @@
+/**
+ * Copyright 2013 Dennis Ippel
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except in compliance with
+ * the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License is distributed on
+ * an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations under the License.
+ */
+package org.rajawali3d.materials.textures;
+
+import androidx.annotation.NonNull;
+import org.rajawali3d.materials.textures.ATexture.TextureException;
+import org.rajawali3d.util.RajLog;
+
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+
+/**
+ * Keeps the GPU memory used by the textures of the {@link TextureManager} within a budget. Textures are ordered by
+ * when they were last bound. When the resident textures exceed the budget, the least recently bound ones that can
+ * be uploaded again from their source are removed from the GPU, and they are uploaded again the next time they are
+ * bound. Textures bound in the current frame are never evicted, so a frame that needs more than the budget goes over
+ * it instead of thrashing.
+ * <p/>
+ * All methods but the getters must be called from the GL thread.
+ */
+class TextureBudget {
+
+    private static class Entry {
+        final ATexture mTexture;
+        long    mSize;
+        long    mLastUsedFrame = -1;
+        boolean mResident      = true;
+
+        Entry(ATexture texture) {
+            mTexture = texture;
+            mSize = texture.getMemorySize();
+        }
+    }
+
+    // Access ordered, so iterating starts at the least recently bound texture
+    private final LinkedHashMap<ATexture, Entry> mEntries = new LinkedHashMap<>(16, 0.75f, true);
+
+    private volatile long mBudget;
+    private long mFrame;
+    private long mResidentBytes;
+    private int  mEvictedCount;
+    private long mHits;
+    private long mMisses;
+    private long mEvictions;
+
+    /**
+     * Sets the number of bytes the resident textures may use. Textures are evicted on the next bind or frame.
+     *
+     * @param bytes {@code long} The budget in bytes, 0 for no limit.
+     */
+    void setBudget(long bytes) {
+        mBudget = Math.max(0, bytes);
+    }
+
+    long getBudget() {
+        return mBudget;
+    }
+
+    void beginFrame() {
+        ++mFrame;
+        evictToBudget();
+    }
+
+    /**
+     * Starts tracking a texture that was just uploaded.
+     */
+    void add(@NonNull ATexture texture) {
+        final Entry entry = new Entry(texture);
+        // A texture is uploaded because it is about to be used, so it doesn't count as unused this frame
+        entry.mLastUsedFrame = mFrame;
+        final Entry previous = mEntries.put(texture, entry);
+        if (previous != null) {
+            forget(previous);
+        }
+        mResidentBytes += entry.mSize;
+        evictToBudget();
+    }
+
+    /**
+     * Stops tracking a texture.
+     *
+     * @return {@code boolean} False if the texture was evicted, so it no longer has a GPU copy to delete.
+     */
+    boolean remove(@NonNull ATexture texture) {
+        final Entry entry = mEntries.remove(texture);
+        if (entry == null) {
+            return true;
+        }
+        final boolean resident = entry.mResident;
+        forget(entry);
+        return resident;
+    }
+
+    void clear() {
+        mEntries.clear();
+        mResidentBytes = 0;
+        mEvictedCount = 0;
+    }
+
+    /**
+     * Updates the size of a texture that was replaced or resized.
+     */
+    void update(@NonNull ATexture texture) {
+        final Entry entry = mEntries.get(texture);
+        if (entry != null && entry.mResident) {
+            final long size = texture.getMemorySize();
+            mResidentBytes += size - entry.mSize;
+            entry.mSize = size;
+        }
+    }
+
+    /**
+     * Returns whether a texture was evicted and has to be uploaded again before it is used.
+     */
+    boolean isEvicted(@NonNull ATexture texture) {
+        final Entry entry = mEntries.get(texture);
+        return entry != null && !entry.mResident;
+    }
+
+    /**
+     * Marks a texture as used by the current frame, uploading it again if it was evicted.
+     *
+     * @return {@code boolean} True if the texture was uploaded again.
+     */
+    boolean use(@NonNull ATexture texture) {
+        if (mBudget == 0 && mEvictedCount == 0) {
+            return false;
+        }
+        final Entry entry = mEntries.get(texture);
+        if (entry == null) {
+            return false;
+        }
+        entry.mLastUsedFrame = mFrame;
+        if (entry.mResident) {
+            ++mHits;
+            return false;
+        } else {
+            ++mMisses;
+            try {
+                texture.reload();
+            } catch (TextureException e) {
+                RajLog.e("Could not upload evicted texture " + texture.getTextureName() + ": " + e.getMessage());
+                return false;
+            }
+            entry.mResident = true;
+            entry.mSize = texture.getMemorySize();
+            mResidentBytes += entry.mSize;
+            --mEvictedCount;
+            evictToBudget();
+            return true;
+        }
+    }
+
+    private void evictToBudget() {
+        final long budget = mBudget;
+        if (budget == 0 || mResidentBytes <= budget) {
+            return;
+        }
+        final Iterator<Entry> iterator = mEntries.values().iterator();
+        while (mResidentBytes > budget && iterator.hasNext()) {
+            final Entry entry = iterator.next();
+            if (!entry.mResident || entry.mLastUsedFrame == mFrame || !entry.mTexture.isReloadable()) {
+                continue;
+            }
+            try {
+                entry.mTexture.remove();
+            } catch (TextureException e) {
+                RajLog.e("Could not evict texture " + entry.mTexture.getTextureName() + ": " + e.getMessage());
+                continue;
+            }
+            entry.mTexture.setTextureId(-1);
+            entry.mResident = false;
+            mResidentBytes -= entry.mSize;
+            ++mEvictedCount;
+            ++mEvictions;
+        }
+    }
+
+    private void forget(@NonNull Entry entry) {
+        if (entry.mResident) {
+            mResidentBytes -= entry.mSize;
+        } else {
+            --mEvictedCount;
+        }
+    }
+
+    long getResidentBytes() {
+        return mResidentBytes;
+    }
+
+    long getHitCount() {
+        return mHits;
+    }
+
+    long getMissCount() {
+        return mMisses;
+    }
+
+    long getEvictionCount() {
+        return mEvictions;
+    }
+
+    void resetCounters() {
+        mHits = 0;
+        mMisses = 0;
+        mEvictions = 0;
+    }
+}
@@ -12,15 +12,26 @@
  */
 package org.rajawali3d.materials.textures;
 
+import java.io.File;
+import java.io.InputStream;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.ArrayList;
 import java.util.Collections;
+import java.util.HashMap;
+import java.util.IdentityHashMap;
 import java.util.Iterator;
 import java.util.List;
+import java.util.Map;
 import java.util.concurrent.CopyOnWriteArrayList;
 
 import org.rajawali3d.materials.AResourceManager;
+import org.rajawali3d.materials.Material;
 import org.rajawali3d.materials.textures.ATexture.TextureException;
+import org.rajawali3d.materials.textures.ATexture.TextureType;
 import org.rajawali3d.renderer.Renderer;
 
+import android.graphics.BitmapFactory;
 import android.opengl.GLES20;
 
 /**
@@ -44,6 +55,40 @@ public final class TextureManager extends AResourceManager {
 	 * A list of managed textures
 	 */
 	private List<ATexture> mTextureList;
+	/**
+	 * Tracks the GPU memory used by the textures and evicts them when over budget
+	 */
+	private final TextureBudget mBudget = new TextureBudget();
+	/**
+	 * Whether to drop the Bitmaps of textures that can be decoded again once they are uploaded
+	 */
+	private volatile boolean mDropBitmapsAfterUpload;
+	/**
+	 * Uploads the textures decoded in the background over several frames
+	 */
+	private final TextureUploader mUploader = new TextureUploader();
+	/**
+	 * The textures the uploader completed this frame
+	 */
+	private final List<ASingleTexture> mCompletedUploads = new ArrayList<>();
+
+	/**
+	 * The shared textures by source key, and the source keys by shared texture
+	 */
+	private final Map<String, ATexture> mSharedTextures = new HashMap<>();
+	private final Map<ATexture, String> mSharedTextureKeys = new IdentityHashMap<>();
+	/**
+	 * Whether textures with the same source are shared
+	 */
+	private volatile boolean mTextureSharingEnabled = true;
+
+	/**
+	 * Creates a texture for {@link #acquireSharedTexture(String, TextureType, TextureFactory)} when no texture with
+	 * the same source exists yet.
+	 */
+	public interface TextureFactory {
+		ATexture createTexture() throws TextureException;
+	}
 
 	/**
 	 * The constructor can only be instantiated by the TextureManager class itself.
@@ -79,6 +124,46 @@ public final class TextureManager extends AResourceManager {
 		return texture;
 	}
 
+	/**
+	 * Adds a new {@link ASingleTexture} to the TextureManager, decoding the image from a resource on the loader
+	 * threads of the {@link Renderer} and uploading it over several frames within the upload budget. Until the upload
+	 * completes, the texture shows a placeholder. The texture can be added to materials right away.
+	 *
+	 * @param texture The texture, without a Bitmap or ByteBuffer.
+	 * @param resourceId The id of the image resource.
+	 */
+	public void addTextureAsync(final ASingleTexture texture, final int resourceId) {
+		// Set directly, setResourceId() would decode the image on this thread
+		texture.mResourceId = resourceId;
+		final TextureUploader.Job job = mUploader.submit(texture, resourceId);
+		mRenderer.getLoaderExecutor().execute(new Runnable() {
+			@Override
+			public void run() {
+				BitmapFactory.Options bitmapScalingOptions = new BitmapFactory.Options();
+				bitmapScalingOptions.inScaled = false;
+				job.decode(BitmapFactory.decodeResource(getContext().getResources(), resourceId, bitmapScalingOptions));
+			}
+		});
+	}
+
+	/**
+	 * Adds a new {@link ASingleTexture} to the TextureManager, decoding the image from a stream on the loader threads
+	 * of the {@link Renderer} and uploading it over several frames within the upload budget. Until the upload
+	 * completes, the texture shows a placeholder. The stream is not closed.
+	 *
+	 * @param texture The texture, without a Bitmap or ByteBuffer.
+	 * @param stream The stream of the encoded image.
+	 */
+	public void addTextureAsync(final ASingleTexture texture, final InputStream stream) {
+		final TextureUploader.Job job = mUploader.submit(texture, 0);
+		mRenderer.getLoaderExecutor().execute(new Runnable() {
+			@Override
+			public void run() {
+				job.decode(BitmapFactory.decodeStream(stream));
+			}
+		});
+	}
+
 	/**
 	 * Adds a {@link ATexture} to the TextureManager. This should only be called by {@link Renderer}.
 	 *
@@ -95,6 +180,10 @@ public final class TextureManager extends AResourceManager {
 	 * @param isUpdatingAfterContextWasLost
 	 */
 	private void taskAdd(ATexture texture, boolean isUpdatingAfterContextWasLost) {
+		if (mUploader.isPending(texture)) {
+			// Added once its asynchronous upload completes
+			return;
+		}
 		if (!isUpdatingAfterContextWasLost) {
 			// -- check if texture exists already
 			int count = mTextureList.size();
@@ -117,6 +206,7 @@ public final class TextureManager extends AResourceManager {
 
 		if (!isUpdatingAfterContextWasLost)
 			mTextureList.add(texture);
+		mBudget.add(texture);
 	}
 
 	/**
@@ -138,10 +228,13 @@ public final class TextureManager extends AResourceManager {
 	public void taskReplace(ATexture texture)
 	{
 		try {
+			if (mBudget.isEvicted(texture))
+				mBudget.use(texture);
 			texture.replace();
 		} catch (TextureException e) {
 			throw new RuntimeException(e);
 		}
+		mBudget.update(texture);
 	}
 
 	/**
@@ -175,8 +268,15 @@ public final class TextureManager extends AResourceManager {
 	 * @return
 	 */
 	public void taskRemove(ATexture texture) {
+		forgetSharedTexture(texture);
+		if (mUploader.cancel(texture)) {
+			mTextureList.remove(texture);
+			return;
+		}
 		try {
-			texture.remove();
+			// An evicted texture has no GPU copy left to delete
+			if (mBudget.remove(texture))
+				texture.remove();
 		} catch (TextureException e) {
 			throw new RuntimeException(e);
 		}
@@ -201,12 +301,25 @@ public final class TextureManager extends AResourceManager {
 	 * {@link Renderer}.
 	 */
 	public void taskReload() {
+		mUploader.onContextLost();
 		Iterator<ATexture> iterator = mTextureList.iterator();
 
 		while (iterator.hasNext()) {
 			ATexture texture = iterator.next();
-			if (texture.willRecycle()) {
+			if (mBudget.isEvicted(texture)) {
+				// Uploaded again when it is next used
+				continue;
+			}
+			if (texture.willRecycle() && !texture.isReloadable()) {
 				iterator.remove();
+				mBudget.remove(texture);
+			} else if (texture.willRecycle()) {
+				try {
+					texture.reload();
+				} catch (TextureException e) {
+					throw new RuntimeException(e);
+				}
+				mBudget.add(texture);
 			} else {
 				taskAdd(texture, true);
 			}
@@ -241,6 +354,14 @@ public final class TextureManager extends AResourceManager {
 
 			if(Renderer.hasGLContext())
 				GLES20.glDeleteTextures(count, textures, 0);
+			mUploader.clear();
+			synchronized (mSharedTextures) {
+				mSharedTextures.clear();
+				mSharedTextureKeys.clear();
+			}
+			mBudget.clear();
+			for (int i = 0; i < mTextureList.size(); i++)
+				mBudget.add(mTextureList.get(i));
 
 			if (mRenderers.size() > 0) {
 				mRenderer = mRenderers.get(mRenderers.size() - 1);
@@ -266,6 +387,282 @@ public final class TextureManager extends AResourceManager {
 
 	public void taskResizeRenderTarget(RenderTargetTexture renderTargetTexture) {
 		renderTargetTexture.resize();
+		mBudget.update(renderTargetTexture);
+	}
+
+	/**
+	 * Prepares a texture for binding. If the texture was evicted to stay within the memory budget it is uploaded
+	 * again. This should only be called from the GL thread, right before the texture id is bound.
+	 * <p/>
+	 * Uploading a texture again changes the texture bindings, and may delete other textures to stay within the budget,
+	 * so a caller tracking its bindings must forget them when this returns true.
+	 *
+	 * @param texture
+	 * @return {@code boolean} True if the texture was uploaded again.
+	 */
+	public boolean useTexture(ATexture texture) {
+		return mBudget.use(texture);
+	}
+
+	/**
+	 * Marks the start of a frame and uploads the next part of the textures added with
+	 * {@link #addTextureAsync(ASingleTexture, int)}. Textures used in the current frame are never evicted. This should
+	 * only be called by {@link Renderer}.
+	 */
+	public void beginFrame() {
+		mBudget.beginFrame();
+		mUploader.upload(mCompletedUploads);
+		for (int i = 0, j = mCompletedUploads.size(); i < j; ++i) {
+			ASingleTexture texture = mCompletedUploads.get(i);
+			texture.setOwnerIdentity(mRenderer.getClass().toString());
+			if (!mTextureList.contains(texture))
+				mTextureList.add(texture);
+			mBudget.add(texture);
+		}
+		mCompletedUploads.clear();
+	}
+
+	/**
+	 * Sets how many bytes of asynchronously added textures are uploaded per frame. Large textures are uploaded a few
+	 * rows at a time, and at least a few rows are uploaded each frame regardless of the budget.
+	 *
+	 * @param bytes The budget in bytes, 1 MiB by default.
+	 */
+	public void setUploadBudget(int bytes) {
+		mUploader.setBytesPerFrame(bytes);
+	}
+
+	public int getUploadBudget() {
+		return mUploader.getBytesPerFrame();
+	}
+
+	/**
+	 * Sets how long uploading asynchronously added textures may take per frame. Checked between slabs of rows, so a
+	 * frame can go over it by the time one slab takes.
+	 *
+	 * @param milliseconds The budget in milliseconds, 0 for no limit (the default).
+	 */
+	public void setUploadTimeBudget(double milliseconds) {
+		mUploader.setNanosPerFrame((long) (milliseconds * 1e6));
+	}
+
+	public double getUploadTimeBudget() {
+		return mUploader.getNanosPerFrame() / 1e6;
+	}
+
+	/**
+	 * Returns the number of textures added with {@link #addTextureAsync(ASingleTexture, int)} which are still being
+	 * decoded or uploaded.
+	 *
+	 * @return The pending upload count.
+	 */
+	public int getPendingUploadCount() {
+		return mUploader.getPendingCount();
+	}
+
+	/**
+	 * Sets the number of bytes of GPU memory the textures may use. When they use more, the least recently bound
+	 * textures that can be uploaded again from their Bitmap, ByteBuffer or resource are removed from the GPU, and
+	 * uploaded again the next time they are bound. Textures which can't be reloaded, such as render targets and
+	 * streaming textures, count towards the budget but are never evicted.
+	 *
+	 * @param bytes The budget in bytes, 0 for no limit (the default).
+	 */
+	public void setMemoryBudget(long bytes) {
+		mBudget.setBudget(bytes);
+	}
+
+	public long getMemoryBudget() {
+		return mBudget.getBudget();
+	}
+
+	/**
+	 * Sets whether textures loaded from a resource drop their Bitmap once it is uploaded, so the decoded image only
+	 * takes up Java heap while it is being uploaded. The resource is decoded again when the texture has to be
+	 * uploaded again, after an eviction or when the context is restored.
+	 *
+	 * @param drop True to drop the Bitmaps.
+	 */
+	public void setDropBitmapsAfterUpload(boolean drop) {
+		mDropBitmapsAfterUpload = drop;
+	}
+
+	public boolean willDropBitmapsAfterUpload() {
+		return mDropBitmapsAfterUpload;
+	}
+
+	/**
+	 * Returns the estimated GPU memory used by the textures that are currently uploaded.
+	 *
+	 * @return The size in bytes.
+	 */
+	public long getResidentBytes() {
+		return mBudget.getResidentBytes();
+	}
+
+	/**
+	 * Returns how many times a texture was bound while it was uploaded, since the counters were last reset. Binds
+	 * are only counted while a memory budget is set.
+	 *
+	 * @return The hit count.
+	 */
+	public long getHitCount() {
+		return mBudget.getHitCount();
+	}
+
+	/**
+	 * Returns how many times a texture had to be uploaded again because it was evicted, since the counters were last
+	 * reset.
+	 *
+	 * @return The miss count.
+	 */
+	public long getMissCount() {
+		return mBudget.getMissCount();
+	}
+
+	/**
+	 * Returns how many textures were evicted to stay within the memory budget, since the counters were last reset.
+	 *
+	 * @return The eviction count.
+	 */
+	public long getEvictionCount() {
+		return mBudget.getEvictionCount();
+	}
+
+	/**
+	 * Resets the hit, miss and eviction counters.
+	 */
+	public void resetCounters() {
+		mBudget.resetCounters();
+	}
+
+	/**
+	 * Returns the texture for a source, creating it with the factory only if no texture was created for the same
+	 * source and type yet. This lets loaders share one decoded and uploaded texture between all the materials that
+	 * reference the same image. A shared texture stays alive until the last {@link Material} using it removes it.
+	 * <p>
+	 * When sharing is disabled, the factory is always called.
+	 *
+	 * @param sourceKey The identity of the image, see {@link #getResourceKey(int)}, {@link #getFileKey(File)} and
+	 * {@link #getContentKey(byte[], int, int)}. Null to not share the texture.
+	 * @param type The type of the texture, as the same image can be used as different types of texture.
+	 * @param factory Creates the texture if it isn't shared yet.
+	 * @return The shared texture.
+	 * @throws TextureException if the factory fails.
+	 */
+	public ATexture acquireSharedTexture(String sourceKey, TextureType type, TextureFactory factory)
+			throws TextureException {
+		if (sourceKey == null || !mTextureSharingEnabled)
+			return factory.createTexture();
+		final String key = type.name() + ':' + sourceKey;
+		synchronized (mSharedTextures) {
+			ATexture texture = mSharedTextures.get(key);
+			if (texture == null) {
+				texture = factory.createTexture();
+				mSharedTextures.put(key, texture);
+				mSharedTextureKeys.put(texture, key);
+			}
+			return texture;
+		}
+	}
+
+	/**
+	 * Removes a shared texture once no {@link Material} uses it anymore. Called by {@link Material} when it removes a
+	 * texture, does nothing for textures which aren't shared.
+	 *
+	 * @param texture
+	 */
+	public void releaseSharedTexture(ATexture texture) {
+		synchronized (mSharedTextures) {
+			if (!mSharedTextureKeys.containsKey(texture) || !texture.mMaterialsUsingTexture.isEmpty())
+				return;
+			forgetSharedTexture(texture);
+		}
+		removeTexture(texture);
+	}
+
+	private void forgetSharedTexture(ATexture texture) {
+		synchronized (mSharedTextures) {
+			final String key = mSharedTextureKeys.remove(texture);
+			if (key != null)
+				mSharedTextures.remove(key);
+		}
+	}
+
+	public boolean isSharedTexture(ATexture texture) {
+		synchronized (mSharedTextures) {
+			return mSharedTextureKeys.containsKey(texture);
+		}
+	}
+
+	/**
+	 * Sets whether {@link #acquireSharedTexture(String, TextureType, TextureFactory)} shares textures with the same
+	 * source. Enabled by default. Textures which are already shared stay shared.
+	 *
+	 * @param enabled
+	 */
+	public void setTextureSharingEnabled(boolean enabled) {
+		mTextureSharingEnabled = enabled;
+	}
+
+	public boolean isTextureSharingEnabled() {
+		return mTextureSharingEnabled;
+	}
+
+	/**
+	 * Returns the number of textures which are currently shared.
+	 *
+	 * @return
+	 */
+	public int getSharedTextureCount() {
+		synchronized (mSharedTextures) {
+			return mSharedTextures.size();
+		}
+	}
+
+	/**
+	 * Returns the source key of an image resource.
+	 *
+	 * @param resourceId
+	 * @return The key, or null for resource id 0.
+	 */
+	public static String getResourceKey(int resourceId) {
+		return resourceId == 0 ? null : "res:" + resourceId;
+	}
+
+	/**
+	 * Returns the source key of an image file. The key includes the modification time, so a file that was changed
+	 * is loaded again.
+	 *
+	 * @param file
+	 * @return The key, or null if the file doesn't exist.
+	 */
+	public static String getFileKey(File file) {
+		return file.exists() ? "file:" + file.getAbsolutePath() + '@' + file.lastModified() : null;
+	}
+
+	/**
+	 * Returns the source key of an encoded image, such as a PNG or JPEG embedded in a model file, by hashing its
+	 * bytes.
+	 *
+	 * @param data
+	 * @param offset
+	 * @param length
+	 * @return The key.
+	 */
+	public static String getContentKey(byte[] data, int offset, int length) {
+		final byte[] digest;
+		try {
+			MessageDigest sha1 = MessageDigest.getInstance("SHA-1");
+			sha1.update(data, offset, length);
+			digest = sha1.digest();
+		} catch (NoSuchAlgorithmException e) {
+			throw new IllegalStateException(e);
+		}
+		final StringBuilder key = new StringBuilder("sha1:");
+		for (byte b : digest)
+			key.append(Character.forDigit((b >> 4) & 0xf, 16)).append(Character.forDigit(b & 0xf, 16));
+		return key.toString();
 	}
 
 	/**
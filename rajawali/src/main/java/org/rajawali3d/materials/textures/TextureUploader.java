@@ -0,0 +1,353 @@
+/**
+ * Copyright 2013 Dennis Ippel
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except in compliance with
+ * the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License is distributed on
+ * an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations under the License.
+ */
+package org.rajawali3d.materials.textures;
+
+import android.graphics.Bitmap;
+import android.graphics.Bitmap.Config;
+import android.opengl.GLES20;
+import androidx.annotation.NonNull;
+import androidx.annotation.Nullable;
+import org.rajawali3d.renderer.Renderer;
+import org.rajawali3d.util.RajLog;
+
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.util.Iterator;
+import java.util.List;
+import java.util.concurrent.ConcurrentLinkedQueue;
+
+/**
+ * Uploads textures which were decoded on a background thread to the GPU a few rows at a time, so that adding many or
+ * large textures is spread over several frames instead of stalling one. Each frame uploads at most the byte budget,
+ * and stops early once the time budget is spent, but always uploads at least one slab of rows so that every texture
+ * finishes eventually. Until a texture is complete, its texture id points to a small grey placeholder.
+ * <p/>
+ * Jobs may be submitted and decoded from any thread. All other methods must be called from the GL thread.
+ */
+class TextureUploader {
+
+    static final int DEFAULT_BYTES_PER_FRAME = 1024 * 1024;
+    // Keeps single uploads short enough for the time budget to be checked regularly
+    static final int MAX_SLAB_BYTES = 256 * 1024;
+
+    private static final int PLACEHOLDER_COLOR = 0xff808080;
+
+    static class Job {
+        final ASingleTexture mTexture;
+        final int            mResourceId;
+
+        // Written by the decoding thread before mDecoded or mFailed is set
+        Bitmap     mBitmap;
+        ByteBuffer mPixels;
+        int        mWidth;
+        int        mHeight;
+        int        mFormat;
+        int        mType;
+        int        mBytesPerPixel;
+
+        volatile boolean mDecoded;
+        volatile String  mError;
+
+        int     mTextureId;
+        boolean mAllocated;
+        boolean mPlaceholderBound;
+        int     mNextRow;
+
+        Job(@NonNull ASingleTexture texture, int resourceId) {
+            mTexture = texture;
+            mResourceId = resourceId;
+        }
+
+        /**
+         * Converts a decoded Bitmap to pixels that can be uploaded. Called from the decoding thread.
+         *
+         * @param bitmap The decoded {@link Bitmap}, null if decoding failed.
+         */
+        void decode(@Nullable Bitmap bitmap) {
+            if (bitmap == null) {
+                fail("The image could not be decoded.");
+                return;
+            }
+            try {
+                if (bitmap.getConfig() != Config.ARGB_8888 && bitmap.getConfig() != Config.RGB_565) {
+                    final Bitmap converted = bitmap.copy(Config.ARGB_8888, false);
+                    bitmap.recycle();
+                    bitmap = converted;
+                }
+                final ByteBuffer pixels = ByteBuffer.allocateDirect(bitmap.getByteCount())
+                        .order(ByteOrder.nativeOrder());
+                bitmap.copyPixelsToBuffer(pixels);
+                pixels.rewind();
+                mBitmap = bitmap;
+                if (bitmap.getConfig() == Config.RGB_565) {
+                    setPixels(pixels, bitmap.getWidth(), bitmap.getHeight(), GLES20.GL_RGB,
+                              GLES20.GL_UNSIGNED_SHORT_5_6_5, 2);
+                } else {
+                    setPixels(pixels, bitmap.getWidth(), bitmap.getHeight(), GLES20.GL_RGBA,
+                              GLES20.GL_UNSIGNED_BYTE, 4);
+                }
+            } catch (RuntimeException | OutOfMemoryError e) {
+                fail(e.toString());
+            }
+        }
+
+        void setPixels(@NonNull ByteBuffer pixels, int width, int height, int format, int type, int bytesPerPixel) {
+            mPixels = pixels;
+            mWidth = width;
+            mHeight = height;
+            mFormat = format;
+            mType = type;
+            mBytesPerPixel = bytesPerPixel;
+            mDecoded = true;
+        }
+
+        void fail(@NonNull String error) {
+            mError = error;
+        }
+    }
+
+    private final ConcurrentLinkedQueue<Job> mJobs = new ConcurrentLinkedQueue<>();
+
+    private volatile int  mBytesPerFrame = DEFAULT_BYTES_PER_FRAME;
+    private volatile long mNanosPerFrame;
+    private int mPlaceholderId;
+
+    /**
+     * Sets the number of bytes uploaded per frame.
+     *
+     * @param bytes {@code int} The budget in bytes. At least one slab of rows is uploaded per frame regardless.
+     */
+    void setBytesPerFrame(int bytes) {
+        mBytesPerFrame = Math.max(0, bytes);
+    }
+
+    int getBytesPerFrame() {
+        return mBytesPerFrame;
+    }
+
+    /**
+     * Sets the time spent uploading per frame.
+     *
+     * @param nanos {@code long} The budget in nanoseconds, 0 for no limit.
+     */
+    void setNanosPerFrame(long nanos) {
+        mNanosPerFrame = Math.max(0, nanos);
+    }
+
+    long getNanosPerFrame() {
+        return mNanosPerFrame;
+    }
+
+    @NonNull
+    Job submit(@NonNull ASingleTexture texture, int resourceId) {
+        final Job job = new Job(texture, resourceId);
+        mJobs.add(job);
+        return job;
+    }
+
+    boolean isPending(@NonNull ATexture texture) {
+        return findJob(texture) != null;
+    }
+
+    int getPendingCount() {
+        return mJobs.size();
+    }
+
+    /**
+     * Uploads the next slabs of the decoded textures, within the budgets.
+     *
+     * @param completed {@link List} The textures that are completely uploaded are added to this list.
+     */
+    void upload(@NonNull List<ASingleTexture> completed) {
+        if (mJobs.isEmpty()) {
+            return;
+        }
+        for (Job job : mJobs) {
+            if (!job.mPlaceholderBound) {
+                job.mTexture.setTextureId(getPlaceholderId());
+                job.mPlaceholderBound = true;
+            }
+        }
+
+        final long start = System.nanoTime();
+        final long nanosPerFrame = mNanosPerFrame;
+        long remaining = mBytesPerFrame;
+        boolean uploaded = false;
+        final Iterator<Job> iterator = mJobs.iterator();
+        while (iterator.hasNext()) {
+            final Job job = iterator.next();
+            if (job.mError != null) {
+                RajLog.e("Could not upload texture " + job.mTexture.getTextureName() + ": " + job.mError);
+                iterator.remove();
+                deleteTexture(job);
+                continue;
+            }
+            if (!job.mDecoded) {
+                continue;
+            }
+            final int rowBytes = job.mWidth * job.mBytesPerPixel;
+            while (job.mNextRow < job.mHeight) {
+                if (uploaded && (remaining <= 0 || (nanosPerFrame > 0 && System.nanoTime() - start >= nanosPerFrame))) {
+                    return;
+                }
+                final int rows = getSlabRows(rowBytes, job.mHeight - job.mNextRow,
+                                             Math.min(remaining, MAX_SLAB_BYTES));
+                uploadSlab(job, rows);
+                remaining -= (long) rows * rowBytes;
+                uploaded = true;
+            }
+            iterator.remove();
+            finish(job);
+            completed.add(job.mTexture);
+        }
+    }
+
+    /**
+     * Returns the number of rows to upload in one slab.
+     *
+     * @param rowBytes {@code int} The size of a row in bytes.
+     * @param rowsLeft {@code int} The number of rows which are not uploaded yet.
+     * @param maxBytes {@code long} The number of bytes which may be uploaded.
+     *
+     * @return {@code int} The number of rows, at least one.
+     */
+    static int getSlabRows(int rowBytes, int rowsLeft, long maxBytes) {
+        final long rows = rowBytes > 0 ? maxBytes / rowBytes : rowsLeft;
+        return (int) Math.max(1, Math.min(rows, rowsLeft));
+    }
+
+    /**
+     * Stops uploading a texture.
+     *
+     * @return {@code boolean} True if the texture was still pending.
+     */
+    boolean cancel(@NonNull ATexture texture) {
+        final Job job = findJob(texture);
+        if (job == null || !mJobs.remove(job)) {
+            return false;
+        }
+        deleteTexture(job);
+        texture.setTextureId(-1);
+        return true;
+    }
+
+    /**
+     * Starts the pending uploads over after the GL context was lost, along with every texture id. The textures went
+     * with the context, so they are forgotten rather than deleted.
+     */
+    void onContextLost() {
+        mPlaceholderId = 0;
+        for (Job job : mJobs) {
+            job.mTextureId = 0;
+            job.mAllocated = false;
+            job.mPlaceholderBound = false;
+            job.mNextRow = 0;
+        }
+    }
+
+    /**
+     * Drops the pending uploads, and deletes the textures they were uploading into along with the placeholder.
+     */
+    void clear() {
+        if (Renderer.hasGLContext()) {
+            for (Job job : mJobs) {
+                deleteTexture(job);
+            }
+            if (mPlaceholderId != 0) {
+                GLES20.glDeleteTextures(1, new int[]{ mPlaceholderId }, 0);
+            }
+        }
+        mJobs.clear();
+        mPlaceholderId = 0;
+    }
+
+    @Nullable
+    private Job findJob(@NonNull ATexture texture) {
+        for (Job job : mJobs) {
+            if (job.mTexture == texture) {
+                return job;
+            }
+        }
+        return null;
+    }
+
+    private void uploadSlab(@NonNull Job job, int rows) {
+        if (!job.mAllocated) {
+            final int[] names = new int[1];
+            GLES20.glGenTextures(1, names, 0);
+            job.mTextureId = names[0];
+            GLES20.glBindTexture(GLES20.GL_TEXTURE_2D, job.mTextureId);
+            job.mTexture.applyTextureParameters();
+            GLES20.glTexImage2D(GLES20.GL_TEXTURE_2D, 0, job.mFormat, job.mWidth, job.mHeight, 0, job.mFormat,
+                                job.mType, null);
+            job.mAllocated = true;
+        } else {
+            GLES20.glBindTexture(GLES20.GL_TEXTURE_2D, job.mTextureId);
+        }
+
+        job.mPixels.position(job.mNextRow * job.mWidth * job.mBytesPerPixel);
+        if (job.mBytesPerPixel != 4) {
+            GLES20.glPixelStorei(GLES20.GL_UNPACK_ALIGNMENT, 2);
+        }
+        GLES20.glTexSubImage2D(GLES20.GL_TEXTURE_2D, 0, 0, job.mNextRow, job.mWidth, rows, job.mFormat, job.mType,
+                               job.mPixels);
+        if (job.mBytesPerPixel != 4) {
+            GLES20.glPixelStorei(GLES20.GL_UNPACK_ALIGNMENT, 4);
+        }
+        GLES20.glBindTexture(GLES20.GL_TEXTURE_2D, 0);
+        job.mNextRow += rows;
+    }
+
+    private void finish(@NonNull Job job) {
+        final ASingleTexture texture = job.mTexture;
+        if (texture.isMipmap()) {
+            GLES20.glBindTexture(GLES20.GL_TEXTURE_2D, job.mTextureId);
+            GLES20.glGenerateMipmap(GLES20.GL_TEXTURE_2D);
+            GLES20.glBindTexture(GLES20.GL_TEXTURE_2D, 0);
+        }
+        texture.setWidth(job.mWidth);
+        texture.setHeight(job.mHeight);
+        texture.setBitmapFormat(job.mFormat);
+        // Kept so the texture can be uploaded again, unless it is released below
+        texture.setBitmap(job.mBitmap);
+        texture.setTextureId(job.mTextureId);
+        texture.releaseBitmapAfterUpload();
+        job.mBitmap = null;
+        job.mPixels = null;
+    }
+
+    private void deleteTexture(@NonNull Job job) {
+        if (job.mAllocated) {
+            GLES20.glDeleteTextures(1, new int[]{ job.mTextureId }, 0);
+            job.mAllocated = false;
+        }
+    }
+
+    private int getPlaceholderId() {
+        if (mPlaceholderId == 0) {
+            final int[] names = new int[1];
+            GLES20.glGenTextures(1, names, 0);
+            mPlaceholderId = names[0];
+            final ByteBuffer pixel = ByteBuffer.allocateDirect(4);
+            pixel.put((byte) (PLACEHOLDER_COLOR >> 16)).put((byte) (PLACEHOLDER_COLOR >> 8))
+                    .put((byte) PLACEHOLDER_COLOR).put((byte) (PLACEHOLDER_COLOR >>> 24)).rewind();
+            GLES20.glBindTexture(GLES20.GL_TEXTURE_2D, mPlaceholderId);
+            GLES20.glTexParameteri(GLES20.GL_TEXTURE_2D, GLES20.GL_TEXTURE_MIN_FILTER, GLES20.GL_NEAREST);
+            GLES20.glTexParameteri(GLES20.GL_TEXTURE_2D, GLES20.GL_TEXTURE_MAG_FILTER, GLES20.GL_NEAREST);
+            GLES20.glTexImage2D(GLES20.GL_TEXTURE_2D, 0, GLES20.GL_RGBA, 1, 1, 0, GLES20.GL_RGBA,
+                                GLES20.GL_UNSIGNED_BYTE, pixel);
+            GLES20.glBindTexture(GLES20.GL_TEXTURE_2D, 0);
+        }
+        return mPlaceholderId;
+    }
+}
@@ -0,0 +1,323 @@
+/**
+ * Copyright 2013 Dennis Ippel
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except in compliance with
+ * the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License is distributed on
+ * an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations under the License.
+ */
+package org.rajawali3d.math;
+
+import androidx.annotation.NonNull;
+
+import java.nio.FloatBuffer;
+
+/**
+ * Single precision matrix utilities for the render loop, where values end up as floats handed to GL anyway. They work
+ * on the same column major layout as {@link Matrix} and {@link Matrix4}, read and write at an offset into float arrays
+ * so several matrices can share one array, and allocate nothing.
+ *
+ * Every method reads all of its inputs before writing its result, so the result may be the same array, at the same
+ * offset, as any input. {@link Matrix4} and the double precision methods of {@link Matrix} remain the API for user
+ * facing work which needs the precision.
+ */
+public final class FloatMatrix {
+
+    private FloatMatrix() {
+    }
+
+    /**
+     * Narrows a double precision matrix into a float array.
+     *
+     * @param result       {@code float} array to store the matrix in.
+     * @param resultOffset {@code int} The index of the first element of the result.
+     * @param m            {@code double} array holding the matrix.
+     * @param mOffset      {@code int} The index of the first element of the matrix.
+     */
+    public static void set(@NonNull float[] result, int resultOffset, @NonNull double[] m, int mOffset) {
+        for (int i = 0; i < 16; ++i) {
+            result[resultOffset + i] = (float) m[mOffset + i];
+        }
+    }
+
+    /**
+     * Writes a matrix into a {@link FloatBuffer} at an absolute position, leaving the buffer's position unchanged.
+     *
+     * @param buffer  {@link FloatBuffer} to write to.
+     * @param index   {@code int} The index in the buffer of the first element.
+     * @param m       {@code float} array holding the matrix.
+     * @param mOffset {@code int} The index of the first element of the matrix.
+     */
+    public static void put(@NonNull FloatBuffer buffer, int index, @NonNull float[] m, int mOffset) {
+        for (int i = 0; i < 16; ++i) {
+            buffer.put(index + i, m[mOffset + i]);
+        }
+    }
+
+    /**
+     * Sets a matrix to the identity.
+     *
+     * @param result       {@code float} array to store the matrix in.
+     * @param resultOffset {@code int} The index of the first element of the result.
+     */
+    public static void setIdentity(@NonNull float[] result, int resultOffset) {
+        for (int i = 0; i < 16; ++i) {
+            result[resultOffset + i] = (i % 5 == 0) ? 1f : 0f;
+        }
+    }
+
+    /**
+     * Multiplies two 4x4 matrices, result = lhs x rhs.
+     *
+     * @param result       {@code float} array to store the product in.
+     * @param resultOffset {@code int} The index of the first element of the result.
+     * @param lhs          {@code float} array holding the left hand side matrix.
+     * @param lhsOffset    {@code int} The index of the first element of the left hand side.
+     * @param rhs          {@code float} array holding the right hand side matrix.
+     * @param rhsOffset    {@code int} The index of the first element of the right hand side.
+     */
+    public static void multiplyMM(@NonNull float[] result, int resultOffset, @NonNull float[] lhs, int lhsOffset,
+                                  @NonNull float[] rhs, int rhsOffset) {
+        final float l00 = lhs[lhsOffset], l10 = lhs[lhsOffset + 1], l20 = lhs[lhsOffset + 2],
+            l30 = lhs[lhsOffset + 3];
+        final float l01 = lhs[lhsOffset + 4], l11 = lhs[lhsOffset + 5], l21 = lhs[lhsOffset + 6],
+            l31 = lhs[lhsOffset + 7];
+        final float l02 = lhs[lhsOffset + 8], l12 = lhs[lhsOffset + 9], l22 = lhs[lhsOffset + 10],
+            l32 = lhs[lhsOffset + 11];
+        final float l03 = lhs[lhsOffset + 12], l13 = lhs[lhsOffset + 13], l23 = lhs[lhsOffset + 14],
+            l33 = lhs[lhsOffset + 15];
+
+        for (int c = 0; c < 4; ++c) {
+            final int r = rhsOffset + c * 4;
+            final float r0 = rhs[r];
+            final float r1 = rhs[r + 1];
+            final float r2 = rhs[r + 2];
+            final float r3 = rhs[r + 3];
+            final int o = resultOffset + c * 4;
+            result[o] = l00 * r0 + l01 * r1 + l02 * r2 + l03 * r3;
+            result[o + 1] = l10 * r0 + l11 * r1 + l12 * r2 + l13 * r3;
+            result[o + 2] = l20 * r0 + l21 * r1 + l22 * r2 + l23 * r3;
+            result[o + 3] = l30 * r0 + l31 * r1 + l32 * r2 + l33 * r3;
+        }
+    }
+
+    /**
+     * Multiplies two affine 4x4 matrices, result = lhs x rhs. The bottom rows of both matrices are assumed to be
+     * 0, 0, 0, 1 and are not read, which saves over a third of the work of {@link #multiplyMM}.
+     *
+     * @param result       {@code float} array to store the product in.
+     * @param resultOffset {@code int} The index of the first element of the result.
+     * @param lhs          {@code float} array holding the left hand side matrix.
+     * @param lhsOffset    {@code int} The index of the first element of the left hand side.
+     * @param rhs          {@code float} array holding the right hand side matrix.
+     * @param rhsOffset    {@code int} The index of the first element of the right hand side.
+     */
+    public static void multiplyAffineMM(@NonNull float[] result, int resultOffset, @NonNull float[] lhs,
+                                        int lhsOffset, @NonNull float[] rhs, int rhsOffset) {
+        final float l00 = lhs[lhsOffset], l10 = lhs[lhsOffset + 1], l20 = lhs[lhsOffset + 2];
+        final float l01 = lhs[lhsOffset + 4], l11 = lhs[lhsOffset + 5], l21 = lhs[lhsOffset + 6];
+        final float l02 = lhs[lhsOffset + 8], l12 = lhs[lhsOffset + 9], l22 = lhs[lhsOffset + 10];
+        final float l03 = lhs[lhsOffset + 12], l13 = lhs[lhsOffset + 13], l23 = lhs[lhsOffset + 14];
+
+        for (int c = 0; c < 4; ++c) {
+            final int r = rhsOffset + c * 4;
+            final float r0 = rhs[r];
+            final float r1 = rhs[r + 1];
+            final float r2 = rhs[r + 2];
+            final int o = resultOffset + c * 4;
+            if (c < 3) {
+                result[o] = l00 * r0 + l01 * r1 + l02 * r2;
+                result[o + 1] = l10 * r0 + l11 * r1 + l12 * r2;
+                result[o + 2] = l20 * r0 + l21 * r1 + l22 * r2;
+                result[o + 3] = 0;
+            } else {
+                result[o] = l00 * r0 + l01 * r1 + l02 * r2 + l03;
+                result[o + 1] = l10 * r0 + l11 * r1 + l12 * r2 + l13;
+                result[o + 2] = l20 * r0 + l21 * r1 + l22 * r2 + l23;
+                result[o + 3] = 1;
+            }
+        }
+    }
+
+    /**
+     * Inverts an affine 4x4 matrix, by inverting its upper 3x3 part and transforming the negated translation. The
+     * bottom row is assumed to be 0, 0, 0, 1.
+     *
+     * @param result       {@code float} array to store the inverse in.
+     * @param resultOffset {@code int} The index of the first element of the result.
+     * @param m            {@code float} array holding the matrix.
+     * @param mOffset      {@code int} The index of the first element of the matrix.
+     * @return {@code boolean} False, leaving the result unchanged, if the matrix is singular.
+     */
+    public static boolean invertAffineM(@NonNull float[] result, int resultOffset, @NonNull float[] m, int mOffset) {
+        final float m00 = m[mOffset], m10 = m[mOffset + 1], m20 = m[mOffset + 2];
+        final float m01 = m[mOffset + 4], m11 = m[mOffset + 5], m21 = m[mOffset + 6];
+        final float m02 = m[mOffset + 8], m12 = m[mOffset + 9], m22 = m[mOffset + 10];
+        final float m03 = m[mOffset + 12], m13 = m[mOffset + 13], m23 = m[mOffset + 14];
+
+        // Cofactors of the upper 3x3
+        final float c00 = m11 * m22 - m12 * m21;
+        final float c01 = m12 * m20 - m10 * m22;
+        final float c02 = m10 * m21 - m11 * m20;
+        final float det = m00 * c00 + m01 * c01 + m02 * c02;
+        if (det == 0 || Float.isNaN(det) || Float.isInfinite(det)) {
+            return false;
+        }
+        final float invDet = 1f / det;
+
+        final float i00 = c00 * invDet;
+        final float i01 = (m02 * m21 - m01 * m22) * invDet;
+        final float i02 = (m01 * m12 - m02 * m11) * invDet;
+        final float i10 = c01 * invDet;
+        final float i11 = (m00 * m22 - m02 * m20) * invDet;
+        final float i12 = (m02 * m10 - m00 * m12) * invDet;
+        final float i20 = c02 * invDet;
+        final float i21 = (m01 * m20 - m00 * m21) * invDet;
+        final float i22 = (m00 * m11 - m01 * m10) * invDet;
+
+        final int o = resultOffset;
+        result[o] = i00;
+        result[o + 1] = i10;
+        result[o + 2] = i20;
+        result[o + 3] = 0;
+        result[o + 4] = i01;
+        result[o + 5] = i11;
+        result[o + 6] = i21;
+        result[o + 7] = 0;
+        result[o + 8] = i02;
+        result[o + 9] = i12;
+        result[o + 10] = i22;
+        result[o + 11] = 0;
+        result[o + 12] = -(i00 * m03 + i01 * m13 + i02 * m23);
+        result[o + 13] = -(i10 * m03 + i11 * m13 + i12 * m23);
+        result[o + 14] = -(i20 * m03 + i21 * m13 + i22 * m23);
+        result[o + 15] = 1;
+        return true;
+    }
+
+    /**
+     * Calculates the 3x3 normal matrix, the inverse transpose of the upper 3x3 part, of a 4x4 matrix. The result is
+     * column major, ready for {@code glUniformMatrix3fv}. Each element is the cofactor of the matching element divided by
+     * the determinant, which avoids both the general 4x4 inverse and the transpose.
+     *
+     * @param result       {@code float} array to store the 3x3 normal matrix in.
+     * @param resultOffset {@code int} The index of the first element of the result.
+     * @param m            {@code float} array holding the 4x4 matrix.
+     * @param mOffset      {@code int} The index of the first element of the matrix.
+     * @return {@code boolean} False, leaving the result unchanged, if the matrix is singular.
+     */
+    public static boolean normalMatrix(@NonNull float[] result, int resultOffset, @NonNull float[] m, int mOffset) {
+        final float m00 = m[mOffset], m10 = m[mOffset + 1], m20 = m[mOffset + 2];
+        final float m01 = m[mOffset + 4], m11 = m[mOffset + 5], m21 = m[mOffset + 6];
+        final float m02 = m[mOffset + 8], m12 = m[mOffset + 9], m22 = m[mOffset + 10];
+
+        final float c00 = m11 * m22 - m12 * m21;
+        final float c01 = m12 * m20 - m10 * m22;
+        final float c02 = m10 * m21 - m11 * m20;
+        final float det = m00 * c00 + m01 * c01 + m02 * c02;
+        if (det == 0 || Float.isNaN(det) || Float.isInfinite(det)) {
+            return false;
+        }
+        final float invDet = 1f / det;
+
+        final int o = resultOffset;
+        result[o] = c00 * invDet;
+        result[o + 1] = (m02 * m21 - m01 * m22) * invDet;
+        result[o + 2] = (m01 * m12 - m02 * m11) * invDet;
+        result[o + 3] = c01 * invDet;
+        result[o + 4] = (m00 * m22 - m02 * m20) * invDet;
+        result[o + 5] = (m02 * m10 - m00 * m12) * invDet;
+        result[o + 6] = c02 * invDet;
+        result[o + 7] = (m01 * m20 - m00 * m21) * invDet;
+        result[o + 8] = (m00 * m11 - m01 * m10) * invDet;
+        return true;
+    }
+
+    /**
+     * Calculates the 3x3 normal matrix of a 4x4 matrix which scales all axes by the same amount. The inverse transpose
+     * of a rotation scaled by s is the same rotation scaled by 1 / s, so this is the upper 3x3 part divided by its
+     * squared scale, with no inverse at all.
+     *
+     * @param result       {@code float} array to store the 3x3 normal matrix in.
+     * @param resultOffset {@code int} The index of the first element of the result.
+     * @param m            {@code float} array holding the 4x4 matrix.
+     * @param mOffset      {@code int} The index of the first element of the matrix.
+     * @return {@code boolean} False, leaving the result unchanged, if the scale is zero.
+     */
+    public static boolean uniformScaleNormalMatrix(@NonNull float[] result, int resultOffset, @NonNull float[] m,
+                                                   int mOffset) {
+        final float scaleSquared = m[mOffset] * m[mOffset] + m[mOffset + 1] * m[mOffset + 1]
+                                   + m[mOffset + 2] * m[mOffset + 2];
+        if (scaleSquared == 0 || Float.isNaN(scaleSquared) || Float.isInfinite(scaleSquared)) {
+            return false;
+        }
+        final float invScaleSquared = 1f / scaleSquared;
+        for (int column = 0; column < 3; ++column) {
+            final int o = resultOffset + column * 3;
+            final int i = mOffset + column * 4;
+            result[o] = m[i] * invScaleSquared;
+            result[o + 1] = m[i + 1] * invScaleSquared;
+            result[o + 2] = m[i + 2] * invScaleSquared;
+        }
+        return true;
+    }
+
+    /**
+     * Sets a matrix to a scale, then rotation, then translation, built the same way as
+     * {@link Matrix4#setAll(org.rajawali3d.math.vector.Vector3, org.rajawali3d.math.vector.Vector3, Quaternion)}.
+     * The quaternion must be normalized.
+     *
+     * @param result       {@code float} array to store the matrix in.
+     * @param resultOffset {@code int} The index of the first element of the result.
+     */
+    public static void setTransform(@NonNull float[] result, int resultOffset, float px, float py, float pz,
+                                    float sx, float sy, float sz, float qw, float qx, float qy, float qz) {
+        final float x2 = qx * qx;
+        final float y2 = qy * qy;
+        final float z2 = qz * qz;
+        final float xy = qx * qy;
+        final float xz = qx * qz;
+        final float yz = qy * qz;
+        final float wx = qw * qx;
+        final float wy = qw * qy;
+        final float wz = qw * qz;
+
+        final int o = resultOffset;
+        result[o + Matrix4.M00] = sx * (1f - 2f * (y2 + z2));
+        result[o + Matrix4.M10] = 2f * sy * (xy - wz);
+        result[o + Matrix4.M20] = 2f * sz * (xz + wy);
+        result[o + Matrix4.M30] = 0;
+
+        result[o + Matrix4.M01] = 2f * sx * (xy + wz);
+        result[o + Matrix4.M11] = sy * (1f - 2f * (x2 + z2));
+        result[o + Matrix4.M21] = 2f * sz * (yz - wx);
+        result[o + Matrix4.M31] = 0;
+
+        result[o + Matrix4.M02] = 2f * sx * (xz - wy);
+        result[o + Matrix4.M12] = 2f * sy * (yz + wx);
+        result[o + Matrix4.M22] = sz * (1f - 2f * (x2 + y2));
+        result[o + Matrix4.M32] = 0;
+
+        result[o + Matrix4.M03] = px;
+        result[o + Matrix4.M13] = py;
+        result[o + Matrix4.M23] = pz;
+        result[o + Matrix4.M33] = 1;
+    }
+
+    /**
+     * Sets a matrix to the rotation of a quaternion, built the same way as
+     * {@link Quaternion#toRotationMatrix(double[])}. The quaternion must be normalized.
+     *
+     * @param result       {@code float} array to store the matrix in.
+     * @param resultOffset {@code int} The index of the first element of the result.
+     * @param quaternion   {@link Quaternion} The rotation.
+     */
+    public static void setRotation(@NonNull float[] result, int resultOffset, @NonNull Quaternion quaternion) {
+        setTransform(result, resultOffset, 0, 0, 0, 1, 1, 1, (float) quaternion.w, (float) quaternion.x,
+                     (float) quaternion.y, (float) quaternion.z);
+    }
+}
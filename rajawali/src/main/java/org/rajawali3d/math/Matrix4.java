@@ -66,14 +66,14 @@ public final class Matrix4 implements Cloneable {
 
     //The following scratch variables are intentionally left as members
     //and not static to ensure that this class can be utilized by multiple threads
-    //in a safe manner without the overhead of synchronization. This is a tradeoff of
-    //speed for memory and it is considered a small enough memory increase to be acceptable.
-    @NonNull @Size(16) private double[]   mTmp   = new double[16]; //A scratch matrix
-    @NonNull @Size(16) private float[]    mFloat = new float[16]; //A float copy of the values, used for sending to GL.
-    @NonNull private final     Quaternion mQuat  = new Quaternion(); //A scratch quaternion.
-    @NonNull private final     Vector3    mVec1  = new Vector3(); //A scratch Vector3
-    @NonNull private final     Vector3    mVec2  = new Vector3(); //A scratch Vector3
-    @NonNull private final     Vector3    mVec3  = new Vector3(); //A scratch Vector3
+    //in a safe manner without the overhead of synchronization. They are created on first
+    //use, as most matrices only ever need one or two of them.
+    @Nullable @Size(16) private double[]   mTmp; //A scratch matrix
+    @Nullable @Size(16) private float[]    mFloat; //A float copy of the values, used for sending to GL.
+    @Nullable private           Quaternion mQuat; //A scratch quaternion.
+    @Nullable private           Vector3    mVec1; //A scratch Vector3
+    @Nullable private           Vector3    mVec2; //A scratch Vector3
+    @Nullable private           Vector3    mVec3; //A scratch Vector3
     @Nullable private Matrix4 mMatrix; //A scratch Matrix4
 
     /**
@@ -190,7 +190,7 @@ public final class Matrix4 implements Cloneable {
      */
     @NonNull
     public Matrix4 setAll(double w, double x, double y, double z) {
-        return setAll(mQuat.setAll(w, x, y, z));
+        return setAll(getScratchQuaternion().setAll(w, x, y, z));
     }
 
     /**
@@ -335,7 +335,8 @@ public final class Matrix4 implements Cloneable {
     }
 
     /**
-     * Inverts this {@link Matrix4}.
+     * Inverts this {@link Matrix4}. Affine matrices, which includes all model and view matrices, are inverted with
+     * {@link #affineInverse()}.
      *
      * @return A reference to this {@link Matrix4} to facilitate chaining.
      *
@@ -343,14 +344,75 @@ public final class Matrix4 implements Cloneable {
      */
     @NonNull
     public Matrix4 inverse() throws IllegalStateException {
-        boolean success = Matrix.invertM(mTmp, 0, m, 0);
+        if (isAffine()) {
+            return affineInverse();
+        }
+        final double[] tmp = getScratch();
+        boolean success = Matrix.invertM(tmp, 0, m, 0);
         if (!success) {
             throw new IllegalStateException("Matrix is singular and cannot be inverted.");
         }
-        System.arraycopy(mTmp, 0, m, 0, 16);
+        System.arraycopy(tmp, 0, m, 0, 16);
+        return this;
+    }
+
+    /**
+     * Inverts this {@link Matrix4}, assuming it is affine: its bottom row is 0, 0, 0, 1. Only the upper 3x3 part is
+     * inverted, and the translation is transformed by it, which is less than half the work of a general inverse.
+     *
+     * @return A reference to this {@link Matrix4} to facilitate chaining.
+     *
+     * @throws IllegalStateException if this matrix is singular and cannot be inverted
+     */
+    @NonNull
+    public Matrix4 affineInverse() throws IllegalStateException {
+        final double m00 = m[M00], m01 = m[M01], m02 = m[M02], m03 = m[M03];
+        final double m10 = m[M10], m11 = m[M11], m12 = m[M12], m13 = m[M13];
+        final double m20 = m[M20], m21 = m[M21], m22 = m[M22], m23 = m[M23];
+
+        final double c00 = m11 * m22 - m12 * m21;
+        final double c01 = m12 * m20 - m10 * m22;
+        final double c02 = m10 * m21 - m11 * m20;
+        final double det = m00 * c00 + m01 * c01 + m02 * c02;
+        if (det == 0) {
+            throw new IllegalStateException("Matrix is singular and cannot be inverted.");
+        }
+        final double invDet = 1.0 / det;
+
+        final double i00 = c00 * invDet;
+        final double i01 = (m02 * m21 - m01 * m22) * invDet;
+        final double i02 = (m01 * m12 - m02 * m11) * invDet;
+        final double i10 = c01 * invDet;
+        final double i11 = (m00 * m22 - m02 * m20) * invDet;
+        final double i12 = (m02 * m10 - m00 * m12) * invDet;
+        final double i20 = c02 * invDet;
+        final double i21 = (m01 * m20 - m00 * m21) * invDet;
+        final double i22 = (m00 * m11 - m01 * m10) * invDet;
+
+        m[M00] = i00;
+        m[M01] = i01;
+        m[M02] = i02;
+        m[M03] = -(i00 * m03 + i01 * m13 + i02 * m23);
+        m[M10] = i10;
+        m[M11] = i11;
+        m[M12] = i12;
+        m[M13] = -(i10 * m03 + i11 * m13 + i12 * m23);
+        m[M20] = i20;
+        m[M21] = i21;
+        m[M22] = i22;
+        m[M23] = -(i20 * m03 + i21 * m13 + i22 * m23);
         return this;
     }
 
+    /**
+     * Checks whether this {@link Matrix4} is affine, that is its bottom row is exactly 0, 0, 0, 1.
+     *
+     * @return {@code boolean} True if the matrix is affine.
+     */
+    public boolean isAffine() {
+        return m[M30] == 0 && m[M31] == 0 && m[M32] == 0 && m[M33] == 1;
+    }
+
     /**
      * Transposes this {@link Matrix4}.
      *
@@ -358,8 +420,9 @@ public final class Matrix4 implements Cloneable {
      */
     @NonNull
     public Matrix4 transpose() {
-        Matrix.transposeM(mTmp, 0, m, 0);
-        System.arraycopy(mTmp, 0, m, 0, 16);
+        final double[] tmp = getScratch();
+        Matrix.transposeM(tmp, 0, m, 0);
+        System.arraycopy(tmp, 0, m, 0, 16);
         return this;
     }
 
@@ -373,11 +436,11 @@ public final class Matrix4 implements Cloneable {
     @NonNull
     public Matrix4 add(@NonNull Matrix4 matrix) {
         // @formatter:off
-		matrix.toArray(mTmp);
-	    m[0] += mTmp[0]; m[1] += mTmp[1]; m[2] += mTmp[2]; m[3] += mTmp[3];
-	    m[4] += mTmp[4]; m[5] += mTmp[5]; m[6] += mTmp[6]; m[7] += mTmp[7];
-	    m[8] += mTmp[8]; m[9] += mTmp[9]; m[10] += mTmp[10]; m[11] += mTmp[11];
-	    m[12] += mTmp[12]; m[13] += mTmp[13]; m[14] += mTmp[14]; m[15] += mTmp[15];
+		final double[] o = matrix.m;
+	    m[0] += o[0]; m[1] += o[1]; m[2] += o[2]; m[3] += o[3];
+	    m[4] += o[4]; m[5] += o[5]; m[6] += o[6]; m[7] += o[7];
+	    m[8] += o[8]; m[9] += o[9]; m[10] += o[10]; m[11] += o[11];
+	    m[12] += o[12]; m[13] += o[13]; m[14] += o[14]; m[15] += o[15];
 	    return this;
         // @formatter:on
     }
@@ -392,11 +455,11 @@ public final class Matrix4 implements Cloneable {
     @NonNull
     public Matrix4 subtract(@NonNull Matrix4 matrix) {
         // @formatter:off
-		matrix.toArray(mTmp);
-	    m[0] -= mTmp[0]; m[1] -= mTmp[1]; m[2] -= mTmp[2]; m[3] -= mTmp[3];
-	    m[4] -= mTmp[4]; m[5] -= mTmp[5]; m[6] -= mTmp[6]; m[7] -= mTmp[7];
-	    m[8] -= mTmp[8]; m[9] -= mTmp[9]; m[10] -= mTmp[10]; m[11] -= mTmp[11];
-	    m[12] -= mTmp[12]; m[13] -= mTmp[13]; m[14] -= mTmp[14]; m[15] -= mTmp[15];
+		final double[] o = matrix.m;
+	    m[0] -= o[0]; m[1] -= o[1]; m[2] -= o[2]; m[3] -= o[3];
+	    m[4] -= o[4]; m[5] -= o[5]; m[6] -= o[6]; m[7] -= o[7];
+	    m[8] -= o[8]; m[9] -= o[9]; m[10] -= o[10]; m[11] -= o[11];
+	    m[12] -= o[12]; m[13] -= o[13]; m[14] -= o[14]; m[15] -= o[15];
 	    return this;
         // @formatter:on
     }
@@ -413,8 +476,9 @@ public final class Matrix4 implements Cloneable {
      */
     @NonNull
     public Matrix4 multiply(@NonNull Matrix4 matrix) {
-        System.arraycopy(m, 0, mTmp, 0, 16);
-        Matrix.multiplyMM(m, 0, mTmp, 0, matrix.getDoubleValues(), 0);
+        final double[] tmp = getScratch();
+        System.arraycopy(m, 0, tmp, 0, 16);
+        Matrix.multiplyMM(m, 0, tmp, 0, matrix.getDoubleValues(), 0);
         return this;
     }
 
@@ -430,8 +494,9 @@ public final class Matrix4 implements Cloneable {
      */
     @NonNull
     public Matrix4 leftMultiply(@NonNull Matrix4 matrix) {
-        System.arraycopy(m, 0, mTmp, 0, 16);
-        Matrix.multiplyMM(m, 0, matrix.getDoubleValues(), 0, mTmp, 0);
+        final double[] tmp = getScratch();
+        System.arraycopy(m, 0, tmp, 0, 16);
+        Matrix.multiplyMM(m, 0, matrix.getDoubleValues(), 0, tmp, 0);
         return this;
     }
 
@@ -561,7 +626,7 @@ public final class Matrix4 implements Cloneable {
      */
     @NonNull
     public Matrix4 rotate(@NonNull Vector3 axis, double angle) {
-        return angle == 0 ? this : rotate(mQuat.fromAngleAxis(axis, angle));
+        return angle == 0 ? this : rotate(getScratchQuaternion().fromAngleAxis(axis, angle));
     }
 
     /**
@@ -575,7 +640,7 @@ public final class Matrix4 implements Cloneable {
      */
     @NonNull
     public Matrix4 rotate(@NonNull Axis axis, double angle) {
-        return angle == 0 ? this : rotate(mQuat.fromAngleAxis(axis, angle));
+        return angle == 0 ? this : rotate(getScratchQuaternion().fromAngleAxis(axis, angle));
     }
 
     /**
@@ -591,7 +656,7 @@ public final class Matrix4 implements Cloneable {
      */
     @NonNull
     public Matrix4 rotate(double x, double y, double z, double angle) {
-        return angle == 0 ? this : rotate(mQuat.fromAngleAxis(x, y, z, angle));
+        return angle == 0 ? this : rotate(getScratchQuaternion().fromAngleAxis(x, y, z, angle));
     }
 
     /**
@@ -605,7 +670,7 @@ public final class Matrix4 implements Cloneable {
      */
     @NonNull
     public Matrix4 rotate(@NonNull Vector3 v1, @NonNull Vector3 v2) {
-        return rotate(mQuat.fromRotationBetween(v1, v2));
+        return rotate(getScratchQuaternion().fromRotationBetween(v1, v2));
     }
 
     /**
@@ -706,9 +771,9 @@ public final class Matrix4 implements Cloneable {
      */
     @NonNull
     public Matrix4 lerp(@NonNull Matrix4 matrix, double t) {
-        matrix.toArray(mTmp);
+        final double[] o = matrix.m;
         for (int i = 0; i < 16; ++i) {
-            m[i] = m[i] * (1.0 - t) + t * mTmp[i];
+            m[i] = m[i] * (1.0 - t) + t * o[i];
         }
         return this;
     }
@@ -725,7 +790,66 @@ public final class Matrix4 implements Cloneable {
         m[M03] = 0;
         m[M13] = 0;
         m[M23] = 0;
-        return inverse().transpose();
+        if (!isAffine()) {
+            return inverse().transpose();
+        }
+        // The inverse transpose of the upper 3x3 is its cofactor matrix divided by the determinant
+        final double m00 = m[M00], m01 = m[M01], m02 = m[M02];
+        final double m10 = m[M10], m11 = m[M11], m12 = m[M12];
+        final double m20 = m[M20], m21 = m[M21], m22 = m[M22];
+        final double c00 = m11 * m22 - m12 * m21;
+        final double c01 = m12 * m20 - m10 * m22;
+        final double c02 = m10 * m21 - m11 * m20;
+        final double det = m00 * c00 + m01 * c01 + m02 * c02;
+        if (det == 0) {
+            throw new IllegalStateException("Matrix is singular and cannot be inverted.");
+        }
+        final double invDet = 1.0 / det;
+        m[M00] = c00 * invDet;
+        m[M01] = c01 * invDet;
+        m[M02] = c02 * invDet;
+        m[M10] = (m02 * m21 - m01 * m22) * invDet;
+        m[M11] = (m00 * m22 - m02 * m20) * invDet;
+        m[M12] = (m01 * m20 - m00 * m21) * invDet;
+        m[M20] = (m01 * m12 - m02 * m11) * invDet;
+        m[M21] = (m02 * m10 - m00 * m12) * invDet;
+        m[M22] = (m00 * m11 - m01 * m10) * invDet;
+        return this;
+    }
+
+    /**
+     * Sets this {@link Matrix4} to its normal matrix, assuming it scales all axes by the same amount. The inverse
+     * transpose of a rotation scaled by s is the same rotation scaled by 1 / s, so the upper 3x3 part is divided by
+     * its squared scale and no inverse is needed.
+     *
+     * @return A reference to this {@link Matrix4} to facilitate chaining.
+     *
+     * @throws IllegalStateException if the scale is zero.
+     */
+    @NonNull
+    public Matrix4 setToUniformScaleNormalMatrix() throws IllegalStateException {
+        final double scaleSquared = m[M00] * m[M00] + m[M10] * m[M10] + m[M20] * m[M20];
+        if (scaleSquared == 0) {
+            throw new IllegalStateException("Matrix is singular and cannot be inverted.");
+        }
+        final double invScaleSquared = 1.0 / scaleSquared;
+        m[M00] *= invScaleSquared;
+        m[M10] *= invScaleSquared;
+        m[M20] *= invScaleSquared;
+        m[M01] *= invScaleSquared;
+        m[M11] *= invScaleSquared;
+        m[M21] *= invScaleSquared;
+        m[M02] *= invScaleSquared;
+        m[M12] *= invScaleSquared;
+        m[M22] *= invScaleSquared;
+        m[M03] = 0;
+        m[M13] = 0;
+        m[M23] = 0;
+        m[M30] = 0;
+        m[M31] = 0;
+        m[M32] = 0;
+        m[M33] = 1;
+        return this;
     }
 
     /**
@@ -917,7 +1041,7 @@ public final class Matrix4 implements Cloneable {
      */
     @NonNull
     public Matrix4 setToRotation(@NonNull Vector3 axis, double angle) {
-        return angle == 0 ? identity() : setAll(mQuat.fromAngleAxis(axis, angle));
+        return angle == 0 ? identity() : setAll(getScratchQuaternion().fromAngleAxis(axis, angle));
     }
 
     /**
@@ -930,7 +1054,7 @@ public final class Matrix4 implements Cloneable {
      */
     @NonNull
     public Matrix4 setToRotation(@NonNull Axis axis, double angle) {
-        return angle == 0 ? identity() : setAll(mQuat.fromAngleAxis(axis, angle));
+        return angle == 0 ? identity() : setAll(getScratchQuaternion().fromAngleAxis(axis, angle));
     }
 
     /**
@@ -945,7 +1069,7 @@ public final class Matrix4 implements Cloneable {
      */
     @NonNull
     public Matrix4 setToRotation(double x, double y, double z, double angle) {
-        return angle == 0 ? identity() : setAll(mQuat.fromAngleAxis(x, y, z, angle));
+        return angle == 0 ? identity() : setAll(getScratchQuaternion().fromAngleAxis(x, y, z, angle));
     }
 
     /**
@@ -958,7 +1082,7 @@ public final class Matrix4 implements Cloneable {
      */
     @NonNull
     public Matrix4 setToRotation(@NonNull Vector3 v1, @NonNull Vector3 v2) {
-        return setAll(mQuat.fromRotationBetween(v1, v2));
+        return setAll(getScratchQuaternion().fromRotationBetween(v1, v2));
     }
 
     /**
@@ -976,7 +1100,7 @@ public final class Matrix4 implements Cloneable {
      */
     @NonNull
     public Matrix4 setToRotation(double x1, double y1, double z1, double x2, double y2, double z2) {
-        return setAll(mQuat.fromRotationBetween(x1, y1, z1, x2, y2, z2));
+        return setAll(getScratchQuaternion().fromRotationBetween(x1, y1, z1, x2, y2, z2));
     }
 
     /**
@@ -990,7 +1114,7 @@ public final class Matrix4 implements Cloneable {
      */
     @NonNull
     public Matrix4 setToRotation(double yaw, double pitch, double roll) {
-        return setAll(mQuat.fromEuler(yaw, pitch, roll));
+        return setAll(getScratchQuaternion().fromEuler(yaw, pitch, roll));
     }
 
     /**
@@ -1004,8 +1128,7 @@ public final class Matrix4 implements Cloneable {
      */
     @NonNull
     public Matrix4 setToLookAt(@NonNull Vector3 direction, @NonNull Vector3 up) {
-        mQuat.lookAt(direction, up);
-        return setAll(mQuat);
+        return setAll(getScratchQuaternion().lookAt(direction, up));
     }
 
     /**
@@ -1019,6 +1142,9 @@ public final class Matrix4 implements Cloneable {
      */
     @NonNull
     public Matrix4 setToLookAt(@NonNull Vector3 position, @NonNull Vector3 target, @NonNull Vector3 up) {
+        if (mVec1 == null) {
+            mVec1 = new Vector3();
+        }
         mVec1.subtractAndSet(target, position);
         return setToLookAt(mVec1, up);
     }
@@ -1035,6 +1161,11 @@ public final class Matrix4 implements Cloneable {
      */
     @NonNull
     public Matrix4 setToWorld(@NonNull Vector3 position, @NonNull Vector3 forward, @NonNull Vector3 up) {
+        if (mVec1 == null) {
+            mVec1 = new Vector3();
+            mVec2 = new Vector3();
+            mVec3 = new Vector3();
+        }
         mVec1.setAll(forward).normalize(); // Forward
         mVec2.setAll(mVec1).cross(up).normalize(); // Right
         mVec3.setAll(mVec2).cross(mVec1).normalize(); // Up
@@ -1215,6 +1346,9 @@ public final class Matrix4 implements Cloneable {
     @NonNull
     @Size(16)
     public float[] getFloatValues() {
+        if (mFloat == null) {
+            mFloat = new float[16];
+        }
         ArrayUtils.convertDoublesToFloats(m, mFloat);
         return mFloat;
     }
@@ -1271,6 +1405,23 @@ public final class Matrix4 implements Cloneable {
         // @formatter:on
     }
 
+    @NonNull
+    @Size(16)
+    private double[] getScratch() {
+        if (mTmp == null) {
+            mTmp = new double[16];
+        }
+        return mTmp;
+    }
+
+    @NonNull
+    private Quaternion getScratchQuaternion() {
+        if (mQuat == null) {
+            mQuat = new Quaternion();
+        }
+        return mQuat;
+    }
+
     @Override
     public boolean equals(Object o) {
         if (this == o) {
@@ -0,0 +1,50 @@
+/**
+ * Copyright 2013 Dennis Ippel
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except in compliance with
+ * the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License is distributed on
+ * an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations under the License.
+ */
+package org.rajawali3d.postprocessing;
+
+import org.rajawali3d.materials.shaders.AShader;
+
+/**
+ * A pass that changes each pixel using nothing but that pixel's color and position. The
+ * {@link PostProcessingManager} combines consecutive color passes of the same size into a single draw, so the frame
+ * is read and written once for the whole run instead of once per pass.
+ */
+public interface IColorPass extends IPass {
+	/**
+	 * Returns the GLSL of this pass as a function {@code vec4 name(vec4 color)} that maps the incoming color to the
+	 * outgoing one, preceded by the declarations of the uniforms it uses. Every uniform name has to end with the
+	 * given suffix so the functions of several passes can live in one shader. Besides its uniforms the function may
+	 * only use {@code vTextureCoord} and {@code gl_FragCoord}; it must not sample the frame.
+	 *
+	 * @param name   The name of the function.
+	 * @param suffix The suffix of the uniform names.
+	 * @return The GLSL source.
+	 */
+	String getColorFunction(String name, String suffix);
+
+	/**
+	 * Returns the names of the uniforms declared by {@link #getColorFunction(String, String)}, without the suffix.
+	 *
+	 * @return The uniform names.
+	 */
+	String[] getColorFunctionUniforms();
+
+	/**
+	 * Sets the uniforms declared by {@link #getColorFunction(String, String)}.
+	 *
+	 * @param shader   The shader that contains the function.
+	 * @param uniforms The names returned by {@link #getColorFunctionUniforms()}, in the same order, with the suffix
+	 *                 of the function appended.
+	 */
+	void setColorFunctionParams(AShader shader, String[] uniforms);
+}
@@ -25,16 +25,27 @@ import org.rajawali3d.postprocessing.IPass.PassType;
 import org.rajawali3d.postprocessing.IPostProcessingComponent.PostProcessingComponentType;
 import org.rajawali3d.postprocessing.passes.CopyPass;
 import org.rajawali3d.postprocessing.passes.EffectPass;
+import org.rajawali3d.postprocessing.passes.FusedColorPass;
 import org.rajawali3d.primitives.ScreenQuad;
 import org.rajawali3d.renderer.Renderer;
 import org.rajawali3d.renderer.RenderTarget;
+import org.rajawali3d.renderer.RenderTargetPool;
 import org.rajawali3d.scene.Scene;
 import org.rajawali3d.scenegraph.IGraphNode.GRAPH_TYPE;
 
+import java.util.ArrayList;
 import java.util.Collections;
 import java.util.List;
 import java.util.concurrent.CopyOnWriteArrayList;
 
+/**
+ * Renders a chain of passes, each reading the output of the one before it.
+ * <p/>
+ * The buffers the passes render into come from a {@link RenderTargetPool}. Passes of the manager's size ping-pong
+ * between its two render targets, while passes of another size, for instance a blur at reduced resolution, share
+ * pooled targets of their own size. Consecutive {@link IColorPass}es of the same size are fused into a single
+ * {@link FusedColorPass}, which reads and writes the frame once for the whole run.
+ */
 public class PostProcessingManager {
 
     protected Renderer     mRenderer;
@@ -43,9 +54,15 @@ public class PostProcessingManager {
     public    RenderTarget mReadBuffer;
     public    RenderTarget mWriteBuffer;
 
+    protected RenderTargetPool mRenderTargetPool;
+
     protected List<IPostProcessingComponent> mComponents;
     protected List<IPass>                    mPasses;
+    protected final List<IPass>              mSourcePasses      = new ArrayList<>();
+    protected final List<FusedColorPass>     mFusedPasses       = new ArrayList<>();
+    protected boolean[]                      mSourcePassEnabled = new boolean[0];
     protected boolean mComponentsDirty = false;
+    protected boolean mPassFusionEnabled = true;
     protected int mNumPasses;
     protected int mWidth;
     protected int mHeight;
@@ -104,6 +121,11 @@ public class PostProcessingManager {
         mRenderer.addRenderTarget(mWriteBuffer);
         mRenderer.addRenderTarget(mReadBuffer);
 
+        // The first target acquired is the one the first pass reads, the second the one it writes
+        mRenderTargetPool = new RenderTargetPool(mRenderer, "pool" + hashCode());
+        mRenderTargetPool.retain(mRenderTarget1);
+        mRenderTargetPool.retain(mRenderTarget2);
+
         mScene.addChild(mScreenQuad);
         mRenderer.addScene(mScene);
     }
@@ -153,11 +175,19 @@ public class PostProcessingManager {
         mRenderTarget1.resize(width, height);
         mRenderTarget2.resize(width, height);
 
+        final int oldWidth = mWidth;
+        final int oldHeight = mHeight;
         mWidth = width;
         mHeight = height;
 
-        for (IPass pass : mPasses) {
-            if (!pass.getRenderToScreen()) {
+        for (IPass pass : mSourcePasses) {
+            if (pass.getRenderToScreen()) {
+                continue;
+            }
+            if (pass.getWidth() == oldWidth && pass.getHeight() == oldHeight) {
+                // Passes of the manager's size follow it, so they keep rendering into its buffers
+                pass.setSize(width, height);
+            } else {
                 checkAndUpdatePassDimensions(pass);
             }
         }
@@ -170,13 +200,21 @@ public class PostProcessingManager {
     }
 
     public void render(@IntRange(from = 0) long elapsedTime, @FloatRange(from = 0d) double deltaTime) {
-        if (mComponentsDirty) {
+        if (mRenderTarget1.getWidth() != mWidth || mRenderTarget1.getHeight() != mHeight) {
+            // The renderer resizes fullscreen targets along with the surface
+            setSize(mRenderTarget1.getWidth(), mRenderTarget1.getHeight());
+        }
+
+        final boolean passesChanged = mComponentsDirty || hasPassEnabledStateChanged();
+        if (passesChanged) {
             updatePassesList();
             mComponentsDirty = false;
+            // Start tracking which pooled targets the new pass list uses
+            mRenderTargetPool.trim();
         }
 
-        mWriteBuffer = mRenderTarget1;
-        mReadBuffer = mRenderTarget2;
+        mReadBuffer = mRenderTargetPool.acquire(mWidth, mHeight);
+        mWriteBuffer = mReadBuffer;
 
         boolean maskActive = false;
 
@@ -197,6 +235,7 @@ public class PostProcessingManager {
             }
             final boolean depthOrRenderPass = type == PassType.RENDER || type == PassType.DEPTH;
             final Scene renderScene = depthOrRenderPass ? mRenderer.getCurrentScene() : mScene;
+            mWriteBuffer = acquireWriteBuffer(pass);
             pass.render(renderScene, mRenderer, mScreenQuad, mWriteBuffer, mReadBuffer, elapsedTime, deltaTime);
 
             if (pass.needsSwap() && i < mNumPasses - 1) {
@@ -211,6 +250,9 @@ public class PostProcessingManager {
 
                 swapBuffers();
             }
+            // Whichever buffer is not read next can be written by the next pass. It keeps its contents until then,
+            // so the texture of the last pass is still valid after the loop.
+            mRenderTargetPool.release(mWriteBuffer);
 
             // If the current pass is a mask pass, notify the next pass that mask is active.
             if (type == PassType.MASK) {
@@ -222,6 +264,20 @@ public class PostProcessingManager {
 
         // Restore the viewport dimensions
         mRenderer.clearOverrideViewportDimensions();
+
+        mRenderTargetPool.releaseAll();
+        if (passesChanged) {
+            // Drop the pooled targets of sizes the new pass list no longer uses
+            mRenderTargetPool.trim();
+        }
+    }
+
+    @NonNull
+    private RenderTarget acquireWriteBuffer(@NonNull IPass pass) {
+        if (pass.getRenderToScreen() || pass.getWidth() <= 0 || pass.getHeight() <= 0) {
+            return mRenderTargetPool.acquire(mWidth, mHeight);
+        }
+        return mRenderTargetPool.acquire(pass.getWidth(), pass.getHeight());
     }
 
     @NonNull
@@ -230,25 +286,124 @@ public class PostProcessingManager {
     }
 
     private void updatePassesList() {
-        mPasses.clear();
+        mSourcePasses.clear();
 
         for (int i = 0; i < mComponents.size(); ++i) {
             IPostProcessingComponent component = mComponents.get(i);
             if (component.getType() == PostProcessingComponentType.PASS) {
                 checkAndUpdatePassDimensions((IPass) component);
-                mPasses.add((IPass) component);
+                mSourcePasses.add((IPass) component);
             } else if (component.getType() == PostProcessingComponentType.EFFECT) {
                 IPostProcessingEffect effect = (IPostProcessingEffect) component;
                 for (IPass pass : effect.getPasses()) {
                     checkAndUpdatePassDimensions(pass);
                 }
-                mPasses.addAll(effect.getPasses());
+                mSourcePasses.addAll(effect.getPasses());
             }
         }
 
+        mSourcePassEnabled = new boolean[mSourcePasses.size()];
+        for (int i = 0; i < mSourcePassEnabled.length; ++i) {
+            mSourcePassEnabled[i] = mSourcePasses.get(i).isEnabled();
+        }
+
+        for (int i = 0, j = mFusedPasses.size(); i < j; ++i) {
+            mFusedPasses.get(i).destroy();
+        }
+        mFusedPasses.clear();
+
+        mPasses.clear();
+        if (mPassFusionEnabled) {
+            fusePasses();
+        } else {
+            mPasses.addAll(mSourcePasses);
+        }
+
         mNumPasses = mPasses.size();
     }
 
+    /**
+     * Copies the enabled passes to the pass list, replacing each run of color passes that can be drawn together by
+     * a single {@link FusedColorPass}. Disabled passes are left out, so the list is rebuilt when one of them changes.
+     */
+    private void fusePasses() {
+        final List<IColorPass> run = new ArrayList<>();
+        for (int i = 0, j = mSourcePasses.size(); i < j; ++i) {
+            final IPass pass = mSourcePasses.get(i);
+            if (!pass.isEnabled()) {
+                continue;
+            }
+            if (!run.isEmpty() && !canFuse(run.get(run.size() - 1), pass)) {
+                addColorPassRun(run);
+            }
+            if (pass instanceof IColorPass) {
+                run.add((IColorPass) pass);
+            } else {
+                mPasses.add(pass);
+            }
+        }
+        addColorPassRun(run);
+    }
+
+    private static boolean canFuse(@NonNull IColorPass previous, @NonNull IPass next) {
+        return next instanceof IColorPass && !previous.getRenderToScreen()
+               && previous.getWidth() == next.getWidth() && previous.getHeight() == next.getHeight();
+    }
+
+    private void addColorPassRun(@NonNull List<IColorPass> run) {
+        if (run.size() == 1) {
+            mPasses.add(run.get(0));
+        } else if (run.size() > 1) {
+            final FusedColorPass fusedPass = new FusedColorPass(run);
+            mFusedPasses.add(fusedPass);
+            mPasses.add(fusedPass);
+        }
+        run.clear();
+    }
+
+    private boolean hasPassEnabledStateChanged() {
+        if (!mPassFusionEnabled) {
+            return false;
+        }
+        for (int i = 0; i < mSourcePassEnabled.length; ++i) {
+            if (mSourcePasses.get(i).isEnabled() != mSourcePassEnabled[i]) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Sets whether consecutive {@link IColorPass}es of the same size are drawn with one fused shader. Enabled by
+     * default.
+     *
+     * @param enabled {@code boolean} True to fuse color passes.
+     */
+    public void setPassFusionEnabled(boolean enabled) {
+        mPassFusionEnabled = enabled;
+        setComponentsDirty();
+    }
+
+    public boolean isPassFusionEnabled() {
+        return mPassFusionEnabled;
+    }
+
+    /**
+     * Returns the passes as they are rendered, after color passes have been fused. The list is updated on the next
+     * call to {@link #render(long, double)} after the components changed.
+     *
+     * @return The rendered passes.
+     */
+    @NonNull
+    public List<IPass> getRenderedPasses() {
+        return Collections.unmodifiableList(mPasses);
+    }
+
+    @NonNull
+    public RenderTargetPool getRenderTargetPool() {
+        return mRenderTargetPool;
+    }
+
     public boolean isEmpty() {
         return mComponents.isEmpty();
     }
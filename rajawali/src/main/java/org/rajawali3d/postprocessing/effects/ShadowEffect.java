@@ -2,6 +2,7 @@ package org.rajawali3d.postprocessing.effects;
 
 import org.rajawali3d.cameras.Camera;
 import org.rajawali3d.lights.DirectionalLight;
+import org.rajawali3d.lights.ShadowCascades;
 import org.rajawali3d.materials.textures.ATexture.FilterType;
 import org.rajawali3d.materials.textures.ATexture.WrapType;
 import org.rajawali3d.postprocessing.APostProcessingEffect;
@@ -20,16 +21,29 @@ public class ShadowEffect extends APostProcessingEffect {
 	private Camera            mCamera;
 	private DirectionalLight  mLight;
 	private int               mShadowMapSize;
+	private int               mCascadeCount;
 	private RenderTarget      mShadowRenderTarget;
 	private float             mShadowInfluence;
 	private ShadowMapMaterial mShadowMapMaterial;
+	private boolean           mShadowMapCaching;
+	private ShadowPass        mCreatePass;
 
 	public ShadowEffect(Scene scene, Camera camera, DirectionalLight light, int shadowMapSize) {
+		this(scene, camera, light, shadowMapSize, 1);
+	}
+
+	/**
+	 * @param shadowMapSize The size of the shadow map texture, which holds all cascades.
+	 * @param cascadeCount The number of shadow map cascades, from 1 to {@link ShadowCascades#MAX_CASCADES}. With
+	 * more than one, each cascade gets a quarter of the shadow map.
+	 */
+	public ShadowEffect(Scene scene, Camera camera, DirectionalLight light, int shadowMapSize, int cascadeCount) {
 		super();
 		mScene = scene;
 		mCamera = camera;
 		mLight = light;
 		mShadowMapSize = shadowMapSize;
+		mCascadeCount = cascadeCount;
 	}
 
 	public void setShadowInfluence(float influence) {
@@ -38,6 +52,26 @@ public class ShadowEffect extends APostProcessingEffect {
 			mShadowMapMaterial.setShadowInfluence(influence);
 	}
 
+	/**
+	 * Sets whether the shadow map is kept across frames while nothing it depends on changes, see
+	 * {@link ShadowPass#setShadowMapCaching(boolean)}. Disabled by default.
+	 *
+	 * @param enabled {@code boolean} True to keep the shadow map.
+	 */
+	public void setShadowMapCaching(boolean enabled) {
+		mShadowMapCaching = enabled;
+		if(mCreatePass != null)
+			mCreatePass.setShadowMapCaching(enabled);
+	}
+
+	/**
+	 * Forces the shadow map to be rendered again on the next frame, see {@link ShadowPass#invalidateShadowMap()}.
+	 */
+	public void invalidateShadowMap() {
+		if(mCreatePass != null)
+			mCreatePass.invalidateShadowMap();
+	}
+
 	@Override
 	public void initialize(Renderer renderer) {
 		mShadowRenderTarget = new RenderTarget("shadowRT" + hashCode(), mShadowMapSize, mShadowMapSize, 0, 0,
@@ -45,7 +79,9 @@ public class ShadowEffect extends APostProcessingEffect {
 				FilterType.LINEAR, WrapType.CLAMP);
 		renderer.addRenderTarget(mShadowRenderTarget);
 
-		ShadowPass pass1 = new ShadowPass(ShadowPassType.CREATE_SHADOW_MAP, mScene, mCamera, mLight, mShadowRenderTarget);
+		ShadowPass pass1 = new ShadowPass(ShadowPassType.CREATE_SHADOW_MAP, mScene, mCamera, mLight, mShadowRenderTarget, mCascadeCount);
+		pass1.setShadowMapCaching(mShadowMapCaching);
+		mCreatePass = pass1;
 		addPass(pass1);
 		ShadowPass pass2 = new ShadowPass(ShadowPassType.APPLY_SHADOW_MAP, mScene, mCamera, mLight, mShadowRenderTarget);
 		mShadowMapMaterial = pass1.getShadowMapMaterial();
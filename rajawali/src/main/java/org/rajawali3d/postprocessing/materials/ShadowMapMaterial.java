@@ -1,9 +1,10 @@
 package org.rajawali3d.postprocessing.materials;
 
 import org.rajawali3d.cameras.Camera;
+import org.rajawali3d.Geometry3D;
 import org.rajawali3d.Object3D;
-import org.rajawali3d.bounds.BoundingBox;
 import org.rajawali3d.lights.DirectionalLight;
+import org.rajawali3d.lights.ShadowCascades;
 import org.rajawali3d.materials.Material;
 import org.rajawali3d.materials.plugins.ShadowMapMaterialPlugin;
 import org.rajawali3d.materials.shaders.FragmentShader;
@@ -12,7 +13,7 @@ import org.rajawali3d.materials.textures.ATexture;
 import org.rajawali3d.math.Matrix4;
 import org.rajawali3d.math.vector.Vector3;
 import org.rajawali3d.scene.Scene;
-import android.opengl.GLES20;
+import org.rajawali3d.util.RenderStats;
 
 
 public class ShadowMapMaterial extends Material {
@@ -20,13 +21,26 @@ public class ShadowMapMaterial extends Material {
 	private ShadowMapMaterialPlugin mMaterialPlugin;
 	private ShadowMapVertexShader   mVertexShader;
 	private DirectionalLight        mLight;
+	private Camera                  mCamera;
+	private ShadowCascades          mCascades;
+	private int                     mCurrentCascade;
+	private Vector3                 mBoundsCenter = new Vector3();
 
 	public ShadowMapMaterial() {
+		this(1);
+	}
+
+	/**
+	 * @param cascadeCount {@code int} The number of shadow map cascades, from 1 to
+	 * {@link ShadowCascades#MAX_CASCADES}.
+	 */
+	public ShadowMapMaterial(int cascadeCount) {
 		super();
+		mCascades = new ShadowCascades(cascadeCount);
 		mVertexShader = new ShadowMapVertexShader();
 		mCustomVertexShader = mVertexShader;
 		mCustomFragmentShader = new ShadowMapFragmentShader();
-		mMaterialPlugin = new ShadowMapMaterialPlugin();
+		mMaterialPlugin = new ShadowMapMaterialPlugin(0.4f, cascadeCount);
 	}
 
 	public ShadowMapMaterial(Camera camera, Scene scene, DirectionalLight light) {
@@ -37,11 +51,10 @@ public class ShadowMapMaterial extends Material {
 	}
 
 	public void setCamera(Camera camera) {
-		((ShadowMapVertexShader)mCustomVertexShader).setCamera(camera);
+		mCamera = camera;
 	}
 
 	public void setLight(DirectionalLight light) {
-		((ShadowMapVertexShader)mCustomVertexShader).setLight(light);
 		mLight = light;
 	}
 
@@ -58,12 +71,60 @@ public class ShadowMapMaterial extends Material {
 		mMaterialPlugin.setShadowMapTexture(shadowMapTexture);
 	}
 
+	/**
+	 * @return {@link ShadowCascades} The cascades, whose split and distance settings may be changed.
+	 */
+	public ShadowCascades getCascades() {
+		return mCascades;
+	}
+
+	/**
+	 * Fits the cascades to the camera's current view. Called once per frame before the cascades are rendered.
+	 *
+	 * @param shadowMapSize {@code int} The size of the shadow map texture holding all cascades.
+	 * @return {@code boolean} True if any cascade's projection changed, which includes the light turning.
+	 */
+	public boolean updateCascades(int shadowMapSize) {
+		return mCascades.update(mCamera, mLight.getDirectionVector(), shadowMapSize);
+	}
+
+	/**
+	 * Selects the cascade which following draws render into.
+	 *
+	 * @param cascade {@code int} The index of the cascade.
+	 */
+	public void setCurrentCascade(int cascade) {
+		mCurrentCascade = cascade;
+	}
+
 	public void setCurrentObject(Object3D currentObject) {
 	}
 
 	public void unsetCurrentObject(Object3D currentObject) {
 	}
 
+	/**
+	 * Skips objects which don't cast shadows, and those whose bounds don't reach the light space volume of the
+	 * current cascade. Objects without bounds have them created, so they are culled from the next frame on.
+	 */
+	@Override
+	public boolean shouldDraw(Object3D object) {
+		if (!object.isShadowCaster()) {
+			RenderStats.countCulledShadowCaster();
+			return false;
+		}
+		final Geometry3D geometry = object.getGeometry();
+		if (!geometry.hasBoundingBox() && !geometry.hasBoundingSphere()) {
+			object.getBoundingBox();
+			return true;
+		}
+		if (!mCascades.intersects(mCurrentCascade, object.getWorldBoundsCenter(mBoundsCenter),
+				object.getWorldBoundsRadius())) {
+			RenderStats.countCulledShadowCaster();
+			return false;
+		}
+		return true;
+	}
 
 	public ShadowMapMaterialPlugin getMaterialPlugin() {
 		return mMaterialPlugin;
@@ -73,7 +134,8 @@ public class ShadowMapMaterial extends Material {
 	public void applyParams()
 	{
 		super.applyParams();
-		mMaterialPlugin.setLightModelViewProjectionMatrix(mVertexShader.getLightViewProjectionMatrix());
+		for (int i = 0; i < mCascades.getCascadeCount(); i++)
+			mMaterialPlugin.setLightModelViewProjectionMatrix(i, mCascades.getViewProjectionMatrix(i));
 		mMaterialPlugin.setLightDirection(mLight.getDirectionVector());
 	}
 
@@ -87,19 +149,9 @@ public class ShadowMapMaterial extends Material {
 		private int muLightMatrixHandle;
 
 		private float[] mLightMatrix = new float[16];
-		private Camera mCamera;
-		private Vector3[] mFrustumCorners;
-		private DirectionalLight mLight;
-		private Vector3 mFrustumCentroid = new Vector3();
-		private Matrix4 mLightViewMatrix = new Matrix4();
-		private Matrix4 mLightProjectionMatrix = new Matrix4();
-		private Matrix4 mLightModelViewProjectionMatrix = new Matrix4();
 
 		public ShadowMapVertexShader() {
 			super();
-			mFrustumCorners = new Vector3[8];
-			for(int i=0; i<8; i++)
-				mFrustumCorners[i] = new Vector3();
 		}
 
 		@Override
@@ -122,65 +174,13 @@ public class ShadowMapMaterial extends Material {
 			muLightMatrixHandle = getUniformLocation(programHandle, U_MVP_LIGHT);
 		}
 
-
 		@Override
 		public void applyParams() {
 			super.applyParams();
 
-			createLightViewProjectionMatrix(mLight).toFloatArray(mLightMatrix);
-			GLES20.glUniformMatrix4fv(muLightMatrixHandle, 1, false, mLightMatrix, 0);
-		}
-
-		private Matrix4 createLightViewProjectionMatrix(DirectionalLight light) {
-			//
-			// -- Get the frustum corners in world space
-			//
-			mCamera.getFrustumCorners(mFrustumCorners, true);
-			//
-			// -- Get the frustum centroid
-			//
-			mFrustumCentroid.setAll(0, 0, 0);
-			for(int i=0; i<8; i++)
-				mFrustumCentroid.add(mFrustumCorners[i]);
-			mFrustumCentroid.divide(8.0);
-
-			//
-			// --
-			//
-
-			BoundingBox lightBox = new BoundingBox(mFrustumCorners);
-			double distance = mFrustumCentroid.distanceTo(lightBox.getMin());
-			Vector3 lightDirection = light.getDirectionVector().clone();
-			lightDirection.normalize();
-			Vector3 lightPosition = Vector3.subtractAndCreate(mFrustumCentroid, Vector3.multiplyAndCreate(lightDirection, distance));
-
-			//
-			// --
-			//
-
-			mLightViewMatrix.setToLookAt(lightPosition, mFrustumCentroid, Vector3.Y);
-
-			for(int i=0; i<8; i++)
-				mFrustumCorners[i].multiply(mLightViewMatrix);
-
-            BoundingBox b = new BoundingBox(mFrustumCorners);
-            mLightProjectionMatrix.setToOrthographic(b.getMin().x, b.getMax().x, b.getMin().y, b.getMax().y, -b.getMax().z, -b.getMin().z);
-
-            mLightModelViewProjectionMatrix.setAll(mLightProjectionMatrix);
-            mLightModelViewProjectionMatrix.multiply(mLightViewMatrix);
-			return mLightModelViewProjectionMatrix;
-		}
-
-		public void setCamera(Camera camera) {
-			mCamera = camera;
-		}
-
-		public void setLight(DirectionalLight light) {
-			mLight = light;
-		}
-
-		public Matrix4 getLightViewProjectionMatrix() {
-			return mLightModelViewProjectionMatrix;
+			final Matrix4 lightMatrix = mCascades.getViewProjectionMatrix(mCurrentCascade);
+			lightMatrix.toFloatArray(mLightMatrix);
+			setUniformMatrix4fv(muLightMatrixHandle, mLightMatrix);
 		}
 	}
 
@@ -14,15 +14,19 @@ package org.rajawali3d.postprocessing.passes;
 
 import android.graphics.Color;
 import org.rajawali3d.R;
+import org.rajawali3d.materials.shaders.AShader;
+import org.rajawali3d.materials.shaders.FragmentShader;
+import org.rajawali3d.materials.shaders.VertexShader;
+import org.rajawali3d.postprocessing.IColorPass;
 
 
-public class ColorThresholdPass extends EffectPass {
+public class ColorThresholdPass extends EffectPass implements IColorPass {
 	private float[] mLowerThreshold;
 	private float[] mUpperThreshold;
 	
 	public ColorThresholdPass(int lowerThreshold, int upperThreshold) {
 		super();
-		createMaterial(R.raw.minimal_vertex_shader, R.raw.color_threshold_shader);
+		createMaterial(new VertexShader(R.raw.minimal_vertex_shader), new FragmentShader(FusedColorPass.createFragmentShader(this)));
 		mLowerThreshold = new float[] {
 			Color.red(lowerThreshold) / 255.f,
 			Color.green(lowerThreshold) / 255.f,
@@ -41,4 +45,33 @@ public class ColorThresholdPass extends EffectPass {
 		mFragmentShader.setUniform3fv("uLowerThreshold", mLowerThreshold);
 		mFragmentShader.setUniform3fv("uUpperThreshold", mUpperThreshold);
 	}
+
+	@Override
+	public String getColorFunction(String name, String suffix) {
+		final String lower = "uLowerThreshold" + suffix;
+		final String upper = "uUpperThreshold" + suffix;
+		return "uniform float uOpacity" + suffix + ";\n"
+			+ "uniform vec3 " + lower + ";\n"
+			+ "uniform vec3 " + upper + ";\n"
+			+ "vec4 " + name + "(vec4 color) {\n"
+			+ "\tvec3 fragColor = color.rgb;\n"
+			+ "\tfragColor = fragColor.r > " + lower + ".r && fragColor.g > " + lower + ".g\n"
+			+ "\t\t&& fragColor.b > " + lower + ".b ? fragColor : vec3(0.0);\n"
+			+ "\tfragColor = fragColor.r < " + upper + ".r && fragColor.g < " + upper + ".g\n"
+			+ "\t\t&& fragColor.b < " + upper + ".b ? fragColor : vec3(0.0);\n"
+			+ "\treturn uOpacity" + suffix + " * vec4(fragColor, 1.0);\n"
+			+ "}\n";
+	}
+
+	@Override
+	public String[] getColorFunctionUniforms() {
+		return new String[] { PARAM_OPACITY, "uLowerThreshold", "uUpperThreshold" };
+	}
+
+	@Override
+	public void setColorFunctionParams(AShader shader, String[] uniforms) {
+		shader.setUniform1f(uniforms[0], mOpacity);
+		shader.setUniform3fv(uniforms[1], mLowerThreshold);
+		shader.setUniform3fv(uniforms[2], mUpperThreshold);
+	}
 }
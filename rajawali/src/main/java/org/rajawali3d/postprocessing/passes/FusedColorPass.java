@@ -0,0 +1,133 @@
+/**
+ * Copyright 2013 Dennis Ippel
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except in compliance with
+ * the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License is distributed on
+ * an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations under the License.
+ */
+package org.rajawali3d.postprocessing.passes;
+
+import androidx.annotation.NonNull;
+import org.rajawali3d.R;
+import org.rajawali3d.materials.MaterialManager;
+import org.rajawali3d.materials.shaders.FragmentShader;
+import org.rajawali3d.materials.shaders.VertexShader;
+import org.rajawali3d.postprocessing.IColorPass;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * Draws a run of {@link IColorPass}es with one generated fragment shader that applies their color functions one
+ * after the other. The passes keep their own parameters; they are read every frame, so changing the opacity or
+ * any other setting of a fused pass works as before.
+ */
+public class FusedColorPass extends EffectPass {
+
+    private final List<IColorPass> mPasses;
+    // The suffixed uniform names of each pass, built once instead of every frame
+    private final String[][]       mUniforms;
+
+    public FusedColorPass(@NonNull List<IColorPass> passes) {
+        super();
+        if (passes.size() < 2) {
+            throw new IllegalArgumentException("At least two passes are needed to fuse them.");
+        }
+        mPasses = new ArrayList<>(passes);
+        mUniforms = new String[mPasses.size()][];
+        for (int i = 0; i < mUniforms.length; ++i) {
+            final String[] uniforms = mPasses.get(i).getColorFunctionUniforms();
+            mUniforms[i] = new String[uniforms.length];
+            for (int k = 0; k < uniforms.length; ++k) {
+                mUniforms[i][k] = uniforms[k] + getSuffix(i);
+            }
+        }
+        final IColorPass first = mPasses.get(0);
+        setSize(first.getWidth(), first.getHeight());
+        setRenderToScreen(mPasses.get(mPasses.size() - 1).getRenderToScreen());
+        createMaterial(new VertexShader(R.raw.minimal_vertex_shader),
+                       new FragmentShader(createFragmentShader(mPasses)));
+    }
+
+    /**
+     * Generates the fragment shader that samples the frame once and runs the color function of each pass on it.
+     *
+     * @param passes The passes in the order they are applied.
+     * @return The GLSL source.
+     */
+    @NonNull
+    public static String createFragmentShader(@NonNull List<IColorPass> passes) {
+        return createFragmentShader(passes, true);
+    }
+
+    /**
+     * Generates the fragment shader of a pass drawn on its own, from the same color function that is used when it
+     * is fused. The uniforms keep their names without a suffix.
+     *
+     * @param pass The pass.
+     * @return The GLSL source.
+     */
+    @NonNull
+    public static String createFragmentShader(@NonNull IColorPass pass) {
+        return createFragmentShader(Collections.singletonList(pass), false);
+    }
+
+    @NonNull
+    private static String createFragmentShader(@NonNull List<IColorPass> passes, boolean suffixed) {
+        final StringBuilder sb = new StringBuilder();
+        sb.append("precision highp float;\n\n");
+        sb.append("uniform sampler2D uTexture;\n\n");
+        sb.append("varying vec2 vTextureCoord;\n\n");
+        for (int i = 0, j = passes.size(); i < j; ++i) {
+            sb.append(passes.get(i).getColorFunction(getFunctionName(i), suffixed ? getSuffix(i) : ""))
+              .append('\n');
+        }
+        sb.append("void main() {\n");
+        sb.append("\tvec4 color = texture2D(uTexture, vTextureCoord);\n");
+        for (int i = 0, j = passes.size(); i < j; ++i) {
+            sb.append("\tcolor = ").append(getFunctionName(i)).append("(color);\n");
+        }
+        sb.append("\tgl_FragColor = color;\n");
+        sb.append("}\n");
+        return sb.toString();
+    }
+
+    private static String getFunctionName(int index) {
+        return "colorPass" + index;
+    }
+
+    private static String getSuffix(int index) {
+        return "_" + index;
+    }
+
+    @Override
+    public void setShaderParams() {
+        mMaterial.bindTextureByName(PARAM_TEXTURE, 0, mReadTarget.getTexture());
+        for (int i = 0, j = mPasses.size(); i < j; ++i) {
+            mPasses.get(i).setColorFunctionParams(mFragmentShader, mUniforms[i]);
+        }
+    }
+
+    /**
+     * Returns the passes this pass draws.
+     *
+     * @return The {@link IColorPass}es in the order they are applied.
+     */
+    @NonNull
+    public List<IColorPass> getPasses() {
+        return Collections.unmodifiableList(mPasses);
+    }
+
+    /**
+     * Releases the generated material once the pass is no longer used.
+     */
+    public void destroy() {
+        MaterialManager.getInstance().removeMaterial(mMaterial);
+    }
+}
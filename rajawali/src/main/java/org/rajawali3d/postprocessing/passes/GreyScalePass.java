@@ -13,12 +13,35 @@
 package org.rajawali3d.postprocessing.passes;
 
 import org.rajawali3d.R;
+import org.rajawali3d.materials.shaders.AShader;
+import org.rajawali3d.materials.shaders.FragmentShader;
+import org.rajawali3d.materials.shaders.VertexShader;
+import org.rajawali3d.postprocessing.IColorPass;
 
 
-public class GreyScalePass extends EffectPass {
+public class GreyScalePass extends EffectPass implements IColorPass {
 	public GreyScalePass()
 	{
 		super();
-		createMaterial(R.raw.minimal_vertex_shader, R.raw.grey_scale_fragment_shader);
+		createMaterial(new VertexShader(R.raw.minimal_vertex_shader), new FragmentShader(FusedColorPass.createFragmentShader(this)));
+	}
+
+	@Override
+	public String getColorFunction(String name, String suffix) {
+		return "uniform float uOpacity" + suffix + ";\n"
+			+ "vec4 " + name + "(vec4 color) {\n"
+			+ "\tfloat average = (color.r + color.g + color.b) / 3.0;\n"
+			+ "\treturn uOpacity" + suffix + " * vec4(average, average, average, color.a);\n"
+			+ "}\n";
+	}
+
+	@Override
+	public String[] getColorFunctionUniforms() {
+		return new String[] { PARAM_OPACITY };
+	}
+
+	@Override
+	public void setColorFunctionParams(AShader shader, String[] uniforms) {
+		shader.setUniform1f(uniforms[0], mOpacity);
 	}
 }
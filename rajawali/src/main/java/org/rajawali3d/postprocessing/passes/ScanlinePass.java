@@ -12,8 +12,12 @@
  */
 package org.rajawali3d.postprocessing.passes;
 import org.rajawali3d.R;
+import org.rajawali3d.materials.shaders.AShader;
+import org.rajawali3d.materials.shaders.FragmentShader;
+import org.rajawali3d.materials.shaders.VertexShader;
+import org.rajawali3d.postprocessing.IColorPass;
 
-public class ScanlinePass extends EffectPass {
+public class ScanlinePass extends EffectPass implements IColorPass {
     protected float[] mResolution;
     protected float mRadius;
 
@@ -24,7 +28,7 @@ public class ScanlinePass extends EffectPass {
         setOpacity(opacity);
         setRadius(radius);
 
-        createMaterial(R.raw.minimal_vertex_shader, R.raw.scanline_fragment_shader);
+        createMaterial(new VertexShader(R.raw.minimal_vertex_shader), new FragmentShader(FusedColorPass.createFragmentShader(this)));
     }
 
     public void setShaderParams()
@@ -34,6 +38,30 @@ public class ScanlinePass extends EffectPass {
         mFragmentShader.setUniform2fv("uResolution", mResolution);
     }
 
+    @Override
+    public String getColorFunction(String name, String suffix) {
+        return "uniform float uRadius" + suffix + ";\n"
+               + "uniform float uOpacity" + suffix + ";\n"
+               + "uniform vec2 uResolution" + suffix + ";\n"
+               + "vec4 " + name + "(vec4 color) {\n"
+               + "    float screenV = vTextureCoord.y * uResolution" + suffix + ".y / uRadius" + suffix + ";\n"
+               + "    float scanLine = abs(mod(screenV, 2.0) - 1.);\n"
+               + "    return vec4(mix(color.rgb, vec3(0,0,0), uOpacity" + suffix + " * scanLine), 1.0);\n"
+               + "}\n";
+    }
+
+    @Override
+    public String[] getColorFunctionUniforms() {
+        return new String[] { PARAM_OPACITY, "uRadius", "uResolution" };
+    }
+
+    @Override
+    public void setColorFunctionParams(AShader shader, String[] uniforms) {
+        shader.setUniform1f(uniforms[0], mOpacity);
+        shader.setUniform1f(uniforms[1], mRadius);
+        shader.setUniform2fv(uniforms[2], mResolution);
+    }
+
     @Override
     public void setSize(int width, int height) {
         super.setSize(width, height);
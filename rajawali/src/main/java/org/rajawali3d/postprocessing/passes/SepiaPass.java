@@ -13,12 +13,35 @@
 package org.rajawali3d.postprocessing.passes;
 
 import org.rajawali3d.R;
+import org.rajawali3d.materials.shaders.AShader;
+import org.rajawali3d.materials.shaders.FragmentShader;
+import org.rajawali3d.materials.shaders.VertexShader;
+import org.rajawali3d.postprocessing.IColorPass;
 
 
-public class SepiaPass extends EffectPass {
+public class SepiaPass extends EffectPass implements IColorPass {
 	public SepiaPass()
 	{
 		super();
-		createMaterial(R.raw.minimal_vertex_shader, R.raw.sepia_fragment_shader);
+		createMaterial(new VertexShader(R.raw.minimal_vertex_shader), new FragmentShader(FusedColorPass.createFragmentShader(this)));
+	}
+
+	@Override
+	public String getColorFunction(String name, String suffix) {
+		return "uniform float uOpacity" + suffix + ";\n"
+			+ "vec4 " + name + "(vec4 color) {\n"
+			+ "\tfloat gray = dot(color.rgb, vec3(0.299, 0.587, 0.114));\n"
+			+ "\treturn uOpacity" + suffix + " * vec4(gray * vec3(1.2, 1.0, 0.8), 1.0);\n"
+			+ "}\n";
+	}
+
+	@Override
+	public String[] getColorFunctionUniforms() {
+		return new String[] { PARAM_OPACITY };
+	}
+
+	@Override
+	public void setColorFunctionParams(AShader shader, String[] uniforms) {
+		shader.setUniform1f(uniforms[0], mOpacity);
 	}
 }
@@ -1,17 +1,32 @@
 package org.rajawali3d.postprocessing.passes;
 
+import android.opengl.GLES20;
+
 import org.rajawali3d.cameras.Camera;
 import org.rajawali3d.lights.DirectionalLight;
+import org.rajawali3d.lights.ShadowCascades;
 import org.rajawali3d.postprocessing.materials.ShadowMapMaterial;
 import org.rajawali3d.primitives.ScreenQuad;
 import org.rajawali3d.renderer.Renderer;
 import org.rajawali3d.renderer.RenderTarget;
 import org.rajawali3d.scene.Scene;
+import org.rajawali3d.util.RenderStats;
 
 
+/**
+ * Creates or applies a shadow map. With caching enabled, a created shadow map is kept across frames while neither
+ * the cascades' light projections nor any shadow caster change, see {@link Scene#getShadowCasterVersion()}. The
+ * renderer reloads the scene when the GL context is recreated, which changes the version, so a shadow map lost with
+ * the context is rendered again. Geometry animated in shaders isn't tracked, so scenes relying on it should leave
+ * caching disabled or call {@link #invalidateShadowMap()} whenever the animation changes.
+ */
 public class ShadowPass extends RenderPass {
 	private RenderTarget mShadowRenderTarget;
 	private int mShadowMapSize;
+	private boolean mCachingEnabled;
+	private boolean mShadowMapValid;
+	private boolean mShadowMapCached;
+	private int mCasterVersion;
 
 	public enum ShadowPassType {
 		CREATE_SHADOW_MAP, APPLY_SHADOW_MAP
@@ -21,12 +36,20 @@ public class ShadowPass extends RenderPass {
 	private ShadowPassType mShadowPassType;
 
 	public ShadowPass(ShadowPassType shadowPassType, Scene scene, Camera camera, DirectionalLight light, RenderTarget renderTarget) {
+		this(shadowPassType, scene, camera, light, renderTarget, 1);
+	}
+
+	/**
+	 * @param cascadeCount The number of shadow map cascades, from 1 to {@link ShadowCascades#MAX_CASCADES}. Only
+	 * used when creating the shadow map.
+	 */
+	public ShadowPass(ShadowPassType shadowPassType, Scene scene, Camera camera, DirectionalLight light, RenderTarget renderTarget, int cascadeCount) {
 		super(scene, camera, 0);
 		mShadowPassType = shadowPassType;
 		mShadowRenderTarget = renderTarget;
 		mShadowMapSize = renderTarget.getWidth();
 		if(shadowPassType == ShadowPassType.CREATE_SHADOW_MAP) {
-			mShadowMapMaterial = new ShadowMapMaterial();
+			mShadowMapMaterial = new ShadowMapMaterial(cascadeCount);
 			mShadowMapMaterial.setLight(light);
 			mShadowMapMaterial.setCamera(camera);
 			mShadowMapMaterial.setScene(scene);
@@ -40,10 +63,78 @@ public class ShadowPass extends RenderPass {
 			mShadowMapMaterial.setShadowMapTexture(mShadowRenderTarget.getTexture());
 			super.render(scene, renderer, screenQuad, writeBuffer, readBuffer, elapsedTime, deltaTime);
 		} else {
-            renderer.setOverrideViewportDimensions(mShadowMapSize, mShadowMapSize);
-			super.render(scene, renderer, screenQuad, mShadowRenderTarget, readBuffer, elapsedTime, deltaTime);
-            renderer.clearOverrideViewportDimensions();
+			renderShadowMap(renderer);
+		}
+	}
+
+	/**
+	 * Renders each cascade into its tile of the shadow map, drawing only the objects which can cast shadows into
+	 * it. The camera keeps its projection, so the cascades are fitted to the view seen on screen.
+	 */
+	private void renderShadowMap(Renderer renderer) {
+		final ShadowCascades cascades = mShadowMapMaterial.getCascades();
+		final int tileSize = cascades.getTileSize(mShadowMapSize);
+		final boolean cascadesChanged = mShadowMapMaterial.updateCascades(mShadowMapSize);
+		mShadowMapCached = mCachingEnabled && mShadowMapValid && !cascadesChanged
+				&& mCasterVersion == mScene.getShadowCasterVersion();
+		if (mShadowMapCached) {
+			RenderStats.countShadowMapCacheHit();
+			return;
 		}
+		RenderStats.countShadowMapRender();
+
+		mShadowRenderTarget.bind();
+		// Texels no caster reaches hold the far plane depth, which shadows nothing
+		GLES20.glClearColor(1, 1, 1, 1);
+		GLES20.glEnable(GLES20.GL_DEPTH_TEST);
+		GLES20.glDepthFunc(GLES20.GL_LESS);
+		GLES20.glDepthMask(true);
+		GLES20.glClearDepthf(1.0f);
+		GLES20.glViewport(0, 0, mShadowMapSize, mShadowMapSize);
+		GLES20.glClear(GLES20.GL_COLOR_BUFFER_BIT | GLES20.GL_DEPTH_BUFFER_BIT);
+
+		for (int i = 0; i < cascades.getCascadeCount(); i++) {
+			GLES20.glViewport(cascades.getTileX(i, mShadowMapSize), cascades.getTileY(i, mShadowMapSize), tileSize, tileSize);
+			mShadowMapMaterial.setCurrentCascade(i);
+			mScene.renderChildren(mShadowMapMaterial);
+		}
+
+		mShadowRenderTarget.unbind();
+		GLES20.glViewport(0, 0, renderer.getViewportWidth(), renderer.getViewportHeight());
+
+		// Rendering recalculates the model matrices of moved objects and their children, which bumps the version
+		// again, so it is recorded afterwards
+		mCasterVersion = mScene.getShadowCasterVersion();
+		mShadowMapValid = true;
+	}
+
+	/**
+	 * Sets whether the shadow map is kept across frames while nothing it depends on changes. Disabled by default, as
+	 * shadows of geometry animated in shaders would go stale unless {@link #invalidateShadowMap()} is called.
+	 *
+	 * @param enabled {@code boolean} True to keep the shadow map.
+	 */
+	public void setShadowMapCaching(boolean enabled) {
+		mCachingEnabled = enabled;
+	}
+
+	public boolean isShadowMapCaching() {
+		return mCachingEnabled;
+	}
+
+	/**
+	 * Forces the shadow map to be rendered again on the next frame.
+	 */
+	public void invalidateShadowMap() {
+		mShadowMapValid = false;
+	}
+
+	/**
+	 * @return {@code boolean} True if the last frame kept the shadow map rendered by an earlier one rather than
+	 * rendering it again.
+	 */
+	public boolean isShadowMapCached() {
+		return mShadowMapCached;
 	}
 
 	public ShadowMapMaterial getShadowMapMaterial() {
@@ -13,8 +13,12 @@
 package org.rajawali3d.postprocessing.passes;
 
 import org.rajawali3d.R;
+import org.rajawali3d.materials.shaders.AShader;
+import org.rajawali3d.materials.shaders.FragmentShader;
+import org.rajawali3d.materials.shaders.VertexShader;
+import org.rajawali3d.postprocessing.IColorPass;
 
-public class VignettePass extends EffectPass {
+public class VignettePass extends EffectPass implements IColorPass {
     protected float[] mResolution;
     protected float mRadius;
     protected float mSoftness;
@@ -27,7 +31,7 @@ public class VignettePass extends EffectPass {
         setRadius(radius);
         setSoftness(softness);
 
-        createMaterial(R.raw.minimal_vertex_shader, R.raw.vignette_fragment_shader);
+        createMaterial(new VertexShader(R.raw.minimal_vertex_shader), new FragmentShader(FusedColorPass.createFragmentShader(this)));
     }
 
     public void setShaderParams()
@@ -38,6 +42,40 @@ public class VignettePass extends EffectPass {
         mFragmentShader.setUniform2fv("uResolution", mResolution);
     }
 
+    @Override
+    public String getColorFunction(String name, String suffix) {
+        return "uniform float uRadius" + suffix + ";\n"
+               + "uniform float uSoftness" + suffix + ";\n"
+               + "uniform float uOpacity" + suffix + ";\n"
+               + "uniform vec2 uResolution" + suffix + ";\n"
+               + "vec4 " + name + "(vec4 color) {\n"
+               + "    vec2 position = (gl_FragCoord.xy / uResolution" + suffix + ".xy) - vec2(0.5);\n"
+               + "    float len = length(position);\n"
+               + "    float halfSoftness = abs(uSoftness" + suffix + " / 2.);\n"
+               + "    float inner = (uRadius" + suffix + " > halfSoftness) ? uRadius" + suffix + " - halfSoftness : 0.;\n"
+               + "    float outer = uRadius" + suffix + " + halfSoftness;\n"
+               + "    if(inner == outer) {\n"
+               + "      inner -= 0.00001;\n"
+               + "      outer += 0.00001;\n"
+               + "    }\n"
+               + "    float vignette = 1. - smoothstep(inner, outer, len);\n"
+               + "    return vec4(mix(color.rgb, color.rgb * vignette, uOpacity" + suffix + "), 1.0);\n"
+               + "}\n";
+    }
+
+    @Override
+    public String[] getColorFunctionUniforms() {
+        return new String[] { PARAM_OPACITY, "uRadius", "uSoftness", "uResolution" };
+    }
+
+    @Override
+    public void setColorFunctionParams(AShader shader, String[] uniforms) {
+        shader.setUniform1f(uniforms[0], mOpacity);
+        shader.setUniform1f(uniforms[1], mRadius);
+        shader.setUniform1f(uniforms[2], mSoftness);
+        shader.setUniform2fv(uniforms[3], mResolution);
+    }
+
     @Override
     public void setSize(int width, int height) {
         super.setSize(width, height);
@@ -14,11 +14,13 @@ package org.rajawali3d.primitives;
 
 import android.graphics.Color;
 import android.opengl.GLES20;
+import androidx.annotation.Nullable;
 
 import java.util.Stack;
 
 import org.rajawali3d.Object3D;
 import org.rajawali3d.math.vector.Vector3;
+import org.rajawali3d.renderer.GLStateCache;
 
 /**
  * The Line3D takes a list of Vector3 points, thickness and a color.
@@ -149,9 +151,14 @@ public class Line3D extends Object3D {
 		indices = null;
 	}
 	
-	public void preRender() {
-		super.preRender();
-		GLES20.glLineWidth(mLineThickness);
+	@Override
+	protected void applyDrawState(@Nullable GLStateCache stateCache) {
+		// Set per draw rather than in preRender(), which runs when the draw is queued
+		if (stateCache != null) {
+			stateCache.setLineWidth(mLineThickness);
+		} else {
+			GLES20.glLineWidth(mLineThickness);
+		}
 	}
 
     public void setLineThickness(final float lineThickness) {
@@ -0,0 +1,316 @@
+/**
+ * Copyright 2013 Dennis Ippel
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except in compliance with
+ * the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License is distributed on
+ * an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations under the License.
+ */
+package org.rajawali3d.renderer;
+
+import android.opengl.GLES20;
+
+/**
+ * Shadow copy of the fixed function GL state touched while drawing objects. Every setter compares the requested value
+ * with the last one it issued and only calls into GL when they differ, so consecutive draws sharing a material or
+ * blend mode don't repeat redundant state changes.
+ *
+ * The cache can't see state changed by code which calls {@link GLES20} directly. Call {@link #invalidate()} before
+ * relying on it after such code has run, after which the next call to each setter is always issued.
+ *
+ * The raw GL calls are made through protected methods so they can be intercepted, for example to count them in tests.
+ */
+public class GLStateCache {
+
+    /**
+     * The number of texture units tracked. Binds to higher units are always issued.
+     */
+    public static final int MAX_TEXTURE_UNITS = 32;
+
+    private static final int UNKNOWN = Integer.MIN_VALUE;
+
+    private int mCullFaceEnabled;
+    private int mCullFace;
+    private int mFrontFace;
+    private int mBlendEnabled;
+    private int mBlendSFactor;
+    private int mBlendDFactor;
+    private int mDepthTestEnabled;
+    private int mDepthFunc;
+    private int mDepthMask;
+    private int mProgram;
+    private float mLineWidth;
+    private int mActiveTexture;
+    private final int[] mTextureTargets = new int[MAX_TEXTURE_UNITS];
+    private final int[] mTextures = new int[MAX_TEXTURE_UNITS];
+
+    private int mIssuedCalls;
+    private int mSkippedCalls;
+
+    public GLStateCache() {
+        invalidate();
+    }
+
+    /**
+     * Forgets all cached state. The next call to each setter will be issued to GL.
+     */
+    public void invalidate() {
+        mCullFaceEnabled = UNKNOWN;
+        mCullFace = UNKNOWN;
+        mFrontFace = UNKNOWN;
+        mBlendEnabled = UNKNOWN;
+        mBlendSFactor = UNKNOWN;
+        mBlendDFactor = UNKNOWN;
+        mDepthTestEnabled = UNKNOWN;
+        mDepthFunc = UNKNOWN;
+        mDepthMask = UNKNOWN;
+        mProgram = UNKNOWN;
+        mLineWidth = Float.NaN;
+        invalidateTextureUnits(0);
+    }
+
+    /**
+     * Forgets the cached texture bindings of the given unit and all units above it. Used after code binding textures
+     * directly, such as material plugins.
+     *
+     * @param firstUnit {@code int} The first texture unit to forget.
+     */
+    public void invalidateTextureUnits(int firstUnit) {
+        mActiveTexture = UNKNOWN;
+        for (int i = Math.max(0, firstUnit); i < MAX_TEXTURE_UNITS; ++i) {
+            mTextureTargets[i] = UNKNOWN;
+            mTextures[i] = UNKNOWN;
+        }
+    }
+
+    /**
+     * Restores the state the rest of the render path expects: back face culling of counter clockwise polygons,
+     * blending disabled and depth testing enabled with depth writes.
+     */
+    public void restoreDefaults() {
+        setCullFaceEnabled(true);
+        setCullFace(GLES20.GL_BACK);
+        setBlendEnabled(false);
+        setDepthTestEnabled(true);
+        setDepthFunc(GLES20.GL_LESS);
+        setDepthMask(true);
+    }
+
+    public void setCullFaceEnabled(boolean enabled) {
+        final int value = enabled ? 1 : 0;
+        if (mCullFaceEnabled == value) {
+            ++mSkippedCalls;
+            return;
+        }
+        mCullFaceEnabled = value;
+        if (enabled) {
+            glEnable(GLES20.GL_CULL_FACE);
+        } else {
+            glDisable(GLES20.GL_CULL_FACE);
+        }
+    }
+
+    public void setCullFace(int mode) {
+        if (mCullFace == mode) {
+            ++mSkippedCalls;
+            return;
+        }
+        mCullFace = mode;
+        glCullFace(mode);
+    }
+
+    public void setFrontFace(int mode) {
+        if (mFrontFace == mode) {
+            ++mSkippedCalls;
+            return;
+        }
+        mFrontFace = mode;
+        glFrontFace(mode);
+    }
+
+    public void setBlendEnabled(boolean enabled) {
+        final int value = enabled ? 1 : 0;
+        if (mBlendEnabled == value) {
+            ++mSkippedCalls;
+            return;
+        }
+        mBlendEnabled = value;
+        if (enabled) {
+            glEnable(GLES20.GL_BLEND);
+        } else {
+            glDisable(GLES20.GL_BLEND);
+        }
+    }
+
+    public void setBlendFunc(int sFactor, int dFactor) {
+        if (mBlendSFactor == sFactor && mBlendDFactor == dFactor) {
+            ++mSkippedCalls;
+            return;
+        }
+        mBlendSFactor = sFactor;
+        mBlendDFactor = dFactor;
+        glBlendFunc(sFactor, dFactor);
+    }
+
+    public void setDepthTestEnabled(boolean enabled) {
+        final int value = enabled ? 1 : 0;
+        if (mDepthTestEnabled == value) {
+            ++mSkippedCalls;
+            return;
+        }
+        mDepthTestEnabled = value;
+        if (enabled) {
+            glEnable(GLES20.GL_DEPTH_TEST);
+        } else {
+            glDisable(GLES20.GL_DEPTH_TEST);
+        }
+    }
+
+    public void setDepthFunc(int func) {
+        if (mDepthFunc == func) {
+            ++mSkippedCalls;
+            return;
+        }
+        mDepthFunc = func;
+        glDepthFunc(func);
+    }
+
+    public void setDepthMask(boolean flag) {
+        final int value = flag ? 1 : 0;
+        if (mDepthMask == value) {
+            ++mSkippedCalls;
+            return;
+        }
+        mDepthMask = value;
+        glDepthMask(flag);
+    }
+
+    public void useProgram(int program) {
+        if (mProgram == program) {
+            ++mSkippedCalls;
+            return;
+        }
+        mProgram = program;
+        glUseProgram(program);
+    }
+
+    public void setLineWidth(float width) {
+        // NaN never compares equal, so the first call after invalidating is always issued
+        if (mLineWidth == width) {
+            ++mSkippedCalls;
+            return;
+        }
+        mLineWidth = width;
+        glLineWidth(width);
+    }
+
+    /**
+     * Binds a texture to the given texture unit, activating the unit first if needed.
+     *
+     * @param unit      {@code int} The zero based texture unit.
+     * @param target    {@code int} The GL texture target, such as {@link GLES20#GL_TEXTURE_2D}.
+     * @param textureId {@code int} The GL texture name.
+     */
+    public void bindTexture(int unit, int target, int textureId) {
+        if (unit >= MAX_TEXTURE_UNITS) {
+            setActiveTexture(unit);
+            glBindTexture(target, textureId);
+            return;
+        }
+        if (mTextureTargets[unit] == target && mTextures[unit] == textureId) {
+            ++mSkippedCalls;
+            return;
+        }
+        setActiveTexture(unit);
+        mTextureTargets[unit] = target;
+        mTextures[unit] = textureId;
+        glBindTexture(target, textureId);
+    }
+
+    private void setActiveTexture(int unit) {
+        if (mActiveTexture == unit) {
+            ++mSkippedCalls;
+            return;
+        }
+        mActiveTexture = unit;
+        glActiveTexture(GLES20.GL_TEXTURE0 + unit);
+    }
+
+    /**
+     * @return {@code int} The number of GL calls issued since the last {@link #resetCounters()}.
+     */
+    public int getIssuedCallCount() {
+        return mIssuedCalls;
+    }
+
+    /**
+     * @return {@code int} The number of GL calls elided since the last {@link #resetCounters()}.
+     */
+    public int getSkippedCallCount() {
+        return mSkippedCalls;
+    }
+
+    public void resetCounters() {
+        mIssuedCalls = 0;
+        mSkippedCalls = 0;
+    }
+
+    protected void glEnable(int cap) {
+        ++mIssuedCalls;
+        GLES20.glEnable(cap);
+    }
+
+    protected void glDisable(int cap) {
+        ++mIssuedCalls;
+        GLES20.glDisable(cap);
+    }
+
+    protected void glCullFace(int mode) {
+        ++mIssuedCalls;
+        GLES20.glCullFace(mode);
+    }
+
+    protected void glFrontFace(int mode) {
+        ++mIssuedCalls;
+        GLES20.glFrontFace(mode);
+    }
+
+    protected void glBlendFunc(int sFactor, int dFactor) {
+        ++mIssuedCalls;
+        GLES20.glBlendFunc(sFactor, dFactor);
+    }
+
+    protected void glDepthFunc(int func) {
+        ++mIssuedCalls;
+        GLES20.glDepthFunc(func);
+    }
+
+    protected void glDepthMask(boolean flag) {
+        ++mIssuedCalls;
+        GLES20.glDepthMask(flag);
+    }
+
+    protected void glUseProgram(int program) {
+        ++mIssuedCalls;
+        GLES20.glUseProgram(program);
+    }
+
+    protected void glLineWidth(float width) {
+        ++mIssuedCalls;
+        GLES20.glLineWidth(width);
+    }
+
+    protected void glActiveTexture(int texture) {
+        ++mIssuedCalls;
+        GLES20.glActiveTexture(texture);
+    }
+
+    protected void glBindTexture(int target, int texture) {
+        ++mIssuedCalls;
+        GLES20.glBindTexture(target, texture);
+    }
+}
@@ -0,0 +1,316 @@
+/**
+ * Copyright 2013 Dennis Ippel
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except in compliance with
+ * the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License is distributed on
+ * an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations under the License.
+ */
+package org.rajawali3d.renderer;
+
+import org.rajawali3d.Object3D;
+import org.rajawali3d.cameras.Camera;
+import org.rajawali3d.materials.Material;
+import org.rajawali3d.materials.textures.ATexture;
+import org.rajawali3d.math.Matrix4;
+import org.rajawali3d.math.vector.Vector3;
+
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * Collects the draws of a render pass between scene traversal and submission. Draws are split into two buckets,
+ * opaque and transparent, each sorted by a 64 bit key, and are then drawn through a {@link GLStateCache} which
+ * elides the state changes left redundant by the sort. All opaque draws are submitted before any transparent one.
+ *
+ * Depth is the view space depth of the center of an object's world bounds, as cached by its last render.
+ *
+ * Opaque keys are laid out, from the most significant bit down, as:
+ * <ul>
+ * <li>6 bits: depth layer, the power of two of the depth, so layers are drawn front to back for early depth
+ * rejection.</li>
+ * <li>12 bits program handle and 12 bits texture set, so draws within a layer share state.</li>
+ * <li>30 bits: depth, front to back within a layer and state group.</li>
+ * </ul>
+ * Transparent keys are the depth alone, back to front, as blending requires. Ties keep the order the draws were
+ * added in.
+ *
+ * Sorting is a least significant digit radix sort over arrays which, like the render items, are reused between
+ * frames, so a frame allocates nothing once the queue has grown to the size of the scene.
+ */
+public class RenderQueue {
+
+    private static final int  LAYER_SHIFT    = 54;
+    private static final int  PROGRAM_SHIFT  = 42;
+    private static final int  TEXTURES_SHIFT = 30;
+    private static final long STATE_MASK     = 0xFFF;
+    private static final long DEPTH_MASK     = 0x3FFFFFFF;
+    private static final int  LAYER_BIAS     = 127 - 32;
+    private static final int  MAX_LAYER      = 63;
+
+    private static final int RADIX_BITS = 8;
+    private static final int RADIX_SIZE = 1 << RADIX_BITS;
+    private static final int RADIX_MASK = RADIX_SIZE - 1;
+
+    /**
+     * A single queued draw.
+     */
+    public static final class RenderItem {
+        private Object3D mObject;
+        private Material mMaterial;
+        private long     mSortKey;
+        private double   mDepth;
+        private boolean  mTransparent;
+
+        public Object3D getObject() {
+            return mObject;
+        }
+
+        public Material getMaterial() {
+            return mMaterial;
+        }
+
+        public long getSortKey() {
+            return mSortKey;
+        }
+
+        /**
+         * @return {@code double} The view space depth of the object's bounds center. Larger is further away.
+         */
+        public double getDepth() {
+            return mDepth;
+        }
+
+        public boolean isTransparent() {
+            return mTransparent;
+        }
+    }
+
+    protected final GLStateCache mStateCache;
+    protected final Matrix4 mViewMatrix = new Matrix4();
+    protected final Vector3 mCenter = new Vector3();
+    protected RenderItem[] mItems = new RenderItem[64];
+    protected int mCount;
+    protected int mOpaqueCount;
+
+    // Sort buffers, grown alongside mItems
+    private RenderItem[] mSortedItems = new RenderItem[64];
+    private long[] mKeys = new long[64];
+    private long[] mScratchKeys = new long[64];
+    private int[] mIndices = new int[64];
+    private int[] mScratchIndices = new int[64];
+    private final int[] mHistogram = new int[RADIX_SIZE];
+
+    public RenderQueue() {
+        this(new GLStateCache());
+    }
+
+    /**
+     * @param stateCache {@link GLStateCache} The state cache draws are submitted through.
+     */
+    public RenderQueue(GLStateCache stateCache) {
+        mStateCache = stateCache;
+    }
+
+    /**
+     * Removes all queued draws and sets the view matrix depths are measured with for the next draws.
+     *
+     * @param viewMatrix {@link Matrix4} The view matrix of the camera the draws are queued with.
+     */
+    public void begin(Matrix4 viewMatrix) {
+        clear();
+        mViewMatrix.setAll(viewMatrix);
+    }
+
+    /**
+     * Removes all queued draws. The render items are kept for reuse.
+     */
+    public void clear() {
+        for (int i = 0; i < mCount; ++i) {
+            mItems[i].mObject = null;
+            mItems[i].mMaterial = null;
+        }
+        mCount = 0;
+        mOpaqueCount = 0;
+    }
+
+    /**
+     * Queues a draw of an object whose matrices and bounds have already been updated for the current camera.
+     *
+     * @param object   {@link Object3D} The object to draw.
+     * @param material {@link Material} The material to draw it with.
+     */
+    public void add(Object3D object, Material material) {
+        if (mCount == mItems.length) {
+            grow(mCount * 2);
+        }
+        RenderItem item = mItems[mCount];
+        if (item == null) {
+            item = new RenderItem();
+            mItems[mCount] = item;
+        }
+        item.mObject = object;
+        item.mMaterial = material;
+        item.mTransparent = object.isTransparent() || object.isBlendingEnabled();
+
+        object.getWorldBoundsCenter(mCenter);
+        final double[] view = mViewMatrix.getDoubleValues();
+        item.mDepth = -(view[Matrix4.M20] * mCenter.x + view[Matrix4.M21] * mCenter.y
+                        + view[Matrix4.M22] * mCenter.z + view[Matrix4.M23]);
+
+        final long depthKey = getDepthKey(item.mDepth);
+        if (item.mTransparent) {
+            item.mSortKey = DEPTH_MASK - depthKey;
+        } else {
+            item.mSortKey = (getDepthLayer(item.mDepth) << LAYER_SHIFT)
+                            | ((material.getProgramHandle() & STATE_MASK) << PROGRAM_SHIFT)
+                            | ((getTextureSetKey(material) & STATE_MASK) << TEXTURES_SHIFT)
+                            | depthKey;
+            ++mOpaqueCount;
+        }
+        ++mCount;
+    }
+
+    /**
+     * Sorts the queued draws: opaque draws first, in key order, then transparent draws back to front.
+     */
+    public void sort() {
+        int opaque = 0;
+        int transparent = mOpaqueCount;
+        for (int i = 0; i < mCount; ++i) {
+            final int slot = mItems[i].mTransparent ? transparent++ : opaque++;
+            mKeys[slot] = mItems[i].mSortKey;
+            mIndices[slot] = i;
+        }
+        radixSort(0, mOpaqueCount);
+        radixSort(mOpaqueCount, mCount);
+
+        // The sorted items are a permutation of the first mCount pooled items, so copying them back keeps every pooled
+        // item in exactly one slot
+        for (int i = 0; i < mCount; ++i) {
+            mSortedItems[i] = mItems[mIndices[i]];
+        }
+        System.arraycopy(mSortedItems, 0, mItems, 0, mCount);
+    }
+
+    /**
+     * Draws all queued draws in their current order. The state cache is invalidated first, since code outside the
+     * queue changes GL state directly, and the state expected by the rest of the render path is restored afterwards.
+     *
+     * @param camera {@link Camera} The camera the draws were queued with.
+     */
+    public void submit(Camera camera) {
+        mStateCache.invalidate();
+        for (int i = 0; i < mCount; ++i) {
+            final RenderItem item = mItems[i];
+            item.mObject.draw(camera, item.mMaterial, mStateCache);
+        }
+        mStateCache.restoreDefaults();
+    }
+
+    public int size() {
+        return mCount;
+    }
+
+    /**
+     * @return {@code int} The number of opaque draws, which come first once sorted.
+     */
+    public int getOpaqueCount() {
+        return mOpaqueCount;
+    }
+
+    public RenderItem get(int index) {
+        return mItems[index];
+    }
+
+    public GLStateCache getStateCache() {
+        return mStateCache;
+    }
+
+    /**
+     * Stable least significant digit radix sort of mKeys and mIndices between start and end. Passes where every key
+     * has the same digit are skipped, so the keys' unused high bits cost nothing.
+     */
+    private void radixSort(int start, int end) {
+        if (end - start < 2) {
+            return;
+        }
+        long[] keys = mKeys;
+        long[] scratchKeys = mScratchKeys;
+        int[] indices = mIndices;
+        int[] scratchIndices = mScratchIndices;
+        for (int shift = 0; shift < 64; shift += RADIX_BITS) {
+            Arrays.fill(mHistogram, 0);
+            for (int i = start; i < end; ++i) {
+                ++mHistogram[(int) (keys[i] >>> shift) & RADIX_MASK];
+            }
+            if (mHistogram[(int) (keys[start] >>> shift) & RADIX_MASK] == end - start) {
+                continue;
+            }
+            int offset = start;
+            for (int i = 0; i < RADIX_SIZE; ++i) {
+                final int count = mHistogram[i];
+                mHistogram[i] = offset;
+                offset += count;
+            }
+            for (int i = start; i < end; ++i) {
+                final int slot = mHistogram[(int) (keys[i] >>> shift) & RADIX_MASK]++;
+                scratchKeys[slot] = keys[i];
+                scratchIndices[slot] = indices[i];
+            }
+            final long[] swapKeys = keys;
+            keys = scratchKeys;
+            scratchKeys = swapKeys;
+            final int[] swapIndices = indices;
+            indices = scratchIndices;
+            scratchIndices = swapIndices;
+        }
+        if (keys != mKeys) {
+            System.arraycopy(keys, start, mKeys, start, end - start);
+            System.arraycopy(indices, start, mIndices, start, end - start);
+        }
+    }
+
+    private void grow(int capacity) {
+        mItems = Arrays.copyOf(mItems, capacity);
+        mSortedItems = new RenderItem[capacity];
+        mKeys = new long[capacity];
+        mScratchKeys = new long[capacity];
+        mIndices = new int[capacity];
+        mScratchIndices = new int[capacity];
+    }
+
+    /**
+     * Folds the texture names of a material into a key, so that draws with the same textures sort together.
+     */
+    protected static long getTextureSetKey(Material material) {
+        final List<ATexture> textures = material.getTextureList();
+        int hash = 0;
+        for (int i = 0, j = textures.size(); i < j; ++i) {
+            hash = 31 * hash + textures.get(i).getTextureId();
+        }
+        return hash ^ (hash >>> 16);
+    }
+
+    /**
+     * Converts a view space depth into a 30 bit key which orders front to back. The bits of a positive float sort in
+     * the same order as its value.
+     */
+    protected static long getDepthKey(double depth) {
+        final float clamped = depth > 0 ? (float) depth : 0f;
+        return Float.floatToIntBits(clamped) >>> 1;
+    }
+
+    /**
+     * Converts a view space depth into a 6 bit layer, its binary exponent, covering depths from 2^-32 to 2^31.
+     */
+    protected static long getDepthLayer(double depth) {
+        final float clamped = depth > 0 ? (float) depth : 0f;
+        final int layer = (Float.floatToIntBits(clamped) >>> 23) - LAYER_BIAS;
+        return layer < 0 ? 0 : (layer > MAX_LAYER ? MAX_LAYER : layer);
+    }
+}
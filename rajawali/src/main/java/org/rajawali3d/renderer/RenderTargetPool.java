@@ -0,0 +1,190 @@
+/**
+ * Copyright 2013 Dennis Ippel
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except in compliance with
+ * the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License is distributed on
+ * an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations under the License.
+ */
+package org.rajawali3d.renderer;
+
+import android.graphics.Bitmap.Config;
+import android.opengl.GLES20;
+
+import androidx.annotation.IntRange;
+import androidx.annotation.NonNull;
+import org.rajawali3d.materials.textures.ATexture.FilterType;
+import org.rajawali3d.materials.textures.ATexture.WrapType;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Hands out {@link RenderTarget}s by size and format, so users that need a buffer of the same kind at different
+ * times share it instead of each allocating their own. A target is handed back with {@link #release(RenderTarget)}
+ * once its contents are no longer needed. The most recently released target of a kind is handed out first, which
+ * keeps two users alternating between acquire and release on the same pair of buffers.
+ * <p/>
+ * Targets are created on demand, so the pool must only be used from the GL thread.
+ */
+public class RenderTargetPool {
+
+    private final Renderer           mRenderer;
+    private final String             mName;
+    private final List<RenderTarget> mFree;
+    private final List<RenderTarget> mInUse;
+    private final List<RenderTarget> mRetained;
+    private final List<RenderTarget> mAcquired;
+
+    private int mCreatedCount;
+
+    public RenderTargetPool(@NonNull Renderer renderer, @NonNull String name) {
+        mRenderer = renderer;
+        mName = name;
+        mFree = new ArrayList<>();
+        mInUse = new ArrayList<>();
+        mRetained = new ArrayList<>();
+        mAcquired = new ArrayList<>();
+    }
+
+    /**
+     * Adds a target that was created elsewhere to the pool. It is handed out like any other target, but it is never
+     * destroyed by the pool, and its size is read again on every lookup so it may be resized by its owner.
+     *
+     * @param target The {@link RenderTarget} to share.
+     */
+    public void retain(@NonNull RenderTarget target) {
+        if (!mRetained.contains(target)) {
+            mRetained.add(target);
+            mFree.add(target);
+        }
+    }
+
+    /**
+     * Acquires an {@link Config#ARGB_8888} target of the given size.
+     *
+     * @see #acquire(int, int, Config)
+     */
+    @NonNull
+    public RenderTarget acquire(@IntRange(from = 1) int width, @IntRange(from = 1) int height) {
+        return acquire(width, height, Config.ARGB_8888);
+    }
+
+    /**
+     * Returns a free target of the given size and format, creating one if there is none. The target stays with the
+     * caller until it is released.
+     *
+     * @param width  The width of the target in pixels.
+     * @param height The height of the target in pixels.
+     * @param config The color format of the target.
+     *
+     * @return The {@link RenderTarget}, whose contents are undefined.
+     */
+    @NonNull
+    public RenderTarget acquire(@IntRange(from = 1) int width, @IntRange(from = 1) int height,
+                                @NonNull Config config) {
+        RenderTarget target = null;
+        for (int i = mFree.size() - 1; i >= 0; --i) {
+            final RenderTarget candidate = mFree.get(i);
+            if (candidate.getWidth() == width && candidate.getHeight() == height
+                && candidate.getTexture().getBitmapConfig() == config) {
+                target = mFree.remove(i);
+                break;
+            }
+        }
+        if (target == null) {
+            target = createRenderTarget(mName + "Pooled" + mCreatedCount++, width, height, config);
+        }
+        mInUse.add(target);
+        if (!mAcquired.contains(target)) {
+            mAcquired.add(target);
+        }
+        return target;
+    }
+
+    /**
+     * Hands a target back to the pool. Releasing a target that is not in use does nothing.
+     *
+     * @param target The {@link RenderTarget} to release.
+     */
+    public void release(@NonNull RenderTarget target) {
+        if (mInUse.remove(target)) {
+            mFree.add(target);
+        }
+    }
+
+    /**
+     * Releases every target that is in use.
+     */
+    public void releaseAll() {
+        mFree.addAll(mInUse);
+        mInUse.clear();
+    }
+
+    /**
+     * Destroys the free targets that have not been acquired since the previous call, for example the targets of a
+     * size that is no longer used.
+     */
+    public void trim() {
+        for (int i = mFree.size() - 1; i >= 0; --i) {
+            final RenderTarget target = mFree.get(i);
+            if (!mAcquired.contains(target) && !mRetained.contains(target)) {
+                mFree.remove(i);
+                destroyRenderTarget(target);
+            }
+        }
+        mAcquired.clear();
+    }
+
+    /**
+     * Destroys every target the pool created and forgets the retained ones.
+     */
+    public void clear() {
+        releaseAll();
+        for (int i = 0, j = mFree.size(); i < j; ++i) {
+            final RenderTarget target = mFree.get(i);
+            if (!mRetained.contains(target)) {
+                destroyRenderTarget(target);
+            }
+        }
+        mFree.clear();
+        mRetained.clear();
+        mAcquired.clear();
+    }
+
+    /**
+     * Returns the number of targets in the pool, in use or not.
+     *
+     * @return {@code int} The target count.
+     */
+    public int getTargetCount() {
+        return mFree.size() + mInUse.size();
+    }
+
+    /**
+     * Returns the number of targets that are not in use.
+     *
+     * @return {@code int} The free target count.
+     */
+    public int getFreeCount() {
+        return mFree.size();
+    }
+
+    @NonNull
+    protected RenderTarget createRenderTarget(@NonNull String name, int width, int height, @NonNull Config config) {
+        final RenderTarget target = new RenderTarget(name, width, height, 0, 0, false, false, GLES20.GL_TEXTURE_2D,
+                                                     config, FilterType.LINEAR, WrapType.CLAMP);
+        // Pooled targets are keyed by their size, so the renderer must not resize them with the surface
+        target.setFullscreen(false);
+        mRenderer.addRenderTargetDirect(target);
+        return target;
+    }
+
+    protected void destroyRenderTarget(@NonNull RenderTarget target) {
+        mRenderer.removeRenderTargetDirect(target);
+    }
+}
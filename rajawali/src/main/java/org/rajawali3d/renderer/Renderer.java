@@ -44,6 +44,7 @@ import org.rajawali3d.util.ObjectColorPicker;
 import org.rajawali3d.util.OnFPSUpdateListener;
 import org.rajawali3d.util.RajLog;
 import org.rajawali3d.util.RawShaderLoader;
+import org.rajawali3d.util.RenderStats;
 
 import java.lang.ref.WeakReference;
 import java.lang.reflect.Constructor;
@@ -207,6 +208,15 @@ public abstract class Renderer implements ISurfaceRenderer {
         return mTextureManager;
     }
 
+    /**
+     * Returns the thread pool which loads models and decodes textures in the background.
+     *
+     * @return The loader {@link Executor}.
+     */
+    public Executor getLoaderExecutor() {
+        return mLoaderExecutor;
+    }
+
     @Override
     public double getFrameRate() {
         return mFrameRate;
@@ -389,6 +399,8 @@ public abstract class Renderer implements ISurfaceRenderer {
         final double deltaTime = (currentTime - mLastRender) / 1e9;
         mLastRender = currentTime;
 
+        RenderStats.beginFrame();
+        mTextureManager.beginFrame();
         onRender(elapsedRenderTime, deltaTime);
 
         ++mFrameCount;
@@ -891,6 +903,31 @@ public abstract class Renderer implements ISurfaceRenderer {
         return internalOfferTask(task);
     }
 
+    /**
+     * Creates a render target immediately and keeps track of it so it is recreated along with the context.
+     * <p/>
+     * This method should only be called from the main OpenGL render thread.
+     *
+     * @param renderTarget
+     */
+    public void addRenderTargetDirect(RenderTarget renderTarget) {
+        renderTarget.create();
+        mRenderTargets.add(renderTarget);
+    }
+
+    /**
+     * Releases the frame buffer and texture of a render target immediately.
+     * <p/>
+     * This method should only be called from the main OpenGL render thread.
+     *
+     * @param renderTarget
+     */
+    public void removeRenderTargetDirect(RenderTarget renderTarget) {
+        mRenderTargets.remove(renderTarget);
+        renderTarget.remove();
+        mTextureManager.taskRemove(renderTarget.getTexture());
+    }
+
     /**
      * Remove a render target in a thread safe manner.
      *
@@ -13,10 +13,12 @@
 package org.rajawali3d.renderer.plugins;
 
 import android.opengl.GLES20;
+import org.rajawali3d.Geometry3D.BufferType;
 import org.rajawali3d.cameras.Camera;
 import org.rajawali3d.extras.LensFlare;
 import org.rajawali3d.extras.LensFlare.FlareInfo;
 import org.rajawali3d.materials.textures.ASingleTexture;
+import org.rajawali3d.materials.textures.TextureManager;
 import org.rajawali3d.math.Matrix4;
 import org.rajawali3d.math.vector.Vector2;
 import org.rajawali3d.math.vector.Vector3;
@@ -325,6 +327,8 @@ public final class LensFlarePlugin extends Plugin {
 
 		// Push vertex element indices to the GPU.
 		GLES20.glBindBuffer(GLES20.GL_ELEMENT_ARRAY_BUFFER, mGeometry.getIndexBufferInfo().bufferHandle);
+		final int indexType = mGeometry.getIndexBufferInfo().bufferType == BufferType.SHORT_BUFFER
+				? GLES20.GL_UNSIGNED_SHORT : GLES20.GL_UNSIGNED_INT;
 
 		// Set up texture locations.
 		GLES20.glUniform1i(muOcclusionMapTextureHandle, 0);
@@ -380,7 +384,7 @@ public final class LensFlarePlugin extends Plugin {
 					GLES20.glDisable(GLES20.GL_BLEND);
 					GLES20.glEnable(GLES20.GL_DEPTH_TEST);
 
-					GLES20.glDrawElements(GLES20.GL_TRIANGLES, 6, GLES20.GL_UNSIGNED_INT, 0);
+					GLES20.glDrawElements(GLES20.GL_TRIANGLES, 6, indexType, 0);
 
 					// Copy result to occlusion map.
 					GLES20.glActiveTexture(GLES20.GL_TEXTURE0);
@@ -394,7 +398,7 @@ public final class LensFlarePlugin extends Plugin {
 
 					GLES20.glActiveTexture(GLES20.GL_TEXTURE1);
 					GLES20.glBindTexture(GLES20.GL_TEXTURE_2D, mMapTexture.getTextureId());
-					GLES20.glDrawElements(GLES20.GL_TRIANGLES, 6, GLES20.GL_UNSIGNED_INT, 0);
+					GLES20.glDrawElements(GLES20.GL_TRIANGLES, 6, indexType, 0);
 
 					// Update the flare's screen positions.
 					lensFlare.setPositionScreen(screenPosition);
@@ -449,6 +453,7 @@ public final class LensFlarePlugin extends Plugin {
 							GLES20.glUniform1f(muOpacityHandle, (float) sprite.getOpacity());
 							GLES20.glUniform3fv(muColorHandle, 1, new float[] { (float) sprite.getColor().x, (float) sprite.getColor().y, (float) sprite.getColor().z }, 0);
 
+							TextureManager.getInstance().useTexture(sprite.getTexture());
 							GLES20.glActiveTexture(GLES20.GL_TEXTURE1);
 							GLES20.glBindTexture(GLES20.GL_TEXTURE_2D, sprite.getTexture().getTextureId());
 
@@ -456,8 +461,7 @@ public final class LensFlarePlugin extends Plugin {
 							GLES20.glBlendFunc(GLES20.GL_SRC_ALPHA, GLES20.GL_ONE);
 
 							// Draw the elements.
-							GLES20.glDrawElements(GLES20.GL_TRIANGLES, mGeometry.getNumIndices(),
-												  GLES20.GL_UNSIGNED_INT, 0);
+							GLES20.glDrawElements(GLES20.GL_TRIANGLES, mGeometry.getNumIndices(), indexType, 0);
 
 							// Unbind texture.
 							GLES20.glBindTexture(GLES20.GL_TEXTURE_2D, 0);
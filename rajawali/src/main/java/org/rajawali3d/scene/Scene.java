@@ -19,8 +19,10 @@ import androidx.annotation.NonNull;
 
 import org.rajawali3d.cameras.Camera;
 import org.rajawali3d.Object3D;
+import org.rajawali3d.TransformStore;
 import org.rajawali3d.animation.Animation;
 import org.rajawali3d.lights.ALight;
+import org.rajawali3d.lights.LightBlock;
 import org.rajawali3d.materials.Material;
 import org.rajawali3d.materials.plugins.FogMaterialPlugin;
 import org.rajawali3d.materials.plugins.FogMaterialPlugin.FogParams;
@@ -35,11 +37,13 @@ import org.rajawali3d.postprocessing.materials.ShadowMapMaterial;
 import org.rajawali3d.primitives.Cube;
 import org.rajawali3d.renderer.AFrameTask;
 import org.rajawali3d.renderer.Renderer;
+import org.rajawali3d.renderer.RenderQueue;
 import org.rajawali3d.renderer.RenderTarget;
 import org.rajawali3d.renderer.plugins.IRendererPlugin;
 import org.rajawali3d.renderer.plugins.Plugin;
 import org.rajawali3d.scenegraph.IGraphNode;
 import org.rajawali3d.scenegraph.IGraphNode.GRAPH_TYPE;
+import org.rajawali3d.scenegraph.IGraphNodeMember;
 import org.rajawali3d.scenegraph.Octree;
 import org.rajawali3d.view.ISurface;
 import org.rajawali3d.util.ObjectColorPicker;
@@ -52,6 +56,7 @@ import java.util.Collections;
 import java.util.LinkedList;
 import java.util.List;
 import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.atomic.AtomicInteger;
 
 /**
  * This is the container class for scenes in Rajawali.
@@ -97,6 +102,8 @@ public class Scene {
 	protected boolean mEnableDepthBuffer = true;
 	protected boolean mAlwaysClearColorBuffer = true;
 	private ShadowMapMaterial mShadowMapMaterial;
+	private final AtomicInteger mShadowCasterVersion = new AtomicInteger(1);
+	private final TransformStore mTransformStore = new TransformStore(); //The transforms of the children
 
 	private final List<Object3D> mChildren;
     private final List<ASceneFrameCallback> mPreCallbacks;
@@ -105,6 +112,7 @@ public class Scene {
 	private final List<Animation> mAnimations;
 	private final List<IRendererPlugin> mPlugins;
 	private final List<ALight> mLights;
+	private final LightBlock mLightBlock = new LightBlock();
 
 	/**
 	* The camera currently in use.
@@ -136,6 +144,7 @@ public class Scene {
 	protected boolean mDisplaySceneGraph = false;
 	protected IGraphNode mSceneGraph; //The scenegraph for this scene
 	protected GRAPH_TYPE mSceneGraphType = GRAPH_TYPE.NONE; //The type of graph type for this scene.
+	protected RenderQueue mRenderQueue = new RenderQueue(); //The state sorting render queue, if enabled.
 
 	public Scene(Renderer renderer) {
 		mRenderer = renderer;
@@ -435,9 +444,11 @@ public class Scene {
             protected void doTask() {
 				RajLog.d("AFrameTask - Replacing child at location " + location + " with " + child);
                 final Object3D old = mChildren.set(location, child);
+                detachChild(old);
+                attachChild(child);
                 if (mSceneGraph != null) {
-                    //mSceneGraph.removeObject(old);
-                    //mSceneGraph.addObject(child); //TODO: Uncomment
+                    mSceneGraph.removeObject(old);
+                    mSceneGraph.addObject(child);
                 }
             }
         };
@@ -457,9 +468,11 @@ public class Scene {
             protected void doTask() {
 				RajLog.d("AFrameTask - Replacing child " + oldChild + " with " + newChild);
                 mChildren.set(mChildren.indexOf(oldChild), newChild);
+                detachChild(oldChild);
+                attachChild(newChild);
                 if (mSceneGraph != null) {
-                    //mSceneGraph.removeObject(oldChild);
-                    //mSceneGraph.addObject(newChild); //TODO: Uncomment
+                    mSceneGraph.removeObject(oldChild);
+                    mSceneGraph.addObject(newChild);
                 }
             }
         };
@@ -479,8 +492,9 @@ public class Scene {
             protected void doTask() {
 				RajLog.d("AFrameTask - Adding child: " + child);
                 mChildren.add(child);
+                attachChild(child);
                 if (mSceneGraph != null) {
-                    //mSceneGraph.addObject(child); //TODO: Uncomment
+                    mSceneGraph.addObject(child);
                 }
                 addShadowMapMaterialPlugin(child, mShadowMapMaterial == null ? null : mShadowMapMaterial.getMaterialPlugin());
             }
@@ -502,8 +516,9 @@ public class Scene {
             @Override
             protected void doTask() {
                 mChildren.add(index, child);
+                attachChild(child);
                 if (mSceneGraph != null) {
-                    //mSceneGraph.addObject(child); //TODO: Uncomment
+                    mSceneGraph.addObject(child);
                 }
             }
         };
@@ -522,8 +537,11 @@ public class Scene {
             @Override
             protected void doTask() {
                 mChildren.addAll(children);
+                for (Object3D child : children) {
+                    attachChild(child);
+                }
                 if (mSceneGraph != null) {
-                    //mSceneGraph.addObject(child); //TODO: Uncomment
+                    mSceneGraph.addObjects(new ArrayList<IGraphNodeMember>(children));
                 }
             }
         };
@@ -540,9 +558,11 @@ public class Scene {
         final AFrameTask task = new AFrameTask() {
             @Override
             protected void doTask() {
-                mChildren.remove(child);
+                if (mChildren.remove(child)) {
+                    detachChild(child);
+                }
                 if (mSceneGraph != null) {
-                    //mSceneGraph.removeObject(child); //TODO: Uncomment
+                    mSceneGraph.removeObject(child);
                 }
             }
         };
@@ -558,9 +578,12 @@ public class Scene {
         final AFrameTask task = new AFrameTask() {
             @Override
             protected void doTask() {
-                /*if (mSceneGraph != null) {
+                if (mSceneGraph != null) {
                     mSceneGraph.removeObjects(new ArrayList<IGraphNodeMember>(mChildren));
-                }*/ //TODO: Uncomment
+                }
+                for (int i = 0, j = mChildren.size(); i < j; ++i) {
+                    detachChild(mChildren.get(i));
+                }
                 mChildren.clear();
             }
         };
@@ -983,6 +1006,8 @@ public class Scene {
 			mSkybox.reload();
 		reloadPlugins();
 		mReloadPickerInfo = true;
+		// Shadow maps rendered before the GL context was lost are gone with it
+		mShadowCasterVersion.incrementAndGet();
 	}
 
 	/**
@@ -1096,7 +1121,7 @@ public class Scene {
 		// Pre-multiply View and Projection matrices once for speed
 		mVPMatrix.setAll(mPMatrix).multiply(mVMatrix);
 		mInvVPMatrix.setAll(mVPMatrix).inverse();
-        mCamera.updateFrustum(mInvVPMatrix); // Update frustum plane
+        mCamera.updateFrustum(mVPMatrix); // Update frustum plane
 
         // Update the model matrices of all the lights
         synchronized (mLights) {
@@ -1104,8 +1129,13 @@ public class Scene {
             for (int i = 0; i < numLights; ++i) {
                 mLights.get(i).onRecalculateModelMatrix(null);
             }
+            // Pack the light uniforms once for all materials
+            mLightBlock.update(mLights);
         }
 
+        // Recalculate the model matrices of the children which moved, and of their descendants, in one pass
+        mTransformStore.update();
+
         // Execute onPreDraw callbacks
         // We explicitly break out the steps here to help the compiler optimize
         final int preDrawCount = mPreDrawCallbacks.size();
@@ -1138,10 +1168,23 @@ public class Scene {
 		}
 
         synchronized (mChildren) {
-			for (int i = 0, j = mChildren.size(); i < j; ++i) {
-                // Model matrix updates are deferred to the render method due to parent matrix needs
-				mChildren.get(i).render(mCamera, mVPMatrix, mPMatrix, mVMatrix, sceneMaterial);
-			}
+            final RenderQueue renderQueue = mRenderQueue;
+            if (renderQueue != null) {
+                renderQueue.begin(mVMatrix);
+            }
+            if (mSceneGraph != null) {
+                renderVisibleChildren(sceneMaterial, renderQueue);
+            } else {
+                for (int i = 0, j = mChildren.size(); i < j; ++i) {
+                    // Model matrix updates are deferred to the render method due to parent matrix needs
+                    mChildren.get(i).render(mCamera, mVPMatrix, mPMatrix, mVMatrix, null, sceneMaterial,
+                        renderQueue);
+                }
+            }
+            if (renderQueue != null) {
+                renderQueue.sort();
+                renderQueue.submit(mCamera);
+            }
 		}
 
 		if (mDisplaySceneGraph) {
@@ -1173,6 +1216,53 @@ public class Scene {
         }
 	}
 
+    /**
+     * Draws every child with a scene-wide material into the currently bound render target and viewport. Unlike
+     * {@link #render(long, double, RenderTarget, Material)} this doesn't clear, run frame tasks, animations, callbacks
+     * or plugins, or cull against the scene graph, so a pass can draw the scene several times per frame, for example
+     * once per shadow map cascade. The material's {@link Material#shouldDraw(Object3D)} decides which objects are
+     * drawn.
+     *
+     * @param sceneMaterial The scene-wide {@link Material} to draw with.
+     */
+    public void renderChildren(Material sceneMaterial) {
+        mCamera.onRecalculateModelMatrix(null);
+        mVMatrix = mCamera.getViewMatrix();
+        mPMatrix = mCamera.getProjectionMatrix();
+        mVPMatrix.setAll(mPMatrix).multiply(mVMatrix);
+
+        sceneMaterial.useProgram();
+        sceneMaterial.bindTextures();
+        synchronized (mChildren) {
+            for (int i = 0, j = mChildren.size(); i < j; ++i) {
+                mChildren.get(i).render(mCamera, mVPMatrix, mPMatrix, mVMatrix, null, sceneMaterial, null);
+            }
+        }
+        sceneMaterial.unbindTextures();
+    }
+
+    /**
+     * Renders only the children which the scene graph reports as inside the camera frustum. Must be called
+     * while holding the lock on {@link #mChildren}.
+     *
+     * @param sceneMaterial The scene-wide {@link Material} to use, if any.
+     * @param renderQueue   The {@link RenderQueue} to add draws to, or null to draw immediately.
+     */
+    protected void renderVisibleChildren(Material sceneMaterial, RenderQueue renderQueue) {
+        // Objects which moved must update their graph placement before the cull, since a culled
+        // object would otherwise never get to recalculate its model matrix. This is a flag check for
+        // static objects.
+        for (int i = 0, j = mChildren.size(); i < j; ++i) {
+            mChildren.get(i).onRecalculateModelMatrix(null);
+        }
+        mSceneGraph.cullFromFrustum(mCamera.getFrustum());
+        final List<IGraphNodeMember> visible = mSceneGraph.getVisibleMembers();
+        for (int i = 0, j = visible.size(); i < j; ++i) {
+            ((Object3D) visible.get(i)).render(mCamera, mVPMatrix, mPMatrix, mVMatrix, null, sceneMaterial,
+                renderQueue);
+        }
+    }
+
 	protected void doColorPicking(ColorPickerInfo pickerInfo) {
 		ObjectColorPicker picker = pickerInfo.getPicker();
 		picker.getRenderTarget().bind();
@@ -1258,6 +1348,15 @@ public class Scene {
 		return mCameras.size();
 	}
 
+	/**
+	 * Retrieve the block the lights are packed into every frame.
+	 *
+	 * @return {@link LightBlock} The light block.
+	 */
+	public LightBlock getLightBlock() {
+		return mLightBlock;
+	}
+
 	public List<ALight> getLights() {
 		return mLights;
 	}
@@ -1313,8 +1412,10 @@ public class Scene {
 	 */
 	private void updateChildMaterialWithLights(Object3D child) {
 		Material material = child.getMaterial();
-		if(material != null && material.lightingEnabled())
+		if(material != null && material.lightingEnabled()) {
 			material.setLights(new ArrayList<ALight>(mLights));
+			material.setLightBlock(mLightBlock);
+		}
 		if(material!= null && mFogParams != null)
 			material.addPlugin(new FogMaterialPlugin(mFogParams));
 
@@ -1489,6 +1590,32 @@ public class Scene {
 		mShadowMapMaterial = material;
 	}
 
+	/**
+	 * Retrieves a counter which changes whenever an object of this scene casting shadows moves, is shown or hidden,
+	 * gains or loses children or is flagged by {@link Object3D#markShadowCasterChanged()}, whenever children are
+	 * added or removed, and when the scene is reloaded after the GL context was lost. A shadow map rendered at one
+	 * version can be reused while the version and the light stay the same.
+	 *
+	 * @return {@code int} The current version.
+	 */
+	public int getShadowCasterVersion() {
+		return mShadowCasterVersion.get();
+	}
+
+	private void attachChild(Object3D child) {
+		child.setShadowCasterVersion(mShadowCasterVersion);
+		child.setTransformStore(mTransformStore, TransformStore.NO_PARENT);
+		mShadowCasterVersion.incrementAndGet();
+	}
+
+	private void detachChild(Object3D child) {
+		child.setShadowCasterVersion(null);
+		if (child.getTransformStore() == mTransformStore) {
+			child.setTransformStore(null, TransformStore.NO_PARENT);
+		}
+		mShadowCasterVersion.incrementAndGet();
+	}
+
 	private void addShadowMapMaterialPlugin(Object3D o, ShadowMapMaterialPlugin materialPlugin) {
 		Material m = o.getMaterial();
 
@@ -1514,6 +1641,30 @@ public class Scene {
 		mDisplaySceneGraph = display;
 	}
 
+	/**
+	 * Sets whether the children of this scene are drawn through a {@link RenderQueue}. When enabled, visible objects
+	 * are collected during traversal and drawn with redundant GL state changes skipped: opaque objects first, front
+	 * to back and grouped by program and textures, then transparent objects back to front. Objects rendered as a batch
+	 * are still drawn immediately. Enabled by default. When disabled, children are drawn immediately in the order
+	 * they were added.
+	 *
+	 * @param enabled If true, the render queue will be used.
+	 */
+	public void setRenderQueueEnabled(boolean enabled) {
+		if (enabled != (mRenderQueue != null)) {
+			mRenderQueue = enabled ? new RenderQueue() : null;
+		}
+	}
+
+	/**
+	 * Retrieves the render queue of this scene.
+	 *
+	 * @return {@link RenderQueue} The render queue, or null if it isn't enabled.
+	 */
+	public RenderQueue getRenderQueue() {
+		return mRenderQueue;
+	}
+
 	/**
 	 * Retrieve the number of triangles this scene contains, recursive method
 	 *
@@ -18,6 +18,7 @@ import java.util.List;
 
 import org.rajawali3d.ATransformable3D;
 import org.rajawali3d.cameras.Camera;
+import org.rajawali3d.cameras.Frustum;
 import org.rajawali3d.bounds.BoundingBox;
 import org.rajawali3d.bounds.BoundingSphere;
 import org.rajawali3d.bounds.IBoundingVolume;
@@ -72,6 +73,9 @@ public abstract class A_nAABBTree extends BoundingBox implements IGraphNode {
 	protected boolean mRecursiveAdd = false; //Default to NOT recursive add
 	protected boolean mRecursiveRemove = false; //Default to NOT recursive remove.
 
+	protected ArrayList<IGraphNodeMember> mVisibleMembers; //Result of the last cull, only used by the root
+	protected int mCullTestCount; //Number of volume tests performed by the last cull
+
 	//Expected to never leave its default identity state.
 	protected final Matrix4 mMMatrix = new Matrix4(); //A model matrix to use for drawing the bounds of this node.
 	protected final Vector3 mPosition = new Vector3(); //This node's center point in 3D space.
@@ -335,13 +339,36 @@ public abstract class A_nAABBTree extends BoundingBox implements IGraphNode {
 		if (shouldClear) clear();
 		if (mSplit) {
 			for (int i = 0; i < CHILD_COUNT; ++i) {
-				members.addAll(mChildren[i].mMembers);
-				if (shouldClear) mChildren[i].clear();
+				members.addAll(mChildren[i].getAllMembersRecursively(shouldClear));
 			}
 		}
 		return members;
 	}
 
+	/**
+	 * Determines which of this node's children fully contains the provided volume.
+	 *
+	 * @param volume IBoundingVolume to check.
+	 * @return int index of the only child containing the volume, or -1 if this node
+	 * is not split or the volume does not fit in exactly one child.
+	 */
+	protected int getContainingChild(IBoundingVolume volume) {
+		if (!mSplit) return -1;
+		int fits_in_child = -1;
+		for (int i = 0; i < CHILD_COUNT; ++i) {
+			if (mChildren[i].contains(volume)) {
+				//If the member fits in this child, mark that child
+				if (fits_in_child < 0) {
+					fits_in_child = i;
+				} else {
+					//It fits in multiple children, leave it in parent
+					return -1;
+				}
+			}
+		}
+		return fits_in_child;
+	}
+
 	/**
 	 * Internal method for adding an object to the graph. This method will determine if
 	 * it gets added to this node or moved to a child node.
@@ -352,19 +379,7 @@ public abstract class A_nAABBTree extends BoundingBox implements IGraphNode {
 		//TODO: Implement a batch process for this to save excessive splitting/merging
 		if (mSplit) {
 			//Check if the object fits in our children
-			int fits_in_child = -1;
-			for (int i = 0; i < CHILD_COUNT; ++i) {
-				if (mChildren[i].contains(object.getTransformedBoundingVolume())) {
-					//If the member fits in this child, mark that child
-					if (fits_in_child < 0) {
-						fits_in_child = i;
-					} else {
-						//It fits in multiple children, leave it in parent
-						fits_in_child = -1;
-						break;
-					}
-				}
-			}
+			int fits_in_child = getContainingChild(object.getTransformedBoundingVolume());
 			if (fits_in_child >= 0) { //If a single child was marked, add the member to it
 				mChildren[fits_in_child].addObject(object);
 			} else {
@@ -628,9 +643,21 @@ public abstract class A_nAABBTree extends BoundingBox implements IGraphNode {
 	 * (non-Javadoc)
 	 * @see rajawali.scenegraph.IGraphNode#addObjects(java.util.Collection)
 	 */
-	public void addObjects(Collection<IGraphNodeMember> objects) {
-		// TODO Auto-generated method stub
-		
+	public synchronized void addObjects(Collection<IGraphNodeMember> objects) {
+		if (objects.isEmpty()) return;
+		if (mParent == null) {
+			//Park the whole batch outside and grow once, rather than growing every few
+			//objects as the batch spills over the current bounds
+			for (IGraphNodeMember object : objects) {
+				addToOutside(object);
+			}
+			mBoundingColor.set(0xFFFF0000);
+			grow();
+		} else {
+			for (IGraphNodeMember object : objects) {
+				internalAddObject(object);
+			}
+		}
 	}
 
 	/*
@@ -643,7 +670,15 @@ public abstract class A_nAABBTree extends BoundingBox implements IGraphNode {
 		//Retrieve the container object
 		IGraphNode container = object.getGraphNode();
 		if (container == null) {
-			mOutside.remove(object);
+			if (mParent == null) mOutside.remove(object);
+		} else if (!object.isInGraph()) {
+			//Members outside the graph are parked on the root node
+			if (container == this) {
+				mOutside.remove(object);
+				object.setGraphNode(null, false);
+			} else {
+				container.removeObject(object);
+			}
 		} else {
 			if (container == this) {
 				//If this is the container, process the removal
@@ -666,8 +701,9 @@ public abstract class A_nAABBTree extends BoundingBox implements IGraphNode {
 	 * @see rajawali.scenegraph.IGraphNode#removeObjects(java.util.Collection)
 	 */
 	public void removeObjects(Collection<IGraphNodeMember> objects) {
-		// TODO Auto-generated method stub
-		
+		for (IGraphNodeMember object : objects) {
+			removeObject(object);
+		}
 	}
 
 	/*
@@ -682,8 +718,8 @@ public abstract class A_nAABBTree extends BoundingBox implements IGraphNode {
 			return;
 		}
 		IGraphNode container = object.getGraphNode(); //Get the container node
+		if (container == null) return; //Not part of this graph
 		handleRecursiveUpdate((A_nAABBTree) container, object);
-		RajLog.e("Node: " + this + " Object Container: " + container);
 	}
 
 	/**
@@ -694,59 +730,29 @@ public abstract class A_nAABBTree extends BoundingBox implements IGraphNode {
 	 * @param object IGraphNodeMember which is being updated.
 	 */
 	protected void handleRecursiveUpdate(final A_nAABBTree container, IGraphNodeMember object) {
-		//RajLog.i("Rajawali", "Handling recursive update potential.");
+		final IBoundingVolume volume = object.getTransformedBoundingVolume();
+		//Walk up until we find a node which still fully contains the object, or reach the root
 		A_nAABBTree local_container = container;
-		boolean updated = false;
-		while (!updated) {
-			if (local_container.contains(object.getTransformedBoundingVolume())) {
-				int fits_in_child = -1;
-				if (mSplit) {
-					for (int j = 0; j < CHILD_COUNT; ++j) {
-						if (mChildren[j].contains(object.getTransformedBoundingVolume())) {
-							//If the member fits in this child, mark that child
-							if (fits_in_child < 0) {
-								fits_in_child = j;
-							} else {
-								//It fits in multiple children, leave it in parent
-								fits_in_child = -1;
-								break;
-							}
-						}
-					}
-					if (fits_in_child >= 0) { //If a single child was marked
-						RajLog.i("Fits in a single child.");
-						local_container.removeFromMembers(object);
-						mChildren[fits_in_child].internalAddObject(object);
-						updated = true;
-					} else { //TODO: WORKS
-						RajLog.i("Fits in multiple children, leaving in place.");
-						updated = true;
-					}
-				} else {
-					RajLog.i("No children so we are leaving in same node.");
-					if (!object.isInGraph()) {
-						RajLog.i("Removing from outside graph and moving to inside root.");
-						local_container.mOutside.remove(object);
-						local_container.internalAddObject(object);
-					}
-					updated = true;
-				}
-			} else {
-				//RajLog.v("Rajawali", "OUTSIDE");
-				if (local_container.mParent == null) { //TODO: WORKS
-					//RajLog.v("Rajawali", "OUTSIDE");
-					//RajLog.i("Rajawali", "Container is root node. Adding to outside.");
-					if (object.isInGraph()) {
-						local_container.removeFromMembers(object);
-						local_container.addToOutside(object);
-					}
-					//RajLog.e("Rajawali", "Node after addToOutside: " + object.getGraphNode());
-					updated = true;
-				} else {
-					RajLog.i("Container is not root (" + local_container + "). Moving search up a level.");
-					local_container = local_container.mParent;
-				}
-			}
+		while (local_container.mParent != null && !local_container.contains(volume)) {
+			local_container = local_container.mParent;
+		}
+		final boolean contained = local_container.contains(volume);
+		if (object.isInGraph() && contained && local_container == container
+				&& container.getContainingChild(volume) < 0) {
+			//Still belongs exactly where it is
+			return;
+		}
+		//Detach from the prior container...
+		if (object.isInGraph()) {
+			container.removeFromMembers(object);
+		} else {
+			container.mOutside.remove(object);
+		}
+		//...and re-insert as deep as it will go from the containing node
+		if (contained) {
+			local_container.internalAddObject(object);
+		} else {
+			local_container.addToOutside(object);
 		}
 	}
 
@@ -778,9 +784,164 @@ public abstract class A_nAABBTree extends BoundingBox implements IGraphNode {
 	 * (non-Javadoc)
 	 * @see rajawali.scenegraph.IGraphNode#cullFromBoundingVolume(rajawali.bounds.IBoundingVolume)
 	 */
-	public void cullFromBoundingVolume(IBoundingVolume volume) {
-		// TODO Auto-generated method stub
+	public synchronized void cullFromBoundingVolume(IBoundingVolume volume) {
+		beginCull();
+		if (volume instanceof BoundingBox) {
+			final BoundingBox box = (BoundingBox) volume;
+			cullNode(null, box, box.intersectsWith(this) ? Frustum.INTERSECT : Frustum.OUTSIDE);
+		} else {
+			//Without a box we can't reject partitions, so test every member
+			final ArrayList<IGraphNodeMember> members = getAllMembersRecursively(false);
+			for (int i = 0, j = members.size(); i < j; ++i) {
+				++mCullTestCount;
+				if (volume.intersectsWith(members.get(i).getTransformedBoundingVolume())) {
+					mVisibleMembers.add(members.get(i));
+				}
+			}
+			return;
+		}
+		cullOutside(null, volume);
+	}
+
+	/*
+	 * (non-Javadoc)
+	 * @see rajawali.scenegraph.IGraphNode#cullFromFrustum(rajawali.cameras.Frustum)
+	 */
+	public synchronized void cullFromFrustum(Frustum frustum) {
+		beginCull();
+		cullNode(frustum, null, frustum.classifyBounds(mTransformedMin, mTransformedMax));
+		cullOutside(frustum, null);
+	}
+
+	/*
+	 * (non-Javadoc)
+	 * @see rajawali.scenegraph.IGraphNode#getVisibleMembers()
+	 */
+	public List<IGraphNodeMember> getVisibleMembers() {
+		if (mVisibleMembers == null) mVisibleMembers = new ArrayList<IGraphNodeMember>();
+		return mVisibleMembers;
+	}
+
+	/*
+	 * (non-Javadoc)
+	 * @see rajawali.scenegraph.IGraphNode#getCullTestCount()
+	 */
+	public int getCullTestCount() {
+		return mCullTestCount;
+	}
+
+	/**
+	 * Resets the cull results prior to a new cull.
+	 */
+	protected void beginCull() {
+		getVisibleMembers().clear();
+		mCullTestCount = 1; //The root node itself
+	}
+
+	/**
+	 * Recursively culls this node and its descendants. Exactly one of the frustum or box
+	 * must be provided. Nodes outside are rejected with everything below them and nodes fully
+	 * inside accept everything below them without further tests; only nodes straddling the
+	 * boundary test their members individually.
+	 *
+	 * @param frustum {@link Frustum} to cull against, or null.
+	 * @param box {@link BoundingBox} to cull against, or null.
+	 * @param classification int classification of this node, one of the {@link Frustum} constants.
+	 */
+	protected void cullNode(Frustum frustum, BoundingBox box, int classification) {
+		if (classification == Frustum.OUTSIDE) return;
+		final A_nAABBTree root = getRoot();
+		if (classification == Frustum.INSIDE) {
+			root.mVisibleMembers.addAll(mMembers);
+		} else {
+			for (int i = 0, j = mMembers.size(); i < j; ++i) {
+				final IGraphNodeMember member = mMembers.get(i);
+				++root.mCullTestCount;
+				if (isMemberVisible(frustum, box, member)) {
+					root.mVisibleMembers.add(member);
+				}
+			}
+		}
+		if (mSplit) {
+			for (int i = 0; i < CHILD_COUNT; ++i) {
+				final A_nAABBTree child = mChildren[i];
+				int childClassification = classification;
+				if (classification != Frustum.INSIDE) {
+					++root.mCullTestCount;
+					childClassification = child.classify(frustum, box);
+				}
+				child.cullNode(frustum, box, childClassification);
+			}
+		}
+	}
+
+	/**
+	 * Tests the members outside of the root node individually.
+	 *
+	 * @param frustum {@link Frustum} to cull against, or null.
+	 * @param volume {@link IBoundingVolume} to cull against, or null.
+	 */
+	protected void cullOutside(Frustum frustum, IBoundingVolume volume) {
+		if (mParent != null) return;
+		for (int i = 0, j = mOutside.size(); i < j; ++i) {
+			final IGraphNodeMember member = mOutside.get(i);
+			++mCullTestCount;
+			if (frustum != null ? isMemberVisible(frustum, null, member)
+					: volume.intersectsWith(member.getTransformedBoundingVolume())) {
+				mVisibleMembers.add(member);
+			}
+		}
+	}
 
+	/**
+	 * Classifies this node against either the frustum or the box.
+	 *
+	 * @param frustum {@link Frustum} to classify against, or null.
+	 * @param box {@link BoundingBox} to classify against, or null.
+	 * @return int one of the {@link Frustum} classification constants.
+	 */
+	protected int classify(Frustum frustum, BoundingBox box) {
+		if (frustum != null) {
+			return frustum.classifyBounds(mTransformedMin, mTransformedMax);
+		}
+		if (isContainedBy(box)) return Frustum.INSIDE;
+		return box.intersectsWith(this) ? Frustum.INTERSECT : Frustum.OUTSIDE;
+	}
+
+	/**
+	 * Tests an individual member against either the frustum or the box. Members without
+	 * a usable volume are always considered visible.
+	 *
+	 * @param frustum {@link Frustum} to test against, or null.
+	 * @param box {@link BoundingBox} to test against, or null.
+	 * @param member {@link IGraphNodeMember} to test.
+	 * @return boolean true if the member is at least partially visible.
+	 */
+	protected boolean isMemberVisible(Frustum frustum, BoundingBox box, IGraphNodeMember member) {
+		final IBoundingVolume volume = member.getTransformedBoundingVolume();
+		if (volume == null) return true;
+		if (box != null) return box.intersectsWith(volume);
+		if (volume instanceof BoundingBox) {
+			final BoundingBox bb = (BoundingBox) volume;
+			return frustum.classifyBounds(bb.getTransformedMin(), bb.getTransformedMax()) != Frustum.OUTSIDE;
+		} else if (volume instanceof BoundingSphere) {
+			final BoundingSphere bs = (BoundingSphere) volume;
+			return frustum.sphereInFrustum(bs.getPosition(), bs.getScaledRadius());
+		}
+		return true;
+	}
+
+	/**
+	 * Retrieve the root node of this tree.
+	 *
+	 * @return A_nAABBTree The root node.
+	 */
+	protected A_nAABBTree getRoot() {
+		A_nAABBTree node = this;
+		while (node.mParent != null) {
+			node = node.mParent;
+		}
+		return node;
 	}
 
 	/*
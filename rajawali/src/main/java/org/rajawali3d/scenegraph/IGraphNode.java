@@ -13,8 +13,10 @@
 package org.rajawali3d.scenegraph;
 
 import java.util.Collection;
+import java.util.List;
 
 import org.rajawali3d.cameras.Camera;
+import org.rajawali3d.cameras.Frustum;
 import org.rajawali3d.bounds.IBoundingVolume;
 import org.rajawali3d.math.Matrix4;
 import org.rajawali3d.math.vector.Vector3;
@@ -120,6 +122,33 @@ public interface IGraphNode {
 	 */
     void cullFromBoundingVolume(IBoundingVolume volume);
 
+	/**
+	 * Called to cause the scene graph to determine which objects are
+	 * inside (even partially) the provided {@link Frustum}. Implementations
+	 * are expected to reject whole regions of the graph at once where they can.
+	 * The result is available from {@link #getVisibleMembers()}.
+	 *
+	 * @param frustum {@link Frustum} to test visibility against.
+	 */
+    void cullFromFrustum(Frustum frustum);
+
+	/**
+	 * Retrieve the members which survived the most recent call to
+	 * {@link #cullFromBoundingVolume(IBoundingVolume)} or {@link #cullFromFrustum(Frustum)}.
+	 * The returned list is owned by the graph and is reused by the next cull.
+	 *
+	 * @return {@link List} of visible {@link IGraphNodeMember} objects.
+	 */
+    List<IGraphNodeMember> getVisibleMembers();
+
+	/**
+	 * Retrieve the number of volume tests (graph nodes plus individual members)
+	 * performed by the most recent cull. Useful for profiling the graph.
+	 *
+	 * @return int containing the test count.
+	 */
+    int getCullTestCount();
+
 	/**
 	 * Call this in the renderer to cause the scene graph to be
 	 * displayed. It is up to the implementation to determine
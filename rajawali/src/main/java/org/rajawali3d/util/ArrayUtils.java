@@ -199,7 +199,7 @@ public class ArrayUtils {
 			} else if (buffer instanceof ShortBuffer) {
 				int count = 0;
 				while (buffer.hasRemaining()) {
-					array[count] = (int) (((ShortBuffer) buffer).get());
+					array[count] = ((ShortBuffer) buffer).get() & 0xFFFF;
 					++count;
 				}
 			}
@@ -0,0 +1,85 @@
+/**
+ * Copyright 2013 Dennis Ippel
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except in compliance with
+ * the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License is distributed on
+ * an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations under the License.
+ */
+package org.rajawali3d.util;
+
+import java.util.Arrays;
+
+/**
+ * A growable list of {@code float} values, for collecting large amounts of data, such as parsed mesh attributes,
+ * without boxing each value.
+ */
+public class FloatArrayList {
+
+    private float[] mValues;
+    private int     mSize;
+
+    public FloatArrayList() {
+        this(16);
+    }
+
+    /**
+     * @param capacity {@code int} The number of values which can be added before the list grows.
+     */
+    public FloatArrayList(int capacity) {
+        mValues = new float[Math.max(capacity, 1)];
+    }
+
+    public void add(float value) {
+        if (mSize == mValues.length) {
+            mValues = Arrays.copyOf(mValues, mSize * 2);
+        }
+        mValues[mSize++] = value;
+    }
+
+    /**
+     * @param index {@code int} The position of the value.
+     * @return {@code float} The value.
+     *
+     * @throws ArrayIndexOutOfBoundsException if the index is negative or not less than {@link #size()}.
+     */
+    public float get(int index) {
+        if (index < 0 || index >= mSize) {
+            throw new ArrayIndexOutOfBoundsException(index);
+        }
+        return mValues[index];
+    }
+
+    public void set(int index, float value) {
+        if (index < 0 || index >= mSize) {
+            throw new ArrayIndexOutOfBoundsException(index);
+        }
+        mValues[index] = value;
+    }
+
+    public int size() {
+        return mSize;
+    }
+
+    public boolean isEmpty() {
+        return mSize == 0;
+    }
+
+    /**
+     * Removes all values, keeping the storage for reuse.
+     */
+    public void clear() {
+        mSize = 0;
+    }
+
+    /**
+     * @return {@code float} array A copy of the values.
+     */
+    public float[] toArray() {
+        return Arrays.copyOf(mValues, mSize);
+    }
+}
@@ -0,0 +1,85 @@
+/**
+ * Copyright 2013 Dennis Ippel
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except in compliance with
+ * the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License is distributed on
+ * an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations under the License.
+ */
+package org.rajawali3d.util;
+
+import java.util.Arrays;
+
+/**
+ * A growable list of {@code int} values, for collecting large amounts of data, such as parsed mesh attributes,
+ * without boxing each value.
+ */
+public class IntArrayList {
+
+    private int[] mValues;
+    private int   mSize;
+
+    public IntArrayList() {
+        this(16);
+    }
+
+    /**
+     * @param capacity {@code int} The number of values which can be added before the list grows.
+     */
+    public IntArrayList(int capacity) {
+        mValues = new int[Math.max(capacity, 1)];
+    }
+
+    public void add(int value) {
+        if (mSize == mValues.length) {
+            mValues = Arrays.copyOf(mValues, mSize * 2);
+        }
+        mValues[mSize++] = value;
+    }
+
+    /**
+     * @param index {@code int} The position of the value.
+     * @return {@code int} The value.
+     *
+     * @throws ArrayIndexOutOfBoundsException if the index is negative or not less than {@link #size()}.
+     */
+    public int get(int index) {
+        if (index < 0 || index >= mSize) {
+            throw new ArrayIndexOutOfBoundsException(index);
+        }
+        return mValues[index];
+    }
+
+    public void set(int index, int value) {
+        if (index < 0 || index >= mSize) {
+            throw new ArrayIndexOutOfBoundsException(index);
+        }
+        mValues[index] = value;
+    }
+
+    public int size() {
+        return mSize;
+    }
+
+    public boolean isEmpty() {
+        return mSize == 0;
+    }
+
+    /**
+     * Removes all values, keeping the storage for reuse.
+     */
+    public void clear() {
+        mSize = 0;
+    }
+
+    /**
+     * @return {@code int} array A copy of the values.
+     */
+    public int[] toArray() {
+        return Arrays.copyOf(mValues, mSize);
+    }
+}
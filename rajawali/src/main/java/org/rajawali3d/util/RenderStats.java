@@ -0,0 +1,157 @@
+/**
+ * Copyright 2013 Dennis Ippel
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except in compliance with
+ * the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License is distributed on
+ * an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations under the License.
+ */
+package org.rajawali3d.util;
+
+/**
+ * Per frame counters describing how much transform, uniform upload and shadow map work the renderer performed. The counters are reset by the
+ * {@link org.rajawali3d.renderer.Renderer} at the start of each frame and, like the rest of the render path, are only
+ * meant to be touched from the GL thread.
+ */
+public final class RenderStats {
+
+    private static int sModelMatrices;
+    private static int sViewDependentMatrices;
+    private static int sViewMatrices;
+    private static int sBoundsTransforms;
+    private static int sUniformUploads;
+    private static int sSkippedUniformUploads;
+    private static int sShadowMapRenders;
+    private static int sShadowMapCacheHits;
+    private static int sCulledShadowCasters;
+
+    private RenderStats() {
+    }
+
+    /**
+     * Resets all counters. Called at the start of every frame.
+     */
+    public static void beginFrame() {
+        sModelMatrices = 0;
+        sViewDependentMatrices = 0;
+        sViewMatrices = 0;
+        sBoundsTransforms = 0;
+        sUniformUploads = 0;
+        sSkippedUniformUploads = 0;
+        sShadowMapRenders = 0;
+        sShadowMapCacheHits = 0;
+        sCulledShadowCasters = 0;
+    }
+
+    public static void countModelMatrix() {
+        ++sModelMatrices;
+    }
+
+    public static void countViewDependentMatrices() {
+        ++sViewDependentMatrices;
+    }
+
+    public static void countViewMatrix() {
+        ++sViewMatrices;
+    }
+
+    public static void countBoundsTransform() {
+        ++sBoundsTransforms;
+    }
+
+    public static void countUniformUpload() {
+        ++sUniformUploads;
+    }
+
+    public static void countSkippedUniformUpload() {
+        ++sSkippedUniformUploads;
+    }
+
+    public static void countSkippedUniformUploads(int count) {
+        sSkippedUniformUploads += count;
+    }
+
+    public static void countShadowMapRender() {
+        ++sShadowMapRenders;
+    }
+
+    public static void countShadowMapCacheHit() {
+        ++sShadowMapCacheHits;
+    }
+
+    public static void countCulledShadowCaster() {
+        ++sCulledShadowCasters;
+    }
+
+    /**
+     * @return The number of model matrices recalculated since the start of the frame.
+     */
+    public static int getModelMatrixCount() {
+        return sModelMatrices;
+    }
+
+    /**
+     * @return The number of objects whose model-view and model-view-projection matrices were recalculated since the
+     * start of the frame.
+     */
+    public static int getViewDependentMatrixCount() {
+        return sViewDependentMatrices;
+    }
+
+    /**
+     * @return The number of camera view matrices (and their inverse transposes) which changed since the start of
+     * the frame.
+     */
+    public static int getViewMatrixCount() {
+        return sViewMatrices;
+    }
+
+    /**
+     * @return The number of bounding volumes transformed into world space since the start of the frame.
+     */
+    public static int getBoundsTransformCount() {
+        return sBoundsTransforms;
+    }
+
+    /**
+     * @return The number of uniform uploads issued to GL since the start of the frame.
+     */
+    public static int getUniformUploadCount() {
+        return sUniformUploads;
+    }
+
+    /**
+     * @return The number of uniform uploads skipped since the start of the frame, because the uniform already held the
+     * value or isn't active in the program.
+     */
+    public static int getSkippedUniformUploadCount() {
+        return sSkippedUniformUploads;
+    }
+
+    /**
+     * @return The number of shadow maps rendered since the start of the frame.
+     */
+    public static int getShadowMapRenderCount() {
+        return sShadowMapRenders;
+    }
+
+    /**
+     * @return The number of shadow maps kept from an earlier frame since the start of the frame, because neither the
+     * light's projection nor any shadow caster changed.
+     */
+    public static int getShadowMapCacheHitCount() {
+        return sShadowMapCacheHits;
+    }
+
+    /**
+     * @return The number of objects skipped since the start of the frame while rendering shadow map cascades, because
+     * they don't cast shadows or their bounds miss the cascade.
+     */
+    public static int getCulledShadowCasterCount() {
+        return sCulledShadowCasters;
+    }
+}
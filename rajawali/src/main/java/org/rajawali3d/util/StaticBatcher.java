@@ -0,0 +1,289 @@
+/**
+ * Copyright 2013 Dennis Ippel
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except in compliance with
+ * the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License is distributed on
+ * an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations under the License.
+ */
+package org.rajawali3d.util;
+
+import android.opengl.GLES20;
+
+import org.rajawali3d.BatchedObject3D;
+import org.rajawali3d.Geometry3D;
+import org.rajawali3d.InstancedObject3D;
+import org.rajawali3d.Object3D;
+import org.rajawali3d.animation.mesh.AAnimationObject3D;
+import org.rajawali3d.materials.Material;
+import org.rajawali3d.math.Matrix4;
+
+import java.nio.FloatBuffer;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Merges the static meshes of a scene graph into as few objects as possible, so they can be drawn with a handful of
+ * draw calls. Meshes are grouped by material and render state, and each group becomes one {@link BatchedObject3D}
+ * whose vertices and normals are transformed by the model matrices of the merged objects. The buffers of a group are
+ * sized once before being filled, so merging is linear in the size of the meshes.
+ *
+ * The batches are in the space of the root's parent: add them where the root was and remove the root. Members which
+ * are invisible when batched start out hidden in their batch. Objects which can't be merged, such as containers,
+ * objects without a material, non triangle meshes and animated or instanced objects, are left out of the batches.
+ */
+public class StaticBatcher {
+
+    /**
+     * Merges the meshes of an object and all of its descendants. The objects themselves are left unchanged.
+     *
+     * @param root {@link Object3D} The root of the graph to batch.
+     * @return {@link List} of {@link BatchedObject3D}, one per material and render state.
+     */
+    public List<BatchedObject3D> batch(Object3D root) {
+        final Map<GroupKey, List<Member>> groups = new LinkedHashMap<GroupKey, List<Member>>();
+        collect(root, null, groups);
+
+        final List<BatchedObject3D> batches = new ArrayList<BatchedObject3D>(groups.size());
+        for (Map.Entry<GroupKey, List<Member>> entry : groups.entrySet()) {
+            batches.add(merge(entry.getKey(), entry.getValue()));
+        }
+        return batches;
+    }
+
+    private void collect(Object3D object, Matrix4 parentMatrix, Map<GroupKey, List<Member>> groups) {
+        final Matrix4 matrix = new Matrix4().setAll(object.getPosition(), object.getScale(), object.getOrientation());
+        if (parentMatrix != null) {
+            matrix.leftMultiply(parentMatrix);
+        }
+
+        if (isBatchable(object)) {
+            final GroupKey key = new GroupKey(object);
+            List<Member> members = groups.get(key);
+            if (members == null) {
+                members = new ArrayList<Member>();
+                groups.put(key, members);
+            }
+            members.add(new Member(object, matrix));
+        }
+
+        for (int i = 0, j = object.getNumChildren(); i < j; ++i) {
+            collect(object.getChildAt(i), matrix, groups);
+        }
+    }
+
+    /**
+     * Whether an object's mesh can be merged. Override to keep further objects, such as ones which move, out of the
+     * batches.
+     *
+     * @param object {@link Object3D} The object to check.
+     * @return {@code boolean} True if the object can be batched.
+     */
+    protected boolean isBatchable(Object3D object) {
+        if (object.isContainer() || object.getMaterial() == null || object.getDrawingMode() != GLES20.GL_TRIANGLES
+            || object instanceof AAnimationObject3D || object instanceof InstancedObject3D
+            || object instanceof BatchedObject3D) {
+            return false;
+        }
+        final Geometry3D geometry = object.getGeometry();
+        return geometry.getVertices() != null && geometry.getIndexBuffer() != null && geometry.getNumIndices() > 0;
+    }
+
+    private BatchedObject3D merge(GroupKey key, List<Member> members) {
+        int numVertices = 0;
+        int numIndices = 0;
+        boolean hasNormals = false;
+        boolean hasColors = false;
+        for (int i = 0, j = members.size(); i < j; ++i) {
+            final Geometry3D geometry = members.get(i).mObject.getGeometry();
+            numVertices += geometry.getVertices().limit() / 3;
+            numIndices += geometry.getNumIndices();
+            hasNormals |= geometry.getNormals() != null;
+            hasColors |= geometry.getColors() != null;
+        }
+
+        final float[] vertices = new float[numVertices * 3];
+        final float[] normals = hasNormals ? new float[numVertices * 3] : null;
+        final float[] textureCoords = new float[numVertices * 2];
+        final float[] colors = hasColors ? new float[numVertices * 4] : null;
+        final int[] indices = new int[numIndices];
+
+        final Object3D[] objects = new Object3D[members.size()];
+        final int[] indexOffsets = new int[members.size()];
+        final int[] indexCounts = new int[members.size()];
+        final Matrix4 normalMatrix = new Matrix4();
+
+        int vertexOffset = 0;
+        int indexOffset = 0;
+        for (int i = 0, j = members.size(); i < j; ++i) {
+            final Member member = members.get(i);
+            final Geometry3D geometry = member.mObject.getGeometry();
+            final double[] m = member.mMatrix.getDoubleValues();
+
+            final FloatBuffer memberVertices = geometry.getVertices();
+            final int count = memberVertices.limit() / 3;
+            for (int v = 0; v < count; ++v) {
+                transform(m, memberVertices, v * 3, vertices, (vertexOffset + v) * 3, 1);
+            }
+
+            final FloatBuffer memberNormals = geometry.getNormals();
+            if (normals != null && memberNormals != null) {
+                double[] n;
+                try {
+                    n = normalMatrix.setAll(member.mMatrix).setToNormalMatrix().getDoubleValues();
+                } catch (IllegalStateException e) {
+                    RajLog.w("[StaticBatcher] Singular model matrix for " + member.mObject.getName()
+                             + ", normals are left untransformed.");
+                    n = normalMatrix.identity().getDoubleValues();
+                }
+                for (int v = 0; v < count; ++v) {
+                    final int offset = (vertexOffset + v) * 3;
+                    transform(n, memberNormals, v * 3, normals, offset, 0);
+                    normalize(normals, offset);
+                }
+            }
+
+            final FloatBuffer memberTextureCoords = geometry.getTextureCoords();
+            if (memberTextureCoords != null) {
+                final int length = Math.min(count * 2, memberTextureCoords.limit());
+                for (int t = 0; t < length; ++t) {
+                    textureCoords[vertexOffset * 2 + t] = memberTextureCoords.get(t);
+                }
+            }
+
+            if (colors != null) {
+                final FloatBuffer memberColors = geometry.getColors();
+                for (int c = 0; c < count * 4; ++c) {
+                    colors[vertexOffset * 4 + c] = memberColors != null && c < memberColors.limit()
+                                                   ? memberColors.get(c) : 1f;
+                }
+            }
+
+            final int indexCount = geometry.getNumIndices();
+            for (int k = 0; k < indexCount; ++k) {
+                indices[indexOffset + k] = geometry.getIndex(k) + vertexOffset;
+            }
+
+            objects[i] = member.mObject;
+            indexOffsets[i] = indexOffset;
+            indexCounts[i] = indexCount;
+            vertexOffset += count;
+            indexOffset += indexCount;
+        }
+
+        final BatchedObject3D batch = createBatch(objects, indexOffsets, indexCounts);
+        batch.setData(vertices, normals, textureCoords, colors, indices, false);
+        batch.setMaterial(key.mMaterial);
+        batch.setDoubleSided(key.mDoubleSided);
+        batch.setBackSided(key.mBackSided);
+        batch.setTransparent(key.mTransparent);
+        batch.setBlendingEnabled(key.mBlending);
+        batch.setBlendFunc(key.mBlendSFactor, key.mBlendDFactor);
+        batch.setDepthTestEnabled(key.mDepthTest);
+        batch.setDepthMaskEnabled(key.mDepthMask);
+        for (int i = 0; i < objects.length; ++i) {
+            batch.setMemberVisible(i, objects[i].isVisible());
+        }
+        return batch;
+    }
+
+    /**
+     * Creates the object holding a batch. Override to use a subclass of {@link BatchedObject3D}.
+     *
+     * @param members      {@link Object3D} array of the merged objects, in index buffer order.
+     * @param indexOffsets {@code int} array of the first index of each member.
+     * @param indexCounts  {@code int} array of the number of indices of each member.
+     * @return {@link BatchedObject3D} The new, empty batch.
+     */
+    protected BatchedObject3D createBatch(Object3D[] members, int[] indexOffsets, int[] indexCounts) {
+        return new BatchedObject3D(members, indexOffsets, indexCounts);
+    }
+
+    private static void transform(double[] m, FloatBuffer in, int inOffset, float[] out, int outOffset, double w) {
+        final double x = in.get(inOffset);
+        final double y = in.get(inOffset + 1);
+        final double z = in.get(inOffset + 2);
+        out[outOffset] = (float) (m[Matrix4.M00] * x + m[Matrix4.M01] * y + m[Matrix4.M02] * z + m[Matrix4.M03] * w);
+        out[outOffset + 1] = (float) (m[Matrix4.M10] * x + m[Matrix4.M11] * y + m[Matrix4.M12] * z + m[Matrix4.M13] * w);
+        out[outOffset + 2] = (float) (m[Matrix4.M20] * x + m[Matrix4.M21] * y + m[Matrix4.M22] * z + m[Matrix4.M23] * w);
+    }
+
+    private static void normalize(float[] v, int offset) {
+        final double length = Math.sqrt(v[offset] * v[offset] + v[offset + 1] * v[offset + 1]
+                                        + v[offset + 2] * v[offset + 2]);
+        if (length > 0) {
+            v[offset] /= length;
+            v[offset + 1] /= length;
+            v[offset + 2] /= length;
+        }
+    }
+
+    private static final class Member {
+        final Object3D mObject;
+        final Matrix4  mMatrix;
+
+        Member(Object3D object, Matrix4 matrix) {
+            mObject = object;
+            mMatrix = matrix;
+        }
+    }
+
+    /**
+     * Objects can only share a batch if they are drawn with the same material and render state.
+     */
+    private static final class GroupKey {
+        final Material mMaterial;
+        final boolean  mDoubleSided;
+        final boolean  mBackSided;
+        final boolean  mTransparent;
+        final boolean  mBlending;
+        final int      mBlendSFactor;
+        final int      mBlendDFactor;
+        final boolean  mDepthTest;
+        final boolean  mDepthMask;
+
+        GroupKey(Object3D object) {
+            mMaterial = object.getMaterial();
+            mDoubleSided = object.isDoubleSided();
+            mBackSided = object.isBackSided();
+            mTransparent = object.isTransparent();
+            mBlending = object.isBlendingEnabled();
+            mBlendSFactor = object.getBlendFuncSFactor();
+            mBlendDFactor = object.getBlendFuncDFactor();
+            mDepthTest = object.isDepthTestEnabled();
+            mDepthMask = object.isDepthMaskEnabled();
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            if (this == o) return true;
+            if (!(o instanceof GroupKey)) return false;
+            final GroupKey other = (GroupKey) o;
+            return mMaterial == other.mMaterial && mDoubleSided == other.mDoubleSided
+                   && mBackSided == other.mBackSided && mTransparent == other.mTransparent
+                   && mBlending == other.mBlending && mBlendSFactor == other.mBlendSFactor
+                   && mBlendDFactor == other.mBlendDFactor && mDepthTest == other.mDepthTest
+                   && mDepthMask == other.mDepthMask;
+        }
+
+        @Override
+        public int hashCode() {
+            int result = System.identityHashCode(mMaterial);
+            result = 31 * result + (mDoubleSided ? 1 : 0);
+            result = 31 * result + (mBackSided ? 1 : 0);
+            result = 31 * result + (mTransparent ? 1 : 0);
+            result = 31 * result + (mBlending ? 1 : 0);
+            result = 31 * result + mBlendSFactor;
+            result = 31 * result + mBlendDFactor;
+            result = 31 * result + (mDepthTest ? 1 : 0);
+            result = 31 * result + (mDepthMask ? 1 : 0);
+            return result;
+        }
+    }
+}
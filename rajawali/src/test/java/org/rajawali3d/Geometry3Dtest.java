@@ -4,10 +4,17 @@ import org.junit.After;
 import org.junit.Before;
 import org.junit.Test;
 
+import android.opengl.GLES20;
+
+import java.nio.ByteBuffer;
+import java.nio.FloatBuffer;
+import java.nio.ShortBuffer;
+
 import static org.junit.Assert.assertEquals;
 import static org.junit.Assert.assertFalse;
 import static org.junit.Assert.assertTrue;
 import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNull;
 
 /**
  * @author Jared Woolston (jwoolston@keywcorp.com)
@@ -61,4 +68,133 @@ public class Geometry3Dtest {
         assertTrue(geometry.hasBoundingSphere());
     }
 
+    @Test
+    public void testInterleaveLayout() {
+        final float[] vertices = new float[]{ 0, 1, 2, 3, 4, 5 };
+        final float[] normals = new float[]{ 10, 11, 12, 13, 14, 15 };
+        final float[] textureCoords = new float[]{ 20, 21, 22, 23 };
+        final float[] colors = new float[]{ 30, 31, 32, 33, 34, 35, 36, 37 };
+        geometry.setData(vertices, normals, textureCoords, colors, new int[]{ 0, 1, 0 }, false);
+        geometry.interleave();
+
+        assertTrue(geometry.isInterleaved());
+        final BufferInfo interleaved = geometry.getInterleavedBufferInfo();
+        assertEquals(48, interleaved.stride);
+        assertEquals(48, geometry.getVertexBufferInfo().stride);
+        assertEquals(0, geometry.getVertexBufferInfo().offset);
+        assertEquals(12, geometry.getNormalBufferInfo().offset);
+        assertEquals(24, geometry.getTexCoordBufferInfo().offset);
+        assertEquals(32, geometry.getColorBufferInfo().offset);
+        assertEquals(interleaved, geometry.getColorBufferInfo().interleavedBuffer);
+
+        final FloatBuffer data = (FloatBuffer) interleaved.buffer;
+        assertEquals(24, data.capacity());
+        final float[] expected = new float[]{
+                0, 1, 2, 10, 11, 12, 20, 21, 30, 31, 32, 33,
+                3, 4, 5, 13, 14, 15, 22, 23, 34, 35, 36, 37
+        };
+        for (int i = 0; i < expected.length; ++i) {
+            assertEquals(expected[i], data.get(i), 0);
+        }
+
+        // The client side copies are untouched
+        assertEquals(3f, geometry.getVertices().get(3), 0);
+    }
+
+    @Test
+    public void testInterleaveSkipsMissingAttributes() {
+        geometry.setData(new float[]{ 0, 1, 2, 3, 4, 5 }, null, null, null, new int[]{ 0, 1, 0 }, false);
+        geometry.interleave();
+
+        // Texture coordinates are always present, filled with zeros if none are given
+        assertEquals(20, geometry.getVertexBufferInfo().stride);
+        assertEquals(12, geometry.getTexCoordBufferInfo().offset);
+        assertNull(geometry.getNormalBufferInfo().interleavedBuffer);
+        final FloatBuffer data = (FloatBuffer) geometry.getInterleavedBufferInfo().buffer;
+        assertEquals(10, data.capacity());
+        assertEquals(3f, data.get(5), 0);
+    }
+
+    @Test(expected = IllegalStateException.class)
+    public void testInterleaveRequiresVertices() {
+        geometry.interleave();
+    }
+
+    @Test
+    public void testSmallMeshesUseShortIndices() {
+        geometry.setData(new float[]{ 0, 1, 2, 3, 4, 5 }, null, null, null, new int[]{ 0, 1, 0 }, false);
+        assertEquals(Geometry3D.BufferType.SHORT_BUFFER, geometry.getIndexBufferInfo().bufferType);
+        assertTrue(geometry.getIndexBuffer() instanceof ShortBuffer);
+        assertEquals(1, geometry.getIndex(1));
+        assertEquals(1, geometry.getIndices().get(1));
+    }
+
+    @Test
+    public void testLargeMeshesUseIntIndices() {
+        geometry.setData(new float[]{ 0, 1, 2, 3, 4, 5 }, null, null, null, new int[]{ 0, 70000, 1 }, false);
+        assertEquals(Geometry3D.BufferType.INT_BUFFER, geometry.getIndexBufferInfo().bufferType);
+        assertEquals(70000, geometry.getIndex(1));
+    }
+
+    @Test
+    public void testShortIndicesAreUnsigned() {
+        geometry.setData(new float[]{ 0, 1, 2, 3, 4, 5 }, null, null, null, new int[]{ 0, 40000, 65535 }, false);
+        assertEquals(Geometry3D.BufferType.SHORT_BUFFER, geometry.getIndexBufferInfo().bufferType);
+        assertEquals(40000, geometry.getIndex(1));
+        assertEquals(65535, geometry.getIndices().get(2));
+    }
+
+    @Test
+    public void testQuantizedInterleave() {
+        final float[] vertices = new float[]{ 0, 1, 2, 3, 4, 5 };
+        final float[] normals = new float[]{ 0, 0, 1, 0, -1, 0 };
+        final float[] textureCoords = new float[]{ 0, 1, 0.5f, 0.5f };
+        final float[] colors = new float[]{ 1, 0, 0, 1, 0, 1, 0, 1 };
+        geometry.setData(vertices, normals, textureCoords, colors, new int[]{ 0, 1, 0 }, false);
+        final int footprint = geometry.getMemoryFootprint();
+        geometry.interleave(true);
+
+        final BufferInfo interleaved = geometry.getInterleavedBufferInfo();
+        assertEquals(24, interleaved.stride);
+        assertEquals(12, geometry.getNormalBufferInfo().offset);
+        assertEquals(16, geometry.getTexCoordBufferInfo().offset);
+        assertEquals(20, geometry.getColorBufferInfo().offset);
+        assertEquals(GLES20.GL_FLOAT, geometry.getVertexBufferInfo().type);
+        assertFalse(geometry.getVertexBufferInfo().normalized);
+        assertEquals(GLES20.GL_BYTE, geometry.getNormalBufferInfo().type);
+        assertTrue(geometry.getNormalBufferInfo().normalized);
+        assertEquals(GLES20.GL_UNSIGNED_SHORT, geometry.getTexCoordBufferInfo().type);
+        assertEquals(GLES20.GL_UNSIGNED_BYTE, geometry.getColorBufferInfo().type);
+
+        final ByteBuffer data = (ByteBuffer) interleaved.buffer;
+        assertEquals(48, data.capacity());
+        assertEquals(2f, data.getFloat(8), 0);
+        assertEquals(127, data.get(14));
+        assertEquals(-127, data.get(24 + 13));
+        assertEquals(65535, data.getShort(18) & 0xFFFF);
+        assertEquals(32768, data.getShort(24 + 16) & 0xFFFF);
+        assertEquals(255, data.get(20) & 0xFF);
+        assertEquals(0, data.get(21));
+        assertTrue(geometry.getMemoryFootprint() < footprint);
+    }
+
+    @Test
+    public void testQuantizedInterleaveKeepsUnboundedTextureCoords() {
+        final float[] textureCoords = new float[]{ 0, 2, 0.5f, -1 };
+        geometry.setData(new float[]{ 0, 1, 2, 3, 4, 5 }, null, textureCoords, null, new int[]{ 0, 1, 0 }, false);
+        geometry.interleave(true);
+
+        assertEquals(20, geometry.getInterleavedBufferInfo().stride);
+        assertEquals(GLES20.GL_FLOAT, geometry.getTexCoordBufferInfo().type);
+        assertFalse(geometry.getTexCoordBufferInfo().normalized);
+        assertEquals(-1f, ((ByteBuffer) geometry.getInterleavedBufferInfo().buffer).getFloat(20 + 16), 0);
+    }
+
+    @Test
+    public void testMemoryFootprint() {
+        geometry.setData(new float[]{ 0, 1, 2, 3, 4, 5 }, null, null, null, new int[]{ 0, 1, 0 }, false);
+        // 6 floats of vertices, 4 floats of default texture coordinates and 3 short indices
+        assertEquals(6 * 4 + 4 * 4 + 3 * 2, geometry.getMemoryFootprint());
+        assertTrue(geometry.getMemoryReport().contains("indices: 6 bytes, SHORT_BUFFER"));
+    }
 }
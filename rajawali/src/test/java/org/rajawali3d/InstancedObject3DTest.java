@@ -0,0 +1,88 @@
+package org.rajawali3d;
+
+import org.junit.Before;
+import org.junit.Test;
+import org.rajawali3d.bounds.BoundingBox;
+import org.rajawali3d.math.Matrix4;
+import org.rajawali3d.math.Quaternion;
+import org.rajawali3d.math.vector.Vector3;
+
+import java.nio.FloatBuffer;
+
+import static org.junit.Assert.assertEquals;
+
+public class InstancedObject3DTest {
+
+    private InstancedObject3D instanced;
+
+    @Before
+    public void setUp() {
+        final Object3D source = new Object3D();
+        source.setData(new float[]{ -1, -1, -1, 1, 1, 1, 1, -1, 1 }, null, null, null, new int[]{ 0, 1, 2 }, false);
+        instanced = new InstancedObject3D(source, 4);
+    }
+
+    @Test
+    public void testInstancesStartAsWhiteIdentity() {
+        final FloatBuffer data = instanced.getInstanceBuffer();
+        final double[] identity = new Matrix4().getDoubleValues();
+        for (int i = 0; i < instanced.getCapacity(); ++i) {
+            final int offset = i * InstancedObject3D.FLOATS_PER_INSTANCE;
+            for (int j = 0; j < 16; ++j) {
+                assertEquals(identity[j], data.get(offset + j), 0);
+            }
+            for (int j = 0; j < 4; ++j) {
+                assertEquals(1f, data.get(offset + InstancedObject3D.COLOR_OFFSET + j), 0);
+            }
+        }
+    }
+
+    @Test
+    public void testInstanceTransformMatchesMatrix() {
+        final Vector3 position = new Vector3(1, 2, 3);
+        final Quaternion orientation = new Quaternion().fromAngleAxis(Vector3.Axis.Y, 30);
+        instanced.setInstanceTransform(2, position, orientation, 2);
+
+        final double[] expected = new Matrix4().setAll(position, new Vector3(2, 2, 2), orientation).getDoubleValues();
+        final int offset = 2 * InstancedObject3D.FLOATS_PER_INSTANCE;
+        for (int j = 0; j < 16; ++j) {
+            assertEquals(expected[j], instanced.getInstanceBuffer().get(offset + j), 1e-6);
+        }
+    }
+
+    @Test
+    public void testInstancePositionAndColor() {
+        instanced.setInstancePosition(1, 4, 5, 6);
+        instanced.setInstanceColor(1, 0.25f, 0.5f, 0.75f, 1f);
+
+        final FloatBuffer data = instanced.getInstanceBuffer();
+        final int offset = InstancedObject3D.FLOATS_PER_INSTANCE;
+        assertEquals(4f, data.get(offset + Matrix4.M03), 0);
+        assertEquals(5f, data.get(offset + Matrix4.M13), 0);
+        assertEquals(6f, data.get(offset + Matrix4.M23), 0);
+        assertEquals(1f, data.get(offset + Matrix4.M00), 0);
+        assertEquals(0.25f, data.get(offset + InstancedObject3D.COLOR_OFFSET), 0);
+        assertEquals(0.75f, data.get(offset + InstancedObject3D.COLOR_OFFSET + 2), 0);
+    }
+
+    @Test
+    public void testBoundsEncloseAllInstances() {
+        instanced.setInstanceCount(2);
+        instanced.setInstancePosition(0, 10, 0, 0);
+        instanced.setInstanceTransform(1, new Vector3(0, -5, 0), new Quaternion(), 3);
+        instanced.updateInstanceBounds();
+
+        final BoundingBox box = instanced.getBoundingBox();
+        assertEquals(-3, box.getMin().x, 1e-6);
+        assertEquals(-8, box.getMin().y, 1e-6);
+        assertEquals(-3, box.getMin().z, 1e-6);
+        assertEquals(11, box.getMax().x, 1e-6);
+        assertEquals(1, box.getMax().y, 1e-6);
+        assertEquals(3, box.getMax().z, 1e-6);
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void testInstanceCountLimitedByCapacity() {
+        instanced.setInstanceCount(5);
+    }
+}
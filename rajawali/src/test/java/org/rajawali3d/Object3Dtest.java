@@ -3,7 +3,14 @@ package org.rajawali3d;
 import org.junit.After;
 import org.junit.Before;
 import org.junit.Test;
+import org.rajawali3d.bounds.BoundingBox;
+import org.rajawali3d.cameras.Camera;
+import org.rajawali3d.math.Matrix4;
+import org.rajawali3d.util.RenderStats;
 
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.Assert.assertArrayEquals;
 import static org.junit.Assert.assertEquals;
 import static org.junit.Assert.assertFalse;
 import static org.junit.Assert.assertTrue;
@@ -38,4 +45,154 @@ public class Object3Dtest {
         assertNotNull(obj.getTransformedBoundingVolume());
         assertTrue(obj.hasBoundingVolume());
     }
+
+    @Test
+    public void testModelMatrixUniformScale() {
+        final Object3D child = new Object3D();
+        obj.addChild(child);
+        obj.setScale(2);
+        child.setScale(3);
+        obj.calculateModelMatrix(null);
+        child.calculateModelMatrix(obj.getModelMatrix());
+        assertTrue(obj.isModelMatrixUniformScale());
+        assertTrue(child.isModelMatrixUniformScale());
+
+        obj.setScale(1, 2, 1);
+        obj.calculateModelMatrix(null);
+        child.calculateModelMatrix(obj.getModelMatrix());
+        assertFalse(obj.isModelMatrixUniformScale());
+        assertFalse(child.isModelMatrixUniformScale());
+
+        // Nothing is known about a matrix which isn't the parent's
+        obj.setScale(1);
+        obj.calculateModelMatrix(null);
+        child.calculateModelMatrix(new Matrix4());
+        assertFalse(child.isModelMatrixUniformScale());
+    }
+
+    @Test
+    public void testViewDependentMatricesCached() {
+        final Camera camera = new Camera();
+        camera.setProjectionMatrix(800, 600);
+        camera.setPosition(0, 0, 10);
+        camera.onRecalculateModelMatrix(null);
+        Matrix4 view = camera.getViewMatrix();
+        final Matrix4 vp = new Matrix4().setAll(camera.getProjectionMatrix()).multiply(view);
+        obj.setPosition(1, 2, 3);
+        obj.onRecalculateModelMatrix(null);
+
+        RenderStats.beginFrame();
+        obj.updateViewDependentMatrices(camera, vp, view);
+        obj.updateViewDependentMatrices(camera, vp, view);
+        assertEquals(1, RenderStats.getViewDependentMatrixCount());
+
+        // A static object and camera skip the work on following frames
+        view = camera.getViewMatrix();
+        obj.updateViewDependentMatrices(camera, vp, view);
+        assertEquals(1, RenderStats.getViewDependentMatrixCount());
+
+        // Moving the object invalidates its matrices
+        obj.setPosition(-1, 0, 0);
+        obj.onRecalculateModelMatrix(null);
+        obj.updateViewDependentMatrices(camera, vp, view);
+        assertEquals(2, RenderStats.getViewDependentMatrixCount());
+
+        // Moving the camera invalidates them too
+        camera.setPosition(0, 5, 10);
+        camera.onRecalculateModelMatrix(null);
+        view = camera.getViewMatrix();
+        vp.setAll(camera.getProjectionMatrix()).multiply(view);
+        obj.updateViewDependentMatrices(camera, vp, view);
+        assertEquals(1, RenderStats.getViewMatrixCount());
+        assertEquals(3, RenderStats.getViewDependentMatrixCount());
+
+        final Matrix4 expected = new Matrix4().setAll(vp).multiply(obj.getModelMatrix());
+        assertArrayEquals(expected.getDoubleValues(), obj.getModelViewProjectionMatrix().getDoubleValues(), 1e-12);
+        expected.setAll(view).inverse().transpose();
+        assertArrayEquals(expected.getDoubleValues(), obj.getInverseViewMatrix().getDoubleValues(), 1e-12);
+    }
+
+    @Test
+    public void testForeignViewMatrixAlwaysRecalculated() {
+        final Camera camera = new Camera();
+        final Matrix4 view = new Matrix4().setToTranslation(0, 0, -10);
+        obj.onRecalculateModelMatrix(null);
+
+        RenderStats.beginFrame();
+        obj.updateViewDependentMatrices(camera, view, view);
+        obj.updateViewDependentMatrices(camera, view, view);
+        assertEquals(2, RenderStats.getViewDependentMatrixCount());
+    }
+
+    @Test
+    public void testBoundsTransformedOnlyWhenMoved() {
+        obj.getBoundingBox();
+        obj.onRecalculateModelMatrix(null);
+
+        RenderStats.beginFrame();
+        obj.updateTransformedBounds();
+        obj.updateTransformedBounds();
+        assertEquals(1, RenderStats.getBoundsTransformCount());
+
+        obj.setPosition(0, 4, 0);
+        obj.onRecalculateModelMatrix(null);
+        obj.updateTransformedBounds();
+        assertEquals(2, RenderStats.getBoundsTransformCount());
+        assertEquals(4, obj.getBoundingBox().getTransformedMin().y, 1e-12);
+    }
+
+    @Test
+    public void testTransformedBoundingVolumeCached() {
+        obj.setPosition(0, 2, 0);
+        obj.getTransformedBoundingVolume();
+
+        // The scene graph asks for the volume of every member it culls, which is free while nothing moves
+        RenderStats.beginFrame();
+        obj.getTransformedBoundingVolume();
+        obj.getTransformedBoundingVolume();
+        assertEquals(0, RenderStats.getModelMatrixCount());
+        assertEquals(0, RenderStats.getBoundsTransformCount());
+
+        obj.setPosition(0, 4, 0);
+        final BoundingBox box = (BoundingBox) obj.getTransformedBoundingVolume();
+        assertEquals(1, RenderStats.getModelMatrixCount());
+        assertEquals(1, RenderStats.getBoundsTransformCount());
+        assertEquals(4, box.getTransformedMin().y, 1e-12);
+    }
+
+    @Test
+    public void testShadowCasterVersion() {
+        final AtomicInteger version = new AtomicInteger();
+        final Object3D child = new Object3D();
+        obj.addChild(child);
+        obj.setShadowCasterVersion(version);
+        obj.setPosition(1, 0, 0);
+        assertTrue(version.get() != 0);
+        version.set(0);
+        child.setPosition(1, 0, 0);
+        assertTrue(version.get() != 0);
+
+        obj.onRecalculateModelMatrix(null);
+        child.onRecalculateModelMatrix(obj.getModelMatrix());
+        version.set(0);
+        obj.setVisible(true);
+        assertEquals(0, version.get());
+        obj.setVisible(false);
+        assertTrue(version.get() != 0);
+
+        // Objects which don't cast shadows don't invalidate shadow maps
+        obj.setShadowCaster(false);
+        child.setShadowCaster(false);
+        version.set(0);
+        obj.setPosition(2, 0, 0);
+        obj.setVisible(true);
+        assertEquals(0, version.get());
+
+        // Nor do objects outside of the scene
+        child.setShadowCaster(true);
+        obj.removeChild(child);
+        version.set(0);
+        child.setPosition(2, 0, 0);
+        assertEquals(0, version.get());
+    }
 }
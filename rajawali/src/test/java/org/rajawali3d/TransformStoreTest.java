@@ -0,0 +1,310 @@
+package org.rajawali3d;
+
+import org.junit.Test;
+import org.rajawali3d.math.Matrix4;
+import org.rajawali3d.math.Quaternion;
+import org.rajawali3d.math.vector.Vector3;
+
+import java.util.concurrent.atomic.AtomicReference;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+
+public class TransformStoreTest {
+
+    /**
+     * Builds a tree where each node has up to four children, with both the store and {@link Object3D}s.
+     */
+    private static Object3D[] buildHierarchy(TransformStore store, int size) {
+        final Object3D[] objects = new Object3D[size];
+        for (int i = 0; i < size; ++i) {
+            final int parent = i == 0 ? TransformStore.NO_PARENT : (i - 1) / 4;
+            final int node = store.add(parent);
+            assertEquals(i, node);
+            objects[i] = new Object3D();
+            objects[i].setPosition(i % 7, -i % 5, i % 3 * 0.5);
+            objects[i].setScale(1 + i % 2, 1, 0.5 + i % 3);
+            objects[i].setOrientation(new Quaternion().fromAngleAxis(Vector3.Axis.values()[i % 3], i * 13 % 360));
+            store.setPosition(node, objects[i].getPosition());
+            store.setScale(node, objects[i].getScale());
+            store.setOrientation(node, objects[i].getOrientation());
+        }
+        return objects;
+    }
+
+    private static void updateObjects(TransformStore store, Object3D[] objects) {
+        for (int i = 0; i < objects.length; ++i) {
+            final int parent = store.getParent(i);
+            objects[i].calculateModelMatrix(parent == TransformStore.NO_PARENT ? null
+                                                                               : objects[parent].getModelMatrix());
+        }
+    }
+
+    private static void assertMatches(TransformStore store, Object3D[] objects) {
+        final Matrix4 world = new Matrix4();
+        for (int i = 0; i < objects.length; ++i) {
+            final double[] expected = objects[i].getModelMatrix().getDoubleValues();
+            final double[] actual = store.getWorldMatrix(i, world).getDoubleValues();
+            for (int j = 0; j < 16; ++j) {
+                assertEquals("Node " + i + " element " + j, expected[j], actual[j], 1e-9);
+            }
+        }
+    }
+
+    @Test
+    public void testMatchesModelMatrices() {
+        final TransformStore store = new TransformStore(4);
+        final Object3D[] objects = buildHierarchy(store, 100);
+        assertEquals(100, store.update());
+        updateObjects(store, objects);
+        assertMatches(store, objects);
+    }
+
+    @Test
+    public void testOnlyChangedSubtreesAreUpdated() {
+        final TransformStore store = new TransformStore();
+        final Object3D[] objects = buildHierarchy(store, 21);
+        store.update();
+        assertEquals(0, store.update());
+
+        // Node 1 has children 5 to 8, which are leaves, so the subtree is 5 nodes
+        objects[1].setPosition(10, 0, 0);
+        store.setPosition(1, objects[1].getPosition());
+        assertEquals(5, store.update());
+        updateObjects(store, objects);
+        assertMatches(store, objects);
+    }
+
+    @Test
+    public void testAccessors() {
+        final TransformStore store = new TransformStore();
+        final int node = store.add(TransformStore.NO_PARENT);
+        store.setPosition(node, 1, 2, 3);
+        store.setScale(node, 4, 5, 6);
+        store.setOrientation(node, 0, 1, 0, 0);
+        assertEquals(new Vector3(1, 2, 3), store.getPosition(node, new Vector3()));
+        assertEquals(new Vector3(4, 5, 6), store.getScale(node, new Vector3()));
+        assertEquals(new Quaternion(0, 1, 0, 0), store.getOrientation(node, new Quaternion()));
+
+        store.update();
+        final float[] floats = new float[20];
+        store.getWorldMatrix(node, floats, 4);
+        assertEquals(1f, floats[4 + Matrix4.M03], 0);
+        assertEquals(3f, floats[4 + Matrix4.M23], 0);
+        assertEquals(1f, floats[4 + Matrix4.M33], 0);
+    }
+
+    /**
+     * Builds a root with two children, the first of which has a child of its own.
+     */
+    private static Object3D[] buildObjects() {
+        final Object3D[] objects = new Object3D[4];
+        for (int i = 0; i < objects.length; ++i) {
+            objects[i] = new Object3D();
+            objects[i].setPosition(i, 2 * i, -i);
+            objects[i].setScale(1 + i % 2, 1, 1 + i % 2);
+            objects[i].setRotation(Vector3.Axis.Y, i * 30);
+        }
+        objects[0].addChild(objects[1]);
+        objects[0].addChild(objects[2]);
+        objects[1].addChild(objects[3]);
+        return objects;
+    }
+
+    /**
+     * An object mirroring its model matrix along z, like {@link org.rajawali3d.animation.mesh.SkeletalAnimationChildObject3D}.
+     */
+    private static class MirroredObject3D extends Object3D {
+        @Override
+        public void calculateModelMatrix(Matrix4 parentMatrix) {
+            super.calculateModelMatrix(parentMatrix);
+            mMMatrix.scale(1, 1, -1);
+        }
+    }
+
+    private static Object3D[] buildMirroredObjects() {
+        final Object3D[] objects = buildObjects();
+        final Object3D mirrored = new MirroredObject3D();
+        mirrored.setPosition(0, 1, 2);
+        objects[0].removeChild(objects[1]);
+        objects[0].addChild(mirrored);
+        mirrored.addChild(objects[1]);
+        return new Object3D[]{ objects[0], mirrored, objects[1], objects[2], objects[3] };
+    }
+
+    private static void assertSameModelMatrices(Object3D[] expected, Object3D[] actual) {
+        for (int i = 0; i < expected.length; ++i) {
+            expected[i].onRecalculateModelMatrix(i == 0 ? null : expected[i].getParent().getModelMatrix());
+            actual[i].onRecalculateModelMatrix(null);
+            final double[] e = expected[i].getModelMatrix().getDoubleValues();
+            final double[] a = actual[i].getModelMatrix().getDoubleValues();
+            for (int j = 0; j < 16; ++j) {
+                assertEquals("Object " + i + " element " + j, e[j], a[j], 1e-9);
+            }
+            assertEquals(expected[i].isModelMatrixUniformScale(), actual[i].isModelMatrixUniformScale());
+        }
+    }
+
+    @Test
+    public void testOwnedNodesFollowObjects() {
+        final TransformStore store = new TransformStore(2);
+        final Object3D[] expected = buildObjects();
+        final Object3D[] actual = buildObjects();
+        actual[0].setTransformStore(store, TransformStore.NO_PARENT);
+        assertEquals(4, store.size());
+        assertEquals(4, store.update());
+        assertSameModelMatrices(expected, actual);
+
+        // Moving the root recalculates the hierarchy in the store, the objects only copy the result
+        expected[0].setPosition(5, 0, 0);
+        actual[0].setPosition(5, 0, 0);
+        assertEquals(4, store.update());
+        assertTrue(actual[3].onRecalculateModelMatrix(null));
+        assertFalse(actual[3].onRecalculateModelMatrix(null));
+        assertSameModelMatrices(expected, actual);
+
+        // Changes made after the update are picked up when an object needs its matrix
+        expected[1].setScale(2);
+        actual[1].setScale(2);
+        assertSameModelMatrices(expected, actual);
+
+        // Children added later join the store
+        final Object3D child = new Object3D();
+        actual[2].addChild(child);
+        assertSame(store, child.getTransformStore());
+        actual[2].removeChild(child);
+        assertNull(child.getTransformStore());
+        assertEquals(1, store.getRemovedCount());
+    }
+
+    @Test
+    public void testCompactsRemovedNodes() {
+        final TransformStore store = new TransformStore();
+        final Object3D[][] hierarchies = new Object3D[10][];
+        for (int i = 0; i < hierarchies.length; ++i) {
+            hierarchies[i] = buildObjects();
+            hierarchies[i][0].setTransformStore(store, TransformStore.NO_PARENT);
+        }
+        store.update();
+        for (int i = 0; i < 6; ++i) {
+            hierarchies[i][0].setTransformStore(null, TransformStore.NO_PARENT);
+            assertEquals(TransformStore.NO_PARENT, hierarchies[i][3].getTransformNode());
+        }
+        assertEquals(24, store.getRemovedCount());
+
+        hierarchies[9][0].setPosition(1, 1, 1);
+        store.update();
+        assertEquals(16, store.size());
+        assertEquals(0, store.getRemovedCount());
+        final Object3D[] expected = buildObjects();
+        expected[0].setPosition(1, 1, 1);
+        for (int i = 6; i < hierarchies.length; ++i) {
+            for (Object3D object : hierarchies[i]) {
+                assertTrue(object.getTransformNode() < 16);
+            }
+            assertEquals(store.getParent(hierarchies[i][3].getTransformNode()), hierarchies[i][1].getTransformNode());
+        }
+        assertSameModelMatrices(expected, hierarchies[9]);
+
+        for (int i = 6; i < hierarchies.length; ++i) {
+            hierarchies[i][0].setTransformStore(null, TransformStore.NO_PARENT);
+        }
+        assertEquals(0, store.size());
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void testParentMustComeFirst() {
+        final TransformStore store = new TransformStore();
+        store.add(TransformStore.NO_PARENT);
+        store.add(1);
+    }
+
+    @Test
+    public void testModelMatrixOverridesBypassStore() {
+        final TransformStore store = new TransformStore();
+        final Object3D[] expected = buildMirroredObjects();
+        final Object3D[] actual = buildMirroredObjects();
+        actual[0].setTransformStore(store, TransformStore.NO_PARENT);
+        // The mirrored object and its descendants stay out of the store, the root's other child joins it
+        assertSame(store, actual[0].getTransformStore());
+        assertNull(actual[1].getTransformStore());
+        assertNull(actual[2].getTransformStore());
+        assertNull(actual[4].getTransformStore());
+        assertSame(store, actual[3].getTransformStore());
+        assertEquals(2, store.size());
+
+        store.update();
+        assertSameParentedModelMatrices(expected, actual);
+
+        // Moving the root still reaches the descendants outside the store
+        expected[0].setPosition(3, 0, 0);
+        actual[0].setPosition(3, 0, 0);
+        store.update();
+        assertSameParentedModelMatrices(expected, actual);
+    }
+
+    /**
+     * Recalculates the model matrices with their parent's, which objects in a store ignore.
+     */
+    private static void assertSameParentedModelMatrices(Object3D[] expected, Object3D[] actual) {
+        for (int i = 0; i < expected.length; ++i) {
+            final Object3D parent = expected[i].getParent();
+            expected[i].onRecalculateModelMatrix(parent == null ? null : parent.getModelMatrix());
+            actual[i].onRecalculateModelMatrix(parent == null ? null : actual[i].getParent().getModelMatrix());
+            final double[] e = expected[i].getModelMatrix().getDoubleValues();
+            final double[] a = actual[i].getModelMatrix().getDoubleValues();
+            for (int j = 0; j < 16; ++j) {
+                assertEquals("Object " + i + " element " + j, e[j], a[j], 1e-9);
+            }
+        }
+    }
+
+    @Test
+    public void testConcurrentMembershipChanges() throws InterruptedException {
+        final TransformStore store = new TransformStore(2);
+        final Object3D[] expected = buildObjects();
+        final Object3D[] actual = buildObjects();
+        actual[0].setTransformStore(store, TransformStore.NO_PARENT);
+        final AtomicReference<Throwable> failure = new AtomicReference<>();
+        // Adds and removes hierarchies, growing and compacting the store, while it is updated on this thread
+        final Thread mutator = new Thread(new Runnable() {
+            @Override
+            public void run() {
+                try {
+                    final Object3D[][] hierarchies = new Object3D[8][];
+                    for (int i = 0; i < hierarchies.length; ++i) {
+                        hierarchies[i] = buildObjects();
+                    }
+                    for (int i = 0; i < 20000; ++i) {
+                        final Object3D[] hierarchy = hierarchies[i % hierarchies.length];
+                        hierarchy[0].setTransformStore(hierarchy[0].getTransformStore() == null ? store : null,
+                                                       TransformStore.NO_PARENT);
+                        hierarchy[2].addChild(new Object3D());
+                        hierarchy[2].removeChild(hierarchy[2].getChildAt(0));
+                        hierarchy[1].setPosition(i, 0, 0);
+                    }
+                } catch (Throwable t) {
+                    failure.set(t);
+                }
+            }
+        });
+        mutator.start();
+        int frame = 0;
+        while (mutator.isAlive()) {
+            expected[0].setPosition(frame % 10, 0, 0);
+            actual[0].setPosition(frame % 10, 0, 0);
+            store.update();
+            assertSameModelMatrices(expected, actual);
+            ++frame;
+        }
+        mutator.join();
+        if (failure.get() != null) {
+            throw new AssertionError(failure.get());
+        }
+        store.update();
+        assertSameModelMatrices(expected, actual);
+    }
+}
@@ -0,0 +1,153 @@
+package org.rajawali3d.lights;
+
+import org.junit.Test;
+import org.rajawali3d.materials.MaterialManager;
+import org.rajawali3d.materials.ShaderProgramCache;
+import org.rajawali3d.materials.shaders.fragments.LightsVertexShaderFragment;
+import org.rajawali3d.util.RenderStats;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNotEquals;
+import static org.junit.Assert.assertTrue;
+
+public class LightBlockTest {
+
+    private static List<ALight> createLights() {
+        final PointLight point = new PointLight();
+        point.setPosition(1, 2, 3);
+        point.setColor(0.5f, 0.25f, 1f);
+        point.setPower(2f);
+        point.setAttenuation(10, 1, 0.5f, 0.25f);
+        final SpotLight spot = new SpotLight(0, -1, 0);
+        spot.setCutoffAngle(30);
+        final DirectionalLight directional = new DirectionalLight(1, 0, 0);
+        return new ArrayList<ALight>(Arrays.asList(point, spot, directional));
+    }
+
+    @Test
+    public void testPacking() {
+        final List<ALight> lights = createLights();
+        final LightBlock block = new LightBlock();
+        assertTrue(block.update(lights));
+        assertEquals(3, block.getLightCount());
+
+        final float[] data = block.getData();
+        final int point = block.getOffset(0);
+        assertEquals(0.25f, data[point + LightBlock.COLOR + 1], 0);
+        assertEquals(2f, data[point + LightBlock.POWER], 0);
+        assertEquals(3f, data[point + LightBlock.POSITION + 2], 0);
+        assertEquals(0.5f, data[point + LightBlock.ATTENUATION + 2], 0);
+
+        final SpotLight spot = (SpotLight) lights.get(1);
+        final int offset = block.getOffset(1);
+        assertEquals(30f, data[offset + LightBlock.CUTOFF_ANGLE], 0);
+        assertEquals(spot.getFalloff(), data[offset + LightBlock.FALLOFF], 0);
+        for (int i = 0; i < 3; ++i) {
+            assertEquals(spot.getDirection()[i], data[offset + LightBlock.DIRECTION + i], 1e-6);
+        }
+    }
+
+    @Test
+    public void testVersionChangesOnlyWithValues() {
+        final List<ALight> lights = createLights();
+        final LightBlock block = new LightBlock();
+        block.update(lights);
+        final int version = block.getVersion();
+        assertFalse(block.update(lights));
+        assertEquals(version, block.getVersion());
+
+        lights.get(2).setPosition(0, 5, 0);
+        assertTrue(block.update(lights));
+        assertNotEquals(version, block.getVersion());
+
+        // Versions are never shared between blocks
+        final LightBlock other = new LightBlock();
+        other.update(lights);
+        assertNotEquals(block.getVersion(), other.getVersion());
+    }
+
+    @Test
+    public void testStartsWith() {
+        final List<ALight> lights = createLights();
+        final LightBlock block = new LightBlock();
+        block.update(lights);
+        assertTrue(block.startsWith(lights));
+        assertTrue(block.startsWith(lights.subList(0, 2)));
+        assertFalse(block.startsWith(lights.subList(1, 3)));
+
+        lights.remove(2);
+        block.update(lights);
+        assertFalse(block.startsWith(createLights()));
+        assertEquals(2, block.getLightCount());
+    }
+
+    @Test
+    public void testMaterialsSkipLightsTheirProgramHolds() {
+        final ShaderProgramCache previousCache = MaterialManager.getInstance().getProgramCache();
+        final ShaderProgramCache cache = new ShaderProgramCache() {
+            final Map<String, Integer> locations = new HashMap<String, Integer>();
+            int nextHandle = 1;
+
+            @Override
+            protected int compileShader(int shaderType, String source) {
+                return nextHandle++;
+            }
+
+            @Override
+            protected int linkProgram(int vertexShader, int fragmentShader) {
+                return nextHandle++;
+            }
+
+            @Override
+            protected boolean hasGLContext() {
+                return true;
+            }
+
+            @Override
+            protected int queryUniformLocation(int programHandle, String name) {
+                if (!locations.containsKey(name)) {
+                    locations.put(name, locations.size());
+                }
+                return locations.get(name);
+            }
+        };
+        MaterialManager.getInstance().setProgramCache(cache);
+        try {
+            final List<ALight> lights = createLights();
+            final LightBlock block = new LightBlock();
+            block.update(lights);
+            final int handle = cache.acquire("vertex", "fragment").getHandle();
+            final LightsVertexShaderFragment first = new LightsVertexShaderFragment(new ArrayList<ALight>(lights));
+            final LightsVertexShaderFragment second = new LightsVertexShaderFragment(new ArrayList<ALight>(lights));
+            first.setLightBlock(block);
+            second.setLightBlock(block);
+            first.setLocations(handle);
+            second.setLocations(handle);
+
+            RenderStats.beginFrame();
+            first.applyParams();
+            // 3 lights with position, color and power, 2 directions, 2 attenuations, 2 spot values and the ambient
+            assertEquals(17, RenderStats.getUniformUploadCount());
+            second.applyParams();
+            first.applyParams();
+            assertEquals(17, RenderStats.getUniformUploadCount());
+            assertEquals(34, RenderStats.getSkippedUniformUploadCount());
+
+            // Only what changed is uploaded again
+            lights.get(0).setPower(4f);
+            block.update(lights);
+            RenderStats.beginFrame();
+            second.applyParams();
+            assertEquals(1, RenderStats.getUniformUploadCount());
+        } finally {
+            MaterialManager.getInstance().setProgramCache(previousCache);
+        }
+    }
+}
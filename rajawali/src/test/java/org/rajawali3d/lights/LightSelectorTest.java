@@ -0,0 +1,98 @@
+package org.rajawali3d.lights;
+
+import org.junit.Test;
+import org.rajawali3d.math.vector.Vector3;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+
+public class LightSelectorTest {
+
+    private static PointLight pointLight(double x, float power) {
+        final PointLight light = new PointLight();
+        light.setPosition(x, 0, 0);
+        light.setPower(power);
+        light.setAttenuation(10, 1, 0.1f, 0.01f);
+        return light;
+    }
+
+    @Test
+    public void testSelectsMostInfluentialLightsInRange() {
+        final List<ALight> lights = new ArrayList<ALight>();
+        lights.add(new DirectionalLight(0, -1, 0));
+        lights.add(pointLight(8, 1));
+        lights.add(pointLight(2, 1));
+        lights.add(pointLight(30, 100));
+        lights.add(pointLight(4, 1));
+        lights.add(pointLight(-1, 0.5f));
+
+        final LightSelector selector = new LightSelector(2, 1);
+        assertEquals(3, selector.getSlotLights().size());
+        selector.select(lights, new Vector3(), 0);
+
+        // The closest light wins over the brighter light out of range, and the weaker of the rest is dropped
+        final PointLight first = (PointLight) selector.getSlotLights().get(0);
+        final PointLight second = (PointLight) selector.getSlotLights().get(1);
+        assertEquals(2, first.getPosition().x, 0);
+        assertEquals(4, second.getPosition().x, 0);
+        assertEquals(1, first.getPower(), 0);
+        assertEquals(0.1f, first.getAttenuation()[2], 0);
+
+        // No spot lights, so the spot slot contributes nothing
+        assertEquals(0, selector.getSlotLights().get(2).getPower(), 0);
+
+        // Far from everything, every slot is emptied
+        selector.select(lights, new Vector3(0, 100, 0), 1);
+        assertEquals(0, first.getPower(), 0);
+        assertEquals(0, second.getPower(), 0);
+    }
+
+    @Test
+    public void testBoundsRadiusExtendsRange() {
+        final List<ALight> lights = new ArrayList<ALight>();
+        lights.add(pointLight(15, 1));
+        final LightSelector selector = new LightSelector(1, 0);
+        selector.select(lights, new Vector3(), 0);
+        assertEquals(0, selector.getSlotLights().get(0).getPower(), 0);
+        selector.select(lights, new Vector3(), 6);
+        assertEquals(1, selector.getSlotLights().get(0).getPower(), 0);
+    }
+
+    @Test
+    public void testSpotLightsAreCopied() {
+        final SpotLight spot = new SpotLight(0, 0, 1);
+        spot.setPosition(1, 1, 1);
+        spot.setCutoffAngle(25);
+        spot.setFalloff(0.7f);
+        spot.setColor(0.1f, 0.2f, 0.3f);
+        final List<ALight> lights = new ArrayList<ALight>();
+        lights.add(spot);
+
+        final LightSelector selector = new LightSelector(0, 2);
+        selector.select(lights, new Vector3(), 1);
+        final SpotLight slot = (SpotLight) selector.getSlotLights().get(0);
+        assertEquals(25, slot.getCutoffAngle(), 0);
+        assertEquals(0.7f, slot.getFalloff(), 0);
+        assertEquals(0.3f, slot.getColor()[2], 0);
+        assertTrue(slot.getDirectionVector().equals(spot.getDirectionVector(), 1e-9));
+        assertTrue(slot.getPosition().equals(spot.getPosition(), 1e-9));
+        assertEquals(0, selector.getSlotLights().get(1).getPower(), 0);
+    }
+
+    @Test
+    public void testSlotListIsFixed() {
+        final LightSelector selector = new LightSelector(3, 1);
+        final ALight slot = selector.getSlotLights().get(0);
+        final List<ALight> lights = new ArrayList<ALight>();
+        for (int i = 0; i < 40; ++i) {
+            lights.add(pointLight(i, 1));
+        }
+        selector.select(lights, new Vector3(20, 0, 0), 0);
+        assertSame(slot, selector.getSlotLights().get(0));
+        assertEquals(20, slot.getPosition().x, 0);
+    }
+}
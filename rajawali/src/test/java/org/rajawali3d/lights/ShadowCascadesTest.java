@@ -0,0 +1,190 @@
+package org.rajawali3d.lights;
+
+import org.junit.Before;
+import org.junit.Test;
+import org.rajawali3d.math.Matrix4;
+import org.rajawali3d.math.vector.Vector3;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+public class ShadowCascadesTest {
+
+    private static final double NEAR     = 1;
+    private static final double FAR      = 100;
+    private static final int    MAP_SIZE = 2048;
+
+    private final Vector3   lightDirection = new Vector3(1, -1, -0.5);
+    private final Vector3[] corners        = new Vector3[8];
+
+    @Before
+    public void setUp() {
+        for (int i = 0; i < 8; ++i) {
+            corners[i] = new Vector3();
+        }
+        setFrustum(new Vector3(0, 2, 0), 0);
+    }
+
+    /**
+     * Sets up the corners of a 60 degree, square frustum at a position, looking down the negative z axis rotated
+     * about the y axis.
+     */
+    private void setFrustum(Vector3 position, double yaw) {
+        final double tan = Math.tan(Math.toRadians(30));
+        for (int i = 0; i < 8; ++i) {
+            final double distance = i < 4 ? NEAR : FAR;
+            final double x = (i == 0 || i == 3 || i == 4 || i == 7) ? -tan : tan;
+            final double y = (i == 2 || i == 3 || i == 6 || i == 7) ? -tan : tan;
+            corners[i].setAll(x * distance, y * distance, -distance).rotateY(yaw).add(position);
+        }
+    }
+
+    @Test
+    public void testSplits() {
+        final double[] splits = new double[5];
+        ShadowCascades.calculateSplits(NEAR, FAR, 0, splits);
+        assertEquals(1, splits[0], 1e-9);
+        assertEquals(25.75, splits[1], 1e-9);
+        assertEquals(50.5, splits[2], 1e-9);
+        assertEquals(100, splits[4], 1e-9);
+
+        ShadowCascades.calculateSplits(NEAR, FAR, 1, splits);
+        assertEquals(Math.sqrt(10), splits[1], 1e-9);
+        assertEquals(10, splits[2], 1e-9);
+        assertEquals(100, splits[4], 1e-9);
+
+        // Practical splits lie between the two
+        ShadowCascades.calculateSplits(NEAR, FAR, 0.5, splits);
+        assertEquals(30.25, splits[2], 1e-9);
+    }
+
+    @Test
+    public void testShadowDistanceLimitsLastSplit() {
+        final ShadowCascades cascades = new ShadowCascades(3);
+        cascades.setShadowDistance(40);
+        cascades.update(corners, NEAR, FAR, lightDirection, MAP_SIZE);
+        assertEquals(NEAR, cascades.getSplit(0), 1e-9);
+        assertEquals(40, cascades.getSplit(3), 1e-9);
+        assertTrue(cascades.getWidth(0) < cascades.getWidth(1));
+        assertTrue(cascades.getWidth(1) < cascades.getWidth(2));
+    }
+
+    @Test
+    public void testCascadesContainTheirPartOfTheFrustum() {
+        final ShadowCascades cascades = new ShadowCascades(4);
+        cascades.update(corners, NEAR, FAR, lightDirection, MAP_SIZE);
+        final Vector3 corner = new Vector3();
+        for (int i = 0; i < 4; ++i) {
+            final double start = (cascades.getSplit(i) - NEAR) / (FAR - NEAR);
+            final double end = (cascades.getSplit(i + 1) - NEAR) / (FAR - NEAR);
+            for (int j = 0; j < 4; ++j) {
+                assertInside(corner.lerpAndSet(corners[j], corners[j + 4], start), cascades.getViewProjectionMatrix(i));
+                assertInside(corner.lerpAndSet(corners[j], corners[j + 4], end), cascades.getViewProjectionMatrix(i));
+            }
+        }
+    }
+
+    private static void assertInside(Vector3 point, Matrix4 viewProjection) {
+        final Vector3 projected = point.clone().project(viewProjection);
+        assertTrue(projected.toString(), Math.abs(projected.x) <= 1 + 1e-9);
+        assertTrue(projected.toString(), Math.abs(projected.y) <= 1 + 1e-9);
+        assertTrue(projected.toString(), Math.abs(projected.z) <= 1 + 1e-9);
+    }
+
+    @Test
+    public void testCascadesMoveInWholeTexels() {
+        final ShadowCascades cascades = new ShadowCascades(2);
+        final int tileSize = cascades.getTileSize(MAP_SIZE);
+        for (int step = 0; step < 10; ++step) {
+            setFrustum(new Vector3(step * 0.0137, 2, step * -0.0071), 0);
+            cascades.update(corners, NEAR, FAR, lightDirection, MAP_SIZE);
+            for (int i = 0; i < 2; ++i) {
+                final double[] m = cascades.getProjectionMatrix(i).getDoubleValues();
+                // The center of an orthographic projection is -M03 / M00 and its width is 2 / M00
+                final double texels = -m[Matrix4.M03] / m[Matrix4.M00] / (2.0 / m[Matrix4.M00] / tileSize);
+                assertEquals(Math.rint(texels), texels, 1e-4);
+            }
+        }
+    }
+
+    @Test
+    public void testCascadeSizeDoesNotChangeWhenTurning() {
+        final ShadowCascades cascades = new ShadowCascades(3);
+        cascades.update(corners, NEAR, FAR, lightDirection, MAP_SIZE);
+        final double[] widths = new double[3];
+        for (int i = 0; i < 3; ++i) {
+            widths[i] = cascades.getWidth(i);
+        }
+        for (int step = 1; step < 12; ++step) {
+            setFrustum(new Vector3(0, 2, 0), step * 0.29);
+            cascades.update(corners, NEAR, FAR, lightDirection, MAP_SIZE);
+            for (int i = 0; i < 3; ++i) {
+                assertEquals(widths[i], cascades.getWidth(i), 0);
+            }
+        }
+    }
+
+    @Test
+    public void testCasterCulling() {
+        final ShadowCascades cascades = new ShadowCascades(2);
+        cascades.setCasterDistance(50);
+        cascades.update(corners, NEAR, FAR, lightDirection, MAP_SIZE);
+
+        final Vector3 direction = lightDirection.clone();
+        direction.normalize();
+        // A point in the middle of the first cascade
+        final Vector3 inside = new Vector3(0, 2, -(NEAR + cascades.getSplit(1)) / 2);
+        assertTrue(cascades.intersects(0, inside, 0.5));
+
+        // Objects between the cascade and the light cast into it, up to the caster distance
+        final double radius = cascades.getWidth(0) / 2;
+        final Vector3 towardLight = inside.clone().subtract(direction.clone().multiply(radius + 40));
+        assertTrue(cascades.intersects(0, towardLight, 0.5));
+        final Vector3 tooFar = inside.clone().subtract(direction.clone().multiply(radius + 60));
+        assertFalse(cascades.intersects(0, tooFar, 0.5));
+
+        // Objects behind the cascade, or beside it, can't
+        final Vector3 behind = inside.clone().add(direction.clone().multiply(radius + 5));
+        assertFalse(cascades.intersects(0, behind, 0.5));
+        final Vector3 beside = new Vector3(inside).add(radius * 3, 0, 0);
+        assertFalse(cascades.intersects(0, beside, 0.5));
+        assertTrue(cascades.intersects(0, beside, radius * 2.5));
+    }
+
+    @Test
+    public void testTileLayout() {
+        final ShadowCascades single = new ShadowCascades(1);
+        assertEquals(MAP_SIZE, single.getTileSize(MAP_SIZE));
+        assertEquals(0, single.getTileX(0, MAP_SIZE));
+
+        final ShadowCascades cascades = new ShadowCascades(4);
+        assertEquals(1024, cascades.getTileSize(MAP_SIZE));
+        assertEquals(1024, cascades.getTileX(1, MAP_SIZE));
+        assertEquals(0, cascades.getTileY(1, MAP_SIZE));
+        assertEquals(0, cascades.getTileX(2, MAP_SIZE));
+        assertEquals(1024, cascades.getTileY(2, MAP_SIZE));
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void testTooManyCascades() {
+        new ShadowCascades(ShadowCascades.MAX_CASCADES + 1);
+    }
+
+    @Test
+    public void testVersionChangesWithProjections() {
+        final ShadowCascades cascades = new ShadowCascades(2);
+        assertTrue(cascades.update(corners, NEAR, FAR, lightDirection, MAP_SIZE));
+        final int version = cascades.getVersion();
+        assertFalse(cascades.update(corners, NEAR, FAR, lightDirection, MAP_SIZE));
+
+        // Moving less than a texel of the smallest cascade keeps the projections
+        setFrustum(new Vector3(1e-5, 2, 0), 0);
+        assertFalse(cascades.update(corners, NEAR, FAR, lightDirection, MAP_SIZE));
+        assertEquals(version, cascades.getVersion());
+
+        // Turning the light doesn't
+        assertTrue(cascades.update(corners, NEAR, FAR, new Vector3(1, -1.1, -0.5), MAP_SIZE));
+        assertTrue(version != cascades.getVersion());
+    }
+}
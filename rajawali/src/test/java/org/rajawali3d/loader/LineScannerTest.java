@@ -0,0 +1,133 @@
+package org.rajawali3d.loader;
+
+import org.junit.Test;
+
+import java.io.StringReader;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+public class LineScannerTest {
+
+    @Test
+    public void testLines() throws Exception {
+        final LineScanner scanner = new LineScanner("first\r\n\n  # comment\nlast");
+        assertTrue(scanner.nextLine());
+        assertEquals("first", scanner.getRemainder());
+        assertTrue(scanner.nextLine());
+        assertTrue(scanner.isBlankOrComment());
+        assertTrue(scanner.nextLine());
+        assertTrue(scanner.isBlankOrComment());
+        assertTrue(scanner.nextLine());
+        assertEquals(4, scanner.getLineNumber());
+        assertTrue(scanner.nextTokenEquals("last"));
+        assertFalse(scanner.nextLine());
+        assertFalse(scanner.nextLine());
+    }
+
+    @Test
+    public void testLinesLongerThanTheWindow() throws Exception {
+        final StringBuilder text = new StringBuilder();
+        for (int line = 0; line < 3; ++line) {
+            text.append("v");
+            for (int i = 0; i < 3000; ++i) {
+                text.append(' ').append(i);
+            }
+            text.append('\n');
+        }
+        final LineScanner scanner = new LineScanner(new StringReader(text.toString()));
+        for (int line = 0; line < 3; ++line) {
+            assertTrue(scanner.nextLine());
+            assertTrue(scanner.nextTokenEquals("v"));
+            for (int i = 0; i < 3000; ++i) {
+                assertEquals(i, scanner.nextInt());
+            }
+            assertFalse(scanner.hasNext());
+        }
+        assertFalse(scanner.nextLine());
+    }
+
+    @Test
+    public void testFloats() throws Exception {
+        final LineScanner scanner = new LineScanner("1 -2.5 +.25 3. 1e3 -1.5E-2 0.000001 123456789012345678901234 1,2\t7");
+        scanner.nextLine();
+        assertEquals(1f, scanner.nextFloat(), 0);
+        assertEquals(-2.5f, scanner.nextFloat(), 0);
+        assertEquals(0.25f, scanner.nextFloat(), 0);
+        assertEquals(3f, scanner.nextFloat(), 0);
+        assertEquals(1000f, scanner.nextFloat(), 0);
+        assertEquals(-0.015f, scanner.nextFloat(), 0);
+        assertEquals(0.000001f, scanner.nextFloat(), 0);
+        assertEquals(1.23456789e23f, scanner.nextFloat(), 1e16);
+        assertEquals(1f, scanner.nextFloat(), 0);
+        assertEquals(2f, scanner.nextFloat(), 0);
+        assertEquals(7f, scanner.nextFloat(), 0);
+        assertFalse(scanner.hasNext());
+    }
+
+    @Test
+    public void testSpecialFloatsFallBack() throws Exception {
+        final LineScanner scanner = new LineScanner("NaN -Infinity 0x1p3");
+        scanner.nextLine();
+        assertTrue(Float.isNaN(scanner.nextFloat()));
+        assertEquals(Float.NEGATIVE_INFINITY, scanner.nextFloat(), 0);
+        assertEquals(8f, scanner.nextFloat(), 0);
+    }
+
+    @Test(expected = NumberFormatException.class)
+    public void testInvalidFloat() throws Exception {
+        final LineScanner scanner = new LineScanner("v abc");
+        scanner.nextLine();
+        scanner.nextToken();
+        scanner.nextFloat();
+    }
+
+    @Test
+    public void testFaceIndices() throws Exception {
+        final LineScanner scanner = new LineScanner("f 1/2/3 -4//5");
+        scanner.nextLine();
+        assertTrue(scanner.nextTokenEquals("f"));
+        assertEquals(1, scanner.nextInt());
+        assertTrue(scanner.skip('/'));
+        assertEquals(2, scanner.nextInt());
+        assertTrue(scanner.skip('/'));
+        assertEquals(3, scanner.nextInt());
+        assertFalse(scanner.skip('/'));
+        assertEquals(-4, scanner.nextInt());
+        assertTrue(scanner.skip('/'));
+        assertTrue(scanner.skip('/'));
+        assertEquals(5, scanner.nextInt());
+    }
+
+    @Test(expected = NumberFormatException.class)
+    public void testIntOverflow() throws Exception {
+        final LineScanner scanner = new LineScanner("2147483648");
+        scanner.nextLine();
+        scanner.nextInt();
+    }
+
+    @Test
+    public void testTokensAndQuotes() throws Exception {
+        final LineScanner scanner = new LineScanner("\tnumVerts 3\n  \"left arm\" -1 ( 1 2 3 )\nshader");
+        scanner.nextLine();
+        assertTrue(scanner.nextToken());
+        assertFalse(scanner.tokenEquals("numverts"));
+        assertTrue(scanner.tokenEqualsIgnoreCase("numverts"));
+        assertTrue(scanner.tokenStartsWith("num"));
+        assertEquals(3, scanner.nextInt());
+
+        scanner.nextLine();
+        assertEquals('"', scanner.peek());
+        assertEquals("left arm", scanner.nextQuoted());
+        assertEquals(-1, scanner.nextInt());
+        assertTrue(scanner.skipPast('('));
+        assertEquals(1f, scanner.nextFloat(), 0);
+
+        scanner.nextLine();
+        scanner.nextToken();
+        assertNull(scanner.nextQuoted());
+        assertEquals(0, scanner.peek());
+    }
+}
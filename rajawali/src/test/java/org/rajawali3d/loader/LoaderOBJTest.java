@@ -0,0 +1,125 @@
+package org.rajawali3d.loader;
+
+import org.junit.After;
+import org.junit.Test;
+import org.rajawali3d.Geometry3D;
+import org.rajawali3d.Object3D;
+
+import java.io.File;
+import java.io.FileWriter;
+import java.io.IOException;
+import java.io.Writer;
+import java.nio.FloatBuffer;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+public class LoaderOBJTest {
+
+    private File file;
+
+    @After
+    public void tearDown() {
+        if (file != null) {
+            file.delete();
+        }
+    }
+
+    private Object3D parse(String obj) throws Exception {
+        file = File.createTempFile("loader", ".obj");
+        final Writer writer = new FileWriter(file);
+        writer.write(obj);
+        writer.close();
+        return new LoaderOBJ(file).parse().getParsedObject();
+    }
+
+    /**
+     * Writes a flat grid of {@code size} by {@code size} quads, split into triangles, with a position, texture
+     * coordinate and normal per grid point. Each interior point is referenced by six triangles.
+     */
+    private static void writeGrid(Writer writer, int size) throws IOException {
+        final StringBuilder line = new StringBuilder();
+        for (int y = 0; y <= size; ++y) {
+            for (int x = 0; x <= size; ++x) {
+                line.setLength(0);
+                line.append("v ").append(x).append(' ').append(y).append(" 0\n");
+                line.append("vt ").append((float) x / size).append(' ').append((float) y / size).append('\n');
+                line.append("vn 0 0 1\n");
+                writer.write(line.toString());
+            }
+        }
+        for (int y = 0; y < size; ++y) {
+            for (int x = 0; x < size; ++x) {
+                final int a = y * (size + 1) + x + 1;
+                final int b = a + 1;
+                final int c = a + size + 1;
+                final int d = c + 1;
+                writer.write("f " + a + "/" + a + "/" + a + " " + b + "/" + b + "/" + b + " " + d + "/" + d + "/" + d
+                             + "\nf " + a + "/" + a + "/" + a + " " + d + "/" + d + "/" + d + " " + c + "/" + c + "/"
+                             + c + "\n");
+            }
+        }
+    }
+
+    @Test
+    public void testWeldsSharedVertices() throws Exception {
+        file = File.createTempFile("grid", ".obj");
+        final Writer writer = new FileWriter(file);
+        writeGrid(writer, 4);
+        writer.close();
+
+        final Geometry3D geometry = new LoaderOBJ(file).parse().getParsedObject().getGeometry();
+        assertEquals(25, geometry.getNumVertices());
+        assertEquals(96, geometry.getNumIndices());
+        // The second triangle starts at the first vertex of the first
+        assertEquals(geometry.getIndex(0), geometry.getIndex(3));
+        assertEquals(geometry.getIndex(2), geometry.getIndex(4));
+    }
+
+    @Test
+    public void testKeepsSeamsWithDistinctTextureCoordinates() throws Exception {
+        final Object3D object = parse("v 0 0 0\nv 1 0 0\nv 1 1 0\nv 0 1 0\n"
+                                      + "vt 0 0\nvt 1 0\nvt 1 1\nvt 0.5 0.5\nvt 0 1\n"
+                                      + "vn 0 0 1\n"
+                                      + "f 1/1/1 2/2/1 3/3/1\nf 1/4/1 3/3/1 4/5/1\n");
+        final Geometry3D geometry = object.getGeometry();
+        assertEquals(5, geometry.getNumVertices());
+        assertEquals(6, geometry.getNumIndices());
+        assertEquals(geometry.getIndex(2), geometry.getIndex(4));
+
+        // The seam vertex shares the first position but has its own, flipped, texture coordinate
+        final int seam = geometry.getIndex(3);
+        final FloatBuffer vertices = geometry.getVertices();
+        final FloatBuffer textureCoords = geometry.getTextureCoords();
+        assertEquals(0, vertices.get(seam * 3), 0);
+        assertEquals(0, vertices.get(seam * 3 + 1), 0);
+        assertEquals(0.5f, textureCoords.get(seam * 2 + 1), 0);
+        assertEquals(1f, textureCoords.get(geometry.getIndex(0) * 2 + 1), 0);
+    }
+
+    @Test
+    public void testQuadsAndRelativeIndices() throws Exception {
+        final Object3D object = parse("v 0 0 0\nv 1 0 0\nv 1 1 0\nv 0 1 0\nf -4 -3 -2 -1\n");
+        final Geometry3D geometry = object.getGeometry();
+        assertEquals(4, geometry.getNumVertices());
+        assertEquals(6, geometry.getNumIndices());
+        assertEquals(1, geometry.getVertices().get(geometry.getIndex(2) * 3 + 1), 0);
+    }
+
+    @Test
+    public void testWeldsLargeGrid() throws Exception {
+        final int size = 300;
+        file = File.createTempFile("grid", ".obj");
+        final Writer writer = new FileWriter(file);
+        writeGrid(writer, size);
+        writer.close();
+
+        final long start = System.nanoTime();
+        final Geometry3D geometry = new LoaderOBJ(file).parse().getParsedObject().getGeometry();
+        final double seconds = (System.nanoTime() - start) / 1e9;
+        assertEquals((size + 1) * (size + 1), geometry.getNumVertices());
+        assertEquals(size * size * 6, geometry.getNumIndices());
+        // Generous, this takes a fraction of that on a desktop JVM
+        assertTrue("Took " + seconds + "s", seconds < 10);
+    }
+}
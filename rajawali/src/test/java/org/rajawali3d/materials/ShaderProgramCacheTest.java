@@ -0,0 +1,160 @@
+package org.rajawali3d.materials;
+
+import org.junit.Before;
+import org.junit.Test;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNotSame;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+
+public class ShaderProgramCacheTest {
+
+    /**
+     * Stands in for GL, handing out increasing handles and counting the calls made.
+     */
+    private static class CountingProgramCache extends ShaderProgramCache {
+        int nextHandle = 1;
+        int compiles;
+        int links;
+        int deletes;
+        int locationQueries;
+        boolean failCompile;
+
+        @Override
+        protected int compileShader(int shaderType, String source) {
+            ++compiles;
+            return failCompile ? 0 : nextHandle++;
+        }
+
+        @Override
+        protected int linkProgram(int vertexShader, int fragmentShader) {
+            ++links;
+            return nextHandle++;
+        }
+
+        @Override
+        protected void deleteProgram(int program, int vertexShader, int fragmentShader) {
+            ++deletes;
+        }
+
+        @Override
+        protected boolean hasGLContext() {
+            return true;
+        }
+
+        @Override
+        protected int queryUniformLocation(int programHandle, String name) {
+            ++locationQueries;
+            return name.length();
+        }
+
+        @Override
+        protected int queryAttribLocation(int programHandle, String name) {
+            ++locationQueries;
+            return name.length();
+        }
+    }
+
+    private CountingProgramCache cache;
+
+    @Before
+    public void setUp() {
+        cache = new CountingProgramCache();
+    }
+
+    @Test
+    public void testIdenticalSourcesShareOneProgram() {
+        final ShaderProgramCache.Program a = cache.acquire("vertex", "fragment");
+        final ShaderProgramCache.Program b = cache.acquire("vertex", "fragment");
+        assertSame(a, b);
+        assertEquals(2, a.getReferenceCount());
+        assertEquals(2, cache.compiles);
+        assertEquals(1, cache.links);
+        assertEquals(1, cache.size());
+
+        final ShaderProgramCache.Program c = cache.acquire("vertex", "other fragment");
+        assertNotSame(a, c);
+        assertEquals(2, cache.size());
+        assertEquals(2, cache.getCompiledProgramCount());
+    }
+
+    @Test
+    public void testProgramIsDeletedWithItsLastReference() {
+        final ShaderProgramCache.Program a = cache.acquire("vertex", "fragment");
+        cache.acquire("vertex", "fragment");
+        cache.release(a);
+        assertEquals(0, cache.deletes);
+        cache.release(a);
+        assertEquals(1, cache.deletes);
+        assertEquals(0, cache.size());
+        assertEquals(0, a.getHandle());
+
+        // The next material to need it compiles it again
+        cache.acquire("vertex", "fragment");
+        assertEquals(2, cache.links);
+    }
+
+    @Test
+    public void testFailedCompileIsNotCached() {
+        cache.failCompile = true;
+        assertNull(cache.acquire("vertex", "fragment"));
+        assertEquals(0, cache.size());
+        cache.failCompile = false;
+        cache.acquire("vertex", "fragment");
+        assertEquals(1, cache.size());
+    }
+
+    @Test
+    public void testLocationsAreQueriedOncePerProgram() {
+        final int handle = cache.acquire("vertex", "fragment").getHandle();
+        assertEquals(4, cache.getUniformLocation(handle, "uMVP"));
+        assertEquals(4, cache.getUniformLocation(handle, "uMVP"));
+        assertEquals(9, cache.getAttribLocation(handle, "aPosition"));
+        assertEquals(9, cache.getAttribLocation(handle, "aPosition"));
+        assertEquals(2, cache.locationQueries);
+
+        // Programs the cache doesn't know about always go to GL
+        cache.getUniformLocation(handle + 100, "uMVP");
+        cache.getUniformLocation(handle + 100, "uMVP");
+        assertEquals(4, cache.locationQueries);
+    }
+
+    @Test
+    public void testInvalidateAfterContextLoss() {
+        final ShaderProgramCache.Program old = cache.acquire("vertex", "fragment");
+        cache.invalidate();
+        assertEquals(0, cache.size());
+        assertEquals(0, old.getHandle());
+
+        final ShaderProgramCache.Program current = cache.acquire("vertex", "fragment");
+        assertNotSame(old, current);
+        assertEquals(2, cache.links);
+
+        // Releasing the program from the lost context deletes nothing and leaves the new one alone
+        cache.release(old);
+        assertEquals(0, cache.deletes);
+        assertEquals(1, cache.size());
+    }
+
+    @Test
+    public void testUniformShadowValues() {
+        final ShaderProgramCache.Program program = cache.acquire("vertex", "fragment");
+        assertTrue(program.updateUniform(2, 0f));
+        assertFalse(program.updateUniform(2, 0f));
+        assertTrue(program.updateUniform(2, -0f));
+
+        final float[] values = { 1, 2, 3, 4, 5 };
+        assertTrue(program.updateUniform(600, values, 1, 3));
+        assertFalse(program.updateUniform(600, values, 1, 3));
+        assertTrue(program.updateUniform(600, values, 1, 4));
+        assertFalse(program.updateUniform(600, values, 1, 4));
+
+        // Locations too large to shadow are always uploaded
+        final int large = ShaderProgramCache.Program.MAX_SHADOWED_LOCATION;
+        assertTrue(program.updateUniform(large, 1));
+        assertTrue(program.updateUniform(large, 1));
+    }
+}
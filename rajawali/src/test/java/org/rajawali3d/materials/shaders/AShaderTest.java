@@ -1,6 +1,9 @@
 package org.rajawali3d.materials.shaders;
 
 import org.junit.Test;
+import org.rajawali3d.materials.MaterialManager;
+import org.rajawali3d.materials.ShaderProgramCache;
+import org.rajawali3d.util.RenderStats;
 
 import static org.junit.Assert.assertEquals;
 
@@ -223,4 +226,72 @@ public class AShaderTest {
                 + "v.z = (0+0);\n"
                 + "}\n", s.getShaderString());
     }
+
+    @Test
+    public void testRedundantUniformUploadsAreSkipped() {
+        final ShaderProgramCache previousCache = MaterialManager.getInstance().getProgramCache();
+        final ShaderProgramCache cache = new ShaderProgramCache() {
+            int nextHandle = 1;
+
+            @Override
+            protected int compileShader(int shaderType, String source) {
+                return nextHandle++;
+            }
+
+            @Override
+            protected int linkProgram(int vertexShader, int fragmentShader) {
+                return nextHandle++;
+            }
+
+            @Override
+            protected boolean hasGLContext() {
+                return true;
+            }
+        };
+        MaterialManager.getInstance().setProgramCache(cache);
+        try {
+            final int handle = cache.acquire("vertex", "fragment").getHandle();
+            final AShader first = new AShader() {};
+            final AShader second = new AShader() {};
+            first.setLocations(handle);
+            second.setLocations(handle);
+
+            RenderStats.beginFrame();
+            first.setUniform1f(3, 1f);
+            first.setUniform1f(3, 1f);
+            assertEquals(1, RenderStats.getUniformUploadCount());
+            assertEquals(1, RenderStats.getSkippedUniformUploadCount());
+
+            // Uniforms belong to the program, so another shader using it sees the same values
+            second.setUniform1f(3, 1f);
+            second.setUniform1f(3, 2f);
+            first.setUniform1f(3, 1f);
+            assertEquals(3, RenderStats.getUniformUploadCount());
+            assertEquals(2, RenderStats.getSkippedUniformUploadCount());
+
+            final float[] matrix = new float[16];
+            RenderStats.beginFrame();
+            first.setUniformMatrix4fv(5, matrix);
+            first.setUniformMatrix4fv(5, matrix);
+            matrix[15] = 1;
+            first.setUniformMatrix4fv(5, matrix);
+            first.setUniform1i(7, 2);
+            first.setUniform1i(7, 2);
+            first.setUniform3fv(-1, matrix);
+            assertEquals(3, RenderStats.getUniformUploadCount());
+            assertEquals(3, RenderStats.getSkippedUniformUploadCount());
+
+            // After a context loss the reloaded program starts with nothing uploaded
+            cache.invalidate();
+            final int reloaded = cache.acquire("vertex", "fragment").getHandle();
+            first.setLocations(reloaded);
+            RenderStats.beginFrame();
+            first.setUniform1f(3, 1f);
+            first.setUniformMatrix4fv(5, matrix);
+            assertEquals(2, RenderStats.getUniformUploadCount());
+            assertEquals(0, RenderStats.getSkippedUniformUploadCount());
+        } finally {
+            MaterialManager.getInstance().setProgramCache(previousCache);
+        }
+    }
 }
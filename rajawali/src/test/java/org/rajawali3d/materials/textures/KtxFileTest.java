@@ -0,0 +1,192 @@
+package org.rajawali3d.materials.textures;
+
+import org.junit.Test;
+import org.rajawali3d.materials.textures.ACompressedTexture.CompressionType;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+public class KtxFileTest {
+
+    private static final byte[] IDENTIFIER_1 = {
+            (byte) 0xAB, 'K', 'T', 'X', ' ', '1', '1', (byte) 0xBB, '\r', '\n', 0x1A, '\n'
+    };
+    private static final byte[] IDENTIFIER_2 = {
+            (byte) 0xAB, 'K', 'T', 'X', ' ', '2', '0', (byte) 0xBB, '\r', '\n', 0x1A, '\n'
+    };
+    private static final int GL_COMPRESSED_RGB8_ETC2 = 0x9274;
+
+    /**
+     * Builds a KTX 1 file with ETC2 levels of 8x8, 4x4, 2x2 and 1x1, whose bytes are all the level and face index.
+     */
+    private static ByteBuffer createKtx1(int faces, ByteOrder order) {
+        final ByteBuffer buffer = ByteBuffer.allocate(1024).order(order);
+        buffer.put(IDENTIFIER_1);
+        buffer.putInt(0x04030201);
+        buffer.putInt(0); // glType
+        buffer.putInt(1); // glTypeSize
+        buffer.putInt(0); // glFormat
+        buffer.putInt(GL_COMPRESSED_RGB8_ETC2);
+        buffer.putInt(0x1907); // glBaseInternalFormat
+        buffer.putInt(8);
+        buffer.putInt(8);
+        buffer.putInt(0); // depth
+        buffer.putInt(0); // array elements
+        buffer.putInt(faces);
+        buffer.putInt(4); // levels
+        buffer.putInt(8); // key/value bytes
+        buffer.putLong(0);
+        for (int level = 0; level < 4; level++) {
+            // 4x4 blocks of 8 bytes
+            final int size = level < 2 ? (8 >> level) * (8 >> level) / 2 : 8;
+            buffer.putInt(size);
+            for (int face = 0; face < faces; face++) {
+                for (int i = 0; i < size; i++) {
+                    buffer.put((byte) (level * 10 + face));
+                }
+            }
+        }
+        buffer.flip();
+        return buffer;
+    }
+
+    private static ByteBuffer createKtx2(int vkFormat, int supercompression) {
+        final int[] sizes = { 32, 8 };
+        final int dataStart = 12 + 9 * 4 + 4 * 4 + 2 * 8 + sizes.length * 3 * 8;
+        final ByteBuffer buffer = ByteBuffer.allocate(dataStart + 40).order(ByteOrder.LITTLE_ENDIAN);
+        buffer.put(IDENTIFIER_2);
+        buffer.putInt(vkFormat);
+        buffer.putInt(1); // typeSize
+        buffer.putInt(8);
+        buffer.putInt(4);
+        buffer.putInt(0); // depth
+        buffer.putInt(0); // layers
+        buffer.putInt(1); // faces
+        buffer.putInt(sizes.length);
+        buffer.putInt(supercompression);
+        buffer.putInt(0).putInt(0).putInt(0).putInt(0).putLong(0).putLong(0);
+        // Levels are stored smallest first, but indexed largest first
+        buffer.putLong(dataStart + sizes[1]).putLong(sizes[0]).putLong(sizes[0]);
+        buffer.putLong(dataStart).putLong(sizes[1]).putLong(sizes[1]);
+        for (int i = 0; i < sizes[1]; i++) {
+            buffer.put((byte) 1);
+        }
+        for (int i = 0; i < sizes[0]; i++) {
+            buffer.put((byte) 0);
+        }
+        buffer.flip();
+        return buffer;
+    }
+
+    @Test
+    public void testReadsVersion1MipChain() throws IOException {
+        final KtxFile file = KtxFile.read(createKtx1(1, ByteOrder.LITTLE_ENDIAN));
+        assertEquals(KtxFile.VERSION_1, file.getVersion());
+        assertEquals(GL_COMPRESSED_RGB8_ETC2, file.getGLInternalFormat());
+        assertTrue(file.isCompressed());
+        assertFalse(file.isCubeMap());
+        assertEquals(8, file.getWidth());
+        assertEquals(8, file.getHeight());
+        assertEquals(4, file.getLevelCount());
+        final int[] sizes = { 32, 8, 8, 8 };
+        for (int level = 0; level < 4; level++) {
+            final ByteBuffer image = file.getImage(level, 0);
+            assertEquals(sizes[level], image.capacity());
+            assertEquals(level * 10, image.get(0));
+            assertEquals(level * 10, image.get(image.capacity() - 1));
+        }
+        assertEquals(CompressionType.ETC2, KtxTexture.getCompressionType(file));
+    }
+
+    @Test
+    public void testReadsVersion1CubeMap() throws IOException {
+        final KtxFile file = KtxFile.read(createKtx1(6, ByteOrder.BIG_ENDIAN));
+        assertTrue(file.isCubeMap());
+        final ByteBuffer[] images = file.getImages();
+        assertEquals(4 * 6, images.length);
+        // Level by level, with the faces of each level following each other
+        for (int level = 0; level < 4; level++) {
+            for (int face = 0; face < 6; face++) {
+                assertEquals(level * 10 + face, images[level * 6 + face].get(0));
+            }
+        }
+    }
+
+    @Test
+    public void testImagesShareData() throws IOException {
+        final ByteBuffer data = createKtx1(1, ByteOrder.LITTLE_ENDIAN);
+        final ByteBuffer direct = ByteBuffer.allocateDirect(data.remaining());
+        direct.put(data).flip();
+        final KtxFile file = KtxFile.read(direct);
+        final ByteBuffer image = file.getImage(1, 0);
+        assertTrue(image.isDirect());
+        image.put(0, (byte) 99);
+        assertEquals(99, file.getImage(1, 0).get(0));
+    }
+
+    @Test
+    public void testReadsVersion1FromStream() throws IOException {
+        final ByteBuffer data = createKtx1(1, ByteOrder.LITTLE_ENDIAN);
+        final byte[] bytes = new byte[data.remaining()];
+        data.get(bytes);
+        final KtxFile file = KtxFile.read(new ByteArrayInputStream(bytes));
+        assertEquals(4, file.getLevelCount());
+        assertEquals(30, file.getImage(3, 0).get(0));
+    }
+
+    @Test
+    public void testReadsVersion2() throws IOException {
+        // VK_FORMAT_ETC2_R8G8B8_UNORM_BLOCK
+        final KtxFile file = KtxFile.read(createKtx2(147, 0));
+        assertEquals(KtxFile.VERSION_2, file.getVersion());
+        assertEquals(GL_COMPRESSED_RGB8_ETC2, file.getGLInternalFormat());
+        assertEquals(8, file.getWidth());
+        assertEquals(4, file.getHeight());
+        assertEquals(2, file.getLevelCount());
+        assertEquals(32, file.getImage(0, 0).capacity());
+        assertEquals(0, file.getImage(0, 0).get(0));
+        assertEquals(8, file.getImage(1, 0).capacity());
+        assertEquals(1, file.getImage(1, 0).get(0));
+    }
+
+    @Test
+    public void testVersion2Formats() {
+        // VK_FORMAT_R8G8B8A8_UNORM
+        assertArrayEquals(new int[]{ 0x1908, 0x1908, 0x1401 }, KtxFile.getGLFormats(37));
+        // VK_FORMAT_EAC_R11G11_SNORM_BLOCK
+        assertEquals(0x9273, KtxFile.getGLFormats(156)[0]);
+        // VK_FORMAT_ASTC_4x4_UNORM_BLOCK, VK_FORMAT_ASTC_6x6_SRGB_BLOCK and VK_FORMAT_ASTC_12x12_SRGB_BLOCK
+        assertEquals(0x93B0, KtxFile.getGLFormats(157)[0]);
+        assertEquals(0x93D4, KtxFile.getGLFormats(166)[0]);
+        assertEquals(0x93DD, KtxFile.getGLFormats(184)[0]);
+        assertNull(KtxFile.getGLFormats(0));
+    }
+
+    @Test
+    public void testRejectsUnsupportedFiles() {
+        assertReadFails(createKtx2(147, 1)); // supercompressed
+        assertReadFails(createKtx2(0, 0)); // undefined format
+        assertReadFails(ByteBuffer.wrap("not a texture file".getBytes()));
+        final ByteBuffer truncated = createKtx1(1, ByteOrder.LITTLE_ENDIAN);
+        truncated.limit(100);
+        assertReadFails(truncated);
+    }
+
+    private static void assertReadFails(ByteBuffer buffer) {
+        try {
+            KtxFile.read(buffer);
+            fail("Expected an IOException");
+        } catch (IOException e) {
+            // Expected
+        }
+    }
+}
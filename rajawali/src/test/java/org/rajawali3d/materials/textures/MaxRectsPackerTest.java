@@ -0,0 +1,166 @@
+package org.rajawali3d.materials.textures;
+
+import org.junit.Test;
+import org.rajawali3d.materials.textures.MaxRectsPacker.Region;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+public class MaxRectsPackerTest {
+
+    private static void assertValid(MaxRectsPacker packer, List<Region> regions) {
+        final int padding = packer.getPadding();
+        for (int i = 0; i < regions.size(); i++) {
+            final Region a = regions.get(i);
+            assertTrue(a.x >= 0 && a.y >= 0);
+            assertTrue(a.x + a.width <= packer.getWidth() && a.y + a.height <= packer.getHeight());
+            for (int j = i + 1; j < regions.size(); j++) {
+                final Region b = regions.get(j);
+                final boolean apart = a.x + a.width + padding <= b.x || b.x + b.width + padding <= a.x
+                                      || a.y + a.height + padding <= b.y || b.y + b.height + padding <= a.y;
+                assertTrue(a + " overlaps " + b, apart);
+            }
+        }
+    }
+
+    @Test
+    public void testFillsBinExactly() {
+        final MaxRectsPacker packer = new MaxRectsPacker(64, 64, 0);
+        final List<Region> regions = new ArrayList<>();
+        for (int i = 0; i < 16; i++) {
+            final Region region = packer.insert(16, 16);
+            assertNotNull(region);
+            regions.add(region);
+        }
+        assertNull(packer.insert(1, 1));
+        assertEquals(1.0, packer.getOccupancy(), 1e-9);
+        assertValid(packer, regions);
+    }
+
+    @Test
+    public void testPadding() {
+        final MaxRectsPacker packer = new MaxRectsPacker(33, 16, 1);
+        final List<Region> regions = new ArrayList<>();
+        // Padding is only kept between rectangles, so two 16 pixel wide ones fit into 33 pixels
+        regions.add(packer.insert(16, 16));
+        regions.add(packer.insert(16, 16));
+        assertNotNull(regions.get(1));
+        assertNull(packer.insert(1, 1));
+        assertValid(packer, regions);
+    }
+
+    @Test
+    public void testFreeReusesSpace() {
+        final MaxRectsPacker packer = new MaxRectsPacker(64, 64, 0);
+        final List<Region> regions = new ArrayList<>();
+        for (int i = 0; i < 16; i++) {
+            regions.add(packer.insert(16, 16));
+        }
+        // Free a 2x2 block of tiles, which merges back into room for a 32x32 rectangle
+        Region topLeft = null;
+        for (Region region : regions) {
+            if (region.x < 32 && region.y < 32) {
+                assertTrue(packer.free(region));
+                topLeft = region;
+            }
+        }
+        assertFalse(packer.free(topLeft));
+        assertEquals(0.75, packer.getOccupancy(), 1e-9);
+        final Region large = packer.insert(32, 32);
+        assertNotNull(large);
+        assertEquals(0, large.x);
+        assertEquals(0, large.y);
+        assertEquals(1.0, packer.getOccupancy(), 1e-9);
+    }
+
+    @Test
+    public void testFreeingEverythingRestoresBin() {
+        final MaxRectsPacker packer = new MaxRectsPacker(128, 128, 2);
+        final List<Region> regions = new ArrayList<>();
+        final Random random = new Random(7);
+        for (int i = 0; i < 20; i++) {
+            regions.add(packer.insert(4 + random.nextInt(20), 4 + random.nextInt(20)));
+        }
+        for (Region region : regions) {
+            packer.free(region);
+        }
+        assertEquals(0, packer.getRegionCount());
+        assertEquals(1, packer.getFreeRectCount());
+        assertNotNull(packer.insert(128, 128));
+    }
+
+    @Test
+    public void testFillEfficiency() {
+        final MaxRectsPacker packer = new MaxRectsPacker(512, 512, 1);
+        final List<Region> regions = new ArrayList<>();
+        final Random random = new Random(42);
+        int failures = 0;
+        // Keep inserting glyph sized rectangles until several in a row don't fit
+        while (failures < 20) {
+            final Region region = packer.insert(6 + random.nextInt(27), 6 + random.nextInt(27));
+            if (region == null) {
+                failures++;
+            } else {
+                regions.add(region);
+                failures = 0;
+            }
+        }
+        assertValid(packer, regions);
+        assertTrue("Occupancy " + packer.getOccupancy(), packer.getOccupancy() > 0.75);
+    }
+
+    @Test
+    public void testInsertThroughputWithChurn() {
+        final MaxRectsPacker packer = new MaxRectsPacker(1024, 1024, 1);
+        final List<Region> regions = new ArrayList<>();
+        final Random random = new Random(3);
+        final long start = System.nanoTime();
+        for (int i = 0; i < 5000; i++) {
+            if (regions.size() > 400) {
+                // Free a random glyph, as a cache evicting its least used entries would
+                assertTrue(packer.free(regions.remove(random.nextInt(regions.size()))));
+            }
+            final Region region = packer.insert(8 + random.nextInt(25), 8 + random.nextInt(25));
+            assertNotNull(region);
+            regions.add(region);
+        }
+        final double seconds = (System.nanoTime() - start) / 1e9;
+        assertValid(packer, regions);
+        // Generous, this takes a fraction of that on a desktop JVM
+        assertTrue("Took " + seconds + "s", seconds < 10);
+    }
+
+    @Test
+    public void testCopyIsIndependent() {
+        final MaxRectsPacker packer = new MaxRectsPacker(64, 64, 0);
+        final Region first = packer.insert(32, 32);
+        final Region second = packer.insert(32, 32);
+        final MaxRectsPacker copy = new MaxRectsPacker(packer);
+        assertEquals(2, copy.getRegionCount());
+        assertEquals(packer.getUsedArea(), copy.getUsedArea());
+
+        assertTrue(copy.free(first));
+        assertEquals(2, packer.getRegionCount());
+        assertTrue(packer.free(first));
+        assertFalse(copy.free(first));
+
+        // Each packer fills the space it has left on its own
+        final List<Region> regions = new ArrayList<>();
+        regions.add(second);
+        for (int i = 0; i < 3; i++) {
+            final Region region = copy.insert(32, 32);
+            assertNotNull(region);
+            regions.add(region);
+        }
+        assertNull(copy.insert(1, 1));
+        assertValid(copy, regions);
+        assertNotNull(packer.insert(32, 32));
+    }
+}
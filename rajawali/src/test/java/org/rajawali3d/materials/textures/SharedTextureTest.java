@@ -0,0 +1,76 @@
+package org.rajawali3d.materials.textures;
+
+import org.junit.After;
+import org.junit.Test;
+import org.rajawali3d.materials.textures.ATexture.TextureException;
+import org.rajawali3d.materials.textures.ATexture.TextureType;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotEquals;
+import static org.junit.Assert.assertNotSame;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+
+public class SharedTextureTest {
+
+    private static class CountingFactory implements TextureManager.TextureFactory {
+        int mCreated;
+
+        @Override
+        public ATexture createTexture() {
+            return new Texture("shared" + ++mCreated);
+        }
+    }
+
+    private final TextureManager manager = TextureManager.getInstance();
+
+    @After
+    public void tearDown() {
+        manager.setTextureSharingEnabled(true);
+    }
+
+    @Test
+    public void testSharesTexturesBySourceAndType() throws TextureException {
+        final CountingFactory factory = new CountingFactory();
+        final String key = TextureManager.getResourceKey(0x7f020001);
+        final ATexture first = manager.acquireSharedTexture(key, TextureType.DIFFUSE, factory);
+        final ATexture second = manager.acquireSharedTexture(key, TextureType.DIFFUSE, factory);
+        assertSame(first, second);
+        assertEquals(1, factory.mCreated);
+        assertTrue(manager.isSharedTexture(first));
+
+        // The same image used as a normal map is another texture
+        final ATexture normal = manager.acquireSharedTexture(key, TextureType.NORMAL, factory);
+        assertNotSame(first, normal);
+        assertEquals(2, factory.mCreated);
+    }
+
+    @Test
+    public void testDoesNotShareWithoutKeyOrWhenDisabled() throws TextureException {
+        final CountingFactory factory = new CountingFactory();
+        manager.acquireSharedTexture(null, TextureType.DIFFUSE, factory);
+        manager.acquireSharedTexture(null, TextureType.DIFFUSE, factory);
+        assertEquals(2, factory.mCreated);
+
+        manager.setTextureSharingEnabled(false);
+        final String key = TextureManager.getResourceKey(0x7f020002);
+        manager.acquireSharedTexture(key, TextureType.DIFFUSE, factory);
+        manager.acquireSharedTexture(key, TextureType.DIFFUSE, factory);
+        assertEquals(4, factory.mCreated);
+    }
+
+    @Test
+    public void testKeys() {
+        assertNull(TextureManager.getResourceKey(0));
+        final byte[] png = { (byte) 0x89, 'P', 'N', 'G', 1, 2, 3 };
+        final byte[] other = { (byte) 0x89, 'P', 'N', 'G', 1, 2, 4 };
+        assertEquals(TextureManager.getContentKey(png, 0, png.length),
+                TextureManager.getContentKey(png.clone(), 0, png.length));
+        assertNotEquals(TextureManager.getContentKey(png, 0, png.length),
+                TextureManager.getContentKey(other, 0, other.length));
+        // SHA-1 of "abc"
+        assertEquals("sha1:a9993e364706816aba3e25717850c26c9cd0d89d",
+                TextureManager.getContentKey("abc".getBytes(), 0, 3));
+    }
+}
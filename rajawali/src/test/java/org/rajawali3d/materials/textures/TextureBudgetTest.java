@@ -0,0 +1,171 @@
+package org.rajawali3d.materials.textures;
+
+import android.opengl.GLES20;
+import org.junit.Before;
+import org.junit.Test;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+public class TextureBudgetTest {
+
+    private static final long SIZE = 16 * 16 * 4;
+
+    private static class CountingTexture extends ATexture {
+        final boolean mReloadable;
+        int mAdds;
+        int mRemoves;
+
+        CountingTexture(String name, boolean reloadable) {
+            super(TextureType.DIFFUSE, name);
+            mReloadable = reloadable;
+            mWidth = 16;
+            mHeight = 16;
+            mMipmap = false;
+            mBitmapFormat = GLES20.GL_RGBA;
+        }
+
+        @Override
+        public ATexture clone() {
+            return this;
+        }
+
+        @Override
+        public boolean isReloadable() {
+            return mReloadable;
+        }
+
+        @Override
+        protected void add() {
+            ++mAdds;
+            mTextureId = mAdds;
+        }
+
+        @Override
+        protected void remove() {
+            ++mRemoves;
+        }
+
+        @Override
+        protected void replace() {
+        }
+
+        @Override
+        protected void reset() {
+        }
+    }
+
+    private TextureBudget budget;
+
+    @Before
+    public void setUp() {
+        budget = new TextureBudget();
+    }
+
+    @Test
+    public void testMemorySize() {
+        final CountingTexture texture = new CountingTexture("size", true);
+        assertEquals(SIZE, texture.getMemorySize());
+        texture.setMipmap(true);
+        // 16x16 + 8x8 + 4x4 + 2x2 + 1x1
+        assertEquals(341 * 4, texture.getMemorySize());
+        texture.setMipmap(false);
+        texture.setGLTextureType(GLES20.GL_TEXTURE_CUBE_MAP);
+        assertEquals(6 * SIZE, texture.getMemorySize());
+    }
+
+    @Test
+    public void testEvictsLeastRecentlyUsed() {
+        final CountingTexture a = new CountingTexture("a", true);
+        final CountingTexture b = new CountingTexture("b", true);
+        final CountingTexture c = new CountingTexture("c", true);
+        budget.setBudget(2 * SIZE);
+        budget.add(a);
+        budget.add(b);
+        assertEquals(2 * SIZE, budget.getResidentBytes());
+
+        budget.beginFrame();
+        budget.use(a);
+        budget.beginFrame();
+        // b was used least recently
+        budget.add(c);
+        assertEquals(1, b.mRemoves);
+        assertEquals(-1, b.getTextureId());
+        assertTrue(budget.isEvicted(b));
+        assertEquals(0, a.mRemoves);
+        assertEquals(2 * SIZE, budget.getResidentBytes());
+        assertEquals(1, budget.getEvictionCount());
+        assertEquals(1, budget.getHitCount());
+    }
+
+    @Test
+    public void testReloadsOnUse() {
+        final CountingTexture a = new CountingTexture("a", true);
+        final CountingTexture b = new CountingTexture("b", true);
+        budget.setBudget(SIZE);
+        budget.add(a);
+        budget.beginFrame();
+        budget.add(b);
+        assertTrue(budget.isEvicted(a));
+
+        budget.beginFrame();
+        assertTrue(budget.use(a));
+        assertFalse(budget.isEvicted(a));
+        assertFalse(budget.use(a));
+        assertEquals(1, a.mAdds);
+        assertTrue(budget.isEvicted(b));
+        assertEquals(1, budget.getMissCount());
+        assertEquals(SIZE, budget.getResidentBytes());
+    }
+
+    @Test
+    public void testKeepsTexturesUsedThisFrame() {
+        final CountingTexture a = new CountingTexture("a", true);
+        final CountingTexture b = new CountingTexture("b", true);
+        budget.setBudget(SIZE);
+        budget.add(a);
+        budget.add(b);
+        // Both are needed by this frame, so the budget is exceeded instead
+        assertEquals(2 * SIZE, budget.getResidentBytes());
+        assertEquals(0, budget.getEvictionCount());
+
+        budget.beginFrame();
+        assertEquals(SIZE, budget.getResidentBytes());
+        assertEquals(1, budget.getEvictionCount());
+    }
+
+    @Test
+    public void testKeepsTexturesThatCannotBeReloaded() {
+        final CountingTexture target = new CountingTexture("target", false);
+        final CountingTexture a = new CountingTexture("a", true);
+        budget.setBudget(SIZE);
+        budget.add(target);
+        budget.add(a);
+        budget.beginFrame();
+        assertEquals(0, target.mRemoves);
+        assertEquals(1, a.mRemoves);
+        assertEquals(SIZE, budget.getResidentBytes());
+    }
+
+    @Test
+    public void testRemove() {
+        final CountingTexture a = new CountingTexture("a", true);
+        final CountingTexture b = new CountingTexture("b", true);
+        budget.setBudget(SIZE);
+        budget.add(a);
+        budget.add(b);
+        budget.beginFrame();
+        assertTrue(budget.isEvicted(a));
+        // The evicted texture has nothing left to delete, the other one has
+        assertFalse(budget.remove(a));
+        assertTrue(budget.remove(b));
+        assertEquals(0, budget.getResidentBytes());
+
+        // Without evicted textures and a budget, binds aren't tracked
+        budget.setBudget(0);
+        budget.add(a);
+        budget.use(a);
+        assertEquals(0, budget.getHitCount());
+    }
+}
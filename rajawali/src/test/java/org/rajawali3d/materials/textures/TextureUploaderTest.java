@@ -0,0 +1,118 @@
+package org.rajawali3d.materials.textures;
+
+import android.opengl.GLES20;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.nio.ByteBuffer;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+
+public class TextureUploaderTest {
+
+    private static final int SIZE = 16;
+    private static final int ROW_BYTES = SIZE * 4;
+
+    private TextureUploader uploader;
+    private List<ASingleTexture> completed;
+
+    @Before
+    public void setUp() {
+        uploader = new TextureUploader();
+        completed = new ArrayList<>();
+    }
+
+    private static void decode(TextureUploader.Job job) {
+        job.setPixels(ByteBuffer.allocateDirect(SIZE * ROW_BYTES), SIZE, SIZE, GLES20.GL_RGBA,
+                      GLES20.GL_UNSIGNED_BYTE, 4);
+    }
+
+    @Test
+    public void testGetSlabRows() {
+        assertEquals(4, TextureUploader.getSlabRows(ROW_BYTES, SIZE, 4 * ROW_BYTES + 1));
+        // Never more than the rows left
+        assertEquals(3, TextureUploader.getSlabRows(ROW_BYTES, 3, 4 * ROW_BYTES));
+        // Always at least one row
+        assertEquals(1, TextureUploader.getSlabRows(ROW_BYTES, SIZE, 0));
+    }
+
+    @Test
+    public void testUploadsWithinByteBudget() {
+        final Texture texture = new Texture("slabs");
+        final TextureUploader.Job job = uploader.submit(texture, 0);
+        uploader.setBytesPerFrame(4 * ROW_BYTES);
+        assertTrue(uploader.isPending(texture));
+
+        // Nothing is uploaded until the image is decoded
+        uploader.upload(completed);
+        assertEquals(0, job.mNextRow);
+
+        decode(job);
+        for (int frame = 1; frame < 4; ++frame) {
+            uploader.upload(completed);
+            assertEquals(4 * frame, job.mNextRow);
+            assertTrue(completed.isEmpty());
+        }
+        uploader.upload(completed);
+        assertEquals(1, completed.size());
+        assertSame(texture, completed.get(0));
+        assertFalse(uploader.isPending(texture));
+        assertEquals(SIZE, texture.getWidth());
+        assertEquals(SIZE, texture.getHeight());
+        assertEquals(GLES20.GL_RGBA, texture.getBitmapFormat());
+    }
+
+    @Test
+    public void testUploadsAtLeastOneSlabPerFrame() {
+        final TextureUploader.Job job = uploader.submit(new Texture("minimum"), 0);
+        uploader.setBytesPerFrame(0);
+        decode(job);
+        uploader.upload(completed);
+        assertEquals(1, job.mNextRow);
+    }
+
+    @Test
+    public void testSkipsJobsStillDecoding() {
+        final TextureUploader.Job first = uploader.submit(new Texture("first"), 0);
+        final TextureUploader.Job second = uploader.submit(new Texture("second"), 0);
+        decode(second);
+        uploader.upload(completed);
+        assertEquals(0, first.mNextRow);
+        assertEquals(1, completed.size());
+        assertSame(second.mTexture, completed.get(0));
+        assertEquals(1, uploader.getPendingCount());
+    }
+
+    @Test
+    public void testDropsFailedAndCancelledJobs() {
+        final TextureUploader.Job failed = uploader.submit(new Texture("failed"), 0);
+        final Texture cancelled = new Texture("cancelled");
+        uploader.submit(cancelled, 0);
+        failed.decode(null);
+        uploader.upload(completed);
+        assertTrue(completed.isEmpty());
+        assertEquals(1, uploader.getPendingCount());
+
+        assertTrue(uploader.cancel(cancelled));
+        assertEquals(-1, cancelled.getTextureId());
+        assertFalse(uploader.cancel(cancelled));
+        assertEquals(0, uploader.getPendingCount());
+    }
+
+    @Test
+    public void testRestartsAfterContextLoss() {
+        final TextureUploader.Job job = uploader.submit(new Texture("restart"), 0);
+        uploader.setBytesPerFrame(4 * ROW_BYTES);
+        decode(job);
+        uploader.upload(completed);
+        assertEquals(4, job.mNextRow);
+        uploader.onContextLost();
+        assertEquals(0, job.mNextRow);
+        assertFalse(job.mAllocated);
+    }
+}
@@ -0,0 +1,153 @@
+package org.rajawali3d.math;
+
+import org.junit.Test;
+import org.rajawali3d.math.vector.Vector3;
+import org.rajawali3d.math.vector.Vector3.Axis;
+
+import java.nio.FloatBuffer;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+public class FloatMatrixTest {
+
+    private static Matrix4 transform(double x, double angle, double scale) {
+        return new Matrix4().setAll(new Vector3(x, -2 * x, 3), new Vector3(scale, 1, 2 * scale),
+                                    new Quaternion().fromAngleAxis(new Vector3(1, 2, 3), angle));
+    }
+
+    private static float[] toFloats(Matrix4 matrix, int offset) {
+        final float[] result = new float[offset + 16];
+        FloatMatrix.set(result, offset, matrix.getDoubleValues(), 0);
+        return result;
+    }
+
+    private static void assertMatrix(Matrix4 expected, float[] actual, int offset, double tolerance) {
+        final double[] values = expected.getDoubleValues();
+        for (int i = 0; i < 16; ++i) {
+            assertEquals("Element " + i, values[i], actual[offset + i], tolerance);
+        }
+    }
+
+    @Test
+    public void testSetAndPut() {
+        final Matrix4 matrix = transform(1, 30, 2);
+        final float[] floats = toFloats(matrix, 3);
+        assertMatrix(matrix, floats, 3, 1e-6);
+
+        final FloatBuffer buffer = FloatBuffer.allocate(20);
+        FloatMatrix.put(buffer, 4, floats, 3);
+        assertEquals(0, buffer.position());
+        for (int i = 0; i < 16; ++i) {
+            assertEquals(floats[3 + i], buffer.get(4 + i), 0);
+        }
+    }
+
+    @Test
+    public void testSetIdentity() {
+        final float[] result = new float[16];
+        FloatMatrix.setIdentity(result, 0);
+        assertMatrix(new Matrix4(), result, 0, 0);
+    }
+
+    @Test
+    public void testMultiply() {
+        final Matrix4 lhs = new Matrix4().setToPerspective(0.1, 100, 60, 1.5);
+        final Matrix4 rhs = transform(2, 45, 3);
+        final float[] result = new float[20];
+        FloatMatrix.multiplyMM(result, 4, toFloats(lhs, 0), 0, toFloats(rhs, 2), 2);
+        assertMatrix(lhs.clone().multiply(rhs), result, 4, 1e-5);
+    }
+
+    @Test
+    public void testMultiplyInPlace() {
+        final Matrix4 lhs = transform(-1, 10, 1);
+        final Matrix4 rhs = transform(2, 45, 3);
+        final float[] left = toFloats(lhs, 0);
+        final float[] right = toFloats(rhs, 0);
+        FloatMatrix.multiplyMM(left, 0, left, 0, right, 0);
+        assertMatrix(lhs.clone().multiply(rhs), left, 0, 1e-5);
+
+        final float[] other = toFloats(lhs, 0);
+        FloatMatrix.multiplyMM(right, 0, other, 0, right, 0);
+        assertMatrix(lhs.clone().multiply(rhs), right, 0, 1e-5);
+    }
+
+    @Test
+    public void testMultiplyAffine() {
+        final Matrix4 lhs = transform(-1, 10, 1);
+        final Matrix4 rhs = transform(2, 45, 3);
+        final float[] result = new float[16];
+        FloatMatrix.multiplyAffineMM(result, 0, toFloats(lhs, 0), 0, toFloats(rhs, 0), 0);
+        assertMatrix(lhs.clone().multiply(rhs), result, 0, 1e-5);
+    }
+
+    @Test
+    public void testInvertAffine() {
+        final Matrix4 matrix = transform(4, 70, 0.5);
+        final float[] result = new float[16];
+        assertTrue(FloatMatrix.invertAffineM(result, 0, toFloats(matrix, 0), 0));
+        assertMatrix(matrix.clone().inverse(), result, 0, 1e-5);
+
+        // And back again, in place
+        assertTrue(FloatMatrix.invertAffineM(result, 0, result, 0));
+        assertMatrix(matrix, result, 0, 1e-5);
+    }
+
+    @Test
+    public void testNormalMatrix() {
+        final Matrix4 matrix = transform(4, 70, 0.5);
+        final double[] expected = matrix.clone().setToNormalMatrix().getDoubleValues();
+        final float[] result = new float[10];
+        assertTrue(FloatMatrix.normalMatrix(result, 1, toFloats(matrix, 0), 0));
+        for (int column = 0; column < 3; ++column) {
+            for (int row = 0; row < 3; ++row) {
+                assertEquals(expected[column * 4 + row], result[1 + column * 3 + row], 1e-5);
+            }
+        }
+    }
+
+    @Test
+    public void testUniformScaleNormalMatrix() {
+        final Matrix4 matrix = new Matrix4().setAll(new Vector3(1, 2, 3), new Vector3(3, 3, 3),
+                                                    new Quaternion().fromAngleAxis(new Vector3(1, 2, 3), 70));
+        final float[] general = new float[9];
+        final float[] uniform = new float[9];
+        assertTrue(FloatMatrix.normalMatrix(general, 0, toFloats(matrix, 0), 0));
+        assertTrue(FloatMatrix.uniformScaleNormalMatrix(uniform, 0, toFloats(matrix, 0), 0));
+        for (int i = 0; i < 9; ++i) {
+            assertEquals(general[i], uniform[i], 1e-6);
+        }
+    }
+
+    @Test
+    public void testSingularMatricesAreRejected() {
+        final float[] singular = toFloats(new Matrix4().setToScale(1, 0, 1), 0);
+        final float[] result = new float[16];
+        result[0] = 7;
+        assertFalse(FloatMatrix.invertAffineM(result, 0, singular, 0));
+        assertFalse(FloatMatrix.normalMatrix(result, 0, singular, 0));
+        assertFalse(FloatMatrix.uniformScaleNormalMatrix(result, 0, toFloats(new Matrix4().zero(), 0), 0));
+        assertEquals(7, result[0], 0);
+    }
+
+    @Test
+    public void testSetTransform() {
+        final Vector3 position = new Vector3(1, 2, 3);
+        final Vector3 scale = new Vector3(2, 3, 4);
+        final Quaternion orientation = new Quaternion().fromAngleAxis(Axis.Z, 33);
+        final float[] result = new float[16];
+        FloatMatrix.setTransform(result, 0, 1, 2, 3, 2, 3, 4, (float) orientation.w, (float) orientation.x,
+                                 (float) orientation.y, (float) orientation.z);
+        assertMatrix(new Matrix4().setAll(position, scale, orientation), result, 0, 1e-6);
+    }
+
+    @Test
+    public void testSetRotation() {
+        final Quaternion orientation = new Quaternion().fromAngleAxis(new Vector3(1, 1, 0), 120);
+        final float[] result = new float[16];
+        FloatMatrix.setRotation(result, 0, orientation);
+        assertMatrix(orientation.toRotationMatrix(), result, 0, 1e-6);
+    }
+}
@@ -1050,6 +1050,45 @@ public class Matrix4Test {
         }
     }
 
+    @Test
+    public void testAffineInverseMatchesGeneralInverse() {
+        final Matrix4 m = new Matrix4().setAll(new Vector3(2, -3, 4), new Vector3(0.5, 2, 3),
+                                               new Quaternion().fromAngleAxis(new Vector3(1, 2, 3), 40));
+        assertTrue(m.isAffine());
+        final double[] expected = new double[16];
+        assertTrue(Matrix.invertM(expected, 0, m.getDoubleValues(), 0));
+        final double[] result = m.clone().affineInverse().getDoubleValues();
+        for (int i = 0; i < expected.length; ++i) {
+            assertEquals(expected[i], result[i], 1e-12);
+        }
+        final double[] viaInverse = m.clone().inverse().getDoubleValues();
+        for (int i = 0; i < expected.length; ++i) {
+            assertEquals(expected[i], viaInverse[i], 1e-12);
+        }
+        assertFalse(new Matrix4().setToPerspective(1, 10, 60, 1).isAffine());
+
+        boolean thrown = false;
+        try {
+            new Matrix4().setToScale(1, 0, 1).affineInverse();
+        } catch (IllegalStateException e) {
+            thrown = true;
+        }
+        assertTrue(thrown);
+    }
+
+    @Test
+    public void testSetToUniformScaleNormalMatrix() {
+        final Matrix4 m = new Matrix4().setAll(new Vector3(2, -3, 4), new Vector3(-2.5, -2.5, -2.5),
+                                               new Quaternion().fromAngleAxis(new Vector3(1, 2, 3), 40));
+        final double[] expected = m.clone().setToNormalMatrix().getDoubleValues();
+        final Matrix4 out = m.setToUniformScaleNormalMatrix();
+        assertTrue(out == m);
+        final double[] result = m.getDoubleValues();
+        for (int i = 0; i < expected.length; ++i) {
+            assertEquals(expected[i], result[i], 1e-12);
+        }
+    }
+
     @Test
     public void testSetToPerspective() {
         final double[] expected = new double[]{
@@ -0,0 +1,80 @@
+package org.rajawali3d.postprocessing.passes;
+
+import org.junit.Test;
+import org.rajawali3d.materials.shaders.AShader;
+import org.rajawali3d.postprocessing.APass;
+import org.rajawali3d.postprocessing.IColorPass;
+import org.rajawali3d.primitives.ScreenQuad;
+import org.rajawali3d.renderer.RenderTarget;
+import org.rajawali3d.renderer.Renderer;
+import org.rajawali3d.scene.Scene;
+
+import java.util.Arrays;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+public class FusedColorPassTest {
+
+    private static class TintPass extends APass implements IColorPass {
+        private final String mTint;
+
+        TintPass(String tint) {
+            mTint = tint;
+        }
+
+        @Override
+        public void render(Scene scene, Renderer renderer, ScreenQuad screenQuad, RenderTarget writeTarget,
+                           RenderTarget readTarget, long elapsedTime, double deltaTime) {
+        }
+
+        @Override
+        public String getColorFunction(String name, String suffix) {
+            return "uniform float uStrength" + suffix + ";\n"
+                   + "vec4 " + name + "(vec4 color) {\n"
+                   + "\treturn color * " + mTint + " * uStrength" + suffix + ";\n"
+                   + "}\n";
+        }
+
+        @Override
+        public String[] getColorFunctionUniforms() {
+            return new String[] { "uStrength" };
+        }
+
+        @Override
+        public void setColorFunctionParams(AShader shader, String[] uniforms) {
+        }
+    }
+
+    @Test
+    public void testCreateFragmentShader() {
+        final String shader = FusedColorPass.createFragmentShader(Arrays.<IColorPass>asList(
+                new TintPass("vec4(1.0, 0.0, 0.0, 1.0)"), new TintPass("vec4(0.5)")));
+
+        // The frame is sampled once
+        assertEquals(shader.indexOf("texture2D"), shader.lastIndexOf("texture2D"));
+        // Each pass gets its own uniforms
+        assertTrue(shader.contains("uniform float uStrength_0;"));
+        assertTrue(shader.contains("uniform float uStrength_1;"));
+        assertTrue(shader.contains("return color * vec4(1.0, 0.0, 0.0, 1.0) * uStrength_0;"));
+        assertTrue(shader.contains("return color * vec4(0.5) * uStrength_1;"));
+        // The passes are applied in order, after their functions are declared
+        final int main = shader.indexOf("void main()");
+        final int first = shader.indexOf("color = colorPass0(color);");
+        final int second = shader.indexOf("color = colorPass1(color);");
+        assertTrue(shader.indexOf("vec4 colorPass1(vec4 color)") < main);
+        assertTrue(main < first);
+        assertTrue(first < second);
+        assertTrue(second < shader.indexOf("gl_FragColor = color;"));
+    }
+
+    @Test
+    public void testCreateUnfusedFragmentShader() {
+        final String shader = FusedColorPass.createFragmentShader(new TintPass("vec4(0.5)"));
+
+        // A pass drawn on its own keeps its uniform names
+        assertTrue(shader.contains("uniform float uStrength;"));
+        assertTrue(shader.contains("return color * vec4(0.5) * uStrength;"));
+        assertTrue(shader.contains("color = colorPass0(color);"));
+    }
+}
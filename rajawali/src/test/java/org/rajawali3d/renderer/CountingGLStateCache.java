@@ -0,0 +1,94 @@
+package org.rajawali3d.renderer;
+
+/**
+ * A {@link GLStateCache} which counts the GL calls it would issue instead of making them, so reductions in driver
+ * calls can be asserted without a GL context.
+ */
+public class CountingGLStateCache extends GLStateCache {
+
+    public int enableCalls;
+    public int cullFaceCalls;
+    public int frontFaceCalls;
+    public int blendFuncCalls;
+    public int depthFuncCalls;
+    public int depthMaskCalls;
+    public int useProgramCalls;
+    public int lineWidthCalls;
+    public float lineWidth;
+    public int activeTextureCalls;
+    public int bindTextureCalls;
+
+    public int getTotalCalls() {
+        return enableCalls + cullFaceCalls + frontFaceCalls + blendFuncCalls + depthFuncCalls + depthMaskCalls
+               + useProgramCalls + lineWidthCalls + activeTextureCalls + bindTextureCalls;
+    }
+
+    public void resetCalls() {
+        enableCalls = 0;
+        cullFaceCalls = 0;
+        frontFaceCalls = 0;
+        blendFuncCalls = 0;
+        depthFuncCalls = 0;
+        depthMaskCalls = 0;
+        useProgramCalls = 0;
+        lineWidthCalls = 0;
+        activeTextureCalls = 0;
+        bindTextureCalls = 0;
+    }
+
+    @Override
+    protected void glEnable(int cap) {
+        ++enableCalls;
+    }
+
+    @Override
+    protected void glDisable(int cap) {
+        ++enableCalls;
+    }
+
+    @Override
+    protected void glCullFace(int mode) {
+        ++cullFaceCalls;
+    }
+
+    @Override
+    protected void glFrontFace(int mode) {
+        ++frontFaceCalls;
+    }
+
+    @Override
+    protected void glBlendFunc(int sFactor, int dFactor) {
+        ++blendFuncCalls;
+    }
+
+    @Override
+    protected void glDepthFunc(int func) {
+        ++depthFuncCalls;
+    }
+
+    @Override
+    protected void glDepthMask(boolean flag) {
+        ++depthMaskCalls;
+    }
+
+    @Override
+    protected void glUseProgram(int program) {
+        ++useProgramCalls;
+    }
+
+    @Override
+    protected void glLineWidth(float width) {
+        ++lineWidthCalls;
+        lineWidth = width;
+    }
+
+    @Override
+    protected void glActiveTexture(int texture) {
+        ++activeTextureCalls;
+    }
+
+    @Override
+    protected void glBindTexture(int target, int texture) {
+        ++bindTextureCalls;
+    }
+}
@@ -0,0 +1,328 @@
+package org.rajawali3d.renderer;
+
+import android.opengl.GLES20;
+import org.junit.Before;
+import org.junit.Test;
+import android.graphics.Color;
+import org.rajawali3d.Object3D;
+import org.rajawali3d.cameras.Camera;
+import org.rajawali3d.cameras.Camera2D;
+import org.rajawali3d.materials.Material;
+import org.rajawali3d.math.Matrix4;
+import org.rajawali3d.math.vector.Vector3;
+import org.rajawali3d.primitives.Line3D;
+import org.rajawali3d.primitives.ScreenQuad;
+
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.Stack;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+
+public class RenderQueueTest {
+
+    private static final int OBJECT_COUNT = 300;
+
+    /**
+     * A material with a fixed program and texture which only touches GL through the state cache.
+     */
+    private static class StubMaterial extends Material {
+        private final int program;
+
+        StubMaterial(int program) {
+            super(true);
+            this.program = program;
+        }
+
+        @Override
+        public int getProgramHandle() {
+            return program;
+        }
+
+        @Override
+        public void useProgram() {
+        }
+
+        @Override
+        public void useProgram(GLStateCache stateCache) {
+            stateCache.useProgram(program);
+        }
+
+        @Override
+        public void bindTextures(GLStateCache stateCache) {
+            stateCache.bindTexture(0, GLES20.GL_TEXTURE_2D, 100 + program);
+        }
+    }
+
+    /**
+     * An object which records its draws instead of issuing them.
+     */
+    private static class StubObject extends Object3D {
+        private final List<Object3D> drawn;
+
+        StubObject(List<Object3D> drawn) {
+            this.drawn = drawn;
+            setData(new float[]{ 0, 0, 0, 1, 0, 0, 0, 1, 0 }, null, null, null, new int[]{ 0, 1, 2 }, false);
+        }
+
+        void setStubMaterial(Material material) {
+            // Bypasses the MaterialManager, which needs a renderer
+            mMaterial = material;
+        }
+
+        @Override
+        protected void setMaterialBuffers(Material material) {
+        }
+
+        @Override
+        protected void drawGeometry(Material material) {
+            drawn.add(this);
+        }
+    }
+
+    /**
+     * A line which records the line width set when it is drawn.
+     */
+    private static class StubLine extends Line3D {
+        private final CountingGLStateCache stateCache;
+        private float drawnWidth;
+
+        StubLine(float thickness, Material material, CountingGLStateCache stateCache) {
+            super(createPoints(), thickness, Color.WHITE);
+            this.stateCache = stateCache;
+            mMaterial = material;
+        }
+
+        private static Stack<Vector3> createPoints() {
+            final Stack<Vector3> points = new Stack<>();
+            points.add(new Vector3(0, 0, -1));
+            points.add(new Vector3(1, 0, -1));
+            return points;
+        }
+
+        @Override
+        protected void setMaterialBuffers(Material material) {
+        }
+
+        @Override
+        protected void drawGeometry(Material material) {
+            drawnWidth = stateCache.lineWidth;
+        }
+    }
+
+    /**
+     * A screen quad which records the camera its shader parameters are set with.
+     */
+    private static class StubScreenQuad extends ScreenQuad {
+        private final List<Object3D> drawn;
+        private Camera shaderCamera;
+
+        StubScreenQuad(Material material, List<Object3D> drawn) {
+            super(false);
+            this.drawn = drawn;
+            mMaterial = material;
+        }
+
+        @Override
+        protected void setShaderParams(Camera camera) {
+            shaderCamera = camera;
+        }
+
+        @Override
+        protected void setMaterialBuffers(Material material) {
+        }
+
+        @Override
+        protected void drawGeometry(Material material) {
+            drawn.add(this);
+        }
+    }
+
+    private final List<Object3D> drawn = new ArrayList<>();
+    private final List<Object3D> objects = new ArrayList<>();
+    private CountingGLStateCache stateCache;
+    private RenderQueue queue;
+    private Camera camera;
+    private Matrix4 vpMatrix;
+
+    @Before
+    public void setup() {
+        stateCache = new CountingGLStateCache();
+        queue = new RenderQueue(stateCache);
+        camera = new Camera();
+        camera.setProjectionMatrix(800, 600);
+        vpMatrix = new Matrix4().setAll(camera.getProjectionMatrix()).multiply(camera.getViewMatrix());
+
+        final Material[] materials = { new StubMaterial(1), new StubMaterial(2), new StubMaterial(3) };
+        for (int i = 0; i < OBJECT_COUNT; ++i) {
+            final StubObject object = new StubObject(drawn);
+            // Interleave the materials, the worst case for unsorted submission
+            object.setStubMaterial(materials[i % materials.length]);
+            object.setPosition(i % 10, 0, -1 - i);
+            objects.add(object);
+        }
+    }
+
+    private void traverse() {
+        queue.begin(camera.getViewMatrix());
+        for (Object3D object : objects) {
+            object.render(camera, vpMatrix, camera.getProjectionMatrix(), camera.getViewMatrix(), null, null, queue);
+        }
+    }
+
+    @Test
+    public void testAllVisibleObjectsQueued() {
+        traverse();
+        assertEquals(OBJECT_COUNT, queue.size());
+        assertTrue(drawn.isEmpty());
+    }
+
+    @Test
+    public void testOpaqueSortedFrontToBackByLayer() {
+        traverse();
+        queue.sort();
+        for (int i = 1; i < queue.size(); ++i) {
+            final RenderQueue.RenderItem previous = queue.get(i - 1);
+            final RenderQueue.RenderItem current = queue.get(i);
+            assertTrue(previous.getSortKey() <= current.getSortKey());
+            final long previousLayer = RenderQueue.getDepthLayer(previous.getDepth());
+            final long currentLayer = RenderQueue.getDepthLayer(current.getDepth());
+            assertTrue(previousLayer <= currentLayer);
+            if (previousLayer == currentLayer) {
+                // Within a depth layer draws are grouped by program, then front to back
+                final int previousProgram = previous.getMaterial().getProgramHandle();
+                final int currentProgram = current.getMaterial().getProgramHandle();
+                assertTrue(previousProgram <= currentProgram);
+                if (previousProgram == currentProgram) {
+                    assertTrue(previous.getDepth() <= current.getDepth());
+                }
+            }
+        }
+        assertEquals(1, queue.get(0).getDepth(), 1e-9);
+    }
+
+    @Test
+    public void testTransparentObjectsDrawnLastBackToFront() {
+        objects.get(2).setTransparent(true);
+        objects.get(200).setTransparent(true);
+        objects.get(5).setBlendingEnabled(true);
+        traverse();
+        queue.sort();
+        assertEquals(OBJECT_COUNT - 3, queue.getOpaqueCount());
+        queue.submit(camera);
+        assertEquals(OBJECT_COUNT, drawn.size());
+        assertSame(objects.get(200), drawn.get(OBJECT_COUNT - 3));
+        assertSame(objects.get(5), drawn.get(OBJECT_COUNT - 2));
+        assertSame(objects.get(2), drawn.get(OBJECT_COUNT - 1));
+    }
+
+    @Test
+    public void testDepthUsesWorldBoundsCenter() {
+        final StubObject object = (StubObject) objects.get(0);
+        // The triangle's bounds are centered on (0.5, 0.5, 0) in model space
+        object.getBoundingBox();
+        object.setPosition(0, 0, -10);
+        traverse();
+        queue.sort();
+        boolean found = false;
+        for (int i = 0; i < queue.size(); ++i) {
+            if (queue.get(i).getObject() == object) {
+                assertEquals(10, queue.get(i).getDepth(), 1e-9);
+                found = true;
+            }
+        }
+        assertTrue(found);
+        final Vector3 center = object.getWorldBoundsCenter(new Vector3());
+        assertEquals(0.5, center.x, 1e-9);
+        assertEquals(0.5, center.y, 1e-9);
+        assertEquals(-10, center.z, 1e-9);
+    }
+
+    @Test
+    public void testSortIsStableAndReusesItems() {
+        traverse();
+        queue.sort();
+        final RenderQueue.RenderItem first = queue.get(0);
+        // Shrinking then growing the queue again must reuse, not duplicate, the pooled items
+        queue.clear();
+        for (int i = 0; i < 5; ++i) {
+            objects.get(i).render(camera, vpMatrix, camera.getProjectionMatrix(), camera.getViewMatrix(), null, null,
+                                  queue);
+        }
+        queue.sort();
+        traverse();
+        queue.sort();
+        final Set<RenderQueue.RenderItem> items = new HashSet<>();
+        for (int i = 0; i < queue.size(); ++i) {
+            items.add(queue.get(i));
+        }
+        assertEquals(OBJECT_COUNT, items.size());
+        assertTrue(items.contains(first));
+    }
+
+    @Test
+    public void testSortedSubmissionElidesStateChanges() {
+        // Unsorted submission with no state tracking, as every object used to set all of its state
+        traverse();
+        for (int i = 0; i < queue.size(); ++i) {
+            stateCache.invalidate();
+            queue.get(i).getObject().draw(camera, queue.get(i).getMaterial(), stateCache);
+        }
+        final int unsortedCalls = stateCache.getTotalCalls();
+        assertEquals(OBJECT_COUNT, stateCache.useProgramCalls);
+
+        stateCache.resetCalls();
+        drawn.clear();
+        traverse();
+        queue.sort();
+        queue.submit(camera);
+        final int sortedCalls = stateCache.getTotalCalls();
+
+        assertEquals(OBJECT_COUNT, drawn.size());
+        // Depths 1 to 300 span 9 depth layers, each drawing the three materials once
+        assertTrue(stateCache.useProgramCalls <= 3 * 9);
+        assertEquals(stateCache.useProgramCalls, stateCache.bindTextureCalls);
+        assertTrue("Sorted submission issued " + sortedCalls + " calls, unsorted " + unsortedCalls,
+                   sortedCalls * 20 < unsortedCalls);
+    }
+
+    @Test
+    public void testQueuedLinesApplyTheirOwnWidth() {
+        final Material material = new StubMaterial(1);
+        final StubLine thin = new StubLine(2, material, stateCache);
+        final StubLine thick = new StubLine(5, material, stateCache);
+        queue.begin(camera.getViewMatrix());
+        thin.render(camera, vpMatrix, camera.getProjectionMatrix(), camera.getViewMatrix(), null, null, queue);
+        thick.render(camera, vpMatrix, camera.getProjectionMatrix(), camera.getViewMatrix(), null, null, queue);
+        assertEquals(2, queue.size());
+        assertEquals(0, stateCache.lineWidthCalls);
+
+        queue.sort();
+        queue.submit(camera);
+        assertEquals(2, thin.drawnWidth, 0);
+        assertEquals(5, thick.drawnWidth, 0);
+        assertEquals(2, stateCache.lineWidthCalls);
+    }
+
+    @Test
+    public void testRenderOverridesDrawnImmediately() {
+        final StubScreenQuad quad = new StubScreenQuad(new StubMaterial(1), drawn);
+        queue.begin(camera.getViewMatrix());
+        quad.render(camera, vpMatrix, camera.getProjectionMatrix(), camera.getViewMatrix(), null, null, queue);
+        // The quad swaps in its own camera when rendered, which a queued draw would lose
+        assertEquals(0, queue.size());
+        assertEquals(1, drawn.size());
+        assertTrue(quad.shaderCamera instanceof Camera2D);
+        assertFalse(quad.shaderCamera == camera);
+
+        // Objects not overriding the render hooks are still queued
+        objects.get(0).render(camera, vpMatrix, camera.getProjectionMatrix(), camera.getViewMatrix(), null, null,
+                              queue);
+        assertEquals(1, queue.size());
+    }
+}
@@ -0,0 +1,76 @@
+package org.rajawali3d.scene;
+
+import org.junit.Before;
+import org.junit.Test;
+import org.rajawali3d.Object3D;
+import org.rajawali3d.scenegraph.IGraphNode.GRAPH_TYPE;
+import org.rajawali3d.util.RenderStats;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotEquals;
+
+public class SceneTest {
+
+    private static final int OBJECT_COUNT = 5;
+
+    private Scene scene;
+
+    @Before
+    public void setup() {
+        scene = new Scene(null, GRAPH_TYPE.OCTREE);
+        scene.getCamera().setProjectionMatrix(800, 600);
+        for (int i = 0; i < OBJECT_COUNT; ++i) {
+            final Object3D object = new Object3D();
+            object.setData(new float[]{ 0, 0, 0, 1, 0, 0, 0, 1, 0 }, new float[]{ 0, 0, 1, 0, 0, 1, 0, 0, 1 }, null,
+                           null, new int[]{ 0, 1, 2 }, false);
+            object.setPosition(i - OBJECT_COUNT / 2, 0, 0);
+            scene.addChild(object);
+        }
+    }
+
+    @Test
+    public void testOctreeSceneReusesViewMatrices() {
+        RenderStats.beginFrame();
+        scene.render(0, 0, null);
+        assertEquals(OBJECT_COUNT, RenderStats.getViewDependentMatrixCount());
+
+        // Nothing moved, so culling and drawing the scene again recalculates nothing
+        RenderStats.beginFrame();
+        scene.render(0, 0, null);
+        assertEquals(0, RenderStats.getModelMatrixCount());
+        assertEquals(0, RenderStats.getBoundsTransformCount());
+        assertEquals(0, RenderStats.getViewDependentMatrixCount());
+
+        // Moving the camera only recalculates the view dependent matrices
+        scene.getCamera().setY(0.5);
+        RenderStats.beginFrame();
+        scene.render(0, 0, null);
+        assertEquals(0, RenderStats.getBoundsTransformCount());
+        assertEquals(OBJECT_COUNT, RenderStats.getViewDependentMatrixCount());
+    }
+
+    @Test
+    public void testOctreeSceneRecalculatesMovedObject() {
+        scene.render(0, 0, null);
+        scene.getChildrenCopy().get(0).setY(0.25);
+
+        RenderStats.beginFrame();
+        scene.render(0, 0, null);
+        assertEquals(1, RenderStats.getModelMatrixCount());
+        assertEquals(1, RenderStats.getBoundsTransformCount());
+        assertEquals(1, RenderStats.getViewDependentMatrixCount());
+    }
+
+    @Test
+    public void testReloadInvalidatesShadowMaps() {
+        scene.render(0, 0, null);
+        scene.render(0, 0, null);
+        final int version = scene.getShadowCasterVersion();
+        scene.render(0, 0, null);
+        assertEquals(version, scene.getShadowCasterVersion());
+
+        // A shadow map rendered before the context was lost can't be kept
+        scene.reload();
+        assertNotEquals(version, scene.getShadowCasterVersion());
+    }
+}
@@ -0,0 +1,135 @@
+package org.rajawali3d.scenegraph;
+
+import org.junit.Before;
+import org.junit.Test;
+import org.rajawali3d.ATransformable3D;
+import org.rajawali3d.bounds.BoundingBox;
+import org.rajawali3d.bounds.IBoundingVolume;
+import org.rajawali3d.cameras.Camera;
+import org.rajawali3d.cameras.Frustum;
+import org.rajawali3d.math.Matrix4;
+import org.rajawali3d.math.vector.Vector3;
+
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Random;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * Compares octree culling against the per-object linear walk {@link org.rajawali3d.scene.Scene} otherwise uses.
+ */
+public class OctreeTest {
+
+    private static final int MEMBER_COUNT = 10000;
+    private static final double EXTENT = 500;
+
+    private final Frustum frustum = new Frustum();
+    private final List<BoxMember> members = new ArrayList<>();
+    private Octree octree;
+
+    /**
+     * Minimal graph member mirroring how {@link org.rajawali3d.Object3D} supplies its transformed bounds.
+     */
+    private static class BoxMember extends ATransformable3D {
+        final BoundingBox box = new BoundingBox(new Vector3(-1, -1, -1), new Vector3(1, 1, 1));
+
+        @Override
+        public IBoundingVolume getTransformedBoundingVolume() {
+            calculateModelMatrix(null);
+            box.transform(mMMatrix);
+            return box;
+        }
+    }
+
+    @Before
+    public void setup() {
+        final Camera camera = new Camera();
+        camera.setFarPlane(250);
+        camera.setPosition(0, 5, 0);
+        camera.setLookAt(0, 5, -100);
+        camera.setProjectionMatrix(800, 600);
+        camera.onRecalculateModelMatrix(null);
+        final Matrix4 vpMatrix = new Matrix4(camera.getProjectionMatrix()).multiply(camera.getViewMatrix());
+        frustum.update(vpMatrix);
+
+        // Scatter the props through a volume around the camera, seeded so every run sees the same scene
+        final Random random = new Random(1234);
+        for (int i = 0; i < MEMBER_COUNT; ++i) {
+            final BoxMember member = new BoxMember();
+            member.setPosition((random.nextDouble() - 0.5) * 2 * EXTENT, (random.nextDouble() - 0.5) * 2 * EXTENT,
+                               (random.nextDouble() - 0.5) * 2 * EXTENT);
+            members.add(member);
+        }
+        octree = new Octree();
+        octree.addObjects(new ArrayList<IGraphNodeMember>(members));
+    }
+
+    private List<IGraphNodeMember> linearCull() {
+        final List<IGraphNodeMember> visible = new ArrayList<>();
+        for (int i = 0, j = members.size(); i < j; ++i) {
+            final BoxMember member = members.get(i);
+            if (frustum.boundsInFrustum((BoundingBox) member.getTransformedBoundingVolume())) {
+                visible.add(member);
+            }
+        }
+        return visible;
+    }
+
+    @Test
+    public void testAllMembersAdded() {
+        assertEquals(members.size(), octree.getObjectCount());
+    }
+
+    @Test
+    public void testCullMatchesLinearWalk() {
+        final List<IGraphNodeMember> expected = linearCull();
+        octree.cullFromFrustum(frustum);
+        final List<IGraphNodeMember> result = octree.getVisibleMembers();
+        assertFalse(expected.isEmpty());
+        assertTrue(expected.size() < members.size());
+        assertEquals(expected.size(), result.size());
+        assertEquals(new HashSet<>(expected), new HashSet<>(result));
+    }
+
+    @Test
+    public void testMovedMemberIsTracked() {
+        octree.cullFromFrustum(frustum);
+        BoxMember member = null;
+        for (BoxMember candidate : members) {
+            if (!octree.getVisibleMembers().contains(candidate)) {
+                member = candidate;
+                break;
+            }
+        }
+        member.setPosition(0, 0, -50);
+        member.onRecalculateModelMatrix(null);
+        octree.cullFromFrustum(frustum);
+        assertTrue(octree.getVisibleMembers().contains(member));
+        octree.removeObject(member);
+        octree.cullFromFrustum(frustum);
+        assertFalse(octree.getVisibleMembers().contains(member));
+        assertEquals(members.size() - 1, octree.getObjectCount());
+    }
+
+    @Test
+    public void testCullFromBoundingVolume() {
+        final BoundingBox volume = new BoundingBox(new Vector3(-15, -5, -15), new Vector3(15, 5, 15));
+        volume.transform(new Matrix4());
+        octree.cullFromBoundingVolume(volume);
+        int expected = 0;
+        for (BoxMember member : members) {
+            if (volume.intersectsWith(member.getTransformedBoundingVolume())) ++expected;
+        }
+        assertEquals(expected, octree.getVisibleMembers().size());
+    }
+
+    @Test
+    public void testCullTestsFewerMembersThanLinearWalk() {
+        octree.cullFromFrustum(frustum);
+        assertTrue(octree.getCullTestCount() < members.size() / 10);
+    }
+}
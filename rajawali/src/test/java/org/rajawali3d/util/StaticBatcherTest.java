@@ -0,0 +1,142 @@
+package org.rajawali3d.util;
+
+import org.junit.Before;
+import org.junit.Test;
+import org.rajawali3d.BatchedObject3D;
+import org.rajawali3d.Object3D;
+import org.rajawali3d.materials.Material;
+import org.rajawali3d.math.Matrix4;
+import org.rajawali3d.math.vector.Vector3;
+
+import java.nio.FloatBuffer;
+import java.util.List;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+
+public class StaticBatcherTest {
+
+    private static final float[] TRIANGLE = new float[]{ 0, 0, 0, 1, 0, 0, 0, 1, 0 };
+    private static final float[] NORMALS  = new float[]{ 0, 0, 1, 0, 0, 1, 0, 0, 1 };
+
+    /**
+     * An object which takes a material without the MaterialManager, which needs a renderer.
+     */
+    private static class StubObject extends Object3D {
+        StubObject(Material material) {
+            setData(TRIANGLE, NORMALS, null, null, new int[]{ 0, 1, 2 }, false);
+            mMaterial = material;
+        }
+    }
+
+    private static class StubBatch extends BatchedObject3D {
+        StubBatch(Object3D[] members, int[] indexOffsets, int[] indexCounts) {
+            super(members, indexOffsets, indexCounts);
+        }
+
+        @Override
+        public void setMaterial(Material material) {
+            mMaterial = material;
+        }
+    }
+
+    private static class StubBatcher extends StaticBatcher {
+        @Override
+        protected BatchedObject3D createBatch(Object3D[] members, int[] indexOffsets, int[] indexCounts) {
+            return new StubBatch(members, indexOffsets, indexCounts);
+        }
+    }
+
+    private Material materialA;
+    private Material materialB;
+
+    @Before
+    public void setUp() {
+        materialA = new Material(true);
+        materialB = new Material(true);
+    }
+
+    @Test
+    public void testGroupsByMaterial() {
+        final Object3D root = new Object3D();
+        for (int i = 0; i < 10; ++i) {
+            root.addChild(new StubObject(i % 2 == 0 ? materialA : materialB));
+        }
+
+        final List<BatchedObject3D> batches = new StubBatcher().batch(root);
+        assertEquals(2, batches.size());
+        assertSame(materialA, batches.get(0).getMaterial());
+        assertSame(materialB, batches.get(1).getMaterial());
+        for (BatchedObject3D batch : batches) {
+            assertEquals(5, batch.getMemberCount());
+            assertEquals(15, batch.getGeometry().getNumIndices());
+        }
+    }
+
+    @Test
+    public void testMembersAreTransformedAndIndexed() {
+        final Object3D root = new Object3D();
+        root.setPosition(0, 0, -5);
+        final Object3D first = new StubObject(materialA);
+        final Object3D second = new StubObject(materialA);
+        second.setPosition(10, 0, 0);
+        second.setScale(2);
+        second.rotate(Vector3.Axis.Y, 90);
+        root.addChild(first);
+        root.addChild(second);
+
+        final BatchedObject3D batch = new StubBatcher().batch(root).get(0);
+        final FloatBuffer vertices = batch.getGeometry().getVertices();
+        final FloatBuffer normals = batch.getGeometry().getNormals();
+
+        // The first member is only moved by the root
+        assertEquals(1, vertices.get(3), 1e-6);
+        assertEquals(-5, vertices.get(5), 1e-6);
+
+        // The second member's unit x vertex is scaled, rotated onto the z axis and moved
+        final Vector3 v = new Vector3(1, 0, 0);
+        v.multiply(new Matrix4().setAll(second.getPosition(), second.getScale(), second.getOrientation()));
+        v.add(0, 0, -5);
+        assertEquals(v.x, vertices.get(12), 1e-5);
+        assertEquals(v.y, vertices.get(13), 1e-5);
+        assertEquals(v.z, vertices.get(14), 1e-5);
+        assertEquals(1, Math.sqrt(normals.get(9) * normals.get(9) + normals.get(10) * normals.get(10)
+                                  + normals.get(11) * normals.get(11)), 1e-5);
+        assertEquals(0, Math.abs(normals.get(11)), 1e-5);
+
+        assertEquals(3, batch.getMemberIndexOffset(1));
+        assertEquals(3, batch.getGeometry().getIndex(3));
+        assertEquals(5, batch.getGeometry().getIndex(5));
+    }
+
+    @Test
+    public void testSkipsContainersAndObjectsWithoutMaterial() {
+        final Object3D root = new Object3D();
+        root.addChild(new StubObject(null));
+        root.addChild(new StubObject(materialA));
+
+        final List<BatchedObject3D> batches = new StubBatcher().batch(root);
+        assertEquals(1, batches.size());
+        assertEquals(1, batches.get(0).getMemberCount());
+    }
+
+    @Test
+    public void testMemberVisibility() {
+        final Object3D root = new Object3D();
+        final Object3D hidden = new StubObject(materialA);
+        hidden.setVisible(false);
+        final Object3D shown = new StubObject(materialA);
+        root.addChild(hidden);
+        root.addChild(shown);
+
+        final BatchedObject3D batch = new StubBatcher().batch(root).get(0);
+        assertFalse(batch.isMemberVisible(0));
+        assertTrue(batch.isMemberVisible(1));
+
+        batch.setMemberVisible(hidden, true);
+        assertTrue(batch.isMemberVisible(0));
+        assertEquals(-1, batch.indexOfMember(root));
+    }
+}